@@ -0,0 +1,58 @@
+package com.globetrotter.globetrotterbackend.cache;
+
+import jakarta.persistence.ManyToMany;
+import jakarta.persistence.OneToMany;
+import tools.jackson.databind.JavaType;
+import tools.jackson.databind.cfg.MapperConfig;
+import tools.jackson.databind.introspect.AnnotatedMember;
+import tools.jackson.databind.introspect.JacksonAnnotationIntrospector;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.function.Function;
+
+/**
+ * Turns a cached value into the bytes the shared tier stores, and back. The local tier
+ * keeps the value itself, so only entries crossing to or from the shared tier pay for this.
+ */
+public interface CacheValueCodec {
+
+    byte[] encode(Object value);
+
+    Object decode(byte[] bytes);
+
+    static CacheValueCodec of(Function<Object, byte[]> encoder, Function<byte[], Object> decoder) {
+        return new CacheValueCodec() {
+            @Override
+            public byte[] encode(Object value) {
+                return encoder.apply(value);
+            }
+
+            @Override
+            public Object decode(byte[] bytes) {
+                return decoder.apply(bytes);
+            }
+        };
+    }
+
+    // Use storeMapper for entities, or fields hidden from API clients come back from the shared tier unset
+    static CacheValueCodec json(JsonMapper jsonMapper, JavaType type) {
+        return of(jsonMapper::writeValueAsBytes, bytes -> jsonMapper.readValue(bytes, type));
+    }
+
+    /**
+     * The API mapper with {@code @JsonIgnore} honoured only on to-many associations, which are
+     * lazy and lead back to the cached entity. Every other field an entity keeps from clients,
+     * such as a product's rating total, is stored with it.
+     */
+    static JsonMapper storeMapper(JsonMapper apiMapper) {
+        return apiMapper.rebuild()
+                .annotationIntrospector(new JacksonAnnotationIntrospector() {
+                    @Override
+                    public boolean hasIgnoreMarker(MapperConfig<?> config, AnnotatedMember member) {
+                        return (member.hasAnnotation(OneToMany.class) || member.hasAnnotation(ManyToMany.class))
+                                && super.hasIgnoreMarker(config, member);
+                    }
+                })
+                .build();
+    }
+}
@@ -0,0 +1,62 @@
+package com.globetrotter.globetrotterbackend.cache;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * In-process stand-in for the networked store, for tests and single-instance deployments.
+ * Values keep the encoded form a networked store would hold, so the same codecs run either
+ * way. Messages go straight to every listener in this JVM; expired entries are dropped when
+ * they are next read or cleared.
+ */
+public class InMemoryCacheStore implements RemoteCacheStore {
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public byte[] get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt() - System.nanoTime() <= 0) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry.value();
+    }
+
+    @Override
+    public void put(String key, byte[] value, Duration ttl) {
+        entries.put(key, new Entry(value, System.nanoTime() + ttl.toNanos()));
+    }
+
+    @Override
+    public void delete(String key) {
+        entries.remove(key);
+    }
+
+    @Override
+    public void deleteByPrefix(String prefix) {
+        entries.keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    @Override
+    public void publish(String message) {
+        for (Listener listener : listeners) {
+            listener.onMessage(message);
+        }
+    }
+
+    @Override
+    public void subscribe(Listener listener) {
+        listeners.add(listener);
+    }
+
+    private record Entry(byte[] value, long expiresAt) {
+    }
+}
@@ -0,0 +1,168 @@
+package com.globetrotter.globetrotterbackend.cache;
+
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.KeyScanCursor;
+import io.lettuce.core.RedisChannelHandler;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisConnectionStateListener;
+import io.lettuce.core.ScanArgs;
+import io.lettuce.core.SetArgs;
+import io.lettuce.core.SocketOptions;
+import io.lettuce.core.TimeoutOptions;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.sync.RedisCommands;
+import io.lettuce.core.codec.ByteArrayCodec;
+import io.lettuce.core.codec.RedisCodec;
+import io.lettuce.core.codec.StringCodec;
+import io.lettuce.core.pubsub.RedisPubSubAdapter;
+import io.lettuce.core.pubsub.StatefulRedisPubSubConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.SocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Store on any server speaking the Redis protocol. Commands fail after {@code timeout}
+ * and are rejected outright while the connection is down, so a lost server costs a
+ * request at most one timeout. Lettuce reconnects and resubscribes on its own; the first
+ * connection after a failure or disconnect is reported to listeners as a reconnect.
+ */
+public class RedisCacheStore implements RemoteCacheStore, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(RedisCacheStore.class);
+
+    private static final RedisCodec<String, byte[]> CODEC = RedisCodec.of(StringCodec.UTF8, ByteArrayCodec.INSTANCE);
+    private static final int SCAN_BATCH = 500;
+
+    private final RedisClient client;
+    private final String channel;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    private volatile StatefulRedisConnection<String, byte[]> connection;
+    private StatefulRedisPubSubConnection<String, String> subscription;
+    private volatile boolean missedMessages;
+
+    public RedisCacheStore(String uri, Duration timeout, String channel) {
+        this.channel = channel;
+        client = RedisClient.create(uri);
+        client.setOptions(ClientOptions.builder()
+                .autoReconnect(true)
+                .disconnectedBehavior(ClientOptions.DisconnectedBehavior.REJECT_COMMANDS)
+                .socketOptions(SocketOptions.builder().connectTimeout(timeout).build())
+                .timeoutOptions(TimeoutOptions.enabled(timeout))
+                .build());
+        client.addListener(new RedisConnectionStateListener() {
+            @Override
+            public void onRedisConnected(RedisChannelHandler<?, ?> handler, SocketAddress address) {
+                if (missedMessages) {
+                    missedMessages = false;
+                    listeners.forEach(Listener::onReconnect);
+                }
+            }
+
+            @Override
+            public void onRedisDisconnected(RedisChannelHandler<?, ?> handler) {
+                missedMessages = true;
+            }
+        });
+
+        try {
+            connection();
+        } catch (RuntimeException e) {
+            log.warn("Cache store at {} is unreachable, starting with the local tier only: {}", uri, e.getMessage());
+        }
+    }
+
+    @Override
+    public byte[] get(String key) {
+        return connection().sync().get(key);
+    }
+
+    @Override
+    public void put(String key, byte[] value, Duration ttl) {
+        connection().sync().set(key, value, SetArgs.Builder.px(ttl.toMillis()));
+    }
+
+    @Override
+    public void delete(String key) {
+        connection().sync().unlink(key);
+    }
+
+    @Override
+    public void deleteByPrefix(String prefix) {
+        RedisCommands<String, byte[]> commands = connection().sync();
+        ScanArgs match = ScanArgs.Builder.matches(prefix + "*").limit(SCAN_BATCH);
+        KeyScanCursor<String> cursor = commands.scan(match);
+        while (true) {
+            if (!cursor.getKeys().isEmpty()) {
+                commands.unlink(cursor.getKeys().toArray(String[]::new));
+            }
+            if (cursor.isFinished()) {
+                return;
+            }
+            cursor = commands.scan(cursor, match);
+        }
+    }
+
+    @Override
+    public void publish(String message) {
+        connection().sync().publish(channel, message.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void subscribe(Listener listener) {
+        listeners.add(listener);
+    }
+
+    // Connects on first use and again after a failed attempt; once up, Lettuce keeps both connections alive
+    private StatefulRedisConnection<String, byte[]> connection() {
+        StatefulRedisConnection<String, byte[]> current = connection;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (connection == null) {
+                StatefulRedisConnection<String, byte[]> commands = null;
+                StatefulRedisPubSubConnection<String, String> pubSub = null;
+                try {
+                    commands = client.connect(CODEC);
+                    pubSub = client.connectPubSub();
+                    pubSub.addListener(new RedisPubSubAdapter<>() {
+                        @Override
+                        public void message(String channel, String message) {
+                            listeners.forEach(listener -> listener.onMessage(message));
+                        }
+                    });
+                    pubSub.sync().subscribe(channel);
+                    subscription = pubSub;
+                    connection = commands;
+                } catch (RuntimeException e) {
+                    missedMessages = true;
+                    if (pubSub != null) {
+                        pubSub.close();
+                    }
+                    if (commands != null) {
+                        commands.close();
+                    }
+                    throw e;
+                }
+            }
+            return connection;
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (subscription != null) {
+            subscription.close();
+        }
+        if (connection != null) {
+            connection.close();
+        }
+        client.shutdown();
+    }
+}
@@ -0,0 +1,31 @@
+package com.globetrotter.globetrotterbackend.cache;
+
+import java.time.Duration;
+
+/**
+ * Second cache tier, shared by every backend instance, plus the channel instances use
+ * to tell each other which first-tier entries to drop. Any call may throw when the
+ * store is unreachable; {@link TwoTierCacheManager} then carries on with its local tier.
+ */
+public interface RemoteCacheStore {
+
+    byte[] get(String key);
+
+    void put(String key, byte[] value, Duration ttl);
+
+    void delete(String key);
+
+    void deleteByPrefix(String prefix);
+
+    void publish(String message);
+
+    void subscribe(Listener listener);
+
+    interface Listener {
+
+        void onMessage(String message);
+
+        // Messages published while this instance was cut off from the store are gone
+        void onReconnect();
+    }
+}
@@ -0,0 +1,158 @@
+package com.globetrotter.globetrotterbackend.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Spring cache over a per-instance Caffeine tier and the shared store. Reads try the local
+ * tier, then the shared one, then the loader, filling the tiers on the way back. Evictions
+ * clear both tiers here and ask the other instances to drop their local copy. Keys are
+ * stored in their string form, which is what travels in invalidation messages.
+ * <p>
+ * A load that overlaps an eviction or clear, here or on another instance, may have read
+ * the value from before the write that caused it. Such a load is handed to its caller but
+ * not kept in either tier, so it cannot outlive the eviction for the shared tier's TTL.
+ */
+public class TwoTierCache extends AbstractValueAdaptingCache {
+
+    private static final Logger log = LoggerFactory.getLogger(TwoTierCache.class);
+
+    private final String name;
+    private final Cache<String, Object> local;
+    private final Duration remoteTtl;
+    private final CacheValueCodec codec;
+    private final TwoTierCacheManager manager;
+    // Bumped by every eviction and clear, local or announced, so loads can tell they overlapped one
+    private final AtomicLong generation = new AtomicLong();
+
+    TwoTierCache(String name, Cache<String, Object> local, Duration remoteTtl, CacheValueCodec codec,
+                 TwoTierCacheManager manager) {
+        super(false);
+        this.name = name;
+        this.local = local;
+        this.remoteTtl = remoteTtl;
+        this.codec = codec;
+        this.manager = manager;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Cache<String, Object> getNativeCache() {
+        return local;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        String id = String.valueOf(key);
+        Object value = local.getIfPresent(id);
+        if (value == null) {
+            value = loadRemote(id);
+            if (value != null) {
+                local.put(id, value);
+            }
+        }
+        return value;
+    }
+
+    // Caffeine runs the mapping once per key, so concurrent misses share one shared-tier read and one load
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        String id = String.valueOf(key);
+        long seen = generation.get();
+        T value = (T) local.get(id, ignored -> {
+            Object remote = loadRemote(id);
+            if (remote != null) {
+                return remote;
+            }
+            T loaded;
+            try {
+                loaded = valueLoader.call();
+            } catch (Exception e) {
+                throw new ValueRetrievalException(key, valueLoader, e);
+            }
+            if (loaded != null && generation.get() == seen) {
+                putRemote(id, loaded);
+                // The eviction's delete may have reached the store before this put
+                if (generation.get() != seen) {
+                    manager.remote(store -> store.delete(manager.remoteKey(name, id)));
+                }
+            }
+            return loaded;
+        });
+        if (generation.get() != seen) {
+            local.invalidate(id);
+        }
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        String id = String.valueOf(key);
+        Object stored = toStoreValue(value);
+        local.put(id, stored);
+        putRemote(id, stored);
+    }
+
+    @Override
+    public void evict(Object key) {
+        String id = String.valueOf(key);
+        generation.incrementAndGet();
+        local.invalidate(id);
+        manager.remote(store -> store.delete(manager.remoteKey(name, id)));
+        manager.publishEvict(name, id);
+    }
+
+    @Override
+    public void clear() {
+        generation.incrementAndGet();
+        local.invalidateAll();
+        manager.remote(store -> store.deleteByPrefix(manager.remoteKey(name, "")));
+        manager.publishClear(name);
+    }
+
+    void evictLocal(String id) {
+        generation.incrementAndGet();
+        local.invalidate(id);
+    }
+
+    void clearLocal() {
+        generation.incrementAndGet();
+        local.invalidateAll();
+    }
+
+    private Object loadRemote(String id) {
+        byte[] bytes = manager.remote(store -> store.get(manager.remoteKey(name, id)), null);
+        if (bytes == null) {
+            return null;
+        }
+        try {
+            return codec.decode(bytes);
+        } catch (RuntimeException e) {
+            // Written by an instance running an older shape of the value; reload it from the database
+            log.warn("Dropping unreadable {} entry {}: {}", name, id, e.getMessage());
+            return null;
+        }
+    }
+
+    private void putRemote(String id, Object value) {
+        byte[] bytes;
+        try {
+            bytes = codec.encode(value);
+        } catch (RuntimeException e) {
+            log.warn("Keeping {} entry {} local, it cannot be encoded: {}", name, id, e.getMessage());
+            return;
+        }
+        manager.remote(store -> store.put(manager.remoteKey(name, id), bytes, remoteTtl));
+    }
+}
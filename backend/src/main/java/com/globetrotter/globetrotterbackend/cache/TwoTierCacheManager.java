@@ -0,0 +1,148 @@
+package com.globetrotter.globetrotterbackend.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.CacheManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Cache manager for {@link TwoTierCache}s sharing one {@link RemoteCacheStore}. Invalidations
+ * from other instances drop entries from the local tier; this instance ignores its own.
+ * <p>
+ * When a store call fails the store is skipped for {@code retryInterval} and caches run on
+ * their local tier alone. Invalidations sent in the meantime never arrive, so once the store
+ * answers again, or reports a reconnect, every local tier is cleared.
+ */
+public class TwoTierCacheManager implements CacheManager, RemoteCacheStore.Listener {
+
+    private static final Logger log = LoggerFactory.getLogger(TwoTierCacheManager.class);
+
+    private static final String KEY_PREFIX = "globetrotter:cache:";
+    private static final String EVICT = "evict";
+    private static final String CLEAR = "clear";
+
+    private final RemoteCacheStore store;
+    private final Duration retryInterval;
+    private final MeterRegistry meterRegistry;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final Map<String, TwoTierCache> caches = new ConcurrentHashMap<>();
+    private final Counter failures;
+
+    private volatile boolean remoteDown;
+    private volatile long retryAt;
+
+    public TwoTierCacheManager(RemoteCacheStore store, Duration retryInterval, MeterRegistry meterRegistry) {
+        this.store = store;
+        this.retryInterval = retryInterval;
+        this.meterRegistry = meterRegistry;
+        failures = Counter.builder("cache.remote.failures")
+                .description("Shared cache tier calls that failed and fell back to the local tier")
+                .register(meterRegistry);
+        Gauge.builder("cache.remote.available", this, manager -> manager.remoteDown ? 0 : 1)
+                .register(meterRegistry);
+        store.subscribe(this);
+    }
+
+    public void addCache(String name, Caffeine<Object, Object> local, Duration remoteTtl, CacheValueCodec codec) {
+        Cache<String, Object> localCache = local.build();
+        CaffeineCacheMetrics.monitor(meterRegistry, localCache, name);
+        caches.put(name, new TwoTierCache(name, localCache, remoteTtl, codec, this));
+    }
+
+    @Override
+    public TwoTierCache getCache(String name) {
+        return caches.get(name);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+
+    public boolean isRemoteAvailable() {
+        return !remoteDown;
+    }
+
+    @Override
+    public void onMessage(String message) {
+        String[] parts = message.split("\\|", 4);
+        if (parts.length < 3 || parts[0].equals(instanceId)) {
+            return;
+        }
+        TwoTierCache cache = caches.get(parts[2]);
+        if (cache == null) {
+            return;
+        }
+        if (parts[1].equals(CLEAR)) {
+            cache.clearLocal();
+        } else if (parts[1].equals(EVICT) && parts.length == 4) {
+            cache.evictLocal(parts[3]);
+        }
+    }
+
+    @Override
+    public void onReconnect() {
+        log.info("Shared cache tier reconnected, clearing local caches that may have missed invalidations");
+        clearLocal();
+    }
+
+    void publishEvict(String cacheName, String key) {
+        remote(store -> store.publish(instanceId + "|" + EVICT + "|" + cacheName + "|" + key));
+    }
+
+    void publishClear(String cacheName) {
+        remote(store -> store.publish(instanceId + "|" + CLEAR + "|" + cacheName));
+    }
+
+    String remoteKey(String cacheName, String key) {
+        return KEY_PREFIX + cacheName + ":" + key;
+    }
+
+    void remote(Consumer<RemoteCacheStore> call) {
+        remote(store -> {
+            call.accept(store);
+            return null;
+        }, null);
+    }
+
+    <T> T remote(Function<RemoteCacheStore, T> call, T fallback) {
+        if (remoteDown && System.nanoTime() - retryAt < 0) {
+            return fallback;
+        }
+        try {
+            T result = call.apply(store);
+            if (remoteDown) {
+                remoteDown = false;
+                log.info("Shared cache tier is reachable again, clearing local caches that may have missed invalidations");
+                clearLocal();
+            }
+            return result;
+        } catch (RuntimeException e) {
+            failures.increment();
+            retryAt = System.nanoTime() + retryInterval.toNanos();
+            if (!remoteDown) {
+                remoteDown = true;
+                log.warn("Shared cache tier failed, using local caches only for {}: {}", retryInterval, e.getMessage());
+            }
+            return fallback;
+        }
+    }
+
+    private void clearLocal() {
+        caches.values().forEach(TwoTierCache::clearLocal);
+    }
+}
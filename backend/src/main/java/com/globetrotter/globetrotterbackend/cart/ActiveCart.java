@@ -0,0 +1,211 @@
+package com.globetrotter.globetrotterbackend.cart;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Semaphore;
+
+/**
+ * The in-memory state of one user's cart. Every change bumps {@code version} and stamps the
+ * lines it touches with it, so the changes not yet written are those stamped after
+ * {@code flushedVersion}; a line changed several times between flushes is written once.
+ * {@code revision} is the carts row revision this copy was loaded at or last wrote.
+ * <p>
+ * Instances are only touched under the lock of their {@link CartStore} stripe.
+ */
+public final class ActiveCart {
+
+    private final Long userId;
+    private Long cartId;
+    private LocalDateTime createdAt;
+    private final Map<Long, Line> lines = new LinkedHashMap<>();
+    // Product id to the version that removed its line
+    private final Map<Long, Long> removed = new HashMap<>();
+    private long version;
+    private long flushedVersion;
+    private long clearedAt;
+    private long lastAccess = System.nanoTime();
+    private long revision;
+    // While a checkout is in flight, the quantity it orders of each line still only added to since
+    private Map<Long, Integer> ordering;
+    private long orderingVersion;
+
+    // Held while the cart is written, so checkout and the background flush never write it at once
+    final Semaphore writing = new Semaphore(1);
+
+    ActiveCart(Long userId, Long cartId, LocalDateTime createdAt, long revision, List<Line> persisted) {
+        this.userId = userId;
+        this.cartId = cartId;
+        this.createdAt = createdAt;
+        this.revision = revision;
+        persisted.forEach(line -> lines.put(line.productId(), line));
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Long getCartId() {
+        return cartId;
+    }
+
+    public Optional<Line> getLine(Long productId) {
+        return Optional.ofNullable(lines.get(productId));
+    }
+
+    // Adds to the quantity of an existing line, keeping the price it was first added at
+    public Line add(Long productId, int quantity, Double price) {
+        Line current = lines.get(productId);
+        Line line = current == null
+                ? new Line(null, productId, quantity, price, ++version)
+                : new Line(current.itemId(), productId, current.quantity() + quantity, current.price(), ++version);
+        lines.put(productId, line);
+        removed.remove(productId);
+        return line;
+    }
+
+    public Optional<Line> setQuantity(Long productId, int quantity) {
+        Line current = lines.get(productId);
+        if (current == null) {
+            return Optional.empty();
+        }
+        Line line = new Line(current.itemId(), productId, quantity, current.price(), ++version);
+        lines.put(productId, line);
+        if (ordering != null) {
+            ordering.remove(productId);
+        }
+        return Optional.of(line);
+    }
+
+    public boolean remove(Long productId) {
+        if (lines.remove(productId) == null) {
+            return false;
+        }
+        removed.put(productId, ++version);
+        if (ordering != null) {
+            ordering.remove(productId);
+        }
+        return true;
+    }
+
+    public void clear() {
+        lines.clear();
+        removed.clear();
+        clearedAt = ++version;
+        if (ordering != null) {
+            ordering.clear();
+        }
+    }
+
+    public Snapshot snapshot() {
+        return new Snapshot(cartId, createdAt, List.copyOf(lines.values()));
+    }
+
+    boolean isDirty() {
+        return version > flushedVersion;
+    }
+
+    boolean isIdleSince(long nanos) {
+        return lastAccess - nanos < 0;
+    }
+
+    void touch() {
+        lastAccess = System.nanoTime();
+    }
+
+    long getRevision() {
+        return revision;
+    }
+
+    void created(Long cartId, LocalDateTime createdAt, long revision) {
+        if (this.cartId == null) {
+            this.cartId = cartId;
+            this.createdAt = createdAt;
+            this.revision = revision;
+        }
+    }
+
+    // The changes made since the last flush, or null if there are none to write
+    Pending pending() {
+        if (cartId == null || !isDirty()) {
+            return null;
+        }
+        return changes();
+    }
+
+    // What checkout's flush writes, even with no changes, as the revision must move past any other copy
+    Pending checkingOut() {
+        if (cartId == null) {
+            return null;
+        }
+        ordering = new HashMap<>();
+        lines.forEach((productId, line) -> ordering.put(productId, line.quantity()));
+        orderingVersion = version;
+        return changes();
+    }
+
+    private Pending changes() {
+        List<Line> upserts = new ArrayList<>();
+        for (Line line : lines.values()) {
+            if (line.changedAt() > flushedVersion) {
+                upserts.add(line);
+            }
+        }
+        List<Long> deletes = new ArrayList<>();
+        removed.forEach((productId, removedAt) -> {
+            if (removedAt > flushedVersion) {
+                deletes.add(productId);
+            }
+        });
+        return new Pending(userId, cartId, version, revision, clearedAt > flushedVersion, upserts, deletes);
+    }
+
+    void flushed(Pending written, Map<Long, Long> itemIds) {
+        flushedVersion = Math.max(flushedVersion, written.version());
+        revision = written.revision() + 1;
+        removed.values().removeIf(removedAt -> removedAt <= flushedVersion);
+        itemIds.forEach((productId, itemId) -> {
+            Line line = lines.get(productId);
+            if (line != null && line.itemId() == null) {
+                lines.put(productId, new Line(itemId, productId, line.quantity(), line.price(), line.changedAt()));
+            }
+        });
+    }
+
+    /**
+     * Checkout ordered and deleted the lines written by its flush; later changes stay pending.
+     * A line only added to since keeps just the added quantity. False if this copy never
+     * started the checkout, having been loaded while it was in flight.
+     */
+    boolean checkedOut() {
+        if (ordering == null) {
+            return false;
+        }
+        lines.values().removeIf(line -> line.changedAt() <= orderingVersion);
+        lines.replaceAll((productId, line) -> new Line(null, productId,
+                line.quantity() - ordering.getOrDefault(productId, 0), line.price(), line.changedAt()));
+        ordering = null;
+        return true;
+    }
+
+    void checkoutEnded() {
+        ordering = null;
+    }
+
+    /**
+     * A cart line; {@code itemId} is the cart_items row id, null until the line is first written.
+     */
+    public record Line(Long itemId, Long productId, int quantity, Double price, long changedAt) {
+    }
+
+    public record Snapshot(Long cartId, LocalDateTime createdAt, List<Line> lines) {
+    }
+
+    record Pending(Long userId, Long cartId, long version, long revision, boolean clear, List<Line> upserts,
+                   List<Long> deletes) {
+    }
+}
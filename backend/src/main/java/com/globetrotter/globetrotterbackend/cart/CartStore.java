@@ -0,0 +1,370 @@
+package com.globetrotter.globetrotterbackend.cart;
+
+import com.globetrotter.globetrotterbackend.model.Cart;
+import com.globetrotter.globetrotterbackend.model.User;
+import com.globetrotter.globetrotterbackend.repository.CartRepository;
+import com.globetrotter.globetrotterbackend.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Active carts, held in memory and written behind to carts and cart_items. Carts are spread
+ * over lock stripes by user id; a cart is loaded on first use, and changes only touch memory.
+ * Every {@code cart.write-behind.flush-interval-ms} the changes made since the last flush are
+ * written, one transaction per cart, so a crash loses at most that interval of cart edits.
+ * Checkout writes the cart in its own transaction before reading it, shutdown writes every
+ * cart, and carts idle for {@code cart.write-behind.idle-timeout} are dropped once written.
+ * <p>
+ * Each user's cart calls should reach the instance holding the cart. When they are moved to
+ * another instance and back, as after a failover, the copy left behind is stale: every write
+ * moves the carts row's revision on from the one it was loaded at, and fails when another
+ * instance moved it first, dropping the copy instead. A cart unused for
+ * {@code cart.write-behind.revalidate-after} is checked against the row before it is used.
+ */
+@Component
+public class CartStore {
+
+    private static final Logger log = LoggerFactory.getLogger(CartStore.class);
+
+    private static final int STRIPES = 64;
+
+    private static final String BUMP_REVISION = "UPDATE carts SET revision = COALESCE(revision, 0) + 1 "
+            + "WHERE id = ? AND COALESCE(revision, 0) = ?";
+    private static final String REVISION = "SELECT COALESCE(revision, 0) FROM carts WHERE user_id = ?";
+    private static final String CLEAR = "DELETE FROM cart_items WHERE cart_id = ?";
+    private static final String DELETE_LINE = "DELETE FROM cart_items WHERE cart_id = ? AND product_id = ?";
+    // Lines of products deleted since they were added are skipped rather than failing the cart
+    private static final String UPSERT_LINE = "INSERT INTO cart_items (cart_id, product_id, quantity, price) "
+            + "SELECT ?, ?, ?, ? WHERE EXISTS (SELECT 1 FROM products WHERE id = ?) "
+            + "ON CONFLICT (cart_id, product_id) DO UPDATE SET quantity = EXCLUDED.quantity, price = EXCLUDED.price "
+            + "RETURNING id";
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${cart.write-behind.idle-timeout:30m}")
+    private Duration idleTimeout;
+
+    @Value("${cart.write-behind.revalidate-after:5s}")
+    private Duration revalidateAfter;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    public CartStore() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Runs {@code action} on the user's cart under its stripe lock. With {@code createRow} a
+     * user without a carts row gets one first; that insert is the only write made inline.
+     */
+    public <T> T withCart(Long userId, boolean createRow, Function<ActiveCart, T> action) {
+        Stripe stripe = stripe(userId);
+        while (true) {
+            ActiveCart cart = activeCart(stripe, userId, createRow);
+            stripe.lock.lock();
+            try {
+                // Otherwise it was dropped in the meantime and is loaded again
+                if (stripe.carts.get(userId) == cart) {
+                    cart.touch();
+                    return action.apply(cart);
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Writes the user's pending cart changes in the caller's transaction, for checkout to read
+     * the cart from the database. The background flush leaves the cart alone until that
+     * transaction completes.
+     */
+    public void flush(Long userId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Cart flush needs an active transaction");
+        }
+        Stripe stripe = stripe(userId);
+        ActiveCart cart;
+        while (true) {
+            cart = activeCart(stripe, userId, false);
+            cart.writing.acquireUninterruptibly();
+            ActiveCart held = cart;
+            if (locked(stripe, () -> stripe.carts.get(userId) == held)) {
+                break;
+            }
+            cart.writing.release();
+        }
+        ActiveCart flushed = cart;
+        ActiveCart.Pending written = locked(stripe, cart::checkingOut);
+        Map<Long, Long> itemIds = Map.of();
+        try {
+            if (written != null) {
+                itemIds = write(written);
+            }
+        } catch (StaleCartException e) {
+            // Checkout orders what the database holds; this copy's unwritten changes are lost, as in a crash
+            log.warn("Dropping stale cart of user {} at checkout", userId);
+            locked(stripe, () -> stripe.carts.remove(userId, flushed));
+            written = null;
+        } catch (RuntimeException e) {
+            locked(stripe, () -> {
+                flushed.checkoutEnded();
+                return null;
+            });
+            cart.writing.release();
+            throw e;
+        }
+        ActiveCart.Pending pending = written;
+        Map<Long, Long> writtenIds = itemIds;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                if (pending != null) {
+                    locked(stripe, () -> {
+                        flushed.flushed(pending, writtenIds);
+                        return null;
+                    });
+                }
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                locked(stripe, () -> {
+                    flushed.checkoutEnded();
+                    return null;
+                });
+                flushed.writing.release();
+            }
+        });
+    }
+
+    /**
+     * Once the caller's transaction commits, drops from memory the lines its {@link #flush}
+     * wrote; checkout deletes those rows when it turns them into an order.
+     */
+    public void checkedOut(Long userId) {
+        Stripe stripe = stripe(userId);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                locked(stripe, () -> {
+                    ActiveCart cart = stripe.carts.get(userId);
+                    // A copy loaded while checkout ran may still hold the ordered lines
+                    if (cart != null && !cart.checkedOut()) {
+                        stripe.carts.remove(userId, cart);
+                    }
+                    return null;
+                });
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${cart.write-behind.flush-interval-ms:1000}")
+    public void flushDirty() {
+        long idleSince = System.nanoTime() - idleTimeout.toNanos();
+        for (Stripe stripe : stripes) {
+            List<ActiveCart> dirty = locked(stripe, () -> {
+                List<ActiveCart> carts = new ArrayList<>();
+                stripe.carts.values().removeIf(cart -> {
+                    if (cart.isDirty()) {
+                        carts.add(cart);
+                        return false;
+                    }
+                    return cart.isIdleSince(idleSince) && cart.writing.availablePermits() > 0;
+                });
+                return carts;
+            });
+            dirty.forEach(cart -> writeBehind(stripe, cart));
+        }
+    }
+
+    @PreDestroy
+    public void flushAll() {
+        int carts = 0;
+        for (Stripe stripe : stripes) {
+            List<ActiveCart> dirty = locked(stripe, () ->
+                    stripe.carts.values().stream().filter(ActiveCart::isDirty).toList());
+            dirty.forEach(cart -> writeBehind(stripe, cart));
+            carts += dirty.size();
+        }
+        if (carts > 0) {
+            log.info("Wrote {} carts on shutdown", carts);
+        }
+    }
+
+    // Forgets every cart without writing it, as a crash would
+    void discard() {
+        for (Stripe stripe : stripes) {
+            locked(stripe, () -> {
+                stripe.carts.clear();
+                return null;
+            });
+        }
+    }
+
+    private void writeBehind(Stripe stripe, ActiveCart cart) {
+        if (!cart.writing.tryAcquire()) {
+            return;
+        }
+        try {
+            ActiveCart.Pending pending = locked(stripe, cart::pending);
+            if (pending == null) {
+                return;
+            }
+            Map<Long, Long> itemIds = transactionTemplate.execute(status -> write(pending));
+            locked(stripe, () -> {
+                cart.flushed(pending, itemIds);
+                return null;
+            });
+        } catch (StaleCartException e) {
+            log.warn("Dropping stale cart of user {}, another instance wrote it since it was loaded", cart.getUserId());
+            locked(stripe, () -> stripe.carts.remove(cart.getUserId(), cart));
+        } catch (DataIntegrityViolationException e) {
+            // The carts row is gone, along with its user
+            log.warn("Dropping cart of user {} that can no longer be written: {}", cart.getUserId(), e.getMessage());
+            locked(stripe, () -> stripe.carts.remove(cart.getUserId(), cart));
+        } catch (RuntimeException e) {
+            log.warn("Writing cart of user {} failed, retrying on the next flush: {}", cart.getUserId(), e.getMessage());
+        } finally {
+            cart.writing.release();
+        }
+    }
+
+    private Map<Long, Long> write(ActiveCart.Pending pending) {
+        Long cartId = pending.cartId();
+        if (jdbcTemplate.update(BUMP_REVISION, cartId, pending.revision()) == 0) {
+            throw new StaleCartException();
+        }
+        if (pending.clear()) {
+            jdbcTemplate.update(CLEAR, cartId);
+        } else if (!pending.deletes().isEmpty()) {
+            jdbcTemplate.batchUpdate(DELETE_LINE, pending.deletes(), pending.deletes().size(), (ps, productId) -> {
+                ps.setLong(1, cartId);
+                ps.setLong(2, productId);
+            });
+        }
+        Map<Long, Long> itemIds = new HashMap<>();
+        for (ActiveCart.Line line : pending.upserts()) {
+            jdbcTemplate.queryForList(UPSERT_LINE, Long.class, cartId, line.productId(), line.quantity(),
+                            line.price(), line.productId())
+                    .forEach(itemId -> itemIds.put(line.productId(), itemId));
+        }
+        return itemIds;
+    }
+
+    private ActiveCart activeCart(Stripe stripe, Long userId, boolean createRow) {
+        ActiveCart resident = locked(stripe, () -> stripe.carts.get(userId));
+        long unusedSince = System.nanoTime() - revalidateAfter.toNanos();
+        // A copy with its own write in flight is checked once that write has landed
+        if (resident != null && locked(stripe, () -> resident.isIdleSince(unusedSince))
+                && resident.writing.availablePermits() > 0 && !current(stripe, resident)) {
+            log.info("Reloading stale cart of user {}, another instance wrote it since it was loaded", userId);
+            locked(stripe, () -> stripe.carts.remove(userId, resident));
+        }
+        ActiveCart cart = locked(stripe, () -> stripe.carts.get(userId));
+        if (cart == null) {
+            // Loaded outside the lock so other users of the stripe do not wait on the query
+            ActiveCart loaded = load(userId);
+            cart = locked(stripe, () -> stripe.carts.computeIfAbsent(userId, id -> loaded));
+        }
+        if (createRow && cart.getCartId() == null) {
+            Cart row = createRow(userId);
+            ActiveCart created = cart;
+            locked(stripe, () -> {
+                created.created(row.getId(), row.getCreatedAt(), revision(row));
+                return null;
+            });
+        }
+        return cart;
+    }
+
+    private ActiveCart load(Long userId) {
+        return cartRepository.findWithItemsByUserId(userId)
+                .map(cart -> new ActiveCart(userId, cart.getId(), cart.getCreatedAt(), revision(cart),
+                        cart.getCartItems().stream()
+                                .map(item -> new ActiveCart.Line(item.getId(), item.getProduct().getId(),
+                                        item.getQuantity(), item.getPrice(), 0))
+                                .toList()))
+                .orElseGet(() -> new ActiveCart(userId, null, null, 0, List.of()));
+    }
+
+    // Whether the carts row is still as this copy last saw it, or still missing
+    private boolean current(Stripe stripe, ActiveCart cart) {
+        List<Long> revisions = jdbcTemplate.queryForList(REVISION, Long.class, cart.getUserId());
+        return locked(stripe, () -> cart.getCartId() == null
+                ? revisions.isEmpty()
+                : revisions.size() == 1 && revisions.get(0) == cart.getRevision());
+    }
+
+    // Rows created before the column existed have none
+    private static long revision(Cart cart) {
+        return cart.getRevision() == null ? 0 : cart.getRevision();
+    }
+
+    private Cart createRow(Long userId) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        Cart cart = new Cart();
+        cart.setUser(user);
+        try {
+            return cartRepository.save(cart);
+        } catch (DataIntegrityViolationException e) {
+            // Another request created it first
+            return cartRepository.findByUserId(userId).orElseThrow(() -> e);
+        }
+    }
+
+    private Stripe stripe(Long userId) {
+        int hash = Long.hashCode(userId);
+        return stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+    }
+
+    private static <T> T locked(Stripe stripe, Supplier<T> action) {
+        stripe.lock.lock();
+        try {
+            return action.get();
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    // Another instance wrote the cart since this copy was loaded
+    private static final class StaleCartException extends RuntimeException {
+    }
+
+    private static final class Stripe {
+        final ReentrantLock lock = new ReentrantLock();
+        final Map<Long, ActiveCart> carts = new HashMap<>();
+    }
+}
@@ -0,0 +1,14 @@
+package com.globetrotter.globetrotterbackend.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+
+/**
+ * Enables {@code @Async} on Boot's application task executor. With
+ * {@code spring.threads.virtual.enabled=true} that executor, Tomcat's request
+ * threads and the scheduler all switch to virtual threads together.
+ */
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+}
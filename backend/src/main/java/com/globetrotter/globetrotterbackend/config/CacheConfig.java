@@ -0,0 +1,88 @@
+package com.globetrotter.globetrotterbackend.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.globetrotter.globetrotterbackend.cache.CacheValueCodec;
+import com.globetrotter.globetrotterbackend.cache.InMemoryCacheStore;
+import com.globetrotter.globetrotterbackend.cache.RedisCacheStore;
+import com.globetrotter.globetrotterbackend.cache.RemoteCacheStore;
+import com.globetrotter.globetrotterbackend.cache.TwoTierCacheManager;
+import com.globetrotter.globetrotterbackend.model.Category;
+import com.globetrotter.globetrotterbackend.model.Product;
+import com.globetrotter.globetrotterbackend.security.UserPrincipalCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import tools.jackson.databind.JavaType;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Catalog and principal caches, in two tiers: a Caffeine cache per instance, bounded by
+ * {@code cache.local.spec}, in front of a store every instance shares. The shared store is
+ * picked by {@code cache.remote.type}: {@code memory} keeps it in this JVM, for tests and
+ * single-instance deployments, and {@code redis} puts it on a Redis-compatible server, which
+ * also carries invalidations between instances. Local hit/miss/eviction counters are
+ * published under the {@code cache.*} actuator metrics.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String PRODUCTS = "products";
+    public static final String PRODUCTS_BY_CATEGORY = "productsByCategory";
+    public static final String TOP_RATED_PRODUCTS = "topRatedProducts";
+    public static final String CATEGORIES = "categories";
+    public static final String USER_PRINCIPALS = "userPrincipals";
+
+    private static final String INVALIDATION_CHANNEL = "globetrotter:cache:invalidations";
+
+    @Value("${cache.local.spec:maximumSize=10000,expireAfterWrite=10m,recordStats}")
+    private String localSpec;
+
+    @Value("${cache.remote.ttl:10m}")
+    private Duration remoteTtl;
+
+    @Value("${cache.remote.retry-interval:30s}")
+    private Duration retryInterval;
+
+    @Value("${security.principal-cache.ttl:60s}")
+    private Duration principalTtl;
+
+    @Value("${security.principal-cache.max-size:10000}")
+    private long principalMaxSize;
+
+    @Bean
+    public RemoteCacheStore remoteCacheStore(@Value("${cache.remote.type:memory}") String type,
+                                             @Value("${cache.remote.redis.uri:redis://localhost:6379}") String uri,
+                                             @Value("${cache.remote.redis.timeout:250ms}") Duration timeout) {
+        return switch (type) {
+            case "memory" -> new InMemoryCacheStore();
+            case "redis" -> new RedisCacheStore(uri, timeout, INVALIDATION_CHANNEL);
+            default -> throw new IllegalArgumentException("Unknown cache.remote.type: " + type);
+        };
+    }
+
+    @Bean
+    public TwoTierCacheManager cacheManager(RemoteCacheStore remoteCacheStore, JsonMapper jsonMapper,
+                                            MeterRegistry meterRegistry) {
+        TwoTierCacheManager manager = new TwoTierCacheManager(remoteCacheStore, retryInterval, meterRegistry);
+        JsonMapper storeMapper = CacheValueCodec.storeMapper(jsonMapper);
+        JavaType product = jsonMapper.getTypeFactory().constructType(Product.class);
+        JavaType products = jsonMapper.getTypeFactory().constructCollectionType(List.class, Product.class);
+        JavaType categories = jsonMapper.getTypeFactory().constructCollectionType(List.class, Category.class);
+
+        manager.addCache(PRODUCTS, Caffeine.from(localSpec), remoteTtl, CacheValueCodec.json(storeMapper, product));
+        manager.addCache(PRODUCTS_BY_CATEGORY, Caffeine.from(localSpec), remoteTtl, CacheValueCodec.json(storeMapper, products));
+        manager.addCache(TOP_RATED_PRODUCTS, Caffeine.from(localSpec), remoteTtl, CacheValueCodec.json(storeMapper, products));
+        manager.addCache(CATEGORIES, Caffeine.from(localSpec), remoteTtl, CacheValueCodec.json(storeMapper, categories));
+        // Kept briefly in both tiers so role changes and deletions take effect within the TTL
+        manager.addCache(USER_PRINCIPALS,
+                Caffeine.newBuilder().maximumSize(principalMaxSize).expireAfterWrite(principalTtl).recordStats(),
+                principalTtl, UserPrincipalCache.codec(jsonMapper));
+        return manager;
+    }
+}
@@ -0,0 +1,29 @@
+package com.globetrotter.globetrotterbackend.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.hibernate.autoconfigure.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+
+/**
+ * Keeps ddl-auto off the orders tables only while {@link OrderPartitionManager} owns them: when
+ * {@code orders.partitions.enabled} is set, or the database already has the partitioned layout.
+ * Otherwise they are flat tables that ddl-auto manages like any other, foreign key included.
+ */
+@Configuration
+public class OrderPartitionConfig {
+
+    @Bean
+    HibernatePropertiesCustomizer partitionedTablesSchemaFilter(DataSource dataSource,
+                                                                @Value("${orders.partitions.enabled:false}") boolean enabled) {
+        return properties -> {
+            if (OrderPartitionManager.partitionedLayout(new JdbcTemplate(dataSource), enabled)) {
+                properties.put(AvailableSettings.HBM2DDL_FILTER_PROVIDER, PartitionedTablesSchemaFilterProvider.class.getName());
+            }
+        };
+    }
+}
@@ -0,0 +1,238 @@
+package com.globetrotter.globetrotterbackend.config;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.EncodedResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Owns the schema of orders and order_items (see db/orders-partitioned.sql). At startup and in a
+ * daily job it creates the monthly hot partitions from the current month to
+ * {@code orders.partitions.months-ahead} months from now, and the current year's cold partition.
+ * Earlier months and years only get a partition when rows for them are waiting in a default
+ * partition (or in the legacy table being migrated), so a month is never created empty. Hot months
+ * before the current one that archiving has emptied are dropped, which keeps the partitions every
+ * query plans and locks few; as nothing recreates them, each month is dropped once.
+ * <p>
+ * The partitioned layout is opt-in ({@code orders.partitions.enabled}): point lookups and the
+ * user and dashboard lists are slower on it than on the flat table ddl-auto creates, and only
+ * ranged scans over old months gain. A database that already has it keeps being maintained.
+ * With the layout enabled, a flat orders table is left alone, with a warning, unless
+ * {@code orders.partitions.migrate-legacy} is set; then its rows are copied into the partitioned
+ * table in one transaction at startup.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class OrderPartitionManager {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderPartitionManager.class);
+
+    private static final ClassPathResource SCHEMA = new ClassPathResource("db/orders-partitioned.sql");
+    // PL/pgSQL bodies contain semicolons, so this script runs as one statement
+    private static final EncodedResource INTEGRITY = new EncodedResource(new ClassPathResource("db/orders-integrity.sql"));
+    // Serializes schema changes between instances starting at the same time
+    private static final long LOCK_KEY = 0x6f72646572730001L;
+    private static final String COLUMNS = "id, user_id, order_date, total_amount, status, shipping_address, "
+            + "payment_method, created_at, updated_at, archived";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${orders.partitions.enabled:false}")
+    private boolean enabled;
+
+    @Value("${orders.partitions.months-ahead:1}")
+    private int monthsAhead;
+
+    @Value("${orders.partitions.migrate-legacy:false}")
+    private boolean migrateLegacy;
+
+    private boolean partitioned;
+
+    @PostConstruct
+    public void initialize() {
+        String kind = ordersRelkind(jdbcTemplate);
+        if (!"p".equals(kind) && !enabled) {
+            return;
+        }
+        if ("p".equals(kind) && !enabled) {
+            log.info("orders is already partitioned; maintaining its partitions although orders.partitions.enabled is off");
+        }
+        if ("r".equals(kind) && !migrateLegacy) {
+            log.warn("orders is not partitioned; set orders.partitions.migrate-legacy=true to migrate it at startup");
+            return;
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            lock();
+            if ("r".equals(kind)) {
+                migrateLegacyTable();
+            } else {
+                applySchema();
+                createPartitions("orders_hot_default", "orders_cold_default");
+                dropEmptyHotPartitions();
+            }
+        });
+        partitioned = true;
+    }
+
+    // Decides, before Hibernate's schema tooling runs, whether the orders tables are left to this class
+    static boolean partitionedLayout(JdbcTemplate jdbcTemplate, boolean enabled) {
+        return enabled || "p".equals(ordersRelkind(jdbcTemplate));
+    }
+
+    private static String ordersRelkind(JdbcTemplate jdbcTemplate) {
+        return jdbcTemplate.queryForObject(
+                "SELECT COALESCE((SELECT relkind::text FROM pg_class WHERE oid = to_regclass('orders')), '')",
+                String.class);
+    }
+
+    @Scheduled(cron = "${orders.partitions.cron:0 15 2 * * *}")
+    public void maintainPartitions() {
+        if (partitioned) {
+            transactionTemplate.executeWithoutResult(status -> {
+                lock();
+                createPartitions("orders_hot_default", "orders_cold_default");
+                dropEmptyHotPartitions();
+            });
+        }
+    }
+
+    private void migrateLegacyTable() {
+        log.info("Migrating orders into partitioned tables");
+        // The key of a partitioned orders table includes its partition columns, so no foreign key can point at id
+        // alone; the triggers of db/orders-integrity.sql take over its checks
+        for (String constraint : jdbcTemplate.queryForList(
+                "SELECT conname FROM pg_constraint WHERE conrelid = 'order_items'::regclass "
+                        + "AND confrelid = 'orders'::regclass", String.class)) {
+            jdbcTemplate.execute("ALTER TABLE order_items DROP CONSTRAINT \"" + constraint + "\"");
+        }
+        jdbcTemplate.execute("ALTER TABLE orders RENAME TO orders_legacy");
+        jdbcTemplate.execute("ALTER INDEX IF EXISTS orders_pkey RENAME TO orders_legacy_pkey");
+        // Drops the identity sequence, which frees the name orders_id_seq
+        jdbcTemplate.execute("ALTER TABLE orders_legacy ALTER COLUMN id DROP IDENTITY IF EXISTS");
+
+        applySchema();
+        createPartitions("orders_legacy WHERE archived = false", "orders_legacy WHERE archived = true");
+
+        int copied = jdbcTemplate.update("INSERT INTO orders (" + COLUMNS + ") SELECT " + COLUMNS + " FROM orders_legacy");
+        // Gives the integrity trigger the order dates that prune its lookups; the trigger does not fire on this
+        jdbcTemplate.update("UPDATE order_items i SET order_date = o.order_date FROM orders_legacy o "
+                + "WHERE o.id = i.order_id AND i.order_date IS NULL");
+        jdbcTemplate.queryForObject(
+                "SELECT setval('orders_id_seq', (SELECT COALESCE(MAX(id), 0) + 1 FROM orders), false)", Long.class);
+        jdbcTemplate.execute("DROP TABLE orders_legacy");
+        log.info("Moved {} orders into partitioned tables", copied);
+    }
+
+    private void applySchema() {
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        ScriptUtils.executeSqlScript(connection, SCHEMA);
+        ScriptUtils.executeSqlScript(connection, INTEGRITY, false, false, ScriptUtils.DEFAULT_COMMENT_PREFIX,
+                ScriptUtils.EOF_STATEMENT_SEPARATOR, ScriptUtils.DEFAULT_BLOCK_COMMENT_START_DELIMITER,
+                ScriptUtils.DEFAULT_BLOCK_COMMENT_END_DELIMITER);
+    }
+
+    // hotRows and coldRows name where orders without a partition are waiting, as a FROM clause
+    private void createPartitions(String hotRows, String coldRows) {
+        YearMonth current = YearMonth.now();
+        Set<YearMonth> months = new TreeSet<>();
+        for (int ahead = 0; ahead <= monthsAhead; ahead++) {
+            months.add(current.plusMonths(ahead));
+        }
+        for (LocalDate month : startsHolding("month", hotRows)) {
+            months.add(YearMonth.from(month));
+        }
+        for (YearMonth month : months) {
+            createPartition("orders_hot", String.format("orders_hot_p%d_%02d", month.getYear(), month.getMonthValue()),
+                    month.atDay(1).atStartOfDay(), month.plusMonths(1).atDay(1).atStartOfDay());
+        }
+
+        // Only archived rows land here, and they are never dated ahead
+        Set<Integer> years = new TreeSet<>();
+        years.add(current.getYear());
+        for (LocalDate year : startsHolding("year", coldRows)) {
+            years.add(year.getYear());
+        }
+        for (int year : years) {
+            createPartition("orders_cold", "orders_cold_p" + year,
+                    LocalDate.of(year, 1, 1).atStartOfDay(), LocalDate.of(year + 1, 1, 1).atStartOfDay());
+        }
+    }
+
+    private List<LocalDate> startsHolding(String unit, String rows) {
+        return jdbcTemplate.queryForList("SELECT DISTINCT date_trunc('" + unit + "', order_date)::date FROM " + rows,
+                LocalDate.class);
+    }
+
+    // Only months before the current one. Most are still in use, so emptiness is checked before taking
+    // the lock that blocks their readers, and again under it so no row can arrive before the drop.
+    private void dropEmptyHotPartitions() {
+        YearMonth current = YearMonth.now();
+        String before = String.format("orders_hot_p%d_%02d", current.getYear(), current.getMonthValue());
+        for (String name : jdbcTemplate.queryForList("SELECT c.relname::text FROM pg_inherits i "
+                + "JOIN pg_class c ON c.oid = i.inhrelid WHERE i.inhparent = 'orders_hot'::regclass "
+                + "AND c.relname LIKE 'orders\\_hot\\_p%' AND c.relname < ? ORDER BY 1", String.class, before)) {
+            if (!isEmpty(name)) {
+                continue;
+            }
+            jdbcTemplate.execute("LOCK TABLE " + name + " IN ACCESS EXCLUSIVE MODE");
+            if (isEmpty(name)) {
+                jdbcTemplate.execute("DROP TABLE " + name);
+                log.info("Dropped empty partition {}", name);
+            }
+        }
+    }
+
+    private boolean isEmpty(String table) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT NOT EXISTS (SELECT 1 FROM " + table + ")", Boolean.class));
+    }
+
+    // Rows that fell into the default partition for this range move into the new partition before it
+    // is attached; PostgreSQL refuses to attach a range the default partition already holds rows for.
+    private void createPartition(String parent, String name, LocalDateTime from, LocalDateTime to) {
+        Boolean exists = jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, name);
+        if (Boolean.TRUE.equals(exists)) {
+            return;
+        }
+        jdbcTemplate.execute("CREATE TABLE " + name + " (LIKE " + parent + " INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+        int moved = jdbcTemplate.update("WITH moved AS (DELETE FROM " + parent + "_default "
+                + "WHERE order_date >= ? AND order_date < ? RETURNING *) INSERT INTO " + name + " SELECT * FROM moved",
+                Timestamp.valueOf(from), Timestamp.valueOf(to));
+        jdbcTemplate.execute("ALTER TABLE " + parent + " ATTACH PARTITION " + name
+                + " FOR VALUES FROM ('" + Timestamp.valueOf(from) + "') TO ('" + Timestamp.valueOf(to) + "')");
+        if (moved > 0) {
+            log.info("Created partition {} with {} orders from {}_default", name, moved, parent);
+        }
+    }
+
+    private void lock() {
+        jdbcTemplate.queryForObject("SELECT pg_advisory_xact_lock(?)::text", String.class, LOCK_KEY);
+    }
+}
@@ -0,0 +1,62 @@
+package com.globetrotter.globetrotterbackend.config;
+
+import org.hibernate.boot.model.relational.Namespace;
+import org.hibernate.boot.model.relational.Sequence;
+import org.hibernate.mapping.Table;
+import org.hibernate.tool.schema.spi.SchemaFilter;
+import org.hibernate.tool.schema.spi.SchemaFilterProvider;
+
+import java.util.Set;
+
+/**
+ * Keeps Hibernate's schema tooling (ddl-auto) away from the tables that
+ * {@link OrderPartitionManager} owns, when {@link OrderPartitionConfig} installs it. Hibernate
+ * cannot create partitioned tables and would try to add an order_items foreign key that a
+ * partitioned orders table cannot support.
+ */
+public class PartitionedTablesSchemaFilterProvider implements SchemaFilterProvider {
+
+    static final Set<String> MANAGED_TABLES = Set.of("orders", "order_items");
+
+    private static final SchemaFilter FILTER = new SchemaFilter() {
+        @Override
+        public boolean includeNamespace(Namespace namespace) {
+            return true;
+        }
+
+        @Override
+        public boolean includeTable(Table table) {
+            return !MANAGED_TABLES.contains(table.getName().toLowerCase());
+        }
+
+        @Override
+        public boolean includeSequence(Sequence sequence) {
+            return true;
+        }
+    };
+
+    @Override
+    public SchemaFilter getCreateFilter() {
+        return FILTER;
+    }
+
+    @Override
+    public SchemaFilter getDropFilter() {
+        return FILTER;
+    }
+
+    @Override
+    public SchemaFilter getTruncatorFilter() {
+        return FILTER;
+    }
+
+    @Override
+    public SchemaFilter getMigrateFilter() {
+        return FILTER;
+    }
+
+    @Override
+    public SchemaFilter getValidateFilter() {
+        return FILTER;
+    }
+}
@@ -0,0 +1,34 @@
+package com.globetrotter.globetrotterbackend.config;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves sequences that ddl-auto created at 1 past ids already assigned by the old
+ * IDENTITY columns. Runs after the schema update and before the web server starts.
+ */
+@Component
+@DependsOn({"entityManagerFactory", "orderPartitionManager"})
+public class SequenceInitializer {
+
+    public static final int ORDER_ITEMS_ALLOCATION_SIZE = 50;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void alignSequences() {
+        align("order_items_seq", "order_items", ORDER_ITEMS_ALLOCATION_SIZE);
+    }
+
+    // Pooled ids are handed out below the sequence value, so keep it a full block above max(id)
+    private void align(String sequence, String table, int allocationSize) {
+        jdbcTemplate.queryForObject(
+                "SELECT setval('" + sequence + "', GREATEST((SELECT last_value FROM " + sequence + "), " +
+                        "(SELECT COALESCE(MAX(id), 0) FROM " + table + ") + " + allocationSize + "))",
+                Long.class);
+    }
+}
@@ -0,0 +1,44 @@
+package com.globetrotter.globetrotterbackend.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Connection pool settings for virtual-thread mode. Tomcat no longer caps how many
+ * requests run at once, so the Hikari pool becomes the only limit on concurrent
+ * database work; {@link ConnectionPermitDataSource} queues the overflow in front
+ * of it. The wait is bounded by {@code spring.datasource.hikari.connection-timeout}
+ * and the queue length is published as {@code jdbc.connections.queued}.
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadDataSourceConfig {
+
+    @Bean
+    static BeanPostProcessor connectionPermitPostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof HikariDataSource hikari)) {
+                    return bean;
+                }
+                ConnectionPermitDataSource permitted = new ConnectionPermitDataSource(
+                        hikari, hikari.getMaximumPoolSize(), Duration.ofMillis(hikari.getConnectionTimeout()));
+                meterRegistry.ifAvailable(registry -> Gauge.builder("jdbc.connections.queued", permitted,
+                                ConnectionPermitDataSource::getQueueLength)
+                        .description("Threads waiting for a connection permit")
+                        .register(registry));
+                return permitted;
+            }
+        };
+    }
+}
@@ -1,11 +1,23 @@
 package com.globetrotter.globetrotterbackend.controller;
 
+import com.globetrotter.globetrotterbackend.dto.ArchiveJobStatus;
+import com.globetrotter.globetrotterbackend.dto.OrderExportFilter;
+import com.globetrotter.globetrotterbackend.dto.OrderResponse;
 import com.globetrotter.globetrotterbackend.model.Order;
 import com.globetrotter.globetrotterbackend.repository.OrderRepository;
+import com.globetrotter.globetrotterbackend.service.OrderArchiveService;
+import com.globetrotter.globetrotterbackend.service.OrderExportService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.net.URI;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -15,11 +27,53 @@ public class AdminOrderController {
     @Autowired
     private OrderRepository orderRepository;
 
-    // Get all NON-ARCHIVED orders from all customers (for admin dashboard)
+    @Autowired
+    private OrderExportService orderExportService;
+
+    @Autowired
+    private OrderArchiveService orderArchiveService;
+
+    // Get all NON-ARCHIVED orders from all customers (for admin dashboard), optionally only those since a date
     @GetMapping
-    public ResponseEntity<List<Order>> getAllOrders() {
-        List<Order> orders = orderRepository.findByArchivedFalseOrderByOrderDateDesc();
-        return ResponseEntity.ok(orders);
+    public ResponseEntity<List<OrderResponse>> getAllOrders(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since) {
+        List<Order> orders = since != null
+                ? orderRepository.findByArchivedFalseAndOrderDateGreaterThanEqualOrderByOrderDateDesc(since)
+                : orderRepository.findByArchivedFalseOrderByOrderDateDesc();
+        return ResponseEntity.ok(OrderResponse.fromAll(orders));
+    }
+
+    // Same orders streamed one per line, for clients that send Accept: application/x-ndjson
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllOrders(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since) {
+        OrderExportFilter filter = new OrderExportFilter(null, since, null, false);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(out -> orderExportService.export(filter, OrderExportService.Format.NDJSON, out));
+    }
+
+    // Stream orders as NDJSON or CSV without loading them all; every filter is optional
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) Order.OrderStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Boolean archived
+    ) {
+        OrderExportService.Format exportFormat;
+        try {
+            exportFormat = OrderExportService.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        OrderExportFilter filter = new OrderExportFilter(status, from, to, archived);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"orders." + exportFormat.getExtension() + "\"")
+                .body(out -> orderExportService.export(filter, exportFormat, out));
     }
 
     // Update order status
@@ -40,14 +94,24 @@ public class AdminOrderController {
         return ResponseEntity.ok(updatedOrder);
     }
 
-    // Archive all orders (mark as archived instead of deleting)
+    // Archive orders placed before the cutoff (default: now) in the background; poll the returned job for progress
     @DeleteMapping("/clear")
-    public ResponseEntity<String> archiveAllOrders() {
-        List<Order> orders = orderRepository.findByArchivedFalseOrderByOrderDateDesc();
-        for (Order order : orders) {
-            order.setArchived(true);
+    public ResponseEntity<ArchiveJobStatus> archiveAllOrders(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime before
+    ) {
+        ArchiveJobStatus job = orderArchiveService.startArchive(before != null ? before : LocalDateTime.now());
+        if (job.getState() == ArchiveJobStatus.State.FAILED) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(job);
         }
-        orderRepository.saveAll(orders);
-        return ResponseEntity.ok("All orders archived successfully");
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .location(URI.create("/api/admin/orders/archive-jobs/" + job.getId()))
+                .body(job);
+    }
+
+    @GetMapping("/archive-jobs/{jobId}")
+    public ResponseEntity<ArchiveJobStatus> getArchiveJob(@PathVariable String jobId) {
+        return orderArchiveService.getJob(jobId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
     }
 }
\ No newline at end of file
@@ -0,0 +1,23 @@
+package com.globetrotter.globetrotterbackend.controller;
+
+import com.globetrotter.globetrotterbackend.model.Product;
+import com.globetrotter.globetrotterbackend.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin/products")
+public class AdminProductController {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    // Read straight from the database, bypassing the product caches, so an edit starts from the current stock
+    @GetMapping("/{id}")
+    public ResponseEntity<Product> getProductById(@PathVariable Long id) {
+        return productRepository.findWithCategoryById(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
@@ -1,14 +1,17 @@
 package com.globetrotter.globetrotterbackend.controller;
 
 import com.globetrotter.globetrotterbackend.dto.CreateOrderRequest;
+import com.globetrotter.globetrotterbackend.dto.OrderResponse;
 import com.globetrotter.globetrotterbackend.model.Order;
-import com.globetrotter.globetrotterbackend.model.User;
+import com.globetrotter.globetrotterbackend.security.UserPrincipal;
 import com.globetrotter.globetrotterbackend.service.OrderService;
-import com.globetrotter.globetrotterbackend.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -18,37 +21,36 @@ public class OrderController {
     @Autowired
     private OrderService orderService;
 
-    @Autowired
-    private UserService userService;
-
     @PostMapping
-    public ResponseEntity<Order> createOrder(@RequestBody CreateOrderRequest request,
-                                             Authentication authentication) {
-        User user = userService.findByUsername(authentication.getName())
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
-        Order order = orderService.createOrder(user.getId(), request.getShippingAddress(), request.getPaymentMethod());
-        return ResponseEntity.ok(order);
+    public ResponseEntity<OrderResponse> createOrder(@RequestBody CreateOrderRequest request,
+                                                     @AuthenticationPrincipal UserPrincipal principal) {
+        Order order = orderService.createOrder(principal.getId(), request.getShippingAddress(), request.getPaymentMethod());
+        return ResponseEntity.ok(OrderResponse.from(order));
     }
 
     @GetMapping
-    public ResponseEntity<List<Order>> getUserOrders(Authentication authentication) {
-        User user = userService.findByUsername(authentication.getName())
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
-        return ResponseEntity.ok(orderService.getUserOrders(user.getId()));
+    public ResponseEntity<List<OrderResponse>> getUserOrders(
+            @AuthenticationPrincipal UserPrincipal principal,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since) {
+        List<Order> orders = since != null
+                ? orderService.getUserOrders(principal.getId(), since)
+                : orderService.getUserOrders(principal.getId());
+        return ResponseEntity.ok(OrderResponse.fromAll(orders));
     }
 
+    // Other customers' orders answer 404, so order ids cannot be probed for existence
     @GetMapping("/{id}")
-    public ResponseEntity<Order> getOrderById(@PathVariable Long id) {
+    public ResponseEntity<OrderResponse> getOrderById(@PathVariable Long id,
+                                                      @AuthenticationPrincipal UserPrincipal principal) {
         return orderService.getOrderById(id)
-                .map(ResponseEntity::ok)
+                .filter(order -> order.getUser().getId().equals(principal.getId()) || isAdmin(principal))
+                .map(order -> ResponseEntity.ok(OrderResponse.from(order)))
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @GetMapping("/admin/all")
-    public ResponseEntity<List<Order>> getAllOrders() {
-        return ResponseEntity.ok(orderService.getAllOrders());
+    public ResponseEntity<List<OrderResponse>> getAllOrders() {
+        return ResponseEntity.ok(OrderResponse.fromAll(orderService.getAllOrders()));
     }
 
     @PutMapping("/{id}/status")
@@ -56,4 +58,11 @@ public class OrderController {
                                                    @RequestParam Order.OrderStatus status) {
         return ResponseEntity.ok(orderService.updateOrderStatus(id, status));
     }
+
+    // Same authorities SecurityConfig accepts for the admin paths
+    private static boolean isAdmin(UserPrincipal principal) {
+        return principal.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .anyMatch(authority -> authority.equals("ADMIN") || authority.equals("ROLE_ADMIN"));
+    }
 }
\ No newline at end of file
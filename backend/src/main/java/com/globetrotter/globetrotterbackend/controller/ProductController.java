@@ -1,14 +1,18 @@
 package com.globetrotter.globetrotterbackend.controller;
 
+import com.globetrotter.globetrotterbackend.dto.CursorPage;
 import com.globetrotter.globetrotterbackend.model.Product;
 import com.globetrotter.globetrotterbackend.model.Category;
 import com.globetrotter.globetrotterbackend.service.ProductService;
 import com.globetrotter.globetrotterbackend.repository.CategoryRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/products")
@@ -20,8 +24,13 @@ public class ProductController {
     @Autowired
     private CategoryRepository categoryRepository;
 
+    // Passing limit or cursor switches a listing into keyset-paged mode; without them the full list is returned
     @GetMapping
-    public ResponseEntity<List<Product>> getAllProducts() {
+    public ResponseEntity<?> getAllProducts(@RequestParam(required = false) Integer limit,
+                                            @RequestParam(required = false) String cursor) {
+        if (isPaged(limit, cursor)) {
+            return page(() -> productService.getProductsPage(cursor, limit));
+        }
         return ResponseEntity.ok(productService.getAllProducts());
     }
 
@@ -33,29 +42,50 @@ public class ProductController {
     }
 
     @GetMapping("/category/{categoryId}")
-    public ResponseEntity<List<Product>> getProductsByCategory(@PathVariable Long categoryId) {
+    public ResponseEntity<?> getProductsByCategory(@PathVariable Long categoryId,
+                                                   @RequestParam(required = false) Integer limit,
+                                                   @RequestParam(required = false) String cursor) {
+        if (isPaged(limit, cursor)) {
+            return page(() -> productService.getProductsByCategoryPage(categoryId, cursor, limit));
+        }
         return ResponseEntity.ok(productService.getProductsByCategory(categoryId));
     }
 
     @GetMapping("/search")
-    public ResponseEntity<List<Product>> searchProducts(@RequestParam String keyword) {
-        return ResponseEntity.ok(productService.searchProducts(keyword));
+    public ResponseEntity<List<Product>> searchProducts(@RequestParam String keyword,
+                                                        @RequestParam(defaultValue = "0") int page,
+                                                        @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(productService.searchProducts(keyword, page, size));
     }
 
     @GetMapping("/price-range")
-    public ResponseEntity<List<Product>> getProductsByPriceRange(
+    public ResponseEntity<?> getProductsByPriceRange(
             @RequestParam Double minPrice,
-            @RequestParam Double maxPrice) {
+            @RequestParam Double maxPrice,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor) {
+        if (isPaged(limit, cursor)) {
+            return page(() -> productService.getProductsByPriceRangePage(minPrice, maxPrice, cursor, limit));
+        }
         return ResponseEntity.ok(productService.getProductsByPriceRange(minPrice, maxPrice));
     }
 
     @GetMapping("/sorted")
-    public ResponseEntity<List<Product>> getProductsSorted(@RequestParam boolean ascending) {
+    public ResponseEntity<?> getProductsSorted(@RequestParam boolean ascending,
+                                               @RequestParam(required = false) Integer limit,
+                                               @RequestParam(required = false) String cursor) {
+        if (isPaged(limit, cursor)) {
+            return page(() -> productService.getProductsSortedByPricePage(ascending, cursor, limit));
+        }
         return ResponseEntity.ok(productService.getProductsSortedByPrice(ascending));
     }
 
     @GetMapping("/top-rated")
-    public ResponseEntity<List<Product>> getTopRatedProducts() {
+    public ResponseEntity<?> getTopRatedProducts(@RequestParam(required = false) Integer limit,
+                                                 @RequestParam(required = false) String cursor) {
+        if (isPaged(limit, cursor)) {
+            return page(() -> productService.getTopRatedProductsPage(cursor, limit));
+        }
         return ResponseEntity.ok(productService.getTopRatedProducts());
     }
 
@@ -77,7 +107,11 @@ public class ProductController {
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<Product> updateProduct(@PathVariable Long id, @RequestBody Map<String, Object> productData) {
+    public ResponseEntity<?> updateProduct(@PathVariable Long id, @RequestBody Map<String, Object> productData) {
+        // The stock shown when the edit started; a stale value means the edit is based on old data
+        if (!(productData.get("expectedStockQuantity") instanceof Number expectedStock)) {
+            return ResponseEntity.badRequest().body("expectedStockQuantity is required");
+        }
         Product productDetails = new Product();
         productDetails.setName((String) productData.get("name"));
         productDetails.setDescription((String) productData.get("description"));
@@ -90,7 +124,11 @@ public class ProductController {
                 .orElseThrow(() -> new RuntimeException("Category not found"));
         productDetails.setCategory(category);
 
-        return ResponseEntity.ok(productService.updateProduct(id, productDetails));
+        try {
+            return ResponseEntity.ok(productService.updateProduct(id, productDetails, expectedStock.intValue()));
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
     }
 
     @DeleteMapping("/{id}")
@@ -98,4 +136,16 @@ public class ProductController {
         productService.deleteProduct(id);
         return ResponseEntity.ok("Product deleted successfully");
     }
+
+    private boolean isPaged(Integer limit, String cursor) {
+        return limit != null || cursor != null;
+    }
+
+    private ResponseEntity<?> page(Supplier<CursorPage<Product>> query) {
+        try {
+            return ResponseEntity.ok(query.get());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
 }
\ No newline at end of file
@@ -2,12 +2,11 @@ package com.globetrotter.globetrotterbackend.controller;
 
 import com.globetrotter.globetrotterbackend.dto.ReviewRequest;
 import com.globetrotter.globetrotterbackend.model.Review;
-import com.globetrotter.globetrotterbackend.model.User;
+import com.globetrotter.globetrotterbackend.security.UserPrincipal;
 import com.globetrotter.globetrotterbackend.service.ReviewService;
-import com.globetrotter.globetrotterbackend.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 import java.util.List;
 
@@ -18,18 +17,12 @@ public class ReviewController {
     @Autowired
     private ReviewService reviewService;
 
-    @Autowired
-    private UserService userService;
-
     @PostMapping
     public ResponseEntity<?> createReview(@RequestBody ReviewRequest request,
-                                          Authentication authentication) {
+                                          @AuthenticationPrincipal UserPrincipal principal) {
         try {
-            User user = userService.findByUsername(authentication.getName())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-
             Review review = reviewService.createReview(
-                    user.getId(),
+                    principal.getId(),
                     request.getProductId(),
                     request.getRating(),
                     request.getComment()
@@ -46,11 +39,8 @@ public class ReviewController {
     }
 
     @GetMapping("/user")
-    public ResponseEntity<List<Review>> getUserReviews(Authentication authentication) {
-        User user = userService.findByUsername(authentication.getName())
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
-        return ResponseEntity.ok(reviewService.getUserReviews(user.getId()));
+    public ResponseEntity<List<Review>> getUserReviews(@AuthenticationPrincipal UserPrincipal principal) {
+        return ResponseEntity.ok(reviewService.getUserReviews(principal.getId()));
     }
 
     @DeleteMapping("/{id}")
@@ -0,0 +1,27 @@
+package com.globetrotter.globetrotterbackend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchiveJobStatus {
+
+    public enum State {
+        RUNNING, COMPLETED, FAILED
+    }
+
+    private String id;
+    private State state;
+    private LocalDateTime cutoff;
+    // Orders that matched when the job started; later orders before the cutoff are archived too
+    private long total;
+    private long archived;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private String error;
+}
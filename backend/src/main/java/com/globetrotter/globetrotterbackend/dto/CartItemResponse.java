@@ -0,0 +1,21 @@
+package com.globetrotter.globetrotterbackend.dto;
+
+import com.globetrotter.globetrotterbackend.model.CartItem;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartItemResponse {
+    private Long id;
+    private ProductSummary product;
+    private Integer quantity;
+    private Double price;
+
+    public static CartItemResponse from(CartItem item) {
+        return new CartItemResponse(item.getId(), ProductSummary.from(item.getProduct()),
+                item.getQuantity(), item.getPrice());
+    }
+}
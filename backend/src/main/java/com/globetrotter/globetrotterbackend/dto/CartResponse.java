@@ -0,0 +1,27 @@
+package com.globetrotter.globetrotterbackend.dto;
+
+import com.globetrotter.globetrotterbackend.model.Cart;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartResponse {
+    private Long id;
+    private List<CartItemResponse> cartItems;
+    private Double total;
+    private LocalDateTime createdAt;
+
+    public static CartResponse from(Cart cart) {
+        List<CartItemResponse> items = cart.getCartItems().stream()
+                .map(CartItemResponse::from)
+                .collect(Collectors.toList());
+        return new CartResponse(cart.getId(), items, cart.getTotal(), cart.getCreatedAt());
+    }
+}
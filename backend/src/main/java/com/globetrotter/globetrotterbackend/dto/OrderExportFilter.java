@@ -0,0 +1,19 @@
+package com.globetrotter.globetrotterbackend.dto;
+
+import com.globetrotter.globetrotterbackend.model.Order;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Every field is optional; from is inclusive and to exclusive
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderExportFilter {
+    private Order.OrderStatus status;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private Boolean archived;
+}
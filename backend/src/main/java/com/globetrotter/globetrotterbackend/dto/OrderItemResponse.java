@@ -0,0 +1,21 @@
+package com.globetrotter.globetrotterbackend.dto;
+
+import com.globetrotter.globetrotterbackend.model.OrderItem;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderItemResponse {
+    private Long id;
+    private ProductSummary product;
+    private Integer quantity;
+    private Double price;
+
+    public static OrderItemResponse from(OrderItem item) {
+        return new OrderItemResponse(item.getId(), ProductSummary.from(item.getProduct()),
+                item.getQuantity(), item.getPrice());
+    }
+}
@@ -0,0 +1,56 @@
+package com.globetrotter.globetrotterbackend.dto;
+
+import com.globetrotter.globetrotterbackend.model.Order;
+import com.globetrotter.globetrotterbackend.model.OrderItem;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderResponse {
+    private Long id;
+    private UserSummary user;
+    private LocalDateTime orderDate;
+    private Double totalAmount;
+    private Order.OrderStatus status;
+    private String shippingAddress;
+    private String paymentMethod;
+    private boolean archived;
+    private List<OrderItemResponse> orderItems;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+
+    public static OrderResponse from(Order order) {
+        return from(order, order.getOrderItems());
+    }
+
+    // For callers that loaded the items separately, e.g. in batches for many orders at once
+    public static OrderResponse from(Order order, List<OrderItem> orderItems) {
+        List<OrderItemResponse> items = orderItems.stream()
+                .map(OrderItemResponse::from)
+                .collect(Collectors.toList());
+        return new OrderResponse(
+                order.getId(),
+                UserSummary.from(order.getUser()),
+                order.getOrderDate(),
+                order.getTotalAmount(),
+                order.getStatus(),
+                order.getShippingAddress(),
+                order.getPaymentMethod(),
+                order.isArchived(),
+                items,
+                order.getCreatedAt(),
+                order.getUpdatedAt()
+        );
+    }
+
+    public static List<OrderResponse> fromAll(List<Order> orders) {
+        return orders.stream().map(OrderResponse::from).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,20 @@
+package com.globetrotter.globetrotterbackend.dto;
+
+import com.globetrotter.globetrotterbackend.model.Product;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSummary {
+    private Long id;
+    private String name;
+    private String imageUrl;
+    private Double price;
+
+    public static ProductSummary from(Product product) {
+        return new ProductSummary(product.getId(), product.getName(), product.getImageUrl(), product.getPrice());
+    }
+}
@@ -0,0 +1,20 @@
+package com.globetrotter.globetrotterbackend.dto;
+
+import com.globetrotter.globetrotterbackend.model.User;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Carries contact details, so only responses for the order's owner or an admin may include it
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserSummary {
+    private Long id;
+    private String username;
+    private String email;
+
+    public static UserSummary from(User user) {
+        return new UserSummary(user.getId(), user.getUsername(), user.getEmail());
+    }
+}
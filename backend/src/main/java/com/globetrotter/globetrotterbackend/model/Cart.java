@@ -31,6 +31,10 @@ public class Cart {
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
+    // Bumped by every write of the cart's lines, so an instance holding a copy can tell it is stale
+    @Column(name = "revision")
+    private Long revision = 0L;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
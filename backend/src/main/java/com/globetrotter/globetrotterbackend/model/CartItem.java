@@ -7,7 +7,9 @@ import lombok.NoArgsConstructor;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 @Entity
-@Table(name = "cart_items")
+// One line per product in a cart; CartStore merges quantities into it and upserts on this key
+@Table(name = "cart_items", uniqueConstraints =
+        @UniqueConstraint(name = "uk_cart_items_cart_product", columnNames = {"cart_id", "product_id"}))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -11,7 +11,12 @@ import java.util.List;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 @Entity
-@Table(name = "orders")
+// With orders.partitions.enabled the table, its partitions and indexes come from db/orders-partitioned.sql instead
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_user_order_date", columnList = "user_id, order_date DESC"),
+        @Index(name = "idx_orders_archived_order_date", columnList = "archived, order_date DESC"),
+        @Index(name = "idx_orders_status", columnList = "status")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -4,17 +4,21 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 @Entity
-@Table(name = "order_items")
+// With orders.partitions.enabled the table and its indexes come from db/orders-partitioned.sql instead
+@Table(name = "order_items", indexes = @Index(name = "idx_order_items_order_id", columnList = "order_id"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class OrderItem {
 
+    // Sequence ids (not IDENTITY) let Hibernate batch the item inserts of one checkout
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_items_seq")
+    @SequenceGenerator(name = "order_items_seq", sequenceName = "order_items_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -31,4 +35,14 @@ public class OrderItem {
 
     @Column(nullable = false)
     private Double price;
+
+    // Copied from the order so the partitioned layout's integrity trigger can prune its lookup of the order
+    @Column(name = "order_date")
+    @JsonIgnore
+    private LocalDateTime orderDate;
+
+    @PrePersist
+    protected void onCreate() {
+        orderDate = order.getOrderDate();
+    }
 }
\ No newline at end of file
@@ -4,13 +4,25 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.DynamicUpdate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 @Entity
-@Table(name = "products")
+// Each index backs ProductRepository finders: category listings and pages, the category price range,
+// price and rating sort orders with their id tie-breaker. Name search uses db/product-search.sql.
+// The rating order is written as an expression because columnList has no syntax for NULLS LAST.
+@Table(name = "products", indexes = {
+        @Index(name = "idx_products_category_id", columnList = "category_id, id"),
+        @Index(name = "idx_products_category_price", columnList = "category_id, price"),
+        @Index(name = "idx_products_price_id", columnList = "price, id"),
+        @Index(name = "idx_products_price_desc_id", columnList = "price DESC, id"),
+        @Index(name = "idx_products_rating_desc_nulls_last_id", columnList = "(rating) DESC NULLS LAST, id")
+})
+// Only dirty columns are written, so saving a product never rewrites a stale stockQuantity
+@DynamicUpdate
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -38,6 +50,11 @@ public class Product {
 
     private Integer reviewsCount = 0;
 
+    // Sum of all review ratings; rating is kept as ratingTotal / reviewsCount
+    @Column(name = "rating_total")
+    @JsonIgnore
+    private Long ratingTotal = 0L;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "category_id", nullable = false)
     private Category category;
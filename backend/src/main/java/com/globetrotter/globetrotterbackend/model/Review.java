@@ -8,7 +8,10 @@ import java.time.LocalDateTime;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 @Entity
-@Table(name = "reviews")
+// One review per user and product, as ReviewServiceImpl checks before saving
+@Table(name = "reviews",
+        uniqueConstraints = @UniqueConstraint(name = "uk_reviews_product_user", columnNames = {"product_id", "user_id"}),
+        indexes = @Index(name = "idx_reviews_user_id", columnList = "user_id"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -73,9 +73,7 @@ public class User {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
-    @OneToOne(mappedBy = "user", cascade = CascadeType.ALL)
-    @JsonIgnore
-    private Cart cart;
+    // No inverse mapping to Cart: Hibernate loads a mappedBy one-to-one eagerly, one carts query per loaded row
 
     @OneToMany(mappedBy = "user", cascade = CascadeType.ALL)
     @JsonIgnore
@@ -2,6 +2,9 @@ package com.globetrotter.globetrotterbackend.repository;
 
 import com.globetrotter.globetrotterbackend.model.CartItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.util.Optional;
 
@@ -11,4 +14,9 @@ public interface CartItemRepository extends JpaRepository<CartItem, Long> {
     Optional<CartItem> findByCartIdAndProductId(Long cartId, Long productId);
 
     void deleteByCartId(Long cartId);
+
+    // Single DELETE statement; the derived deleteByCartId loads and removes rows one by one
+    @Modifying
+    @Query("DELETE FROM CartItem ci WHERE ci.cart.id = :cartId")
+    int deleteAllByCartIdInBulk(@Param("cartId") Long cartId);
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package com.globetrotter.globetrotterbackend.repository;
 
 import com.globetrotter.globetrotterbackend.model.Cart;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 import java.util.Optional;
@@ -9,4 +10,8 @@ import java.util.Optional;
 public interface CartRepository extends JpaRepository<Cart, Long> {
 
     Optional<Cart> findByUserId(Long userId);
+
+    // Loads the cart, its items and their products in one query
+    @EntityGraph(attributePaths = {"cartItems", "cartItems.product"})
+    Optional<Cart> findWithItemsByUserId(Long userId);
 }
\ No newline at end of file
@@ -1,12 +1,24 @@
 package com.globetrotter.globetrotterbackend.repository;
 
 import com.globetrotter.globetrotterbackend.model.OrderItem;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
 
+    @EntityGraph(attributePaths = "product")
     List<OrderItem> findByOrderId(Long orderId);
-}
\ No newline at end of file
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("SELECT i FROM OrderItem i JOIN FETCH i.product WHERE i.order.id IN :orderIds")
+    List<OrderItem> findWithProductByOrderIdIn(@Param("orderIds") Collection<Long> orderIds);
+}
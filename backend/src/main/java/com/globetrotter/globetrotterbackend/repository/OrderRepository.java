@@ -1,19 +1,80 @@
 package com.globetrotter.globetrotterbackend.repository;
 
 import com.globetrotter.globetrotterbackend.model.Order;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
 
     List<Order> findByUserId(Long userId);
 
+    // Listing finders fetch user, items and products with the orders so responses need no per-item queries
+    @EntityGraph(attributePaths = {"user", "orderItems", "orderItems.product"})
     List<Order> findByUserIdOrderByOrderDateDesc(Long userId);
 
+    // A lower bound on order_date narrows the index scan; on the partitioned layout it also skips earlier months
+    @EntityGraph(attributePaths = {"user", "orderItems", "orderItems.product"})
+    List<Order> findByUserIdAndOrderDateGreaterThanEqualOrderByOrderDateDesc(Long userId, LocalDateTime since);
+
+    @EntityGraph(attributePaths = {"user", "orderItems", "orderItems.product"})
+    Optional<Order> findWithItemsById(Long id);
+
+    @EntityGraph(attributePaths = {"user", "orderItems", "orderItems.product"})
+    @Query("SELECT o FROM Order o ORDER BY o.orderDate DESC")
+    List<Order> findAllWithItems();
+
     List<Order> findByStatus(Order.OrderStatus status);
 
     // NEW: Find non-archived orders sorted by date
+    @EntityGraph(attributePaths = {"user", "orderItems", "orderItems.product"})
     List<Order> findByArchivedFalseOrderByOrderDateDesc();
-}
\ No newline at end of file
+
+    @EntityGraph(attributePaths = {"user", "orderItems", "orderItems.product"})
+    List<Order> findByArchivedFalseAndOrderDateGreaterThanEqualOrderByOrderDateDesc(LocalDateTime since);
+
+    // Archives at most batchSize orders, oldest first, in its own short transaction. SKIP LOCKED leaves
+    // orders that a status update holds right now for a later batch instead of waiting on them. Setting
+    // archived moves each row into the cold partitions; joining the batch back on the whole primary key
+    // keeps the update to key lookups in the hot partitions.
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE orders o SET archived = true, updated_at = now() FROM (" +
+            "SELECT id, order_date FROM orders WHERE archived = false AND order_date < :cutoff " +
+            "ORDER BY order_date LIMIT :batchSize FOR UPDATE SKIP LOCKED) batch " +
+            "WHERE o.id = batch.id AND o.archived = false AND o.order_date = batch.order_date", nativeQuery = true)
+    int archiveBatch(@Param("cutoff") LocalDateTime cutoff, @Param("batchSize") int batchSize);
+
+    @Query("SELECT COUNT(o) FROM Order o WHERE o.archived = false AND o.orderDate < :cutoff")
+    long countArchivable(@Param("cutoff") LocalDateTime cutoff);
+
+    // Forward-only cursor for exports: PostgreSQL sends rows in fetch-size chunks instead of the whole result.
+    // Null filters are ignored (the casts give PostgreSQL a type for null timestamps). Items are not fetched
+    // here; a collection fetch would repeat each order per item.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT o FROM Order o JOIN FETCH o.user "
+            + "WHERE (:status IS NULL OR o.status = :status) "
+            + "AND (CAST(:from AS LocalDateTime) IS NULL OR o.orderDate >= :from) "
+            + "AND (CAST(:to AS LocalDateTime) IS NULL OR o.orderDate < :to) "
+            + "AND (:archived IS NULL OR o.archived = :archived) "
+            + "ORDER BY o.id")
+    Stream<Order> streamForExport(@Param("status") Order.OrderStatus status,
+                                  @Param("from") LocalDateTime from,
+                                  @Param("to") LocalDateTime to,
+                                  @Param("archived") Boolean archived);
+}
@@ -1,18 +1,35 @@
 package com.globetrotter.globetrotterbackend.repository;
 
 import com.globetrotter.globetrotterbackend.model.Product;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
 
+    // Category is fetched with the product so cached results serialize without an open session
+    @EntityGraph(attributePaths = "category")
+    Optional<Product> findWithCategoryById(Long id);
+
+    @EntityGraph(attributePaths = "category")
     List<Product> findByCategoryId(Long categoryId);
 
-    List<Product> findByNameContainingIgnoreCase(String name);
+    @EntityGraph(attributePaths = "category")
+    List<Product> findByIdIn(Collection<Long> ids);
+
+    // Database fallback for search; ILIKE is served by the pg_trgm index in db/product-search.sql
+    @Query(value = "SELECT * FROM products p WHERE p.name ILIKE '%' || :keyword || '%' " +
+            "ORDER BY (p.name ILIKE :keyword || '%') DESC, p.id ASC",
+            nativeQuery = true)
+    List<Product> searchByName(@Param("keyword") String keyword, Pageable pageable);
 
     @Query("SELECT p FROM Product p WHERE p.category.id = :categoryId AND p.price BETWEEN :minPrice AND :maxPrice")
     List<Product> findByCategoryAndPriceRange(@Param("categoryId") Long categoryId,
@@ -25,5 +42,106 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
 
     List<Product> findByOrderByPriceDesc();
 
+    // Unrated products last; NULL would otherwise sort first in a DESC order
+    @EntityGraph(attributePaths = "category")
+    @Query("SELECT p FROM Product p ORDER BY p.rating DESC NULLS LAST, p.id ASC")
     List<Product> findByOrderByRatingDesc();
+
+    // Stock is only changed through these single-statement updates so concurrent checkouts cannot oversell
+
+    @Modifying
+    @Query("UPDATE Product p SET p.stockQuantity = p.stockQuantity - :quantity " +
+            "WHERE p.id = :id AND p.stockQuantity >= :quantity")
+    int reserveStock(@Param("id") Long id, @Param("quantity") Integer quantity);
+
+    @Modifying
+    @Query("UPDATE Product p SET p.stockQuantity = p.stockQuantity + :quantity WHERE p.id = :id")
+    int releaseStock(@Param("id") Long id, @Param("quantity") Integer quantity);
+
+    // Categories whose cached listings show these products' stock
+    @Query("SELECT DISTINCT p.category.id FROM Product p WHERE p.id IN :ids")
+    List<Long> findCategoryIdsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Compare-and-set against the stock the admin last saw, so an edit never overwrites checkouts made since
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Product p SET p.stockQuantity = :quantity WHERE p.id = :id AND p.stockQuantity = :expected")
+    int replaceStock(@Param("id") Long id, @Param("expected") Integer expected, @Param("quantity") Integer quantity);
+
+    // Rating aggregates are maintained incrementally; existing columns may be NULL before reconciliation
+
+    @Modifying
+    @Query("UPDATE Product p SET " +
+            "p.rating = cast(coalesce(p.ratingTotal, 0) + :rating as double) / (coalesce(p.reviewsCount, 0) + 1), " +
+            "p.ratingTotal = coalesce(p.ratingTotal, 0) + :rating, " +
+            "p.reviewsCount = coalesce(p.reviewsCount, 0) + 1 " +
+            "WHERE p.id = :id")
+    int addRating(@Param("id") Long id, @Param("rating") Integer rating);
+
+    @Modifying
+    @Query("UPDATE Product p SET " +
+            "p.rating = CASE WHEN coalesce(p.reviewsCount, 0) <= 1 THEN 0.0 " +
+            "ELSE cast(coalesce(p.ratingTotal, 0) - :rating as double) / (p.reviewsCount - 1) END, " +
+            "p.ratingTotal = CASE WHEN coalesce(p.reviewsCount, 0) <= 1 THEN 0 ELSE coalesce(p.ratingTotal, 0) - :rating END, " +
+            "p.reviewsCount = CASE WHEN coalesce(p.reviewsCount, 0) <= 1 THEN 0 ELSE p.reviewsCount - 1 END " +
+            "WHERE p.id = :id")
+    int removeRating(@Param("id") Long id, @Param("rating") Integer rating);
+
+    // Recomputes every product's aggregate with one GROUP BY, touching only rows that drifted
+    @Modifying
+    @Query(value = "UPDATE products p SET rating_total = agg.total, reviews_count = agg.cnt, " +
+            "rating = CASE WHEN agg.cnt = 0 THEN 0 ELSE agg.total::float8 / agg.cnt END " +
+            "FROM (SELECT pr.id, COALESCE(SUM(r.rating), 0) AS total, COUNT(r.id) AS cnt " +
+            "      FROM products pr LEFT JOIN reviews r ON r.product_id = pr.id GROUP BY pr.id) agg " +
+            "WHERE p.id = agg.id " +
+            "AND (p.rating_total IS DISTINCT FROM agg.total OR p.reviews_count IS DISTINCT FROM agg.cnt)",
+            nativeQuery = true)
+    int reconcileRatings();
+
+    // Keyset pages: callers pass the last seen sort key and id, and a Pageable carrying only the page size.
+    // The redundant bound on the sort key in front of each OR is what lets the index scan start at the cursor.
+
+    @EntityGraph(attributePaths = "category")
+    @Query("SELECT p FROM Product p WHERE p.id > :afterId ORDER BY p.id ASC")
+    List<Product> findPageAfterId(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT p FROM Product p WHERE p.category.id = :categoryId AND p.id > :afterId ORDER BY p.id ASC")
+    List<Product> findPageByCategoryAfterId(@Param("categoryId") Long categoryId,
+                                            @Param("afterId") Long afterId,
+                                            Pageable pageable);
+
+    @Query("SELECT p FROM Product p WHERE p.price >= :afterPrice " +
+            "AND (p.price > :afterPrice OR (p.price = :afterPrice AND p.id > :afterId)) " +
+            "ORDER BY p.price ASC, p.id ASC")
+    List<Product> findPageByPriceAsc(@Param("afterPrice") Double afterPrice,
+                                     @Param("afterId") Long afterId,
+                                     Pageable pageable);
+
+    @Query("SELECT p FROM Product p WHERE p.price <= :afterPrice " +
+            "AND (p.price < :afterPrice OR (p.price = :afterPrice AND p.id > :afterId)) " +
+            "ORDER BY p.price DESC, p.id ASC")
+    List<Product> findPageByPriceDesc(@Param("afterPrice") Double afterPrice,
+                                      @Param("afterId") Long afterId,
+                                      Pageable pageable);
+
+    // Rated products only; ProductServiceImpl continues into findPageWithoutRatingAfterId once these run out
+    @Query("SELECT p FROM Product p WHERE p.rating <= :afterRating " +
+            "AND (p.rating < :afterRating OR (p.rating = :afterRating AND p.id > :afterId)) " +
+            "ORDER BY p.rating DESC NULLS LAST, p.id ASC")
+    List<Product> findPageByRatingDesc(@Param("afterRating") Double afterRating,
+                                       @Param("afterId") Long afterId,
+                                       Pageable pageable);
+
+    // The NULLS LAST tail of the rating order
+    @Query("SELECT p FROM Product p WHERE p.rating IS NULL AND p.id > :afterId " +
+            "ORDER BY p.rating DESC NULLS LAST, p.id ASC")
+    List<Product> findPageWithoutRatingAfterId(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT p FROM Product p WHERE p.price BETWEEN :minPrice AND :maxPrice AND p.price >= :afterPrice " +
+            "AND (p.price > :afterPrice OR (p.price = :afterPrice AND p.id > :afterId)) " +
+            "ORDER BY p.price ASC, p.id ASC")
+    List<Product> findPageByPriceRange(@Param("minPrice") Double minPrice,
+                                       @Param("maxPrice") Double maxPrice,
+                                       @Param("afterPrice") Double afterPrice,
+                                       @Param("afterId") Long afterId,
+                                       Pageable pageable);
 }
\ No newline at end of file
@@ -2,6 +2,9 @@ package com.globetrotter.globetrotterbackend.repository;
 
 import com.globetrotter.globetrotterbackend.model.Review;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.util.List;
 import java.util.Optional;
@@ -16,4 +19,9 @@ public interface ReviewRepository extends JpaRepository<Review, Long> {
     Optional<Review> findByProductIdAndUserId(Long productId, Long userId);
 
     boolean existsByProductIdAndUserId(Long productId, Long userId);
+
+    // Returns 0 when a concurrent request already deleted the review, so its rating is removed once
+    @Modifying
+    @Query("DELETE FROM Review r WHERE r.id = :id")
+    int deleteReviewById(@Param("id") Long id);
 }
\ No newline at end of file
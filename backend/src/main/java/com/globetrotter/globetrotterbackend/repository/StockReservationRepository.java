@@ -0,0 +1,37 @@
+package com.globetrotter.globetrotterbackend.repository;
+
+import com.globetrotter.globetrotterbackend.model.StockReservation;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
+
+    List<StockReservation> findByStatusAndExpiresAtBefore(StockReservation.Status status,
+                                                          LocalDateTime cutoff,
+                                                          Pageable pageable);
+
+    // Compare-and-set on status so a reservation is committed or released exactly once
+    @Modifying
+    @Query("UPDATE StockReservation r SET r.status = :to, r.orderId = :orderId WHERE r.id = :id AND r.status = :from")
+    int transition(@Param("id") Long id,
+                   @Param("from") StockReservation.Status from,
+                   @Param("to") StockReservation.Status to,
+                   @Param("orderId") Long orderId);
+
+    // Deletes at most batchSize finished reservations in its own short transaction. expires_at is
+    // created_at plus the TTL, so the cutoff on it walks the (status, expires_at) index.
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM stock_reservations WHERE id IN (" +
+            "SELECT id FROM stock_reservations WHERE status IN ('COMMITTED', 'RELEASED') AND expires_at < :cutoff " +
+            "LIMIT :batchSize)", nativeQuery = true)
+    int deleteFinishedBatch(@Param("cutoff") LocalDateTime cutoff, @Param("batchSize") int batchSize);
+}
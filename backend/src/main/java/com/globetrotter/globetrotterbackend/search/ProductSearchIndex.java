@@ -0,0 +1,324 @@
+package com.globetrotter.globetrotterbackend.search;
+
+import com.globetrotter.globetrotterbackend.model.Product;
+import com.globetrotter.globetrotterbackend.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory inverted index over product name, description and category name.
+ * Terms live in a sorted map so a query token also matches as a prefix, which is
+ * what the storefront search box sends while the user types. Tokens shorter than
+ * {@value #MIN_PREFIX_LENGTH} characters only match whole terms, and a prefix expands
+ * to at most {@value #MAX_PREFIX_TERMS} longer terms matching at most
+ * {@value #MAX_PREFIX_POSTINGS} products between them, so one keystroke never walks a
+ * large share of the catalog. Catalog edits reach the index once their transaction
+ * commits. The build runs in the background; until it finishes (or when disabled)
+ * callers fall back to the database.
+ */
+@Component
+public class ProductSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductSearchIndex.class);
+
+    private static final int NAME_WEIGHT = 3;
+    private static final int CATEGORY_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    private static final int REBUILD_BATCH_SIZE = 1000;
+    static final int MIN_PREFIX_LENGTH = 3;
+    static final int MAX_PREFIX_TERMS = 32;
+    static final int MAX_PREFIX_POSTINGS = 2000;
+
+    // Best match first: higher score, then lower id
+    private static final Comparator<Map.Entry<Long, Integer>> RANKING =
+            Map.Entry.<Long, Integer>comparingByValue(Comparator.reverseOrder()).thenComparing(Map.Entry.comparingByKey());
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Value("${search.index.enabled:true}")
+    private boolean enabled;
+
+    // term -> (productId -> field weight)
+    private final ConcurrentSkipListMap<String, Map<Long, Integer>> postings = new ConcurrentSkipListMap<>();
+    // productId -> terms, so a product can be removed without scanning every posting list
+    private final Map<Long, Set<String>> termsByProduct = new ConcurrentHashMap<>();
+
+    // Writes are serialized (catalog edits are rare); searches read the concurrent maps without locking.
+    // A lock rather than synchronized, so a rebuild blocked on JDBC does not pin a virtual thread's carrier.
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    private volatile boolean ready = false;
+
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) {
+            log.info("Product search index disabled; searches use the database");
+            return;
+        }
+        writeLock.lock();
+        try {
+            rebuildLocked();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void rebuildLocked() {
+        long start = System.currentTimeMillis();
+        ready = false;
+        postings.clear();
+        termsByProduct.clear();
+
+        long afterId = 0L;
+        int indexed = 0;
+        List<Product> batch;
+        do {
+            batch = productRepository.findPageAfterId(afterId, PageRequest.of(0, REBUILD_BATCH_SIZE));
+            for (Product product : batch) {
+                indexLocked(product);
+                afterId = product.getId();
+            }
+            indexed += batch.size();
+        } while (batch.size() == REBUILD_BATCH_SIZE);
+
+        ready = true;
+        log.info("Product search index built: {} products, {} terms in {} ms",
+                indexed, postings.size(), System.currentTimeMillis() - start);
+    }
+
+    public void index(Product product) {
+        if (!enabled || product.getId() == null) {
+            return;
+        }
+        afterCommit(() -> {
+            writeLock.lock();
+            try {
+                indexLocked(product);
+            } finally {
+                writeLock.unlock();
+            }
+        });
+    }
+
+    private void indexLocked(Product product) {
+        Map<String, Integer> weights = new HashMap<>();
+        addTerms(weights, product.getName(), NAME_WEIGHT);
+        addTerms(weights, product.getDescription(), DESCRIPTION_WEIGHT);
+        if (product.getCategory() != null) {
+            addTerms(weights, product.getCategory().getName(), CATEGORY_WEIGHT);
+        }
+
+        removePostings(product.getId());
+        weights.forEach((term, weight) ->
+                postings.computeIfAbsent(term, t -> new ConcurrentHashMap<>()).put(product.getId(), weight));
+        termsByProduct.put(product.getId(), weights.keySet());
+    }
+
+    public void remove(Long productId) {
+        if (productId == null) {
+            return;
+        }
+        afterCommit(() -> {
+            writeLock.lock();
+            try {
+                removePostings(productId);
+                termsByProduct.remove(productId);
+            } finally {
+                writeLock.unlock();
+            }
+        });
+    }
+
+    /**
+     * Returns product ids matching every query token, best match first.
+     * An exact term match scores double a prefix match; ties break on id.
+     */
+    public List<Long> search(String keyword, int offset, int limit) {
+        List<String> tokens = tokenize(keyword);
+        if (tokens.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        List<List<Match>> matches = new ArrayList<>();
+        for (String token : tokens) {
+            List<Match> tokenMatches = matches(token);
+            if (tokenMatches.isEmpty()) {
+                return Collections.emptyList();
+            }
+            matches.add(tokenMatches);
+        }
+        // The rarest token picks the candidates; the others are only looked up for those
+        matches.sort(Comparator.comparingLong(ProductSearchIndex::postingCount));
+
+        Map<Long, Integer> scores = new HashMap<>();
+        for (Match match : matches.get(0)) {
+            match.postings().forEach((id, weight) -> scores.merge(id, weight * match.boost(), Math::max));
+        }
+        for (List<Match> tokenMatches : matches.subList(1, matches.size())) {
+            scores.entrySet().removeIf(entry -> {
+                int score = score(entry.getKey(), tokenMatches);
+                entry.setValue(entry.getValue() + score);
+                return score == 0;
+            });
+            if (scores.isEmpty()) {
+                return Collections.emptyList();
+            }
+        }
+        return top(scores, offset, limit);
+    }
+
+    // The token as a whole term, then the first MAX_PREFIX_TERMS longer terms it starts, leaving out
+    // any that would take their postings past MAX_PREFIX_POSTINGS; typed out in full, those still match
+    private List<Match> matches(String token) {
+        List<Match> matches = new ArrayList<>();
+        Map<Long, Integer> exact = postings.get(token);
+        if (exact != null) {
+            matches.add(new Match(exact, 2));
+        }
+        if (token.length() < MIN_PREFIX_LENGTH) {
+            return matches;
+        }
+        int expanded = 0;
+        int budget = MAX_PREFIX_POSTINGS;
+        for (Map<Long, Integer> prefixed : postings.subMap(token, false, token + Character.MAX_VALUE, true).values()) {
+            if (expanded++ == MAX_PREFIX_TERMS) {
+                break;
+            }
+            int size = prefixed.size();
+            if (size <= budget) {
+                matches.add(new Match(prefixed, 1));
+                budget -= size;
+            }
+        }
+        return matches;
+    }
+
+    private static int score(Long productId, List<Match> tokenMatches) {
+        int best = 0;
+        for (Match match : tokenMatches) {
+            Integer weight = match.postings().get(productId);
+            if (weight != null) {
+                best = Math.max(best, weight * match.boost());
+            }
+        }
+        return best;
+    }
+
+    private static long postingCount(List<Match> tokenMatches) {
+        long count = 0;
+        for (Match match : tokenMatches) {
+            count += match.postings().size();
+        }
+        return count;
+    }
+
+    // Keeps only the best offset + limit entries in a heap instead of sorting every match
+    private static List<Long> top(Map<Long, Integer> scores, int offset, int limit) {
+        int keep = (int) Math.min((long) offset + limit, scores.size());
+        if (offset >= keep) {
+            return Collections.emptyList();
+        }
+        PriorityQueue<Map.Entry<Long, Integer>> best = new PriorityQueue<>(keep, RANKING.reversed());
+        for (Map.Entry<Long, Integer> entry : scores.entrySet()) {
+            if (best.size() < keep) {
+                best.add(entry);
+            } else if (RANKING.compare(entry, best.peek()) < 0) {
+                best.poll();
+                best.add(entry);
+            }
+        }
+        List<Map.Entry<Long, Integer>> ranked = new ArrayList<>(best);
+        ranked.sort(RANKING);
+
+        List<Long> ids = new ArrayList<>();
+        for (Map.Entry<Long, Integer> entry : ranked.subList(offset, ranked.size())) {
+            ids.add(entry.getKey());
+        }
+        return ids;
+    }
+
+    private void removePostings(Long productId) {
+        Set<String> terms = termsByProduct.get(productId);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            postings.computeIfPresent(term, (t, ids) -> {
+                ids.remove(productId);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+
+    private void addTerms(Map<String, Integer> weights, String text, int weight) {
+        for (String token : tokenize(text)) {
+            weights.merge(token, weight, Math::max);
+        }
+    }
+
+    // Edits inside a transaction are applied once it commits, so a rollback never reaches the index
+    private static void afterCommit(Runnable change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                }
+            });
+        } else {
+            change.run();
+        }
+    }
+
+    // A matched term's postings and how much its weights count: double for the whole token
+    private record Match(Map<Long, Integer> postings, int boost) {
+    }
+
+    // Lower-cases, strips accents and splits on anything that is not a letter or digit
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return Collections.emptyList();
+        }
+        String folded = Normalizer.normalize(text, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT);
+
+        Set<String> tokens = new HashSet<>();
+        for (String token : folded.split("[^\\p{L}\\p{Nd}]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return new ArrayList<>(tokens);
+    }
+}
@@ -4,6 +4,7 @@ import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -12,12 +13,19 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 @Component
 public class GatewayAuthenticationFilter extends OncePerRequestFilter {
 
+    @Autowired
+    private UserPrincipalCache principalCache;
+
+    @Autowired
+    private GatewaySignature gatewaySignature;
+
     @Override
     protected void doFilterInternal(
             HttpServletRequest request,
@@ -28,9 +36,12 @@ public class GatewayAuthenticationFilter extends OncePerRequestFilter {
         // Check if request comes from Gateway
         String username = request.getHeader("X-Username");
         String rolesHeader = request.getHeader("X-User-Roles");
+        String userIdHeader = request.getHeader("X-User-Id");
 
-        if (username != null && !username.isEmpty()) {
-            // Request from Gateway - trust it!
+        // Identity headers count only when the gateway signed them recently; anything else stays unauthenticated
+        if (username != null && !username.isEmpty()
+                && gatewaySignature.verify(username, userIdHeader, rolesHeader,
+                        request.getHeader(GatewaySignature.ISSUED_AT_HEADER), request.getHeader(GatewaySignature.HEADER))) {
 
             // Parse roles from header (comma-separated)
             List<SimpleGrantedAuthority> authorities;
@@ -44,20 +55,40 @@ public class GatewayAuthenticationFilter extends OncePerRequestFilter {
                 authorities = List.of(new SimpleGrantedAuthority("ROLE_CUSTOMER"));
             }
 
-            // Create authentication token
-            UsernamePasswordAuthenticationToken authentication =
-                    new UsernamePasswordAuthenticationToken(
-                            username,
-                            null,
-                            authorities
-                    );
+            // Gateways that predate X-User-Id only send the username; resolve the id once per cache TTL
+            Optional<UserPrincipal> principal = parseUserId(userIdHeader)
+                    .map(id -> new UserPrincipal(id, username, null, authorities))
+                    .or(() -> principalCache.get(username));
 
-            // Set in security context
-            SecurityContextHolder.getContext().setAuthentication(authentication);
+            if (principal.isPresent()) {
+                // Create authentication token
+                UsernamePasswordAuthenticationToken authentication =
+                        new UsernamePasswordAuthenticationToken(
+                                principal.get(),
+                                null,
+                                authorities
+                        );
 
-            System.out.println("✅ Gateway Authentication: User=" + username + ", Roles=" + authorities);
+                // Set in security context
+                SecurityContextHolder.getContext().setAuthentication(authentication);
+
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Gateway authentication: user=" + username + ", roles=" + authorities);
+                }
+            }
         }
 
         filterChain.doFilter(request, response);
     }
+
+    private Optional<Long> parseUserId(String header) {
+        if (header == null || header.isEmpty()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(Long.parseLong(header.trim()));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
 }
\ No newline at end of file
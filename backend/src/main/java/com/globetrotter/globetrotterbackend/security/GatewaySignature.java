@@ -0,0 +1,77 @@
+package com.globetrotter.globetrotterbackend.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+
+/**
+ * HMAC the gateway puts over the identity headers it sets and the time it set them. Only a
+ * caller holding the shared secret can produce one, so headers sent straight to the backend,
+ * or a user id paired with someone else's username, are not trusted. A signature is accepted
+ * for {@link #MAX_AGE_SECONDS} either side of its issue time, so a captured header set cannot
+ * be replayed after a role change or the user's deletion.
+ */
+@Component
+public class GatewaySignature {
+
+    public static final String HEADER = "X-Gateway-Signature";
+
+    public static final String ISSUED_AT_HEADER = "X-Gateway-Signed-At";
+
+    // Covers the hop from the gateway plus clock skew between the two hosts
+    static final long MAX_AGE_SECONDS = 30;
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    // Keyed once and cloned per call: Mac is not thread-safe, and a ThreadLocal would key
+    // a new one for every virtual thread
+    private final Mac prototype;
+
+    public GatewaySignature(@Value("${gateway.identity.secret}") String secret) {
+        try {
+            prototype = Mac.getInstance(ALGORITHM);
+            prototype.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 is not available", e);
+        }
+    }
+
+    // Header values as sent; a missing header signs as empty
+    public String sign(String username, String userId, String roles, long issuedAt) {
+        String payload = username + "\n" + (userId != null ? userId : "") + "\n" + (roles != null ? roles : "")
+                + "\n" + issuedAt;
+        byte[] digest = mac().doFinal(payload.getBytes(StandardCharsets.UTF_8));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+    }
+
+    public boolean verify(String username, String userId, String roles, String issuedAt, String signature) {
+        if (signature == null || signature.isEmpty() || issuedAt == null) {
+            return false;
+        }
+        long signedAt;
+        try {
+            signedAt = Long.parseLong(issuedAt);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        if (Math.abs(System.currentTimeMillis() / 1000 - signedAt) > MAX_AGE_SECONDS) {
+            return false;
+        }
+        return MessageDigest.isEqual(sign(username, userId, roles, signedAt).getBytes(StandardCharsets.US_ASCII),
+                signature.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private Mac mac() {
+        try {
+            return (Mac) prototype.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException("HMAC-SHA256 provider does not support cloning", e);
+        }
+    }
+}
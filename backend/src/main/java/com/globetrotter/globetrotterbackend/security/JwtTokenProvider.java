@@ -1,31 +1,47 @@
 package com.globetrotter.globetrotterbackend.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.JwtException;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
 import java.util.Date;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Component
 public class JwtTokenProvider {
 
+    public static final String USER_ID_CLAIM = "userId";
+
+    @Autowired
+    private UserPrincipalCache principalCache;
+
     @Value("${jwt.secret}")
     private String jwtSecret;
 
     @Value("${jwt.expiration}")
     private long jwtExpirationMs;
 
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+    private SecretKey signingKey;
+    private JwtParser parser;
+
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parser().verifyWith(signingKey).build();
     }
 
     public String generateToken(Authentication authentication) {
@@ -40,12 +56,17 @@ public class JwtTokenProvider {
         Date now = new Date();
         Date expiry = new Date(now.getTime() + jwtExpirationMs);
 
-        return Jwts.builder()
+        JwtBuilder builder = Jwts.builder()
                 .setSubject(username)
-                .claim("roles", roles)
+                .claim("roles", roles);
+        if (authentication.getPrincipal() instanceof UserPrincipal principal) {
+            builder.claim(USER_ID_CLAIM, principal.getId());
+        }
+
+        return builder
                 .setIssuedAt(now)
                 .setExpiration(expiry)
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
     }
 
@@ -54,12 +75,42 @@ public class JwtTokenProvider {
         return claims.getSubject();
     }
 
-    @SuppressWarnings("unchecked")
     public List<String> getRolesFromToken(String token) {
-        Claims claims = getClaims(token);
+        return getRoles(getClaims(token));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> getRoles(Claims claims) {
         return (List<String>) claims.get("roles");
     }
 
+    /**
+     * Builds the request principal from a verified token. Tokens issued before the
+     * userId claim was added fall back to the principal cache.
+     */
+    public Optional<UserPrincipal> getPrincipal(Claims claims) {
+        List<String> roles = getRoles(claims);
+        Long userId = claims.get(USER_ID_CLAIM, Long.class);
+        if (userId == null) {
+            return principalCache.get(claims.getSubject());
+        }
+
+        List<SimpleGrantedAuthority> authorities = (roles != null ? roles : List.of("CUSTOMER")).stream()
+                .map(role -> role.startsWith("ROLE_") ? role : "ROLE_" + role)
+                .map(SimpleGrantedAuthority::new)
+                .toList();
+        return Optional.of(new UserPrincipal(userId, claims.getSubject(), null, authorities));
+    }
+
+    // Verified claims, or empty when the token is malformed, badly signed or expired
+    public Optional<Claims> parseClaims(String token) {
+        try {
+            return Optional.of(getClaims(token));
+        } catch (JwtException | IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
     public boolean validateToken(String token) {
         try {
             getClaims(token);
@@ -70,10 +121,7 @@ public class JwtTokenProvider {
     }
 
     private Claims getClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
+        return parser.parseSignedClaims(token)
                 .getPayload();
     }
 }
\ No newline at end of file
@@ -0,0 +1,67 @@
+package com.globetrotter.globetrotterbackend.security;
+
+import com.globetrotter.globetrotterbackend.cache.CacheValueCodec;
+import com.globetrotter.globetrotterbackend.config.CacheConfig;
+import com.globetrotter.globetrotterbackend.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Short-lived username to principal cache for requests whose credentials do not
+ * carry a user id (tokens issued before the userId claim existed). Entries are
+ * kept briefly so role changes and deletions take effect within the TTL, and are
+ * shared between instances through {@link CacheConfig#USER_PRINCIPALS}.
+ */
+@Component
+public class UserPrincipalCache {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private Cache principals;
+
+    @PostConstruct
+    void init() {
+        principals = cacheManager.getCache(CacheConfig.USER_PRINCIPALS);
+    }
+
+    public Optional<UserPrincipal> get(String username) {
+        return Optional.ofNullable(principals.get(username, () -> userRepository.findByUsername(username)
+                .map(user -> UserPrincipal.from(user).withoutPassword())
+                .orElse(null)));
+    }
+
+    public void evict(String username) {
+        principals.evict(username);
+    }
+
+    // UserPrincipal has no JSON creator, so the shared tier holds its id, username and authority names
+    public static CacheValueCodec codec(JsonMapper jsonMapper) {
+        return CacheValueCodec.of(
+                value -> {
+                    UserPrincipal principal = (UserPrincipal) value;
+                    return jsonMapper.writeValueAsBytes(new Entry(principal.getId(), principal.getUsername(),
+                            principal.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList()));
+                },
+                bytes -> {
+                    Entry entry = jsonMapper.readValue(bytes, Entry.class);
+                    return new UserPrincipal(entry.id(), entry.username(), null,
+                            entry.authorities().stream().map(SimpleGrantedAuthority::new).toList());
+                });
+    }
+
+    private record Entry(Long id, String username, List<String> authorities) {
+    }
+}
@@ -19,4 +19,10 @@ public interface CartService {
     Optional<Cart> getCartByUserId(Long userId);
 
     Double getCartTotal(Long userId);
+
+    // Writes the cart's pending changes in the current transaction, so checkout can read it from the database
+    void flushCart(Long userId);
+
+    // Drops the lines checkout ordered from the in-memory cart once the current transaction commits
+    void cartCheckedOut(Long userId);
 }
\ No newline at end of file
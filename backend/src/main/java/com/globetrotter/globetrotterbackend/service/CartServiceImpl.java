@@ -1,106 +1,107 @@
 package com.globetrotter.globetrotterbackend.service;
 
+import com.globetrotter.globetrotterbackend.cart.ActiveCart;
+import com.globetrotter.globetrotterbackend.cart.CartStore;
 import com.globetrotter.globetrotterbackend.model.Cart;
 import com.globetrotter.globetrotterbackend.model.CartItem;
 import com.globetrotter.globetrotterbackend.model.Product;
-import com.globetrotter.globetrotterbackend.model.User;
-import com.globetrotter.globetrotterbackend.repository.CartRepository;
-import com.globetrotter.globetrotterbackend.repository.CartItemRepository;
-import com.globetrotter.globetrotterbackend.repository.ProductRepository;
-import com.globetrotter.globetrotterbackend.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 import java.util.Optional;
 
+/**
+ * Cart operations on the in-memory carts of {@link CartStore}, which writes them behind to the
+ * database. Products come from the catalog cache, so a cart click makes no database round trip
+ * once the user's cart is loaded.
+ */
 @Service
 public class CartServiceImpl implements CartService {
 
     @Autowired
-    private CartRepository cartRepository;
+    private CartStore cartStore;
 
     @Autowired
-    private CartItemRepository cartItemRepository;
-
-    @Autowired
-    private ProductRepository productRepository;
-
-    @Autowired
-    private UserRepository userRepository;
+    private ProductService productService;
 
     @Override
     public Cart getOrCreateCart(Long userId) {
-        return cartRepository.findByUserId(userId)
-                .orElseGet(() -> {
-                    User user = userRepository.findById(userId)
-                            .orElseThrow(() -> new RuntimeException("User not found"));
-                    Cart cart = new Cart();
-                    cart.setUser(user);
-                    return cartRepository.save(cart);
-                });
+        return toCart(cartStore.withCart(userId, true, ActiveCart::snapshot));
     }
 
     @Override
-    @Transactional
     public CartItem addToCart(Long userId, Long productId, Integer quantity) {
-        Cart cart = getOrCreateCart(userId);
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new RuntimeException("Product not found"));
-
-        Optional<CartItem> existingItem = cartItemRepository
-                .findByCartIdAndProductId(cart.getId(), productId);
-
-        if (existingItem.isPresent()) {
-            CartItem item = existingItem.get();
-            item.setQuantity(item.getQuantity() + quantity);
-            return cartItemRepository.save(item);
-        } else {
-            CartItem newItem = new CartItem();
-            newItem.setCart(cart);
-            newItem.setProduct(product);
-            newItem.setQuantity(quantity);
-            newItem.setPrice(product.getPrice());
-            return cartItemRepository.save(newItem);
-        }
+        Product product = getProduct(productId);
+        ActiveCart.Line line = cartStore.withCart(userId, true,
+                cart -> cart.add(productId, quantity, product.getPrice()));
+        return toItem(null, product, line);
     }
 
     @Override
-    @Transactional
     public CartItem updateCartItemQuantity(Long userId, Long productId, Integer quantity) {
-        Cart cart = getOrCreateCart(userId);
-        CartItem item = cartItemRepository.findByCartIdAndProductId(cart.getId(), productId)
-                .orElseThrow(() -> new RuntimeException("Item not found in cart"));
-
-        item.setQuantity(quantity);
-        return cartItemRepository.save(item);
+        ActiveCart.Line line = cartStore.withCart(userId, true, cart -> cart.setQuantity(productId, quantity)
+                .orElseThrow(() -> new RuntimeException("Item not found in cart")));
+        return toItem(null, getProduct(productId), line);
     }
 
     @Override
-    @Transactional
     public void removeFromCart(Long userId, Long productId) {
-        Cart cart = getOrCreateCart(userId);
-        CartItem item = cartItemRepository.findByCartIdAndProductId(cart.getId(), productId)
-                .orElseThrow(() -> new RuntimeException("Item not found in cart"));
-
-        cartItemRepository.delete(item);
+        cartStore.withCart(userId, true, cart -> {
+            if (!cart.remove(productId)) {
+                throw new RuntimeException("Item not found in cart");
+            }
+            return null;
+        });
     }
 
     @Override
-    @Transactional
     public void clearCart(Long userId) {
-        Cart cart = getOrCreateCart(userId);
-        cartItemRepository.deleteByCartId(cart.getId());
+        cartStore.withCart(userId, false, cart -> {
+            cart.clear();
+            return null;
+        });
     }
 
     @Override
     public Optional<Cart> getCartByUserId(Long userId) {
-        return cartRepository.findByUserId(userId);
+        ActiveCart.Snapshot snapshot = cartStore.withCart(userId, false, ActiveCart::snapshot);
+        return snapshot.cartId() == null ? Optional.empty() : Optional.of(toCart(snapshot));
     }
 
     @Override
     public Double getCartTotal(Long userId) {
-        return cartRepository.findByUserId(userId)
+        return getCartByUserId(userId)
                 .map(Cart::getTotal)
                 .orElse(0.0);
     }
-}
\ No newline at end of file
+
+    @Override
+    public void flushCart(Long userId) {
+        cartStore.flush(userId);
+    }
+
+    @Override
+    public void cartCheckedOut(Long userId) {
+        cartStore.checkedOut(userId);
+    }
+
+    private Product getProduct(Long productId) {
+        return productService.getProductById(productId)
+                .orElseThrow(() -> new RuntimeException("Product not found"));
+    }
+
+    // Lines whose product has since been deleted are left out, as its cart_items rows are
+    private Cart toCart(ActiveCart.Snapshot snapshot) {
+        Cart cart = new Cart();
+        cart.setId(snapshot.cartId());
+        cart.setCreatedAt(snapshot.createdAt());
+        for (ActiveCart.Line line : snapshot.lines()) {
+            productService.getProductById(line.productId())
+                    .ifPresent(product -> cart.getCartItems().add(toItem(cart, product, line)));
+        }
+        return cart;
+    }
+
+    private static CartItem toItem(Cart cart, Product product, ActiveCart.Line line) {
+        return new CartItem(line.itemId(), cart, product, line.quantity(), line.price());
+    }
+}
@@ -0,0 +1,94 @@
+package com.globetrotter.globetrotterbackend.service;
+
+import com.globetrotter.globetrotterbackend.config.CacheConfig;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.util.Collection;
+
+/**
+ * Evicts catalog cache entries affected by a write. Evictions are deferred until
+ * the surrounding transaction commits so a concurrent read cannot re-cache the
+ * pre-commit row.
+ */
+@Component
+public class CatalogCacheInvalidator {
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    public void productChanged(Long productId, Long... categoryIds) {
+        afterCommit(() -> {
+            if (productId != null) {
+                evict(CacheConfig.PRODUCTS, productId);
+            }
+            for (Long categoryId : categoryIds) {
+                if (categoryId != null) {
+                    evict(CacheConfig.PRODUCTS_BY_CATEGORY, categoryId);
+                }
+            }
+            clear(CacheConfig.TOP_RATED_PRODUCTS);
+        });
+    }
+
+    // Stock changes at checkout; listings embed each product's stock, so they go with it
+    public void productsChanged(Collection<Long> productIds, Collection<Long> categoryIds) {
+        afterCommit(() -> {
+            productIds.forEach(productId -> evict(CacheConfig.PRODUCTS, productId));
+            categoryIds.forEach(categoryId -> evict(CacheConfig.PRODUCTS_BY_CATEGORY, categoryId));
+            clear(CacheConfig.TOP_RATED_PRODUCTS);
+        });
+    }
+
+    // Products embed their category, so renaming or deleting one touches every cached product
+    public void categoryChanged(Long categoryId) {
+        afterCommit(() -> {
+            clear(CacheConfig.CATEGORIES);
+            clear(CacheConfig.PRODUCTS);
+            evict(CacheConfig.PRODUCTS_BY_CATEGORY, categoryId);
+            clear(CacheConfig.TOP_RATED_PRODUCTS);
+        });
+    }
+
+    public void allProductsChanged() {
+        afterCommit(() -> {
+            clear(CacheConfig.PRODUCTS);
+            clear(CacheConfig.PRODUCTS_BY_CATEGORY);
+            clear(CacheConfig.TOP_RATED_PRODUCTS);
+        });
+    }
+
+    public void categoryAdded() {
+        afterCommit(() -> clear(CacheConfig.CATEGORIES));
+    }
+
+    private void evict(String cacheName, Object key) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            cache.evict(key);
+        }
+    }
+
+    private void clear(String cacheName) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    private void afterCommit(Runnable eviction) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eviction.run();
+                }
+            });
+        } else {
+            eviction.run();
+        }
+    }
+}
@@ -1,8 +1,13 @@
 package com.globetrotter.globetrotterbackend.service;
 
+import com.globetrotter.globetrotterbackend.config.CacheConfig;
 import com.globetrotter.globetrotterbackend.model.Category;
+import com.globetrotter.globetrotterbackend.model.Product;
 import com.globetrotter.globetrotterbackend.repository.CategoryRepository;
+import com.globetrotter.globetrotterbackend.repository.ProductRepository;
+import com.globetrotter.globetrotterbackend.search.ProductSearchIndex;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import java.util.List;
 import java.util.Optional;
@@ -13,15 +18,27 @@ public class CategoryServiceImpl implements CategoryService {
     @Autowired
     private CategoryRepository categoryRepository;
 
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CatalogCacheInvalidator cacheInvalidator;
+
+    @Autowired
+    private ProductSearchIndex searchIndex;
+
     @Override
     public Category createCategory(Category category) {
         if (categoryRepository.existsByName(category.getName())) {
             throw new RuntimeException("Category already exists");
         }
-        return categoryRepository.save(category);
+        Category saved = categoryRepository.save(category);
+        cacheInvalidator.categoryAdded();
+        return saved;
     }
 
     @Override
+    @Cacheable(CacheConfig.CATEGORIES)
     public List<Category> getAllCategories() {
         return categoryRepository.findAll();
     }
@@ -40,11 +57,18 @@ public class CategoryServiceImpl implements CategoryService {
         category.setDescription(categoryDetails.getDescription());
         category.setImageUrl(categoryDetails.getImageUrl());
 
-        return categoryRepository.save(category);
+        Category saved = categoryRepository.save(category);
+        cacheInvalidator.categoryChanged(id);
+        // Category name is indexed with each product, so re-index the category's products
+        productRepository.findByCategoryId(id).forEach(searchIndex::index);
+        return saved;
     }
 
     @Override
     public void deleteCategory(Long id) {
+        List<Product> products = productRepository.findByCategoryId(id);
         categoryRepository.deleteById(id);
+        products.forEach(product -> searchIndex.remove(product.getId()));
+        cacheInvalidator.categoryChanged(id);
     }
 }
\ No newline at end of file
@@ -0,0 +1,18 @@
+package com.globetrotter.globetrotterbackend.service;
+
+import com.globetrotter.globetrotterbackend.dto.ArchiveJobStatus;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface OrderArchiveService {
+
+    /**
+     * Starts archiving every non-archived order placed before {@code cutoff} in the
+     * background and returns the job. Only one job runs at a time; while one is
+     * running, this returns that job instead of starting another.
+     */
+    ArchiveJobStatus startArchive(LocalDateTime cutoff);
+
+    Optional<ArchiveJobStatus> getJob(String jobId);
+}
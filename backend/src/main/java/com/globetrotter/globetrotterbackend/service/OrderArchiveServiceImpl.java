@@ -0,0 +1,113 @@
+package com.globetrotter.globetrotterbackend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.globetrotter.globetrotterbackend.dto.ArchiveJobStatus;
+import com.globetrotter.globetrotterbackend.repository.OrderRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Service
+public class OrderArchiveServiceImpl implements OrderArchiveService {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderArchiveServiceImpl.class);
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private AsyncTaskExecutor taskExecutor;
+
+    @Value("${orders.archive.batch-size:1000}")
+    private int batchSize;
+
+    // Finished jobs stay queryable for a while so the admin page can show the result
+    private final Cache<String, Job> jobs = Caffeine.newBuilder()
+            .maximumSize(100)
+            .expireAfterWrite(Duration.ofHours(1))
+            .build();
+
+    private final AtomicReference<Job> running = new AtomicReference<>();
+
+    @Override
+    public ArchiveJobStatus startArchive(LocalDateTime cutoff) {
+        Job job = new Job(UUID.randomUUID().toString(), cutoff);
+        Job current = running.compareAndExchange(null, job);
+        if (current != null) {
+            return current.status();
+        }
+        jobs.put(job.id, job);
+        try {
+            taskExecutor.execute(() -> run(job));
+        } catch (RuntimeException e) {
+            // Never started, so run() will not clear it; left set it would block every later archive
+            job.finish(ArchiveJobStatus.State.FAILED, "Archive job could not be started, try again later");
+            running.compareAndSet(job, null);
+            log.warn("Archive job {} could not be started", job.id, e);
+        }
+        return job.status();
+    }
+
+    @Override
+    public Optional<ArchiveJobStatus> getJob(String jobId) {
+        return Optional.ofNullable(jobs.getIfPresent(jobId)).map(Job::status);
+    }
+
+    private void run(Job job) {
+        try {
+            job.total = orderRepository.countArchivable(job.cutoff);
+            int updated;
+            do {
+                updated = orderRepository.archiveBatch(job.cutoff, batchSize);
+                job.archived.addAndGet(updated);
+            } while (updated > 0);
+            job.finish(ArchiveJobStatus.State.COMPLETED, null);
+            log.info("Archive job {} archived {} orders placed before {}", job.id, job.archived.get(), job.cutoff);
+        } catch (RuntimeException e) {
+            job.finish(ArchiveJobStatus.State.FAILED, e.getMessage());
+            log.error("Archive job {} failed after {} orders", job.id, job.archived.get(), e);
+        } finally {
+            running.compareAndSet(job, null);
+        }
+    }
+
+    private static final class Job {
+
+        final String id;
+        final LocalDateTime cutoff;
+        final LocalDateTime startedAt = LocalDateTime.now();
+        final AtomicLong archived = new AtomicLong();
+        volatile long total;
+        volatile ArchiveJobStatus.State state = ArchiveJobStatus.State.RUNNING;
+        volatile LocalDateTime finishedAt;
+        volatile String error;
+
+        Job(String id, LocalDateTime cutoff) {
+            this.id = id;
+            this.cutoff = cutoff;
+        }
+
+        void finish(ArchiveJobStatus.State state, String error) {
+            this.error = error;
+            this.finishedAt = LocalDateTime.now();
+            this.state = state;
+        }
+
+        ArchiveJobStatus status() {
+            return new ArchiveJobStatus(id, state, cutoff, total, archived.get(), startedAt, finishedAt, error);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.globetrotter.globetrotterbackend.service;
+
+import com.globetrotter.globetrotterbackend.dto.OrderExportFilter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface OrderExportService {
+
+    enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    /**
+     * Writes every order matching the filter to {@code out}, oldest id first. Orders
+     * are read through a database cursor and written as they arrive, so memory use
+     * does not depend on how many orders match. The stream is flushed but not closed.
+     */
+    void export(OrderExportFilter filter, Format format, OutputStream out) throws IOException;
+}
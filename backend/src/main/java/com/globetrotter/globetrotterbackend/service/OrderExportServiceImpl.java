@@ -0,0 +1,122 @@
+package com.globetrotter.globetrotterbackend.service;
+
+import com.globetrotter.globetrotterbackend.dto.OrderExportFilter;
+import com.globetrotter.globetrotterbackend.dto.OrderResponse;
+import com.globetrotter.globetrotterbackend.model.Order;
+import com.globetrotter.globetrotterbackend.model.OrderItem;
+import com.globetrotter.globetrotterbackend.repository.OrderItemRepository;
+import com.globetrotter.globetrotterbackend.repository.OrderRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Service
+public class OrderExportServiceImpl implements OrderExportService {
+
+    // Orders per items query and per persistence-context clear
+    private static final int CHUNK_SIZE = 500;
+
+    private static final String CSV_HEADER =
+            "id,user_id,username,order_date,status,total_amount,payment_method,shipping_address,archived,items";
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private JsonMapper jsonMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional(readOnly = true)
+    public void export(OrderExportFilter filter, Format format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if (format == Format.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+
+        try (Stream<Order> orders = orderRepository.streamForExport(
+                filter.getStatus(), filter.getFrom(), filter.getTo(), filter.getArchived())) {
+            Iterator<Order> iterator = orders.iterator();
+            List<Order> chunk = new ArrayList<>(CHUNK_SIZE);
+            while (iterator.hasNext()) {
+                chunk.add(iterator.next());
+                if (chunk.size() == CHUNK_SIZE || !iterator.hasNext()) {
+                    writeChunk(chunk, format, writer);
+                    chunk.clear();
+                    // Detach what this chunk loaded so the persistence context stays bounded
+                    entityManager.clear();
+                    writer.flush();
+                }
+            }
+        }
+        writer.flush();
+    }
+
+    private void writeChunk(List<Order> chunk, Format format, Writer writer) throws IOException {
+        List<Long> orderIds = chunk.stream().map(Order::getId).collect(Collectors.toList());
+        Map<Long, List<OrderItem>> itemsByOrder = orderItemRepository.findWithProductByOrderIdIn(orderIds).stream()
+                .collect(Collectors.groupingBy(item -> item.getOrder().getId()));
+
+        for (Order order : chunk) {
+            List<OrderItem> items = itemsByOrder.getOrDefault(order.getId(), Collections.emptyList());
+            if (format == Format.CSV) {
+                writeCsvRow(order, items, writer);
+            } else {
+                writer.write(jsonMapper.writeValueAsString(OrderResponse.from(order, items)));
+                writer.write('\n');
+            }
+        }
+    }
+
+    // Items are flattened into one column as productId:quantity pairs separated by ';'
+    private void writeCsvRow(Order order, List<OrderItem> items, Writer writer) throws IOException {
+        String itemColumn = items.stream()
+                .map(item -> item.getProduct().getId() + ":" + item.getQuantity())
+                .collect(Collectors.joining(";"));
+        writer.write(String.join(",",
+                String.valueOf(order.getId()),
+                String.valueOf(order.getUser().getId()),
+                csv(order.getUser().getUsername()),
+                String.valueOf(order.getOrderDate()),
+                String.valueOf(order.getStatus()),
+                String.valueOf(order.getTotalAmount()),
+                csv(order.getPaymentMethod()),
+                csv(order.getShippingAddress()),
+                String.valueOf(order.isArchived()),
+                itemColumn));
+        writer.write('\n');
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -1,6 +1,7 @@
 package com.globetrotter.globetrotterbackend.service;
 
 import com.globetrotter.globetrotterbackend.model.Order;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -10,6 +11,8 @@ public interface OrderService {
 
     List<Order> getUserOrders(Long userId);
 
+    List<Order> getUserOrders(Long userId, LocalDateTime since);
+
     Optional<Order> getOrderById(Long orderId);
 
     Order updateOrderStatus(Long orderId, Order.OrderStatus status);
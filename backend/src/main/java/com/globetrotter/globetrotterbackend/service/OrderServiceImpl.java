@@ -1,12 +1,16 @@
 package com.globetrotter.globetrotterbackend.service;
 
 import com.globetrotter.globetrotterbackend.model.*;
+import com.globetrotter.globetrotterbackend.repository.CartItemRepository;
+import com.globetrotter.globetrotterbackend.repository.CartRepository;
 import com.globetrotter.globetrotterbackend.repository.OrderRepository;
-import com.globetrotter.globetrotterbackend.repository.OrderItemRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -16,58 +20,100 @@ public class OrderServiceImpl implements OrderService {
     private OrderRepository orderRepository;
 
     @Autowired
-    private OrderItemRepository orderItemRepository;
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
 
     @Autowired
     private CartService cartService;
 
     @Autowired
-    private UserService userService;
+    private StockReservationService stockReservationService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
 
+    // Stock is reserved and the order placed in two short transactions, so the
+    // reservation's product row locks are not held while the order is written
     @Override
-    @Transactional
     public Order createOrder(Long userId, String shippingAddress, String paymentMethod) {
-        User user = userService.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
-        Cart cart = cartService.getCartByUserId(userId)
+        Cart current = cartService.getCartByUserId(userId)
                 .orElseThrow(() -> new RuntimeException("Cart is empty"));
-
-        if (cart.getCartItems().isEmpty()) {
+        if (current.getCartItems().isEmpty()) {
             throw new RuntimeException("Cannot create order with empty cart");
         }
 
+        Map<Long, Integer> quantities = quantitiesOf(current);
+        List<StockReservation> reservations = stockReservationService.reserve(userId, quantities);
+        try {
+            return transactionTemplate.execute(status ->
+                    placeOrder(userId, shippingAddress, paymentMethod, quantities, reservations));
+        } catch (RuntimeException e) {
+            // Held stock goes back now rather than when the reservations expire
+            stockReservationService.release(reservations);
+            throw e;
+        }
+    }
+
+    private Order placeOrder(Long userId, String shippingAddress, String paymentMethod,
+                             Map<Long, Integer> reserved, List<StockReservation> reservations) {
+        // Carts are written behind, so pending changes go to the database before it is read
+        cartService.flushCart(userId);
+        Cart cart = cartRepository.findWithItemsByUserId(userId)
+                .orElseThrow(() -> new RuntimeException("Cart is empty"));
+        if (!quantitiesOf(cart).equals(reserved)) {
+            throw new RuntimeException("Cart changed during checkout, please try again");
+        }
+
+        // The cart already carries its user, so no separate users lookup is needed
         Order order = new Order();
-        order.setUser(user);
+        order.setUser(cart.getUser());
         order.setShippingAddress(shippingAddress);
         order.setPaymentMethod(paymentMethod);
         order.setTotalAmount(cart.getTotal());
         order.setStatus(Order.OrderStatus.PENDING);
 
-        Order savedOrder = orderRepository.save(order);
-
+        // Items cascade from the order and are flushed as one JDBC batch at commit
         for (CartItem cartItem : cart.getCartItems()) {
             OrderItem orderItem = new OrderItem();
-            orderItem.setOrder(savedOrder);
+            orderItem.setOrder(order);
             orderItem.setProduct(cartItem.getProduct());
             orderItem.setQuantity(cartItem.getQuantity());
             orderItem.setPrice(cartItem.getPrice());
-            orderItemRepository.save(orderItem);
+            order.getOrderItems().add(orderItem);
         }
 
-        cartService.clearCart(userId);
+        Order savedOrder = orderRepository.save(order);
+        stockReservationService.commit(reservations, savedOrder.getId());
+
+        cartItemRepository.deleteAllByCartIdInBulk(cart.getId());
+        cartService.cartCheckedOut(userId);
 
         return savedOrder;
     }
 
+    private static Map<Long, Integer> quantitiesOf(Cart cart) {
+        Map<Long, Integer> quantities = new HashMap<>();
+        for (CartItem cartItem : cart.getCartItems()) {
+            quantities.merge(cartItem.getProduct().getId(), cartItem.getQuantity(), Integer::sum);
+        }
+        return quantities;
+    }
+
     @Override
     public List<Order> getUserOrders(Long userId) {
         return orderRepository.findByUserIdOrderByOrderDateDesc(userId);
     }
 
+    @Override
+    public List<Order> getUserOrders(Long userId, LocalDateTime since) {
+        return orderRepository.findByUserIdAndOrderDateGreaterThanEqualOrderByOrderDateDesc(userId, since);
+    }
+
     @Override
     public Optional<Order> getOrderById(Long orderId) {
-        return orderRepository.findById(orderId);
+        return orderRepository.findWithItemsById(orderId);
     }
 
     @Override
@@ -81,7 +127,7 @@ public class OrderServiceImpl implements OrderService {
 
     @Override
     public List<Order> getAllOrders() {
-        return orderRepository.findAll();
+        return orderRepository.findAllWithItems();
     }
 
     @Override
@@ -0,0 +1,88 @@
+package com.globetrotter.globetrotterbackend.service;
+
+import com.globetrotter.globetrotterbackend.model.Product;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset position for product listings: the sort key and id of the last
+ * row a client has seen. The token carries the listing it came from, endpoint and
+ * filter included, so a cursor from one listing cannot be replayed against another
+ * that happens to share its sort order.
+ */
+final class ProductCursor {
+
+    static final int DEFAULT_LIMIT = 20;
+    static final int MAX_LIMIT = 100;
+
+    enum Sort {
+        ID, PRICE_ASC, PRICE_DESC, RATING_DESC
+    }
+
+    private final Sort sort;
+    // Null once a rating listing has moved past every rated product
+    private final Double value;
+    private final long id;
+
+    private ProductCursor(Sort sort, Double value, long id) {
+        this.sort = sort;
+        this.value = value;
+        this.id = id;
+    }
+
+    Double getValue() {
+        return value;
+    }
+
+    long getId() {
+        return id;
+    }
+
+    // Position before the first row; ids start at 1, sentinels sort ahead of any real value
+    static ProductCursor first(Sort sort) {
+        double value = switch (sort) {
+            case PRICE_ASC -> -Double.MAX_VALUE;
+            case ID, PRICE_DESC, RATING_DESC -> Double.MAX_VALUE;
+        };
+        return new ProductCursor(sort, value, 0L);
+    }
+
+    // listing names the endpoint and its filter, e.g. "category:7"
+    static ProductCursor decode(String token, Sort sort, String listing) {
+        if (token == null || token.isEmpty()) {
+            return first(sort);
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", -1);
+            if (parts.length != 4 || !parts[0].equals(sort.name()) || !parts[1].equals(listing)) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            Double value = parts[2].isEmpty() ? null : Double.valueOf(parts[2]);
+            if (value == null && sort != Sort.RATING_DESC) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new ProductCursor(sort, value, Long.parseLong(parts[3]));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    static String encode(Sort sort, String listing, Product last) {
+        Double value = switch (sort) {
+            case ID -> 0.0;
+            case PRICE_ASC, PRICE_DESC -> last.getPrice();
+            case RATING_DESC -> last.getRating();
+        };
+        String raw = sort.name() + "|" + listing + "|" + (value != null ? value : "") + "|" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static int clampLimit(Integer limit) {
+        if (limit == null || limit <= 0) {
+            return DEFAULT_LIMIT;
+        }
+        return Math.min(limit, MAX_LIMIT);
+    }
+}
@@ -1,5 +1,6 @@
 package com.globetrotter.globetrotterbackend.service;
 
+import com.globetrotter.globetrotterbackend.dto.CursorPage;
 import com.globetrotter.globetrotterbackend.model.Product;
 import java.util.List;
 import java.util.Optional;
@@ -16,13 +17,26 @@ public interface ProductService {
 
     List<Product> searchProducts(String keyword);
 
+    List<Product> searchProducts(String keyword, int page, int size);
+
     List<Product> getProductsByPriceRange(Double minPrice, Double maxPrice);
 
-    Product updateProduct(Long id, Product product);
+    // expectedStockQuantity is the stock the caller based the edit on
+    Product updateProduct(Long id, Product product, Integer expectedStockQuantity);
 
     void deleteProduct(Long id);
 
     List<Product> getProductsSortedByPrice(boolean ascending);
 
     List<Product> getTopRatedProducts();
+
+    CursorPage<Product> getProductsPage(String cursor, Integer limit);
+
+    CursorPage<Product> getProductsByCategoryPage(Long categoryId, String cursor, Integer limit);
+
+    CursorPage<Product> getProductsByPriceRangePage(Double minPrice, Double maxPrice, String cursor, Integer limit);
+
+    CursorPage<Product> getProductsSortedByPricePage(boolean ascending, String cursor, Integer limit);
+
+    CursorPage<Product> getTopRatedProductsPage(String cursor, Integer limit);
 }
\ No newline at end of file
@@ -1,11 +1,23 @@
 package com.globetrotter.globetrotterbackend.service;
 
+import com.globetrotter.globetrotterbackend.config.CacheConfig;
+import com.globetrotter.globetrotterbackend.dto.CursorPage;
 import com.globetrotter.globetrotterbackend.model.Product;
 import com.globetrotter.globetrotterbackend.repository.ProductRepository;
+import com.globetrotter.globetrotterbackend.search.ProductSearchIndex;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class ProductServiceImpl implements ProductService {
@@ -13,9 +25,18 @@ public class ProductServiceImpl implements ProductService {
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private CatalogCacheInvalidator cacheInvalidator;
+
+    @Autowired
+    private ProductSearchIndex searchIndex;
+
     @Override
     public Product createProduct(Product product) {
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        cacheInvalidator.productChanged(null, categoryIdOf(saved));
+        searchIndex.index(saved);
+        return saved;
     }
 
     @Override
@@ -24,18 +45,41 @@ public class ProductServiceImpl implements ProductService {
     }
 
     @Override
+    @Cacheable(value = CacheConfig.PRODUCTS, unless = "#result == null")
     public Optional<Product> getProductById(Long id) {
-        return productRepository.findById(id);
+        return productRepository.findWithCategoryById(id);
     }
 
     @Override
+    @Cacheable(CacheConfig.PRODUCTS_BY_CATEGORY)
     public List<Product> getProductsByCategory(Long categoryId) {
         return productRepository.findByCategoryId(categoryId);
     }
 
     @Override
     public List<Product> searchProducts(String keyword) {
-        return productRepository.findByNameContainingIgnoreCase(keyword);
+        return searchProducts(keyword, 0, ProductCursor.MAX_LIMIT);
+    }
+
+    @Override
+    public List<Product> searchProducts(String keyword, int page, int size) {
+        int limit = ProductCursor.clampLimit(size);
+        int offset = Math.max(page, 0) * limit;
+
+        if (!searchIndex.isReady()) {
+            String escaped = keyword.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+            return productRepository.searchByName(escaped, PageRequest.of(Math.max(page, 0), limit));
+        }
+
+        List<Long> ids = searchIndex.search(keyword, offset, limit);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Integer> rank = ids.stream()
+                .collect(Collectors.toMap(Function.identity(), ids::indexOf));
+        return productRepository.findByIdIn(ids).stream()
+                .sorted(Comparator.comparing(product -> rank.get(product.getId())))
+                .collect(Collectors.toList());
     }
 
     @Override
@@ -44,23 +88,39 @@ public class ProductServiceImpl implements ProductService {
     }
 
     @Override
-    public Product updateProduct(Long id, Product productDetails) {
+    @Transactional
+    public Product updateProduct(Long id, Product productDetails, Integer expectedStockQuantity) {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Product not found"));
+        Long previousCategoryId = categoryIdOf(product);
 
         product.setName(productDetails.getName());
         product.setDescription(productDetails.getDescription());
         product.setPrice(productDetails.getPrice());
-        product.setStockQuantity(productDetails.getStockQuantity());
         product.setImageUrl(productDetails.getImageUrl());
         product.setCategory(productDetails.getCategory());
 
-        return productRepository.save(product);
+        Product saved = productRepository.saveAndFlush(product);
+        // Stock only changes if nothing was sold since the admin loaded it; otherwise the whole edit rolls back
+        if (!productDetails.getStockQuantity().equals(expectedStockQuantity)) {
+            if (productRepository.replaceStock(id, expectedStockQuantity, productDetails.getStockQuantity()) == 0) {
+                throw new OptimisticLockingFailureException("Stock of product " + id + " changed since it was loaded");
+            }
+            saved = productRepository.findWithCategoryById(id).orElse(saved);
+        }
+        cacheInvalidator.productChanged(id, previousCategoryId, categoryIdOf(saved));
+        searchIndex.index(saved);
+        return saved;
     }
 
     @Override
     public void deleteProduct(Long id) {
+        Long categoryId = productRepository.findById(id)
+                .map(this::categoryIdOf)
+                .orElse(null);
         productRepository.deleteById(id);
+        cacheInvalidator.productChanged(id, categoryId);
+        searchIndex.remove(id);
     }
 
     @Override
@@ -70,7 +130,80 @@ public class ProductServiceImpl implements ProductService {
     }
 
     @Override
+    @Cacheable(CacheConfig.TOP_RATED_PRODUCTS)
     public List<Product> getTopRatedProducts() {
         return productRepository.findByOrderByRatingDesc();
     }
+
+    @Override
+    public CursorPage<Product> getProductsPage(String cursor, Integer limit) {
+        ProductCursor.Sort sort = ProductCursor.Sort.ID;
+        String listing = "products";
+        ProductCursor after = ProductCursor.decode(cursor, sort, listing);
+        int size = ProductCursor.clampLimit(limit);
+        return toPage(productRepository.findPageAfterId(after.getId(), PageRequest.of(0, size + 1)), sort, listing, size);
+    }
+
+    @Override
+    public CursorPage<Product> getProductsByCategoryPage(Long categoryId, String cursor, Integer limit) {
+        ProductCursor.Sort sort = ProductCursor.Sort.ID;
+        String listing = "category:" + categoryId;
+        ProductCursor after = ProductCursor.decode(cursor, sort, listing);
+        int size = ProductCursor.clampLimit(limit);
+        return toPage(productRepository.findPageByCategoryAfterId(categoryId, after.getId(), PageRequest.of(0, size + 1)),
+                sort, listing, size);
+    }
+
+    @Override
+    public CursorPage<Product> getProductsByPriceRangePage(Double minPrice, Double maxPrice, String cursor, Integer limit) {
+        ProductCursor.Sort sort = ProductCursor.Sort.PRICE_ASC;
+        String listing = "price-range:" + minPrice + ":" + maxPrice;
+        ProductCursor after = ProductCursor.decode(cursor, sort, listing);
+        int size = ProductCursor.clampLimit(limit);
+        return toPage(productRepository.findPageByPriceRange(minPrice, maxPrice, after.getValue(), after.getId(),
+                PageRequest.of(0, size + 1)), sort, listing, size);
+    }
+
+    @Override
+    public CursorPage<Product> getProductsSortedByPricePage(boolean ascending, String cursor, Integer limit) {
+        ProductCursor.Sort sort = ascending ? ProductCursor.Sort.PRICE_ASC : ProductCursor.Sort.PRICE_DESC;
+        String listing = "sorted";
+        ProductCursor after = ProductCursor.decode(cursor, sort, listing);
+        int size = ProductCursor.clampLimit(limit);
+        List<Product> rows = ascending
+                ? productRepository.findPageByPriceAsc(after.getValue(), after.getId(), PageRequest.of(0, size + 1))
+                : productRepository.findPageByPriceDesc(after.getValue(), after.getId(), PageRequest.of(0, size + 1));
+        return toPage(rows, sort, listing, size);
+    }
+
+    // Unrated products (NULL rating) come last, after every rated one, in id order
+    @Override
+    public CursorPage<Product> getTopRatedProductsPage(String cursor, Integer limit) {
+        ProductCursor.Sort sort = ProductCursor.Sort.RATING_DESC;
+        String listing = "top-rated";
+        ProductCursor after = ProductCursor.decode(cursor, sort, listing);
+        int size = ProductCursor.clampLimit(limit);
+        if (after.getValue() == null) {
+            return toPage(productRepository.findPageWithoutRatingAfterId(after.getId(), PageRequest.of(0, size + 1)),
+                    sort, listing, size);
+        }
+        List<Product> rows = new ArrayList<>(
+                productRepository.findPageByRatingDesc(after.getValue(), after.getId(), PageRequest.of(0, size + 1)));
+        if (rows.size() <= size) {
+            rows.addAll(productRepository.findPageWithoutRatingAfterId(0L, PageRequest.of(0, size + 1 - rows.size())));
+        }
+        return toPage(rows, sort, listing, size);
+    }
+
+    private Long categoryIdOf(Product product) {
+        return product.getCategory() != null ? product.getCategory().getId() : null;
+    }
+
+    // Each query fetches one extra row so we know whether another page exists without a COUNT
+    private CursorPage<Product> toPage(List<Product> rows, ProductCursor.Sort sort, String listing, int size) {
+        boolean hasMore = rows.size() > size;
+        List<Product> items = hasMore ? rows.subList(0, size) : rows;
+        String nextCursor = hasMore ? ProductCursor.encode(sort, listing, items.get(items.size() - 1)) : null;
+        return new CursorPage<>(items, nextCursor, hasMore);
+    }
 }
\ No newline at end of file
@@ -17,4 +17,6 @@ public interface ReviewService {
     void deleteReview(Long id);
 
     boolean hasUserReviewedProduct(Long userId, Long productId);
+
+    void reconcileRatings();
 }
\ No newline at end of file
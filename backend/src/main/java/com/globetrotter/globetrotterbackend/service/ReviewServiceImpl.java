@@ -6,7 +6,11 @@ import com.globetrotter.globetrotterbackend.model.User;
 import com.globetrotter.globetrotterbackend.repository.ProductRepository;
 import com.globetrotter.globetrotterbackend.repository.ReviewRepository;
 import com.globetrotter.globetrotterbackend.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
@@ -15,6 +19,8 @@ import java.util.Optional;
 @Service
 public class ReviewServiceImpl implements ReviewService {
 
+    private static final Logger log = LoggerFactory.getLogger(ReviewServiceImpl.class);
+
     @Autowired
     private ReviewRepository reviewRepository;
 
@@ -24,6 +30,9 @@ public class ReviewServiceImpl implements ReviewService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private CatalogCacheInvalidator cacheInvalidator;
+
     @Override
     @Transactional
     public Review createReview(Long userId, Long productId, Integer rating, String comment) {
@@ -45,27 +54,12 @@ public class ReviewServiceImpl implements ReviewService {
 
         Review savedReview = reviewRepository.save(review);
 
-        // Update product rating
-        updateProductRating(productId);
+        productRepository.addRating(productId, rating);
+        cacheInvalidator.productChanged(productId, product.getCategory().getId());
 
         return savedReview;
     }
 
-    private void updateProductRating(Long productId) {
-        List<Review> reviews = reviewRepository.findByProductId(productId);
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new RuntimeException("Product not found"));
-
-        double averageRating = reviews.stream()
-                .mapToInt(Review::getRating)
-                .average()
-                .orElse(0.0);
-
-        product.setRating(averageRating);
-        product.setReviewsCount(reviews.size());
-        productRepository.save(product);
-    }
-
     @Override
     public List<Review> getProductReviews(Long productId) {
         return reviewRepository.findByProductId(productId);
@@ -82,8 +76,31 @@ public class ReviewServiceImpl implements ReviewService {
     }
 
     @Override
+    @Transactional
     public void deleteReview(Long id) {
-        reviewRepository.deleteById(id);
+        Review review = reviewRepository.findById(id).orElse(null);
+        if (review == null) {
+            return;
+        }
+        Product product = review.getProduct();
+
+        if (reviewRepository.deleteReviewById(id) > 0) {
+            productRepository.removeRating(product.getId(), review.getRating());
+            cacheInvalidator.productChanged(product.getId(), product.getCategory().getId());
+        }
+    }
+
+    // Scheduled only: the GROUP BY scans every review, so it must not run on each instance at every start
+    @Override
+    @Async
+    @Scheduled(cron = "${rating.reconcile.cron:0 30 3 * * *}")
+    @Transactional
+    public void reconcileRatings() {
+        int updated = productRepository.reconcileRatings();
+        if (updated > 0) {
+            log.info("Reconciled rating aggregates for {} products", updated);
+            cacheInvalidator.allProductsChanged();
+        }
     }
 
     @Override
@@ -0,0 +1,18 @@
+package com.globetrotter.globetrotterbackend.service;
+
+import com.globetrotter.globetrotterbackend.model.StockReservation;
+import java.util.List;
+import java.util.Map;
+
+public interface StockReservationService {
+
+    List<StockReservation> reserve(Long userId, Map<Long, Integer> quantitiesByProduct);
+
+    void commit(List<StockReservation> reservations, Long orderId);
+
+    void release(List<StockReservation> reservations);
+
+    int releaseExpired();
+
+    int pruneFinished();
+}
@@ -0,0 +1,149 @@
+package com.globetrotter.globetrotterbackend.service;
+
+import com.globetrotter.globetrotterbackend.model.StockReservation;
+import com.globetrotter.globetrotterbackend.repository.ProductRepository;
+import com.globetrotter.globetrotterbackend.repository.StockReservationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Holds stock for a checkout. A reservation decrements stock with conditional UPDATEs
+ * in its own short transaction, so a hot product's row lock is held only until the
+ * reservation rows are written, not for the rest of the order. Holds are committed to
+ * the order or released when it fails; any left behind, such as by a crash between the
+ * two, expire and return their stock. Committed and released reservations are deleted
+ * once they are older than the retention period.
+ */
+@Service
+public class StockReservationServiceImpl implements StockReservationService {
+
+    private static final Logger log = LoggerFactory.getLogger(StockReservationServiceImpl.class);
+    private static final int SWEEP_BATCH_SIZE = 500;
+    private static final int PRUNE_BATCH_SIZE = 5000;
+
+    @Autowired
+    private StockReservationRepository reservationRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CatalogCacheInvalidator cacheInvalidator;
+
+    @Value("${stock.reservation.ttl-minutes:15}")
+    private long ttlMinutes;
+
+    @Value("${stock.reservation.retention-days:30}")
+    private long retentionDays;
+
+    @Override
+    @Transactional
+    public List<StockReservation> reserve(Long userId, Map<Long, Integer> quantitiesByProduct) {
+        LocalDateTime expiresAt = LocalDateTime.now().plusMinutes(ttlMinutes);
+        List<StockReservation> reservations = new ArrayList<>();
+        // Looked up before any row is locked
+        List<Long> categoryIds = productRepository.findCategoryIdsByIdIn(quantitiesByProduct.keySet());
+
+        // Lock rows in product id order so concurrent multi-item checkouts cannot deadlock
+        for (Map.Entry<Long, Integer> line : new TreeMap<>(quantitiesByProduct).entrySet()) {
+            if (productRepository.reserveStock(line.getKey(), line.getValue()) == 0) {
+                throw new RuntimeException("Insufficient stock for product " + line.getKey());
+            }
+            StockReservation reservation = new StockReservation();
+            reservation.setProductId(line.getKey());
+            reservation.setUserId(userId);
+            reservation.setQuantity(line.getValue());
+            reservation.setExpiresAt(expiresAt);
+            reservations.add(reservation);
+        }
+        cacheInvalidator.productsChanged(quantitiesByProduct.keySet(), categoryIds);
+        return reservationRepository.saveAll(reservations);
+    }
+
+    @Override
+    @Transactional
+    public void commit(List<StockReservation> reservations, Long orderId) {
+        for (StockReservation reservation : reservations) {
+            int updated = reservationRepository.transition(reservation.getId(),
+                    StockReservation.Status.HELD, StockReservation.Status.COMMITTED, orderId);
+            if (updated == 0) {
+                throw new RuntimeException("Stock reservation expired, please retry checkout");
+            }
+        }
+    }
+
+    @Override
+    @Transactional
+    public void release(List<StockReservation> reservations) {
+        List<Long> released = new ArrayList<>();
+        for (StockReservation reservation : reservations) {
+            if (releaseOne(reservation)) {
+                released.add(reservation.getProductId());
+            }
+        }
+        stockReturned(released);
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${stock.reservation.sweep-interval-ms:60000}")
+    @Transactional
+    public int releaseExpired() {
+        List<StockReservation> expired = reservationRepository.findByStatusAndExpiresAtBefore(
+                StockReservation.Status.HELD, LocalDateTime.now(), PageRequest.of(0, SWEEP_BATCH_SIZE));
+        List<Long> released = new ArrayList<>();
+        for (StockReservation reservation : expired) {
+            if (releaseOne(reservation)) {
+                released.add(reservation.getProductId());
+            }
+        }
+        if (!released.isEmpty()) {
+            log.info("Released {} expired stock reservations", released.size());
+        }
+        stockReturned(released);
+        return released.size();
+    }
+
+    // Each batch is its own transaction, so a large backlog never holds one long-running delete
+    @Override
+    @Scheduled(cron = "${stock.reservation.prune-cron:0 45 3 * * *}")
+    public int pruneFinished() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+        int deleted = 0;
+        int batch;
+        do {
+            batch = reservationRepository.deleteFinishedBatch(cutoff, PRUNE_BATCH_SIZE);
+            deleted += batch;
+        } while (batch == PRUNE_BATCH_SIZE);
+        if (deleted > 0) {
+            log.info("Pruned {} finished stock reservations older than {} days", deleted, retentionDays);
+        }
+        return deleted;
+    }
+
+    private boolean releaseOne(StockReservation reservation) {
+        int updated = reservationRepository.transition(reservation.getId(),
+                StockReservation.Status.HELD, StockReservation.Status.RELEASED, null);
+        if (updated == 0) {
+            return false;
+        }
+        productRepository.releaseStock(reservation.getProductId(), reservation.getQuantity());
+        return true;
+    }
+
+    private void stockReturned(List<Long> productIds) {
+        if (!productIds.isEmpty()) {
+            cacheInvalidator.productsChanged(productIds, productRepository.findCategoryIdsByIdIn(productIds));
+        }
+    }
+}
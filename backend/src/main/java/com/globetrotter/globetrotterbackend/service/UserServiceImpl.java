@@ -2,6 +2,7 @@ package com.globetrotter.globetrotterbackend.service;
 
 import com.globetrotter.globetrotterbackend.model.User;
 import com.globetrotter.globetrotterbackend.repository.UserRepository;
+import com.globetrotter.globetrotterbackend.security.UserPrincipalCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -18,6 +19,9 @@ public class UserServiceImpl implements UserService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private UserPrincipalCache principalCache;
+
     @Override
     @Transactional
     public User registerUser(User user) {
@@ -61,7 +65,9 @@ public class UserServiceImpl implements UserService {
     @Override
     @Transactional
     public User save(User user) {
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        principalCache.evict(saved.getUsername());
+        return saved;
     }
 
     @Override
@@ -0,0 +1,7 @@
+-- Partial index for the admin dashboard (OrderRepository.findByArchivedFalseOrderByOrderDateDesc)
+-- and the archive job's batch selection. It covers only non-archived orders, so it stays small as
+-- archived history grows. Run once per database; CONCURRENTLY avoids blocking checkouts during the build.
+-- Optional on the flat table, where ddl-auto's idx_orders_archived_order_date serves the same queries at
+-- the size of the whole table. Not needed with orders-partitioned.sql: active orders live in orders_hot,
+-- whose order_date index serves them.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_orders_active_order_date ON orders (order_date DESC) WHERE archived = false;
@@ -0,0 +1,57 @@
+-- Stands in for the foreign key from order_items to orders, which PostgreSQL cannot have while
+-- the key of the partitioned orders table includes its partition columns. Applied by
+-- OrderPartitionManager after orders-partitioned.sql; every statement is idempotent.
+--
+-- An item's order must exist when the inserting transaction commits. The order is locked FOR KEY
+-- SHARE, as a foreign key check would, so it cannot be deleted until that transaction ends. The
+-- item's copy of the order date prunes the lookup to the order's month and the cold year it may
+-- have been archived to; only items written without one probe every partition.
+CREATE OR REPLACE FUNCTION order_items_check_order() RETURNS trigger LANGUAGE plpgsql AS $$
+BEGIN
+    IF NEW.order_date IS NOT NULL THEN
+        PERFORM 1 FROM orders WHERE id = NEW.order_id AND order_date = NEW.order_date FOR KEY SHARE;
+    ELSE
+        PERFORM 1 FROM orders WHERE id = NEW.order_id FOR KEY SHARE;
+    END IF;
+    IF NOT FOUND THEN
+        RAISE EXCEPTION 'order % of order item % does not exist', NEW.order_id, NEW.id
+            USING ERRCODE = 'foreign_key_violation';
+    END IF;
+    RETURN NULL;
+END
+$$;
+
+-- An order cannot be deleted while items refer to it. Archiving moves rows between partitions
+-- with an UPDATE, which this statement trigger does not see, so it costs the archive job nothing.
+CREATE OR REPLACE FUNCTION orders_check_items() RETURNS trigger LANGUAGE plpgsql AS $$
+DECLARE
+    referenced bigint;
+BEGIN
+    SELECT d.id INTO referenced FROM deleted d
+    WHERE EXISTS (SELECT 1 FROM order_items i WHERE i.order_id = d.id)
+      AND NOT EXISTS (SELECT 1 FROM orders o WHERE o.id = d.id)
+    LIMIT 1;
+    IF FOUND THEN
+        RAISE EXCEPTION 'order % still has order items', referenced
+            USING ERRCODE = 'foreign_key_violation';
+    END IF;
+    RETURN NULL;
+END
+$$;
+
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_trigger WHERE tgrelid = 'order_items'::regclass AND tgname = 'order_items_order_exists') THEN
+        CREATE CONSTRAINT TRIGGER order_items_order_exists
+            AFTER INSERT OR UPDATE OF order_id ON order_items
+            DEFERRABLE INITIALLY DEFERRED
+            FOR EACH ROW EXECUTE FUNCTION order_items_check_order();
+    END IF;
+    IF NOT EXISTS (SELECT 1 FROM pg_trigger WHERE tgrelid = 'orders'::regclass AND tgname = 'orders_items_exist') THEN
+        CREATE TRIGGER orders_items_exist
+            AFTER DELETE ON orders
+            REFERENCING OLD TABLE AS deleted
+            FOR EACH STATEMENT EXECUTE FUNCTION orders_check_items();
+    END IF;
+END
+$$;
@@ -0,0 +1,52 @@
+-- Partitioned order storage, applied by OrderPartitionManager at startup when
+-- orders.partitions.enabled is set. Every statement is idempotent. Hibernate's ddl-auto then skips
+-- these tables (PartitionedTablesSchemaFilterProvider).
+--
+-- orders is split by LIST (archived) into orders_hot and orders_cold, so archiving an order moves
+-- its row into cold storage. Each side is RANGE partitioned on order_date: hot by month, cold by
+-- year. OrderPartitionManager creates those partitions; the default partitions catch anything
+-- outside them so an insert never fails for want of a partition.
+--
+-- PostgreSQL requires the partition keys in the primary key. order_items therefore cannot have a
+-- foreign key to orders; the triggers in orders-integrity.sql enforce it instead.
+
+CREATE SEQUENCE IF NOT EXISTS orders_id_seq;
+
+CREATE TABLE IF NOT EXISTS orders (
+    id               bigint       NOT NULL DEFAULT nextval('orders_id_seq'),
+    user_id          bigint       NOT NULL REFERENCES users (id),
+    order_date       timestamp(6) NOT NULL,
+    total_amount     float(53)    NOT NULL,
+    status           varchar(255) NOT NULL,
+    shipping_address varchar(500) NOT NULL,
+    payment_method   varchar(255),
+    created_at       timestamp(6),
+    updated_at       timestamp(6),
+    archived         boolean      NOT NULL DEFAULT false,
+    PRIMARY KEY (id, archived, order_date)
+) PARTITION BY LIST (archived);
+
+ALTER SEQUENCE orders_id_seq OWNED BY orders.id;
+
+CREATE TABLE IF NOT EXISTS orders_hot PARTITION OF orders FOR VALUES IN (false) PARTITION BY RANGE (order_date);
+CREATE TABLE IF NOT EXISTS orders_cold PARTITION OF orders FOR VALUES IN (true) PARTITION BY RANGE (order_date);
+CREATE TABLE IF NOT EXISTS orders_hot_default PARTITION OF orders_hot DEFAULT;
+CREATE TABLE IF NOT EXISTS orders_cold_default PARTITION OF orders_cold DEFAULT;
+
+CREATE INDEX IF NOT EXISTS idx_orders_user_order_date ON orders (user_id, order_date DESC);
+CREATE INDEX IF NOT EXISTS idx_orders_order_date ON orders (order_date DESC);
+CREATE INDEX IF NOT EXISTS idx_orders_status ON orders (status);
+
+CREATE TABLE IF NOT EXISTS order_items (
+    id         bigint    NOT NULL PRIMARY KEY,
+    order_id   bigint    NOT NULL,
+    product_id bigint    NOT NULL REFERENCES products (id),
+    quantity   integer   NOT NULL,
+    price      float(53) NOT NULL,
+    order_date timestamp(6)
+);
+
+-- Tables from before order_items carried its order's date
+ALTER TABLE order_items ADD COLUMN IF NOT EXISTS order_date timestamp(6);
+
+CREATE INDEX IF NOT EXISTS idx_order_items_order_id ON order_items (order_id);
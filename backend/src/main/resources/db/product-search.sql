@@ -0,0 +1,5 @@
+-- Trigram index backing ProductRepository.searchByName, the database fallback used
+-- while the in-memory search index is building or when search.index.enabled=false.
+-- Run once per database; CONCURRENTLY avoids blocking product writes during the build.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_products_name_trgm ON products USING gin (name gin_trgm_ops);
@@ -0,0 +1,197 @@
+package com.globetrotter.globetrotterbackend.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.globetrotter.globetrotterbackend.model.Product;
+import com.globetrotter.globetrotterbackend.model.Review;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Two managers on one {@link InMemoryCacheStore} stand in for two backend instances.
+ */
+class TwoTierCacheManagerTests {
+
+    private static final JsonMapper JSON = JsonMapper.builder().build();
+
+    private FlakyStore store;
+    private TwoTierCacheManager first;
+    private TwoTierCacheManager second;
+
+    @BeforeEach
+    void setUp() {
+        store = new FlakyStore();
+        first = manager(store);
+        second = manager(store);
+    }
+
+    @Test
+    void valueCachedByOneInstanceIsReadFromTheSharedTierByAnother() {
+        Value value = new Value(7L, "Lisbon");
+        first.getCache("items").put(7L, value);
+
+        Value shared = second.getCache("items").get(7L, Value.class);
+
+        assertEquals(value, shared);
+        assertNotSame(value, shared);
+    }
+
+    @Test
+    void evictionReachesTheLocalTierOfOtherInstances() {
+        first.getCache("items").put(7L, new Value(7L, "Lisbon"));
+        second.getCache("items").get(7L);
+
+        first.getCache("items").evict(7L);
+
+        assertNull(second.getCache("items").getNativeCache().getIfPresent("7"));
+        assertNull(second.getCache("items").get(7L));
+    }
+
+    @Test
+    void clearReachesTheLocalTierOfOtherInstances() {
+        first.getCache("items").put(1L, new Value(1L, "Oslo"));
+        first.getCache("items").put(2L, new Value(2L, "Porto"));
+        second.getCache("items").get(1L);
+        second.getCache("items").get(2L);
+
+        second.getCache("items").clear();
+
+        assertNull(first.getCache("items").get(1L));
+        assertNull(first.getCache("items").get(2L));
+    }
+
+    @Test
+    void unavailableSharedTierFallsBackToTheLocalTier() {
+        store.down.set(true);
+        Cache cache = first.getCache("items");
+
+        Value loaded = cache.get(3L, () -> new Value(3L, "Rome"));
+        cache.put(4L, new Value(4L, "Riga"));
+        cache.evict(4L);
+
+        assertEquals(new Value(3L, "Rome"), loaded);
+        assertEquals(loaded, cache.get(3L, Value.class));
+        assertFalse(first.isRemoteAvailable());
+    }
+
+    @Test
+    void localTierIsClearedOnceTheSharedTierComesBack() {
+        first.getCache("items").put(5L, new Value(5L, "Bern"));
+        store.down.set(true);
+        // The eviction message is lost while the store is down
+        second.getCache("items").evict(5L);
+        first.getCache("items").get(6L);
+
+        store.down.set(false);
+        first.getCache("items").get(6L);
+
+        assertTrue(first.isRemoteAvailable());
+        assertNull(first.getCache("items").getNativeCache().getIfPresent("5"));
+    }
+
+    @Test
+    void missingValuesAreNotCached() {
+        Cache cache = first.getCache("items");
+
+        assertNull(cache.get(8L, () -> null));
+        assertEquals(new Value(8L, "Oslo"), cache.get(8L, () -> new Value(8L, "Oslo")));
+    }
+
+    @Test
+    void loadOverlappingAClearIsNotShared() {
+        TwoTierCache cache = first.getCache("items");
+
+        // Another instance changes the data and clears the cache while this one is still loading it
+        Value loaded = cache.get(9L, () -> {
+            second.getCache("items").clear();
+            return new Value(9L, "Stale");
+        });
+
+        assertEquals(new Value(9L, "Stale"), loaded);
+        assertNull(cache.getNativeCache().getIfPresent("9"));
+        assertNull(second.getCache("items").get(9L));
+    }
+
+    @Test
+    void fieldsHiddenFromClientsSurviveTheSharedTier() {
+        Product product = new Product();
+        product.setId(11L);
+        product.setName("Backpack");
+        product.setRatingTotal(42L);
+        product.getReviews().add(new Review());
+        first.getCache("products").put(11L, product);
+
+        Product shared = second.getCache("products").get(11L, Product.class);
+
+        assertEquals(42L, shared.getRatingTotal());
+        // Lazy associations still stay out
+        String stored = new String(store.get(first.remoteKey("products", "11")), StandardCharsets.UTF_8);
+        assertFalse(stored.contains("\"reviews\""), stored);
+    }
+
+    private static TwoTierCacheManager manager(RemoteCacheStore store) {
+        TwoTierCacheManager manager = new TwoTierCacheManager(store, Duration.ZERO, new SimpleMeterRegistry());
+        manager.addCache("items", Caffeine.newBuilder().maximumSize(100), Duration.ofMinutes(1),
+                CacheValueCodec.json(JSON, JSON.getTypeFactory().constructType(Value.class)));
+        manager.addCache("products", Caffeine.newBuilder().maximumSize(100), Duration.ofMinutes(1),
+                CacheValueCodec.json(CacheValueCodec.storeMapper(JSON), JSON.getTypeFactory().constructType(Product.class)));
+        return manager;
+    }
+
+    record Value(Long id, String name) {
+    }
+
+    // Shared store that drops messages and fails every call while down, like an unreachable server
+    private static class FlakyStore extends InMemoryCacheStore {
+
+        final AtomicBoolean down = new AtomicBoolean();
+
+        @Override
+        public byte[] get(String key) {
+            check();
+            return super.get(key);
+        }
+
+        @Override
+        public void put(String key, byte[] value, Duration ttl) {
+            check();
+            super.put(key, value, ttl);
+        }
+
+        @Override
+        public void delete(String key) {
+            check();
+            super.delete(key);
+        }
+
+        @Override
+        public void deleteByPrefix(String prefix) {
+            check();
+            super.deleteByPrefix(prefix);
+        }
+
+        @Override
+        public void publish(String message) {
+            check();
+            super.publish(message);
+        }
+
+        private void check() {
+            if (down.get()) {
+                throw new IllegalStateException("store unreachable");
+            }
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package com.globetrotter.globetrotterbackend.cart;
+
+import com.globetrotter.globetrotterbackend.model.Cart;
+import com.globetrotter.globetrotterbackend.model.Order;
+import com.globetrotter.globetrotterbackend.model.OrderItem;
+import com.globetrotter.globetrotterbackend.service.CartService;
+import com.globetrotter.globetrotterbackend.service.OrderService;
+import com.globetrotter.globetrotterbackend.service.ProductService;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Edits carts concurrently, lets one flush interval pass, then drops the in-memory carts the
+ * way a crash would, without the shutdown flush. Every edit must be in the database.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create",
+        "spring.jpa.show-sql=false",
+        "search.index.enabled=false",
+        "cart.write-behind.flush-interval-ms=" + CartWriteBehindTests.FLUSH_INTERVAL_MS,
+        "cart.write-behind.revalidate-after=" + CartWriteBehindTests.REVALIDATE_AFTER_MS + "ms"
+})
+class CartWriteBehindTests {
+
+    static final long FLUSH_INTERVAL_MS = 200;
+    static final long REVALIDATE_AFTER_MS = 1500;
+
+    private static final int PRODUCTS = 50;
+    private static final int SHOPPERS = 40;
+    private static final int THREADS = 4;
+
+    private static EmbeddedPostgres postgres;
+    private static boolean seeded;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CartStore cartStore;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) throws IOException {
+        postgres = EmbeddedPostgres.builder().start();
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+    }
+
+    @AfterAll
+    static void stopDatabase() throws IOException {
+        postgres.close();
+    }
+
+    @BeforeEach
+    void seed() {
+        if (seeded) {
+            return;
+        }
+        jdbcTemplate.execute("INSERT INTO categories (name, description) VALUES ('Category', 'Seeded')");
+        jdbcTemplate.execute("INSERT INTO products (name, description, price, stock_quantity, category_id, rating, "
+                + "reviews_count, rating_total, created_at, updated_at) "
+                + "SELECT 'Product ' || g, 'Seeded', 10 + g, 100000, (SELECT MIN(id) FROM categories), 0, 0, 0, now(), now() "
+                + "FROM generate_series(1, " + PRODUCTS + ") g");
+        jdbcTemplate.execute("INSERT INTO users (username, email, password, role, enabled, locked, "
+                + "failed_login_attempts, created_at, updated_at) "
+                + "SELECT 'user' || g, 'user' || g || '@example.com', 'unused', 'CUSTOMER', true, false, 0, now(), now() "
+                + "FROM generate_series(1, " + (SHOPPERS + 4) + ") g");
+        seeded = true;
+    }
+
+    @Test
+    void editsOlderThanAFlushIntervalSurviveACrash() throws Exception {
+        List<Long> users = jdbcTemplate.queryForList("SELECT id FROM users ORDER BY id LIMIT " + SHOPPERS, Long.class);
+        List<Long> products = jdbcTemplate.queryForList("SELECT id FROM products ORDER BY id", Long.class);
+
+        // Each thread owns a slice of the users and tracks what their carts should hold
+        Map<Long, Map<Long, Integer>> expected = new HashMap<>();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Map<Long, Map<Long, Integer>>>> shoppers = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                List<Long> slice = users.subList(t * SHOPPERS / THREADS, (t + 1) * SHOPPERS / THREADS);
+                shoppers.add(executor.submit(() -> shop(slice, products, System.nanoTime() + 1_500_000_000L)));
+            }
+            for (Future<Map<Long, Map<Long, Integer>>> shopper : shoppers) {
+                expected.putAll(shopper.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        Thread.sleep(2 * FLUSH_INTERVAL_MS + 200);
+        cartStore.discard();
+
+        for (Long user : users) {
+            assertEquals(expected.get(user), persistedLines(user), "cart_items of user " + user);
+            assertEquals(expected.get(user), cartService.getCartByUserId(user).map(this::lines).orElse(Map.of()),
+                    "reloaded cart of user " + user);
+        }
+    }
+
+    @Test
+    void checkoutOrdersLinesNotYetFlushed() {
+        Long user = spareUser(0);
+        List<Long> products = jdbcTemplate.queryForList("SELECT id FROM products ORDER BY id LIMIT 2", Long.class);
+        cartService.addToCart(user, products.get(0), 2);
+        cartService.addToCart(user, products.get(1), 1);
+        cartService.addToCart(user, products.get(0), 1);
+
+        Order order = orderService.createOrder(user, "1 Test Street", "CARD");
+
+        Map<Long, Integer> ordered = order.getOrderItems().stream()
+                .collect(Collectors.toMap(item -> item.getProduct().getId(), OrderItem::getQuantity));
+        assertEquals(Map.of(products.get(0), 3, products.get(1), 1), ordered);
+        // Items carry their order's date, which the partitioned layout's integrity trigger looks the order up by
+        assertEquals(List.of(true, true), jdbcTemplate.queryForList("SELECT i.order_date = o.order_date "
+                + "FROM order_items i JOIN orders o ON o.id = i.order_id WHERE o.id = ?", Boolean.class, order.getId()));
+        assertTrue(cartService.getCartByUserId(user).orElseThrow().getCartItems().isEmpty());
+        assertTrue(persistedLines(user).isEmpty());
+    }
+
+    @Test
+    void linesChangedDuringCheckoutKeepOnlyWhatWasNotOrdered() throws Exception {
+        Long user = spareUser(1);
+        List<Long> products = jdbcTemplate.queryForList("SELECT id FROM products ORDER BY id LIMIT 3", Long.class);
+        cartService.addToCart(user, products.get(0), 2);
+        cartService.addToCart(user, products.get(1), 1);
+
+        // Edits that land after checkout read the cart but before it commits
+        Order order = transactionTemplate.execute(status -> {
+            Order placed = orderService.createOrder(user, "1 Test Street", "CARD");
+            cartService.addToCart(user, products.get(0), 1);
+            cartService.updateCartItemQuantity(user, products.get(1), 4);
+            cartService.addToCart(user, products.get(2), 5);
+            return placed;
+        });
+
+        Map<Long, Integer> ordered = order.getOrderItems().stream()
+                .collect(Collectors.toMap(item -> item.getProduct().getId(), OrderItem::getQuantity));
+        assertEquals(Map.of(products.get(0), 2, products.get(1), 1), ordered);
+        Map<Long, Integer> left = Map.of(products.get(0), 1, products.get(1), 4, products.get(2), 5);
+        assertEquals(left, lines(cartService.getCartByUserId(user).orElseThrow()));
+        Thread.sleep(2 * FLUSH_INTERVAL_MS + 200);
+        assertEquals(left, persistedLines(user));
+    }
+
+    @Test
+    void copyLeftBehindByAFailoverIsReloadedNotWrittenBack() throws Exception {
+        Long user = spareUser(2);
+        List<Long> products = jdbcTemplate.queryForList("SELECT id FROM products ORDER BY id LIMIT 2", Long.class);
+        cartService.addToCart(user, products.get(0), 2);
+        Thread.sleep(2 * FLUSH_INTERVAL_MS + 200);
+
+        // Another instance takes the user's requests for a while and changes the cart
+        takeOver(user, products.get(0), 5);
+        cartService.addToCart(user, products.get(1), 1);
+        Thread.sleep(2 * FLUSH_INTERVAL_MS + 200);
+        assertEquals(Map.of(products.get(0), 5), persistedLines(user));
+        assertEquals(Map.of(products.get(0), 5), lines(cartService.getCartByUserId(user).orElseThrow()));
+
+        takeOver(user, products.get(0), 7);
+        Thread.sleep(REVALIDATE_AFTER_MS + 100);
+        assertEquals(Map.of(products.get(0), 7), lines(cartService.getCartByUserId(user).orElseThrow()));
+    }
+
+    @Test
+    void failedCheckoutReturnsItsStockAndCachedProductsShowTheSale() throws Exception {
+        Long user = spareUser(3);
+        Long product = jdbcTemplate.queryForObject("SELECT id FROM products ORDER BY id DESC LIMIT 1", Long.class);
+        int stock = stock(product);
+        assertEquals(stock, productService.getProductById(product).orElseThrow().getStockQuantity());
+        cartService.addToCart(user, product, 2);
+        Thread.sleep(2 * FLUSH_INTERVAL_MS + 200);
+
+        // The stock held for this copy's 2 goes back when the order sees the database's 5
+        takeOver(user, product, 5);
+        RuntimeException changed = assertThrows(RuntimeException.class,
+                () -> orderService.createOrder(user, "1 Test Street", "CARD"));
+        assertEquals("Cart changed during checkout, please try again", changed.getMessage());
+        assertEquals(stock, stock(product));
+        assertEquals(List.of("RELEASED"), jdbcTemplate.queryForList(
+                "SELECT status FROM stock_reservations WHERE user_id = ?", String.class, user));
+
+        orderService.createOrder(user, "1 Test Street", "CARD");
+        assertEquals(stock - 5, stock(product));
+        assertEquals(stock - 5, productService.getProductById(product).orElseThrow().getStockQuantity());
+    }
+
+    // What another instance's write of the cart leaves in the database
+    private void takeOver(Long user, Long product, int quantity) {
+        jdbcTemplate.update("UPDATE cart_items SET quantity = ? WHERE product_id = ? "
+                + "AND cart_id = (SELECT id FROM carts WHERE user_id = ?)", quantity, product, user);
+        jdbcTemplate.update("UPDATE carts SET revision = revision + 1 WHERE user_id = ?", user);
+    }
+
+    // Users past the shoppers, one per test
+    private Long spareUser(int index) {
+        return jdbcTemplate.queryForObject("SELECT id FROM users ORDER BY id DESC LIMIT 1 OFFSET ?", Long.class, index);
+    }
+
+    private Map<Long, Map<Long, Integer>> shop(List<Long> users, List<Long> products, long until) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Map<Long, Map<Long, Integer>> carts = new HashMap<>();
+        users.forEach(user -> carts.put(user, new HashMap<>()));
+        while (System.nanoTime() - until < 0) {
+            Long user = users.get(random.nextInt(users.size()));
+            Map<Long, Integer> cart = carts.get(user);
+            Long product = products.get(random.nextInt(products.size()));
+            int roll = random.nextInt(100);
+            if (roll < 50 || cart.isEmpty()) {
+                int quantity = 1 + random.nextInt(3);
+                cartService.addToCart(user, product, quantity);
+                cart.merge(product, quantity, Integer::sum);
+            } else if (roll < 75) {
+                Long line = List.copyOf(cart.keySet()).get(random.nextInt(cart.size()));
+                int quantity = 1 + random.nextInt(5);
+                cartService.updateCartItemQuantity(user, line, quantity);
+                cart.put(line, quantity);
+            } else if (roll < 97) {
+                Long line = List.copyOf(cart.keySet()).get(random.nextInt(cart.size()));
+                cartService.removeFromCart(user, line);
+                cart.remove(line);
+            } else {
+                cartService.clearCart(user);
+                cart.clear();
+            }
+        }
+        return carts;
+    }
+
+    private int stock(Long product) {
+        return jdbcTemplate.queryForObject("SELECT stock_quantity FROM products WHERE id = ?", Integer.class, product);
+    }
+
+    private Map<Long, Integer> persistedLines(Long user) {
+        Map<Long, Integer> lines = new HashMap<>();
+        jdbcTemplate.query("SELECT ci.product_id, ci.quantity FROM cart_items ci JOIN carts c ON c.id = ci.cart_id "
+                        + "WHERE c.user_id = ?",
+                rs -> {
+                    lines.put(rs.getLong(1), rs.getInt(2));
+                }, user);
+        return lines;
+    }
+
+    private Map<Long, Integer> lines(Cart cart) {
+        return cart.getCartItems().stream()
+                .collect(Collectors.toMap(item -> item.getProduct().getId(), item -> item.getQuantity()));
+    }
+}
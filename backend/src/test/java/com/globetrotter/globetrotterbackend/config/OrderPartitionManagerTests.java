@@ -0,0 +1,244 @@
+package com.globetrotter.globetrotterbackend.config;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Partition maintenance against a real PostgreSQL, each test on a database of its own: nothing
+ * happens unless the layout is enabled, the daily job must settle into doing nothing, a legacy
+ * table must keep its rows through the migration, and order_items must keep the integrity its
+ * foreign key used to give it.
+ */
+class OrderPartitionManagerTests {
+
+    private static final int MONTHS_AHEAD = 2;
+
+    private static EmbeddedPostgres postgres;
+    private static int databases;
+
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void startDatabase() throws IOException {
+        postgres = EmbeddedPostgres.builder().start();
+    }
+
+    @AfterAll
+    static void stopDatabase() throws IOException {
+        postgres.close();
+    }
+
+    @BeforeEach
+    void createDatabase() {
+        String name = "partitions_" + ++databases;
+        new JdbcTemplate(postgres.getPostgresDatabase()).execute("CREATE DATABASE " + name);
+        dataSource = new SingleConnectionDataSource(postgres.getJdbcUrl("postgres", name), true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        // The tables orders refers to, which ddl-auto creates in the application
+        jdbcTemplate.execute("CREATE TABLE users (id bigint PRIMARY KEY)");
+        jdbcTemplate.execute("CREATE TABLE products (id bigint PRIMARY KEY)");
+        jdbcTemplate.execute("INSERT INTO users VALUES (1)");
+        jdbcTemplate.execute("INSERT INTO products VALUES (1)");
+    }
+
+    @Test
+    void disabledLayoutLeavesTheOrdersTablesToDdlAuto() {
+        OrderPartitionManager fresh = manager(false);
+        ReflectionTestUtils.setField(fresh, "enabled", false);
+        fresh.initialize();
+        assertFalse(OrderPartitionManager.partitionedLayout(jdbcTemplate, false));
+        assertEquals(0, count("pg_class WHERE relname IN ('orders', 'order_items')"));
+
+        createLegacyTables();
+        OrderPartitionManager flat = manager(true);
+        ReflectionTestUtils.setField(flat, "enabled", false);
+        flat.initialize();
+        assertEquals("r", jdbcTemplate.queryForObject("SELECT relkind::text FROM pg_class WHERE relname = 'orders'",
+                String.class));
+        assertFalse(OrderPartitionManager.partitionedLayout(jdbcTemplate, false));
+    }
+
+    @Test
+    void freshDatabaseOnlyGetsTheComingMonths() {
+        OrderPartitionManager manager = manager(false);
+        manager.initialize();
+
+        YearMonth now = YearMonth.now();
+        List<String> expected = new ArrayList<>();
+        expected.add("orders_cold_default");
+        expected.add("orders_cold_p" + now.getYear());
+        expected.add("orders_hot_default");
+        for (int ahead = 0; ahead <= MONTHS_AHEAD; ahead++) {
+            expected.add(hot(now.plusMonths(ahead)));
+        }
+        Map<String, Long> partitions = partitions();
+        assertEquals(expected, List.copyOf(partitions.keySet()));
+
+        // Nothing is created or dropped again
+        recordDdl();
+        manager.maintainPartitions();
+        manager.maintainPartitions();
+        assertEquals(partitions, partitions());
+        assertEquals(List.of(), ddl());
+    }
+
+    @Test
+    void pastMonthsAreCreatedForWaitingOrdersAndDroppedOnceArchived() {
+        OrderPartitionManager manager = manager(false);
+        manager.initialize();
+        YearMonth oldest = YearMonth.now().minusMonths(8);
+        YearMonth past = YearMonth.now().minusMonths(5);
+        int oldYear = YearMonth.now().getYear() - 3;
+        insertOrders(2, "'" + oldest.atDay(3) + "'::timestamp", false);
+        insertOrders(10, "'" + past.atDay(10) + "'::timestamp", false);
+        insertOrders(4, "'" + oldYear + "-06-01'::timestamp", true);
+
+        manager.maintainPartitions();
+        assertEquals(2, count(hot(oldest)));
+        assertEquals(10, count(hot(past)));
+        assertEquals(4, count("orders_cold_p" + oldYear));
+        assertEquals(0, count("orders_hot_default") + count("orders_cold_default"));
+        // The months in between hold nothing, so they get no partition
+        assertFalse(partitions().containsKey(hot(past.minusMonths(1))));
+
+        jdbcTemplate.update("UPDATE orders SET archived = true WHERE archived = false AND order_date >= ?",
+                past.atDay(1).atStartOfDay());
+        manager.maintainPartitions();
+        Map<String, Long> partitions = partitions();
+        assertFalse(partitions.containsKey(hot(past)));
+        assertEquals(2, count(hot(oldest)));
+        assertEquals(10, count("orders_cold_p" + past.getYear()));
+
+        recordDdl();
+        manager.maintainPartitions();
+        assertEquals(partitions, partitions());
+        assertEquals(List.of(), ddl());
+    }
+
+    @Test
+    void legacyTableIsMigratedWithItsOrdersAndItemRules() {
+        createLegacyTables();
+        manager(false).initialize();
+        assertEquals("r", jdbcTemplate.queryForObject("SELECT relkind::text FROM pg_class WHERE relname = 'orders'",
+                String.class), "left alone unless migration is enabled");
+
+        manager(true).initialize();
+
+        assertEquals("p", jdbcTemplate.queryForObject("SELECT relkind::text FROM pg_class WHERE relname = 'orders'",
+                String.class));
+        assertEquals(700, count("orders"));
+        assertEquals(90, count("orders_hot"));
+        assertEquals(0, count("orders_hot_default") + count("orders_cold_default"));
+        assertEquals(1400, count("order_items"));
+        assertEquals(0, count("order_items i WHERE NOT EXISTS (SELECT 1 FROM orders o WHERE o.id = i.order_id)"));
+        // New orders continue the legacy ids
+        assertEquals(701L, jdbcTemplate.queryForObject("INSERT INTO orders (user_id, order_date, total_amount, status, "
+                + "shipping_address) VALUES (1, localtimestamp, 10, 'PENDING', 'Street') RETURNING id", Long.class));
+
+        assertThrows(DataIntegrityViolationException.class, () -> jdbcTemplate.update(
+                "INSERT INTO order_items (id, order_id, product_id, quantity, price) VALUES (5000, 9999, 1, 1, 10)"));
+        // Migrated items carry their order's date, and the trigger looks the order up by it
+        assertEquals(0, count("order_items i JOIN orders o ON o.id = i.order_id WHERE i.order_date IS DISTINCT FROM o.order_date"));
+        assertThrows(DataIntegrityViolationException.class, () -> jdbcTemplate.update(
+                "INSERT INTO order_items (id, order_id, product_id, quantity, price, order_date) "
+                        + "SELECT 5001, id, 1, 1, 10, order_date - interval '1 day' FROM orders WHERE id = 1"));
+        assertEquals(1, jdbcTemplate.update("INSERT INTO order_items (id, order_id, product_id, quantity, price, order_date) "
+                + "SELECT 5002, id, 1, 1, 10, order_date FROM orders WHERE id = 2"));
+        assertThrows(DataIntegrityViolationException.class,
+                () -> jdbcTemplate.update("DELETE FROM orders WHERE id = 1"));
+        // Archiving moves an order with items between partitions, which is not a delete
+        assertEquals(1, jdbcTemplate.update("UPDATE orders SET archived = true WHERE id = 1"));
+        assertEquals(1, jdbcTemplate.update("DELETE FROM orders WHERE id = 701"));
+        assertEquals(2, count("order_items WHERE order_id = 1"));
+    }
+
+    // The schema ddl-auto created before partitioning: 700 daily orders, those older than 90 days archived
+    private void createLegacyTables() {
+        jdbcTemplate.execute("CREATE TABLE orders (id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+                + "user_id bigint NOT NULL REFERENCES users (id), order_date timestamp(6) NOT NULL, "
+                + "total_amount float(53) NOT NULL, status varchar(255) NOT NULL, "
+                + "shipping_address varchar(500) NOT NULL, payment_method varchar(255), "
+                + "created_at timestamp(6), updated_at timestamp(6), archived boolean NOT NULL)");
+        jdbcTemplate.execute("CREATE TABLE order_items (id bigint PRIMARY KEY, "
+                + "order_id bigint NOT NULL REFERENCES orders (id), product_id bigint NOT NULL REFERENCES products (id), "
+                + "quantity integer NOT NULL, price float(53) NOT NULL)");
+        jdbcTemplate.execute("INSERT INTO orders (user_id, order_date, total_amount, status, shipping_address, archived) "
+                + "SELECT 1, localtimestamp - g * interval '1 day', 10, 'DELIVERED', 'Street', g > 90 "
+                + "FROM generate_series(1, 700) g");
+        jdbcTemplate.execute("INSERT INTO order_items SELECT 2 * o.id + k, o.id, 1, 1, 10 FROM orders o, generate_series(0, 1) k");
+    }
+
+    private void insertOrders(int orders, String orderDate, boolean archived) {
+        jdbcTemplate.update("INSERT INTO orders (user_id, order_date, total_amount, status, shipping_address, archived) "
+                + "SELECT 1, " + orderDate + ", 10, 'PENDING', 'Street', ? FROM generate_series(1, ?)", archived, orders);
+    }
+
+    // Logs every DDL command from here on, so a maintenance run that drops and recreates a partition shows
+    private void recordDdl() {
+        jdbcTemplate.execute("CREATE TABLE ddl_log (command text)");
+        jdbcTemplate.execute("CREATE FUNCTION log_ddl() RETURNS event_trigger LANGUAGE plpgsql AS $$ "
+                + "BEGIN INSERT INTO ddl_log SELECT command_tag || ' ' || object_identity "
+                + "FROM pg_event_trigger_ddl_commands(); END $$");
+        jdbcTemplate.execute("CREATE FUNCTION log_drop() RETURNS event_trigger LANGUAGE plpgsql AS $$ "
+                + "BEGIN INSERT INTO ddl_log SELECT 'DROP ' || object_identity "
+                + "FROM pg_event_trigger_dropped_objects() WHERE original; END $$");
+        jdbcTemplate.execute("CREATE EVENT TRIGGER ddl_logged ON ddl_command_end EXECUTE FUNCTION log_ddl()");
+        jdbcTemplate.execute("CREATE EVENT TRIGGER drop_logged ON sql_drop EXECUTE FUNCTION log_drop()");
+    }
+
+    private List<String> ddl() {
+        return jdbcTemplate.queryForList("SELECT command FROM ddl_log", String.class);
+    }
+
+    // Leaf partitions by name, with their oids
+    private Map<String, Long> partitions() {
+        Map<String, Long> partitions = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT c.relname::text, c.oid::bigint FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid "
+                        + "WHERE i.inhparent IN ('orders_hot'::regclass, 'orders_cold'::regclass) ORDER BY 1",
+                row -> {
+                    partitions.put(row.getString(1), row.getLong(2));
+                });
+        return partitions;
+    }
+
+    private int count(String from) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + from, Integer.class);
+    }
+
+    private static String hot(YearMonth month) {
+        return String.format("orders_hot_p%d_%02d", month.getYear(), month.getMonthValue());
+    }
+
+    private OrderPartitionManager manager(boolean migrateLegacy) {
+        OrderPartitionManager manager = new OrderPartitionManager();
+        ReflectionTestUtils.setField(manager, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(manager, "dataSource", dataSource);
+        ReflectionTestUtils.setField(manager, "transactionTemplate",
+                new TransactionTemplate(new DataSourceTransactionManager(dataSource)));
+        ReflectionTestUtils.setField(manager, "enabled", true);
+        ReflectionTestUtils.setField(manager, "monthsAhead", MONTHS_AHEAD);
+        ReflectionTestUtils.setField(manager, "migrateLegacy", migrateLegacy);
+        return manager;
+    }
+}
@@ -0,0 +1,186 @@
+package com.globetrotter.globetrotterbackend.controller;
+
+import com.globetrotter.globetrotterbackend.security.GatewaySignature;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Admin order streams through the full request path, across more than one export chunk:
+ * every matching order arrives exactly once, the body completes on the async dispatch the
+ * security chain lets through, and only admins can start one.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create",
+        "spring.jpa.show-sql=false",
+        "search.index.enabled=false"
+})
+@AutoConfigureMockMvc
+class AdminOrderControllerTests {
+
+    private static final JsonMapper JSON = JsonMapper.builder().build();
+    private static final int ACTIVE_ORDERS = 1100;
+    private static final int ARCHIVED_ORDERS = 150;
+    private static final int ITEMS_PER_ORDER = 2;
+
+    private static EmbeddedPostgres postgres;
+    private static boolean seeded;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private GatewaySignature gatewaySignature;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) throws IOException {
+        postgres = EmbeddedPostgres.builder().start();
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+    }
+
+    @AfterAll
+    static void stopDatabase() throws IOException {
+        postgres.close();
+    }
+
+    @BeforeEach
+    void seed() {
+        if (seeded) {
+            return;
+        }
+        jdbcTemplate.execute("INSERT INTO categories (name, description) VALUES ('Category', 'Seeded')");
+        jdbcTemplate.execute("INSERT INTO products (name, description, price, stock_quantity, category_id, rating, "
+                + "reviews_count, rating_total, created_at, updated_at) "
+                + "SELECT 'Product ' || g, 'Seeded', 10 + g, 100, (SELECT MIN(id) FROM categories), 0, 0, 0, now(), now() "
+                + "FROM generate_series(1, 20) g");
+        jdbcTemplate.execute("INSERT INTO users (username, email, password, role, enabled, locked, "
+                + "failed_login_attempts, created_at, updated_at) VALUES "
+                + "('customer', 'customer@example.com', 'unused', 'CUSTOMER', true, false, 0, now(), now()), "
+                + "('admin', 'admin@example.com', 'unused', 'ADMIN', true, false, 0, now(), now())");
+        jdbcTemplate.update("INSERT INTO orders (user_id, order_date, total_amount, status, shipping_address, "
+                + "payment_method, created_at, updated_at, archived) "
+                + "SELECT (SELECT id FROM users WHERE username = 'customer'), localtimestamp - g * interval '1 hour', "
+                + "50, CASE WHEN g % 4 = 0 THEN 'DELIVERED' ELSE 'PENDING' END, 'Seeded, \"quoted\"', 'CARD', "
+                + "now(), now(), g > ? FROM generate_series(1, ?) g", ACTIVE_ORDERS, ACTIVE_ORDERS + ARCHIVED_ORDERS);
+        jdbcTemplate.update("INSERT INTO order_items (id, order_id, product_id, quantity, price) "
+                + "SELECT nextval('order_items_seq'), o.id, (SELECT MIN(id) FROM products) + (o.id + k) % 20, 1, 25 "
+                + "FROM orders o, generate_series(1, ?) k", ITEMS_PER_ORDER);
+        seeded = true;
+    }
+
+    @Test
+    void dashboardStreamsEveryActiveOrderOnce() throws Exception {
+        List<String> lines = stream(get("/api/admin/orders").accept(MediaType.APPLICATION_NDJSON).with(admin()),
+                MediaType.APPLICATION_NDJSON);
+
+        assertEquals(ACTIVE_ORDERS, lines.size());
+        Set<Long> ids = new HashSet<>();
+        for (String line : lines) {
+            JsonNode order = JSON.readTree(line);
+            ids.add(order.get("id").asLong());
+            assertEquals(ITEMS_PER_ORDER, order.get("orderItems").size());
+        }
+        assertEquals(ACTIVE_ORDERS, ids.size());
+
+        // Without the Accept header the dashboard still gets one JSON array
+        MvcResult array = mockMvc.perform(get("/api/admin/orders").with(admin()))
+                .andExpect(status().isOk())
+                .andReturn();
+        assertEquals(ACTIVE_ORDERS, JSON.readTree(array.getResponse().getContentAsString()).size());
+    }
+
+    @Test
+    void exportAppliesFiltersAndFormat() throws Exception {
+        List<String> all = stream(get("/api/admin/orders/export").with(admin()), MediaType.APPLICATION_NDJSON);
+        assertEquals(ACTIVE_ORDERS + ARCHIVED_ORDERS, all.size());
+
+        List<String> csv = stream(get("/api/admin/orders/export")
+                        .param("format", "csv")
+                        .param("status", "DELIVERED")
+                        .param("archived", "false")
+                        .with(admin()),
+                MediaType.parseMediaType("text/csv"));
+        assertTrue(csv.get(0).startsWith("id,user_id,username"), csv.get(0));
+        assertEquals(ACTIVE_ORDERS / 4, csv.size() - 1);
+        assertTrue(csv.get(1).contains("\"Seeded, \"\"quoted\"\"\""), csv.get(1));
+    }
+
+    @Test
+    void onlyAdminsCanStreamAndUnknownFormatsAreRejected() throws Exception {
+        mockMvc.perform(get("/api/admin/orders").accept(MediaType.APPLICATION_NDJSON).with(customer()))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/admin/orders/export").with(customer()))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/orders/admin/all").accept(MediaType.APPLICATION_NDJSON).with(customer()))
+                .andExpect(status().isForbidden());
+
+        mockMvc.perform(get("/api/admin/orders/export").param("format", "xml").with(admin()))
+                .andExpect(status().isBadRequest());
+    }
+
+    // Streamed bodies are written on the async dispatch, which runs the security chain again
+    private List<String> stream(MockHttpServletRequestBuilder request, MediaType contentType) throws Exception {
+        MvcResult started = mockMvc.perform(request)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult finished = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(contentType))
+                .andReturn();
+        return finished.getResponse().getContentAsString().lines().toList();
+    }
+
+    private RequestPostProcessor customer() {
+        return gatewayHeaders("customer", "ROLE_CUSTOMER");
+    }
+
+    private RequestPostProcessor admin() {
+        return gatewayHeaders("admin", "ROLE_ADMIN");
+    }
+
+    // The identity headers the gateway adds after validating the token
+    private RequestPostProcessor gatewayHeaders(String username, String roles) {
+        Long id = jdbcTemplate.queryForObject("SELECT id FROM users WHERE username = ?", Long.class, username);
+        return request -> {
+            request.addHeader("X-Username", username);
+            request.addHeader("X-User-Id", String.valueOf(id));
+            request.addHeader("X-User-Roles", roles);
+            long issuedAt = System.currentTimeMillis() / 1000;
+            request.addHeader(GatewaySignature.ISSUED_AT_HEADER, String.valueOf(issuedAt));
+            request.addHeader(GatewaySignature.HEADER, gatewaySignature.sign(username, String.valueOf(id), roles, issuedAt));
+            return request;
+        };
+    }
+}
@@ -0,0 +1,175 @@
+package com.globetrotter.globetrotterbackend.controller;
+
+import com.globetrotter.globetrotterbackend.security.GatewaySignature;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Order listings through the full request path: the statements each listing issues must
+ * not grow with the number of orders or items, and an order's customer details are only
+ * served to that customer or an admin.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "search.index.enabled=false"
+})
+@AutoConfigureMockMvc
+class OrderControllerTests {
+
+    private static final JsonMapper JSON = JsonMapper.builder().build();
+    private static final int ITEMS_PER_ORDER = 3;
+
+    private static EmbeddedPostgres postgres;
+    private static boolean seeded;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private GatewaySignature gatewaySignature;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) throws IOException {
+        postgres = EmbeddedPostgres.builder().start();
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+    }
+
+    @AfterAll
+    static void stopDatabase() throws IOException {
+        postgres.close();
+    }
+
+    @BeforeEach
+    void seed() {
+        if (seeded) {
+            return;
+        }
+        jdbcTemplate.execute("INSERT INTO categories (name, description) VALUES ('Category', 'Seeded')");
+        jdbcTemplate.execute("INSERT INTO products (name, description, price, stock_quantity, category_id, rating, "
+                + "reviews_count, rating_total, created_at, updated_at) "
+                + "SELECT 'Product ' || g, 'Seeded', 10 + g, 100, (SELECT MIN(id) FROM categories), 0, 0, 0, now(), now() "
+                + "FROM generate_series(1, 50) g");
+        jdbcTemplate.execute("INSERT INTO users (username, email, password, role, enabled, locked, "
+                + "failed_login_attempts, created_at, updated_at) "
+                + "SELECT 'user' || g, 'user' || g || '@example.com', 'unused', 'CUSTOMER', true, false, 0, now(), now() "
+                + "FROM generate_series(1, 3) g");
+        jdbcTemplate.execute("INSERT INTO users (username, email, password, role, enabled, locked, "
+                + "failed_login_attempts, created_at, updated_at) "
+                + "VALUES ('admin', 'admin@example.com', 'unused', 'ADMIN', true, false, 0, now(), now())");
+        addOrders("user1", 2);
+        addOrders("user2", 40);
+        seeded = true;
+    }
+
+    @Test
+    void listingsIssueTheSameStatementsForAnyNumberOfOrders() throws Exception {
+        long few = statements(get("/api/orders").with(customer("user1")), 2);
+        long many = statements(get("/api/orders").with(customer("user2")), 40);
+        assertEquals(few, many, "customer order history");
+
+        long before = statements(get("/api/admin/orders").with(admin()), countOrders());
+        addOrders("user3", 25);
+        assertEquals(before, statements(get("/api/admin/orders").with(admin()), countOrders()), "admin dashboard");
+
+        long all = statements(get("/api/orders/admin/all").with(admin()), countOrders());
+        addOrders("user3", 25);
+        assertEquals(all, statements(get("/api/orders/admin/all").with(admin()), countOrders()), "all orders");
+    }
+
+    @Test
+    void ordersAreOnlyServedToTheirOwnerOrAnAdmin() throws Exception {
+        Long order = jdbcTemplate.queryForObject("SELECT MIN(o.id) FROM orders o JOIN users u ON u.id = o.user_id "
+                + "WHERE u.username = 'user2'", Long.class);
+
+        mockMvc.perform(get("/api/orders/" + order).with(customer("user1"))).andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/orders/" + order).with(customer("user2"))).andExpect(status().isOk());
+        mockMvc.perform(get("/api/orders/" + order).with(admin())).andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/orders/admin/all").with(customer("user1"))).andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/admin/orders").with(customer("user1"))).andExpect(status().isForbidden());
+    }
+
+    private long statements(MockHttpServletRequestBuilder request, int expectedOrders) throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        MvcResult result = mockMvc.perform(request).andExpect(status().isOk()).andReturn();
+        long count = statistics.getPrepareStatementCount();
+
+        JsonNode orders = JSON.readTree(result.getResponse().getContentAsString());
+        assertEquals(expectedOrders, orders.size());
+        for (JsonNode order : orders) {
+            assertEquals(ITEMS_PER_ORDER, order.get("orderItems").size());
+        }
+        return count;
+    }
+
+    private void addOrders(String username, int orders) {
+        jdbcTemplate.update("INSERT INTO orders (user_id, order_date, total_amount, status, shipping_address, "
+                + "payment_method, created_at, updated_at, archived) "
+                + "SELECT u.id, localtimestamp - g * interval '1 hour', 50, 'PENDING', 'Seeded', 'CARD', now(), now(), false "
+                + "FROM users u, generate_series(1, ?) g WHERE u.username = ?", orders, username);
+        jdbcTemplate.update("INSERT INTO order_items (id, order_id, product_id, quantity, price) "
+                + "SELECT nextval('order_items_seq'), o.id, (SELECT MIN(id) FROM products) + (o.id + k) % 50, 1, 25 "
+                + "FROM orders o, generate_series(1, ?) k "
+                + "WHERE NOT EXISTS (SELECT 1 FROM order_items i WHERE i.order_id = o.id)", ITEMS_PER_ORDER);
+    }
+
+    private int countOrders() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM orders", Integer.class);
+    }
+
+    private RequestPostProcessor customer(String username) {
+        return gatewayHeaders(username, "ROLE_CUSTOMER");
+    }
+
+    private RequestPostProcessor admin() {
+        return gatewayHeaders("admin", "ROLE_ADMIN");
+    }
+
+    // The identity headers the gateway adds after validating the token
+    private RequestPostProcessor gatewayHeaders(String username, String roles) {
+        Long id = jdbcTemplate.queryForObject("SELECT id FROM users WHERE username = ?", Long.class, username);
+        return request -> {
+            request.addHeader("X-Username", username);
+            request.addHeader("X-User-Id", String.valueOf(id));
+            request.addHeader("X-User-Roles", roles);
+            long issuedAt = System.currentTimeMillis() / 1000;
+            request.addHeader(GatewaySignature.ISSUED_AT_HEADER, String.valueOf(issuedAt));
+            request.addHeader(GatewaySignature.HEADER, gatewaySignature.sign(username, String.valueOf(id), roles, issuedAt));
+            return request;
+        };
+    }
+}
@@ -0,0 +1,430 @@
+package com.globetrotter.globetrotterbackend.repository;
+
+import com.globetrotter.globetrotterbackend.model.Order;
+import com.globetrotter.globetrotterbackend.model.StockReservation;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Runs every repository query against a seeded PostgreSQL, captures the SQL and bind
+ * values Hibernate sends, and EXPLAINs each statement with sequential scans disabled.
+ * A Seq Scan that survives means no index serves the query. So does an index the planner
+ * only walks end to end because it was told to: a scan that discards rows without an Index
+ * Cond, or whose Index Cond leaves the leading column of the index unconstrained.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create",
+        "spring.jpa.show-sql=false",
+        "search.index.enabled=false"
+})
+class RepositoryIndexPlanTests {
+
+    private static final Pageable PAGE = PageRequest.of(0, 20);
+    private static final JsonMapper JSON = JsonMapper.builder().build();
+    private static final Set<String> INDEX_SCANS = Set.of("Index Scan", "Index Only Scan", "Bitmap Index Scan");
+
+    private final Map<String, Boolean> emptyRelations = new HashMap<>();
+    private final Map<String, Optional<String>> leadingColumns = new HashMap<>();
+
+
+    private static EmbeddedPostgres postgres;
+    private static boolean seeded;
+
+    // Statements are only recorded on the thread running a finder, not by scheduled jobs
+    private static final ThreadLocal<List<CapturedStatement>> capture = new ThreadLocal<>();
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private StockReservationRepository stockReservationRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) throws IOException {
+        postgres = EmbeddedPostgres.builder().start();
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+    }
+
+    @AfterAll
+    static void stopDatabase() throws IOException {
+        postgres.close();
+    }
+
+    @BeforeEach
+    void seed() {
+        if (seeded) {
+            return;
+        }
+        jdbcTemplate.execute("INSERT INTO categories (name, description) "
+                + "SELECT 'Category ' || g, 'Seeded' FROM generate_series(1, 20) g");
+        jdbcTemplate.execute("INSERT INTO products (name, description, price, stock_quantity, category_id, rating, "
+                + "reviews_count, rating_total, created_at, updated_at) "
+                + "SELECT 'Product ' || g, 'Seeded', 5 + g % 200, 100, 1 + g % 20, "
+                + "CASE WHEN g % 100 = 0 THEN NULL ELSE (g % 50) / 10.0 END, 0, 0, now(), now() "
+                + "FROM generate_series(1, 5000) g");
+        jdbcTemplate.execute("INSERT INTO users (username, email, password, role, enabled, locked, "
+                + "failed_login_attempts, created_at, updated_at) "
+                + "SELECT 'user' || g, 'user' || g || '@example.com', 'unused', 'CUSTOMER', true, false, 0, now(), now() "
+                + "FROM generate_series(1, 2000) g");
+        jdbcTemplate.execute("INSERT INTO carts (user_id, created_at) SELECT id, now() FROM users");
+        jdbcTemplate.execute("INSERT INTO cart_items (cart_id, product_id, quantity, price) "
+                + "SELECT c.id, 1 + (c.id * 7 + k) % 5000, 1, 10 FROM carts c, generate_series(1, 3) k");
+        jdbcTemplate.execute("INSERT INTO reviews (product_id, user_id, rating, comment, created_at) "
+                + "SELECT 1 + (u.id * 13 + k) % 5000, u.id, 1 + k % 5, 'Seeded', now() FROM users u, generate_series(1, 5) k");
+        // Two years of orders, archived after 90 days
+        jdbcTemplate.execute("INSERT INTO orders (user_id, order_date, total_amount, status, shipping_address, "
+                + "payment_method, created_at, updated_at, archived) "
+                + "SELECT 1 + g % 2000, localtimestamp - (g % 700) * interval '1 day', 50, "
+                + "(ARRAY['PENDING','CONFIRMED','PROCESSING','SHIPPED','DELIVERED','CANCELLED'])[1 + g % 6], "
+                + "'Seeded', 'CARD', now(), now(), g % 700 > 90 FROM generate_series(1, 20000) g");
+        jdbcTemplate.execute("INSERT INTO order_items (id, order_id, product_id, quantity, price) "
+                + "SELECT nextval('order_items_seq'), o.id, 1 + (o.id * 11 + k) % 5000, 1, 25 "
+                + "FROM orders o, generate_series(1, 2) k");
+        jdbcTemplate.execute("INSERT INTO stock_reservations (id, product_id, user_id, quantity, status, expires_at, created_at) "
+                + "SELECT nextval('stock_reservations_seq'), 1 + g % 5000, 1 + g % 2000, 1, "
+                + "(ARRAY['HELD','COMMITTED','RELEASED'])[1 + g % 3], localtimestamp + (g % 30 - 15) * interval '1 minute', now() "
+                + "FROM generate_series(1, 5000) g");
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            ScriptUtils.executeSqlScript(connection, new ClassPathResource("db/product-search.sql"));
+            return null;
+        });
+        // Fresh statistics, so plans match a database that has been running a while
+        jdbcTemplate.execute("VACUUM ANALYZE");
+        seeded = true;
+    }
+
+    @TestFactory
+    Stream<DynamicTest> everyFinderUsesAnIndex() {
+        return finders().entrySet().stream()
+                .map(finder -> DynamicTest.dynamicTest(finder.getKey(), () -> assertIndexed(finder.getKey(), finder.getValue())));
+    }
+
+    // reconcileRatings is left out: it rewrites every product's aggregate, so reading both tables in full is its plan
+    private Map<String, Runnable> finders() {
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, Runnable> finders = new LinkedHashMap<>();
+
+        finders.put("CartItemRepository.findByCartIdAndProductId", () -> cartItemRepository.findByCartIdAndProductId(1L, 8L));
+        finders.put("CartItemRepository.deleteByCartId", () -> cartItemRepository.deleteByCartId(1L));
+        finders.put("CartItemRepository.deleteAllByCartIdInBulk", () -> cartItemRepository.deleteAllByCartIdInBulk(1L));
+
+        finders.put("CartRepository.findByUserId", () -> cartRepository.findByUserId(1L));
+        finders.put("CartRepository.findWithItemsByUserId", () -> cartRepository.findWithItemsByUserId(1L));
+
+        finders.put("CategoryRepository.findByName", () -> categoryRepository.findByName("Category 1"));
+        finders.put("CategoryRepository.existsByName", () -> categoryRepository.existsByName("Category 1"));
+
+        finders.put("OrderItemRepository.findByOrderId", () -> orderItemRepository.findByOrderId(1L));
+        finders.put("OrderItemRepository.findWithProductByOrderIdIn",
+                () -> orderItemRepository.findWithProductByOrderIdIn(List.of(1L, 2L, 3L)));
+
+        finders.put("OrderRepository.findByUserId", () -> orderRepository.findByUserId(1L));
+        finders.put("OrderRepository.findByUserIdOrderByOrderDateDesc", () -> orderRepository.findByUserIdOrderByOrderDateDesc(1L));
+        finders.put("OrderRepository.findByUserIdAndOrderDateGreaterThanEqualOrderByOrderDateDesc",
+                () -> orderRepository.findByUserIdAndOrderDateGreaterThanEqualOrderByOrderDateDesc(1L, now.minusDays(30)));
+        finders.put("OrderRepository.findWithItemsById", () -> orderRepository.findWithItemsById(1L));
+        finders.put("OrderRepository.findAllWithItems", () -> orderRepository.findAllWithItems());
+        finders.put("OrderRepository.findByStatus", () -> orderRepository.findByStatus(Order.OrderStatus.PENDING));
+        finders.put("OrderRepository.findByArchivedFalseOrderByOrderDateDesc",
+                () -> orderRepository.findByArchivedFalseOrderByOrderDateDesc());
+        finders.put("OrderRepository.findByArchivedFalseAndOrderDateGreaterThanEqualOrderByOrderDateDesc",
+                () -> orderRepository.findByArchivedFalseAndOrderDateGreaterThanEqualOrderByOrderDateDesc(now.minusDays(7)));
+        finders.put("OrderRepository.archiveBatch", () -> orderRepository.archiveBatch(now.minusDays(30), 100));
+        finders.put("OrderRepository.countArchivable", () -> orderRepository.countArchivable(now.minusDays(30)));
+        finders.put("OrderRepository.streamForExport", () -> {
+            try (Stream<Order> orders = orderRepository.streamForExport(null, null, null, null)) {
+                orders.forEach(order -> { });
+            }
+        });
+        finders.put("OrderRepository.streamForExport(filtered)", () -> {
+            try (Stream<Order> orders = orderRepository.streamForExport(
+                    Order.OrderStatus.SHIPPED, now.minusDays(60), now, false)) {
+                orders.forEach(order -> { });
+            }
+        });
+
+        finders.put("ProductRepository.findWithCategoryById", () -> productRepository.findWithCategoryById(1L));
+        finders.put("ProductRepository.findByCategoryId", () -> productRepository.findByCategoryId(1L));
+        finders.put("ProductRepository.findByIdIn", () -> productRepository.findByIdIn(List.of(1L, 2L, 3L)));
+        finders.put("ProductRepository.searchByName", () -> productRepository.searchByName("Product 12", PAGE));
+        finders.put("ProductRepository.findByCategoryAndPriceRange",
+                () -> productRepository.findByCategoryAndPriceRange(1L, 10.0, 50.0));
+        finders.put("ProductRepository.findByPriceBetween", () -> productRepository.findByPriceBetween(10.0, 20.0));
+        finders.put("ProductRepository.findByOrderByPriceAsc", () -> productRepository.findByOrderByPriceAsc());
+        finders.put("ProductRepository.findByOrderByPriceDesc", () -> productRepository.findByOrderByPriceDesc());
+        finders.put("ProductRepository.findByOrderByRatingDesc", () -> productRepository.findByOrderByRatingDesc());
+        finders.put("ProductRepository.reserveStock", () -> productRepository.reserveStock(1L, 1));
+        finders.put("ProductRepository.releaseStock", () -> productRepository.releaseStock(1L, 1));
+        finders.put("ProductRepository.replaceStock", () -> productRepository.replaceStock(1L, 1, 2));
+        finders.put("ProductRepository.addRating", () -> productRepository.addRating(1L, 5));
+        finders.put("ProductRepository.removeRating", () -> productRepository.removeRating(1L, 5));
+        finders.put("ProductRepository.findPageAfterId", () -> productRepository.findPageAfterId(100L, PAGE));
+        finders.put("ProductRepository.findPageByCategoryAfterId",
+                () -> productRepository.findPageByCategoryAfterId(1L, 100L, PAGE));
+        finders.put("ProductRepository.findPageByPriceAsc", () -> productRepository.findPageByPriceAsc(50.0, 100L, PAGE));
+        finders.put("ProductRepository.findPageByPriceDesc", () -> productRepository.findPageByPriceDesc(50.0, 100L, PAGE));
+        finders.put("ProductRepository.findPageByRatingDesc", () -> productRepository.findPageByRatingDesc(3.0, 100L, PAGE));
+        finders.put("ProductRepository.findPageWithoutRatingAfterId",
+                () -> productRepository.findPageWithoutRatingAfterId(100L, PAGE));
+        finders.put("ProductRepository.findPageByPriceRange",
+                () -> productRepository.findPageByPriceRange(10.0, 50.0, 20.0, 100L, PAGE));
+
+        finders.put("ReviewRepository.findByProductId", () -> reviewRepository.findByProductId(1L));
+        finders.put("ReviewRepository.findByUserId", () -> reviewRepository.findByUserId(1L));
+        finders.put("ReviewRepository.findByProductIdAndUserId", () -> reviewRepository.findByProductIdAndUserId(14L, 1L));
+        finders.put("ReviewRepository.existsByProductIdAndUserId", () -> reviewRepository.existsByProductIdAndUserId(14L, 1L));
+        finders.put("ReviewRepository.deleteReviewById", () -> reviewRepository.deleteReviewById(1L));
+
+        finders.put("StockReservationRepository.findByStatusAndExpiresAtBefore",
+                () -> stockReservationRepository.findByStatusAndExpiresAtBefore(StockReservation.Status.HELD, now, PAGE));
+        finders.put("StockReservationRepository.transition", () -> stockReservationRepository.transition(
+                1L, StockReservation.Status.HELD, StockReservation.Status.RELEASED, null));
+        finders.put("StockReservationRepository.deleteFinishedBatch",
+                () -> stockReservationRepository.deleteFinishedBatch(now, 500));
+
+        finders.put("UserRepository.findByUsername", () -> userRepository.findByUsername("user1"));
+        finders.put("UserRepository.findByEmail", () -> userRepository.findByEmail("user1@example.com"));
+        finders.put("UserRepository.existsByUsername", () -> userRepository.existsByUsername("user1"));
+        finders.put("UserRepository.existsByEmail", () -> userRepository.existsByEmail("user1@example.com"));
+        return finders;
+    }
+
+    private void assertIndexed(String name, Runnable finder) {
+        List<CapturedStatement> statements = new ArrayList<>();
+        capture.set(statements);
+        try {
+            // Rolled back, so modifying queries leave the seeded data as it was
+            transactionTemplate.executeWithoutResult(status -> {
+                status.setRollbackOnly();
+                finder.run();
+            });
+        } finally {
+            capture.remove();
+        }
+
+        assertFalse(statements.isEmpty(), name + " sent no SQL");
+        for (CapturedStatement statement : statements) {
+            JsonNode plan = JSON.readTree(explain(statement)).get(0).get("Plan");
+            List<String> problems = new ArrayList<>();
+            collectUnindexedScans(plan, problems);
+            if (!problems.isEmpty()) {
+                fail(name + " is not served by an index: " + problems + "\n" + statement.sql() + "\n"
+                        + JSON.writerWithDefaultPrettyPrinter().writeValueAsString(plan));
+            }
+        }
+    }
+
+    // Empty relations are free to scan any way
+    private void collectUnindexedScans(JsonNode node, List<String> problems) {
+        String type = node.path("Node Type").asString("");
+        String relation = node.path("Relation Name").asString("");
+        String index = node.path("Index Name").asString("");
+        if (type.equals("Seq Scan") && !isEmpty(relation)) {
+            problems.add("Seq Scan on " + relation);
+        } else if (INDEX_SCANS.contains(type) && (relation.isEmpty() || !isEmpty(relation))) {
+            String condition = node.path("Index Cond").asString("");
+            Optional<String> leading = leadingColumn(index);
+            if (condition.isEmpty() && node.path("Rows Removed by Filter").asLong(0) > 0) {
+                problems.add(type + " of " + index + " filtering " + node.path("Filter").asString(""));
+            } else if (!condition.isEmpty() && leading.isPresent()
+                    && !Pattern.compile("(^|[^.\\w])" + leading.get() + "\\b").matcher(condition).find()) {
+                problems.add(type + " of " + index + " with " + condition + " leaving " + leading.get() + " open");
+            }
+        }
+        for (JsonNode child : node.path("Plans")) {
+            collectUnindexedScans(child, problems);
+        }
+    }
+
+    private boolean isEmpty(String relation) {
+        return emptyRelations.computeIfAbsent(relation, name -> jdbcTemplate.queryForObject(
+                "SELECT relpages = 0 FROM pg_class WHERE oid = to_regclass(?)", Boolean.class, name));
+    }
+
+    // Expression indexes have no leading column to check
+    private Optional<String> leadingColumn(String index) {
+        return leadingColumns.computeIfAbsent(index, name -> jdbcTemplate.queryForList(
+                "SELECT a.attname::text FROM pg_index i JOIN pg_attribute a "
+                        + "ON a.attrelid = i.indrelid AND a.attnum = i.indkey[0] WHERE i.indexrelid = to_regclass(?)",
+                String.class, name).stream().findFirst());
+    }
+
+    // EXPLAIN ANALYZE runs the statement, so it happens in a transaction that is rolled back
+    private String explain(CapturedStatement statement) {
+        return transactionTemplate.execute(status -> {
+            status.setRollbackOnly();
+            return jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+                try (Statement settings = connection.createStatement()) {
+                    settings.execute("SET LOCAL enable_seqscan = off");
+                }
+                try (PreparedStatement explain = connection.prepareStatement(
+                        "EXPLAIN (ANALYZE, TIMING OFF, FORMAT JSON) " + statement.sql())) {
+                    statement.bind(explain);
+                    try (ResultSet resultSet = explain.executeQuery()) {
+                        resultSet.next();
+                        return resultSet.getString(1);
+                    }
+                }
+            });
+        });
+    }
+
+    private record ParameterCall(Method method, Object[] args) {
+    }
+
+    private record CapturedStatement(String sql, List<ParameterCall> parameters) {
+
+        void bind(PreparedStatement target) throws SQLException {
+            for (ParameterCall call : parameters) {
+                try {
+                    call.method().invoke(target, call.args());
+                } catch (IllegalAccessException | InvocationTargetException e) {
+                    throw new SQLException("Could not replay " + call.method().getName(), e);
+                }
+            }
+        }
+    }
+
+    @TestConfiguration
+    static class CaptureConfig {
+
+        @Bean
+        static BeanPostProcessor capturingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource && !(bean instanceof CapturingDataSource)
+                            ? new CapturingDataSource(dataSource)
+                            : bean;
+                }
+            };
+        }
+    }
+
+    // Hands out connections whose prepared statements record their SQL and setXxx calls when executed
+    static class CapturingDataSource extends DelegatingDataSource {
+
+        CapturingDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return capturing(super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return capturing(super.getConnection(username, password));
+        }
+
+        private static Connection capturing(Connection connection) {
+            return (Connection) Proxy.newProxyInstance(CapturingDataSource.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                        Object result = invoke(connection, method, args);
+                        if (method.getName().startsWith("prepareStatement") && result instanceof PreparedStatement statement) {
+                            return capturing(statement, (String) args[0]);
+                        }
+                        return result;
+                    });
+        }
+
+        private static PreparedStatement capturing(PreparedStatement statement, String sql) {
+            List<ParameterCall> parameters = new ArrayList<>();
+            return (PreparedStatement) Proxy.newProxyInstance(CapturingDataSource.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+                        String name = method.getName();
+                        if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                            parameters.add(new ParameterCall(method, args.clone()));
+                        } else if (name.startsWith("execute") || name.equals("addBatch")) {
+                            List<CapturedStatement> statements = capture.get();
+                            if (statements != null) {
+                                statements.add(new CapturedStatement(sql, List.copyOf(parameters)));
+                            }
+                        }
+                        return invoke(statement, method, args);
+                    });
+        }
+
+        private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.globetrotter.globetrotterbackend.search;
+
+import com.globetrotter.globetrotterbackend.model.Category;
+import com.globetrotter.globetrotterbackend.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProductSearchIndexTests {
+
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    void createIndex() {
+        index = new ProductSearchIndex();
+        ReflectionTestUtils.setField(index, "enabled", true);
+    }
+
+    @Test
+    void tokenizerFoldsCaseAndAccentsAndSplitsOnAnythingElse() {
+        assertEquals(Set.of("cafe", "creme", "2x", "brulee"),
+                Set.copyOf(ProductSearchIndex.tokenize("Café-Crème, CAFÉ 2x (brûlée)!")));
+        assertEquals(3, ProductSearchIndex.tokenize("one two one three").size());
+        assertTrue(ProductSearchIndex.tokenize("  ").isEmpty());
+        assertTrue(ProductSearchIndex.tokenize(null).isEmpty());
+        assertTrue(ProductSearchIndex.tokenize("--- !!").isEmpty());
+    }
+
+    @Test
+    void exactTermsRankAbovePrefixesAndNamesAboveDescriptions() {
+        index.index(product(1, "Lampshade", "For any lamp", "Lighting"));
+        index.index(product(2, "Desk lamp", "Adjustable", "Lighting"));
+        index.index(product(3, "Shelf", "Takes a small lamp", "Furniture"));
+        index.index(product(4, "Rug", "Woven", "Furniture"));
+
+        // Name exact 3 x 2, description exact 1 x 2, name prefix 3 x 1
+        assertEquals(List.of(2L, 1L, 3L), index.search("lamp", 0, 10));
+        assertEquals(List.of(1L), index.search("lampsh", 0, 10));
+        assertEquals(List.of(3L, 4L), index.search("FURNITURE", 0, 10));
+    }
+
+    @Test
+    void everyTokenMustMatch() {
+        index.index(product(1, "Red wool scarf", "Warm", "Clothing"));
+        index.index(product(2, "Blue wool hat", "Warm", "Clothing"));
+        index.index(product(3, "Red cotton shirt", "Light", "Clothing"));
+
+        assertEquals(List.of(1L), index.search("wool red", 0, 10));
+        assertEquals(List.of(1L, 2L), index.search("warm woo", 0, 10));
+        assertEquals(List.of(), index.search("red hat", 0, 10));
+        assertEquals(List.of(), index.search("red missing", 0, 10));
+    }
+
+    @Test
+    void shortTokensOnlyMatchWholeTerms() {
+        index.index(product(1, "Cable", "Long", "Electronics"));
+        index.index(product(2, "Ca adapter", "Short", "Electronics"));
+
+        assertEquals(List.of(), index.search("c", 0, 10));
+        assertEquals(List.of(2L), index.search("ca", 0, 10));
+        assertEquals(List.of(1L), index.search("cab", 0, 10));
+    }
+
+    @Test
+    void aPrefixExpandsToALimitedNumberOfTerms() {
+        int terms = ProductSearchIndex.MAX_PREFIX_TERMS + 10;
+        for (int i = 0; i < terms; i++) {
+            index.index(product(i + 1, String.format("Lamp%03d", i), "", "Lighting"));
+        }
+        index.index(product(terms + 1, "Lamp", "", "Lighting"));
+
+        List<Long> expected = new ArrayList<>();
+        expected.add((long) terms + 1);
+        LongStream.rangeClosed(1, ProductSearchIndex.MAX_PREFIX_TERMS).forEach(expected::add);
+        assertEquals(expected, index.search("lamp", 0, 100));
+        // The terms past the limit are still found by a longer prefix
+        assertEquals(List.of((long) terms), index.search(String.format("lamp%03d", terms - 1), 0, 10));
+    }
+
+    @Test
+    void aPrefixSkipsTermsThatWouldMatchTooManyProducts() {
+        int common = ProductSearchIndex.MAX_PREFIX_POSTINGS + 1;
+        for (int i = 1; i <= common; i++) {
+            index.index(product(i, "Lampa", "", "Lighting"));
+        }
+        index.index(product(common + 1, "Lampb", "", "Lighting"));
+
+        assertEquals(List.of((long) common + 1), index.search("lamp", 0, 10));
+        assertEquals(common, index.search("lampa", 0, common).size());
+    }
+
+    @Test
+    void pagesFollowTheFullRanking() {
+        for (int i = 1; i <= 100; i++) {
+            // Every product matches "oak"; some by name, some by description, some by a longer term
+            String name = i % 3 == 0 ? "Oak table" : i % 3 == 1 ? "Oaken chair" : "Pine desk";
+            index.index(product(i, name, i % 2 == 0 ? "Oak legs" : "Sturdy", "Furniture"));
+        }
+        List<Long> all = index.search("oak", 0, 1000);
+        assertEquals(100 - 100 / 6, all.size());
+
+        List<Long> paged = new ArrayList<>();
+        for (int offset = 0; offset < all.size(); offset += 7) {
+            paged.addAll(index.search("oak", offset, 7));
+        }
+        assertEquals(all, paged);
+        assertEquals(List.of(), index.search("oak", all.size(), 7));
+        assertEquals(List.of(), index.search("oak", 0, 0));
+    }
+
+    @Test
+    void reindexingReplacesTermsAndRemovingDropsThem() {
+        index.index(product(1, "Teapot", "Ceramic", "Kitchen"));
+        index.index(product(1, "Kettle", "Steel", "Kitchen"));
+        assertEquals(List.of(), index.search("teapot", 0, 10));
+        assertEquals(List.of(1L), index.search("kettle", 0, 10));
+
+        index.remove(1L);
+        assertEquals(List.of(), index.search("kettle", 0, 10));
+        assertEquals(List.of(), index.search("kitchen", 0, 10));
+    }
+
+    @Test
+    void editsInATransactionWaitForItsCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            index.index(product(1, "Teapot", "Ceramic", "Kitchen"));
+            assertEquals(List.of(), index.search("teapot", 0, 10));
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertEquals(List.of(1L), index.search("teapot", 0, 10));
+
+        // A rolled-back removal never runs
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            index.remove(1L);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertEquals(List.of(1L), index.search("teapot", 0, 10));
+    }
+
+    private static Product product(long id, String name, String description, String categoryName) {
+        Category category = new Category();
+        category.setName(categoryName);
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setDescription(description);
+        product.setCategory(category);
+        return product;
+    }
+}
@@ -0,0 +1,117 @@
+package com.globetrotter.globetrotterbackend.security;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class GatewayAuthenticationFilterTests {
+
+    private final GatewaySignature signature = new GatewaySignature("test-identity-secret");
+    private GatewayAuthenticationFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = new GatewayAuthenticationFilter();
+        ReflectionTestUtils.setField(filter, "gatewaySignature", signature);
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void signedHeadersAuthenticate() throws Exception {
+        long now = now();
+        Authentication authentication = authenticate("alice", "42", "ROLE_CUSTOMER", now,
+                signature.sign("alice", "42", "ROLE_CUSTOMER", now));
+
+        UserPrincipal principal = (UserPrincipal) authentication.getPrincipal();
+        assertEquals(42L, principal.getId());
+        assertEquals("alice", principal.getUsername());
+    }
+
+    @Test
+    void unsignedOrAlteredHeadersAreIgnored() throws Exception {
+        long now = now();
+        String signed = signature.sign("alice", "42", "ROLE_CUSTOMER", now);
+
+        assertNull(authenticate("alice", "42", "ROLE_CUSTOMER", now, null));
+        // Someone else's id under alice's signature, or alice granting herself a role
+        assertNull(authenticate("alice", "7", "ROLE_CUSTOMER", now, signed));
+        assertNull(authenticate("alice", "42", "ROLE_ADMIN", now, signed));
+        assertNull(authenticate("alice", "42", "ROLE_CUSTOMER", now,
+                new GatewaySignature("another-secret").sign("alice", "42", "ROLE_CUSTOMER", now)));
+        // The signature covers the time too, so it cannot be moved forward
+        assertNull(authenticate("alice", "42", "ROLE_CUSTOMER", now + 1, signed));
+        assertNull(authenticate("alice", "42", "ROLE_CUSTOMER", null, signed));
+    }
+
+    @Test
+    void signaturesOutsideTheWindowAreIgnored() throws Exception {
+        long now = now();
+        long window = GatewaySignature.MAX_AGE_SECONDS;
+        for (long issuedAt : new long[]{now - window + 2, now + window - 2}) {
+            assertNotNull(authenticate("alice", "42", "ROLE_CUSTOMER", issuedAt,
+                    signature.sign("alice", "42", "ROLE_CUSTOMER", issuedAt)));
+        }
+        // A captured header set, replayed after the window has passed
+        for (long issuedAt : new long[]{now - window - 2, now + window + 2}) {
+            assertNull(authenticate("alice", "42", "ROLE_CUSTOMER", issuedAt,
+                    signature.sign("alice", "42", "ROLE_CUSTOMER", issuedAt)));
+        }
+    }
+
+    @Test
+    void signingIsSafeAcrossThreads() throws Exception {
+        long now = now();
+        String expected = signature.sign("alice", "42", "ROLE_CUSTOMER", now);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<String>> signed = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                signed.add(executor.submit(() -> signature.sign("alice", "42", "ROLE_CUSTOMER", now)));
+            }
+            for (Future<String> result : signed) {
+                assertEquals(expected, result.get());
+            }
+        }
+    }
+
+    private static long now() {
+        return System.currentTimeMillis() / 1000;
+    }
+
+    private Authentication authenticate(String username, String userId, String roles, Long issuedAt,
+                                        String signed) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/cart");
+        request.addHeader("X-Username", username);
+        request.addHeader("X-User-Id", userId);
+        request.addHeader("X-User-Roles", roles);
+        if (issuedAt != null) {
+            request.addHeader(GatewaySignature.ISSUED_AT_HEADER, String.valueOf(issuedAt));
+        }
+        if (signed != null) {
+            request.addHeader(GatewaySignature.HEADER, signed);
+        }
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+}
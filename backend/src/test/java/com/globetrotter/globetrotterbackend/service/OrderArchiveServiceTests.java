@@ -0,0 +1,146 @@
+package com.globetrotter.globetrotterbackend.service;
+
+import com.globetrotter.globetrotterbackend.dto.ArchiveJobStatus;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Archive jobs against a real orders table: one job at a time, batches until nothing
+ * before the cutoff is left, and a job the executor refuses does not block the next one.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create",
+        "spring.jpa.show-sql=false",
+        "search.index.enabled=false",
+        "orders.archive.batch-size=7"
+})
+class OrderArchiveServiceTests {
+
+    private static final int ORDERS = 50;
+
+    private static EmbeddedPostgres postgres;
+    private static boolean seeded;
+
+    @Autowired
+    private OrderArchiveService orderArchiveService;
+
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private AsyncTaskExecutor taskExecutor;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) throws IOException {
+        postgres = EmbeddedPostgres.builder().start();
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+    }
+
+    @AfterAll
+    static void stopDatabase() throws IOException {
+        postgres.close();
+    }
+
+    @BeforeEach
+    void seed() {
+        if (seeded) {
+            return;
+        }
+        jdbcTemplate.execute("INSERT INTO users (username, email, password, role, enabled, locked, "
+                + "failed_login_attempts, created_at, updated_at) VALUES "
+                + "('customer', 'customer@example.com', 'unused', 'CUSTOMER', true, false, 0, now(), now())");
+        jdbcTemplate.update("INSERT INTO orders (user_id, order_date, total_amount, status, shipping_address, "
+                + "payment_method, created_at, updated_at, archived) "
+                + "SELECT (SELECT id FROM users WHERE username = 'customer'), localtimestamp - g * interval '1 day', "
+                + "50, 'DELIVERED', 'Seeded', 'CARD', now(), now(), false FROM generate_series(1, ?) g", ORDERS);
+        seeded = true;
+    }
+
+    @AfterEach
+    void restoreExecutor() {
+        ReflectionTestUtils.setField(orderArchiveService, "taskExecutor", taskExecutor);
+    }
+
+    @Test
+    void archivesEverythingBeforeTheCutoffOneJobAtATime() {
+        List<Runnable> queued = new ArrayList<>();
+        ReflectionTestUtils.setField(orderArchiveService, "taskExecutor", new TaskExecutorAdapter(queued::add));
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(20).minusHours(12);
+
+        ArchiveJobStatus started = orderArchiveService.startArchive(cutoff);
+        assertEquals(ArchiveJobStatus.State.RUNNING, started.getState());
+        // A second request while the first is running gets the running job back
+        assertEquals(started.getId(), orderArchiveService.startArchive(LocalDateTime.now()).getId());
+        assertEquals(1, queued.size());
+
+        queued.getFirst().run();
+        ArchiveJobStatus finished = orderArchiveService.getJob(started.getId()).orElseThrow();
+        assertEquals(ArchiveJobStatus.State.COMPLETED, finished.getState());
+        assertEquals(ORDERS - 20, finished.getTotal());
+        assertEquals(ORDERS - 20, finished.getArchived());
+        assertEquals(ORDERS - 20, (int) jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM orders WHERE archived", Integer.class));
+        assertEquals(0, (int) jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM orders WHERE archived AND order_date >= ?", Integer.class, cutoff));
+
+        // Once it is done the next request starts a new job
+        assertNotEquals(started.getId(), orderArchiveService.startArchive(cutoff).getId());
+        assertEquals(2, queued.size());
+        queued.getLast().run();
+    }
+
+    @Test
+    void aJobTheExecutorRefusesDoesNotBlockTheNextOne() throws InterruptedException {
+        ReflectionTestUtils.setField(orderArchiveService, "taskExecutor", new TaskExecutorAdapter(task -> {
+            throw new RejectedExecutionException("queue full");
+        }));
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(ORDERS + 1);
+
+        ArchiveJobStatus refused = orderArchiveService.startArchive(cutoff);
+        assertEquals(ArchiveJobStatus.State.FAILED, refused.getState());
+        assertNotNull(refused.getError());
+        assertEquals(ArchiveJobStatus.State.FAILED,
+                orderArchiveService.getJob(refused.getId()).orElseThrow().getState());
+
+        ReflectionTestUtils.setField(orderArchiveService, "taskExecutor", taskExecutor);
+        ArchiveJobStatus next = orderArchiveService.startArchive(cutoff);
+        assertNotEquals(refused.getId(), next.getId());
+        assertEquals(ArchiveJobStatus.State.COMPLETED, await(next.getId()).getState());
+    }
+
+    private ArchiveJobStatus await(String jobId) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            ArchiveJobStatus job = orderArchiveService.getJob(jobId).orElseThrow();
+            if (job.getState() != ArchiveJobStatus.State.RUNNING) {
+                return job;
+            }
+            Thread.sleep(100);
+        }
+        throw new AssertionError("Archive job " + jobId + " did not finish");
+    }
+}
@@ -0,0 +1,57 @@
+package com.globetrotter.globetrotterbackend.service;
+
+import com.globetrotter.globetrotterbackend.model.Product;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ProductCursorTests {
+
+    @Test
+    void cursorsOnlyContinueTheListingTheyCameFrom() {
+        String products = ProductCursor.encode(ProductCursor.Sort.ID, "products", product(40L, 9.5, 4.0));
+        assertEquals(40L, ProductCursor.decode(products, ProductCursor.Sort.ID, "products").getId());
+        assertThrows(IllegalArgumentException.class,
+                () -> ProductCursor.decode(products, ProductCursor.Sort.ID, "category:1"));
+
+        String category = ProductCursor.encode(ProductCursor.Sort.ID, "category:1", product(40L, 9.5, 4.0));
+        assertThrows(IllegalArgumentException.class,
+                () -> ProductCursor.decode(category, ProductCursor.Sort.ID, "category:2"));
+
+        String sorted = ProductCursor.encode(ProductCursor.Sort.PRICE_ASC, "sorted", product(40L, 9.5, 4.0));
+        assertEquals(9.5, ProductCursor.decode(sorted, ProductCursor.Sort.PRICE_ASC, "sorted").getValue());
+        assertThrows(IllegalArgumentException.class,
+                () -> ProductCursor.decode(sorted, ProductCursor.Sort.PRICE_ASC, "price-range:0.0:50.0"));
+        assertThrows(IllegalArgumentException.class,
+                () -> ProductCursor.decode(sorted, ProductCursor.Sort.PRICE_DESC, "sorted"));
+    }
+
+    @Test
+    void unratedProductsKeepTheirPlaceInTheRatingOrder() {
+        String unrated = ProductCursor.encode(ProductCursor.Sort.RATING_DESC, "top-rated", product(7L, 9.5, null));
+        ProductCursor after = ProductCursor.decode(unrated, ProductCursor.Sort.RATING_DESC, "top-rated");
+        assertNull(after.getValue());
+        assertEquals(7L, after.getId());
+
+        // Only the rating order has a NULL region
+        String forged = ProductCursor.encode(ProductCursor.Sort.PRICE_ASC, "sorted", product(7L, null, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> ProductCursor.decode(forged, ProductCursor.Sort.PRICE_ASC, "sorted"));
+    }
+
+    @Test
+    void garbageIsRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> ProductCursor.decode("not-a-cursor", ProductCursor.Sort.ID, "products"));
+    }
+
+    private static Product product(Long id, Double price, Double rating) {
+        Product product = new Product();
+        product.setId(id);
+        product.setPrice(price);
+        product.setRating(rating);
+        return product;
+    }
+}
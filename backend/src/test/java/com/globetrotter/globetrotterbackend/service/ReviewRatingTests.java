@@ -0,0 +1,164 @@
+package com.globetrotter.globetrotterbackend.service;
+
+import com.globetrotter.globetrotterbackend.model.Review;
+import com.globetrotter.globetrotterbackend.repository.ProductRepository;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The rating columns are kept up to date by single-statement increments rather than by
+ * recounting reviews, so each step is checked against the values a recount would give.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create",
+        "spring.jpa.show-sql=false",
+        "search.index.enabled=false"
+})
+class ReviewRatingTests {
+
+    private static EmbeddedPostgres postgres;
+    private static boolean seeded;
+
+    @Autowired
+    private ReviewService reviewService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) throws IOException {
+        postgres = EmbeddedPostgres.builder().start();
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+    }
+
+    @AfterAll
+    static void stopDatabase() throws IOException {
+        postgres.close();
+    }
+
+    @BeforeEach
+    void seed() {
+        if (seeded) {
+            return;
+        }
+        jdbcTemplate.execute("INSERT INTO categories (name, description) VALUES ('Category', 'Seeded')");
+        jdbcTemplate.execute("INSERT INTO products (name, description, price, stock_quantity, category_id, rating, "
+                + "reviews_count, rating_total, created_at, updated_at) VALUES "
+                + "('Rated', 'Seeded', 10, 10, (SELECT MIN(id) FROM categories), 0, 0, 0, now(), now()), "
+                + "('Legacy', 'Seeded', 10, 10, (SELECT MIN(id) FROM categories), 0, 0, 0, now(), now()), "
+                + "('Imported', 'Seeded', 10, 10, (SELECT MIN(id) FROM categories), 0, 0, 0, now(), now()), "
+                + "('Edited', 'Seeded', 10, 10, (SELECT MIN(id) FROM categories), 0, 0, 0, now(), now()), "
+                + "('Untouched', 'Seeded', 10, 10, (SELECT MIN(id) FROM categories), 0, 0, 0, now(), now())");
+        jdbcTemplate.execute("INSERT INTO users (username, email, password, role, enabled, locked, "
+                + "failed_login_attempts, created_at, updated_at) "
+                + "SELECT 'reviewer' || g, 'reviewer' || g || '@example.com', 'unused', 'CUSTOMER', true, false, 0, "
+                + "now(), now() FROM generate_series(1, 4) g");
+        seeded = true;
+    }
+
+    @Test
+    void addingAndRemovingReviewsKeepsTheAverage() {
+        Long product = productId("Rated");
+        List<Long> users = users();
+
+        List<Review> reviews = new ArrayList<>();
+        reviews.add(reviewService.createReview(users.get(0), product, 5, "Great"));
+        assertRating(product, 5, 1, 5.0);
+        reviews.add(reviewService.createReview(users.get(1), product, 2, "Poor"));
+        assertRating(product, 7, 2, 3.5);
+        reviews.add(reviewService.createReview(users.get(2), product, 4, "Good"));
+        assertRating(product, 11, 3, 11.0 / 3);
+
+        reviewService.deleteReview(reviews.get(1).getId());
+        assertRating(product, 9, 2, 4.5);
+        // Deleting the same review again must not take its rating off twice
+        reviewService.deleteReview(reviews.get(1).getId());
+        assertRating(product, 9, 2, 4.5);
+        reviewService.deleteReview(reviews.get(0).getId());
+        assertRating(product, 4, 1, 4.0);
+        reviewService.deleteReview(reviews.get(2).getId());
+        assertRating(product, 0, 0, 0.0);
+    }
+
+    @Test
+    void aProductWithNullAggregatesCountsFromZero() {
+        Long product = productId("Legacy");
+        List<Long> users = users();
+        // Rows that predate the aggregate columns hold NULLs until reconciled
+        jdbcTemplate.update("UPDATE products SET rating = NULL, rating_total = NULL, reviews_count = NULL WHERE id = ?",
+                product);
+
+        Review review = reviewService.createReview(users.get(0), product, 3, "Fine");
+        assertRating(product, 3, 1, 3.0);
+        reviewService.deleteReview(review.getId());
+        assertRating(product, 0, 0, 0.0);
+    }
+
+    @Test
+    void reconcilingFixesOnlyTheProductsThatDrifted() {
+        Long imported = productId("Imported");
+        Long edited = productId("Edited");
+        Long untouched = productId("Untouched");
+        List<Long> users = users();
+        // Settles whatever the other tests left, so only this test's drift is counted below
+        transactionTemplate.execute(status -> productRepository.reconcileRatings());
+        reviewService.createReview(users.get(0), imported, 5, "Great");
+        reviewService.createReview(users.get(1), imported, 1, "Bad");
+        reviewService.createReview(users.get(0), edited, 2, "Poor");
+        reviewService.createReview(users.get(0), untouched, 4, "Good");
+
+        // A review written behind the service's back, and an aggregate edited by hand
+        jdbcTemplate.update("INSERT INTO reviews (product_id, user_id, rating, comment, created_at) "
+                + "VALUES (?, ?, 3, 'Imported', now())", imported, users.get(2));
+        jdbcTemplate.update("UPDATE products SET rating = 5.0, rating_total = 5 WHERE id = ?", edited);
+
+        assertEquals(2, (int) transactionTemplate.execute(status -> productRepository.reconcileRatings()));
+        assertRating(imported, 9, 3, 3.0);
+        assertRating(edited, 2, 1, 2.0);
+        assertRating(untouched, 4, 1, 4.0);
+        assertEquals(0, (int) transactionTemplate.execute(status -> productRepository.reconcileRatings()));
+    }
+
+    private void assertRating(Long productId, int total, int count, double rating) {
+        Map<String, Object> row = aggregates(productId);
+        assertEquals(total, ((Number) row.get("rating_total")).intValue(), "rating_total");
+        assertEquals(count, ((Number) row.get("reviews_count")).intValue(), "reviews_count");
+        assertEquals(rating, ((Number) row.get("rating")).doubleValue(), 1e-9, "rating");
+    }
+
+    private Map<String, Object> aggregates(Long productId) {
+        return jdbcTemplate.queryForMap("SELECT rating, rating_total, reviews_count FROM products WHERE id = ?",
+                productId);
+    }
+
+    private Long productId(String name) {
+        return jdbcTemplate.queryForObject("SELECT id FROM products WHERE name = ?", Long.class, name);
+    }
+
+    private List<Long> users() {
+        return jdbcTemplate.queryForList("SELECT id FROM users ORDER BY id", Long.class);
+    }
+}
@@ -0,0 +1,233 @@
+package com.globetrotter.globetrotterbackend.service;
+
+import com.globetrotter.globetrotterbackend.model.Product;
+import com.globetrotter.globetrotterbackend.repository.ProductRepository;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Many checkouts race for a product with less stock than shoppers, while an admin keeps
+ * restocking it from the value they last read. Every unit must be accounted for: sold,
+ * still in stock, or never added because the admin's edit was rejected as stale.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create",
+        "spring.jpa.show-sql=false",
+        "search.index.enabled=false"
+})
+class StockReservationConcurrencyTests {
+
+    private static final int HOT_STOCK = 40;
+    private static final int COLD_STOCK = 100000;
+    private static final int SHOPPERS = 120;
+    private static final int THREADS = 8;
+    private static final int RESTOCK = 5;
+
+    private static EmbeddedPostgres postgres;
+    private static boolean seeded;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private StockReservationService stockReservationService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) throws IOException {
+        postgres = EmbeddedPostgres.builder().start();
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+    }
+
+    @AfterAll
+    static void stopDatabase() throws IOException {
+        postgres.close();
+    }
+
+    @BeforeEach
+    void seed() {
+        if (seeded) {
+            return;
+        }
+        jdbcTemplate.execute("INSERT INTO categories (name, description) VALUES ('Category', 'Seeded')");
+        jdbcTemplate.execute("INSERT INTO products (name, description, price, stock_quantity, category_id, rating, "
+                + "reviews_count, rating_total, created_at, updated_at) VALUES "
+                + "('Hot', 'Seeded', 10, " + HOT_STOCK + ", (SELECT MIN(id) FROM categories), 0, 0, 0, now(), now()), "
+                + "('Cold', 'Seeded', 20, " + COLD_STOCK + ", (SELECT MIN(id) FROM categories), 0, 0, 0, now(), now()), "
+                + "('Spare', 'Seeded', 30, 10, (SELECT MIN(id) FROM categories), 0, 0, 0, now(), now())");
+        jdbcTemplate.execute("INSERT INTO users (username, email, password, role, enabled, locked, "
+                + "failed_login_attempts, created_at, updated_at) "
+                + "SELECT 'user' || g, 'user' || g || '@example.com', 'unused', 'CUSTOMER', true, false, 0, now(), now() "
+                + "FROM generate_series(1, " + SHOPPERS + ") g");
+        seeded = true;
+    }
+
+    @Test
+    void racingCheckoutsAndRestocksNeitherOversellNorLoseUpdates() throws Exception {
+        Long hot = productId("Hot");
+        Long cold = productId("Cold");
+        List<Long> users = jdbcTemplate.queryForList("SELECT id FROM users ORDER BY id", Long.class);
+        // Half the carts list the products the other way round; reservations still lock them in id order
+        for (int i = 0; i < users.size(); i++) {
+            Long first = i % 2 == 0 ? hot : cold;
+            cartService.addToCart(users.get(i), first, 1);
+            cartService.addToCart(users.get(i), first.equals(hot) ? cold : hot, 1);
+        }
+
+        AtomicInteger placed = new AtomicInteger();
+        AtomicInteger soldOut = new AtomicInteger();
+        AtomicInteger restocked = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicBoolean shopping = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS + 1);
+        try {
+            Future<?> admin = executor.submit(() -> {
+                while (shopping.get()) {
+                    Product seen = productRepository.findWithCategoryById(hot).orElseThrow();
+                    try {
+                        productService.updateProduct(hot, edit(seen, seen.getStockQuantity() + RESTOCK),
+                                seen.getStockQuantity());
+                        restocked.incrementAndGet();
+                    } catch (OptimisticLockingFailureException e) {
+                        rejected.incrementAndGet();
+                    }
+                }
+            });
+            List<Future<?>> shoppers = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                List<Long> slice = users.subList(t * SHOPPERS / THREADS, (t + 1) * SHOPPERS / THREADS);
+                shoppers.add(executor.submit(() -> {
+                    for (Long user : slice) {
+                        try {
+                            orderService.createOrder(user, "1 Test Street", "CARD");
+                            placed.incrementAndGet();
+                        } catch (RuntimeException e) {
+                            assertTrue(e.getMessage().startsWith("Insufficient stock"), e.getMessage());
+                            soldOut.incrementAndGet();
+                        }
+                    }
+                }));
+            }
+            for (Future<?> shopper : shoppers) {
+                shopper.get(2, TimeUnit.MINUTES);
+            }
+            shopping.set(false);
+            admin.get(1, TimeUnit.MINUTES);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(SHOPPERS, placed.get() + soldOut.get());
+        assertTrue(restocked.get() > 0, "no restock went through");
+        int hotSold = sold(hot);
+        assertEquals(placed.get(), hotSold);
+        assertEquals(HOT_STOCK + RESTOCK * restocked.get(), hotSold + stock(hot),
+                "restocked " + restocked.get() + ", rejected " + rejected.get());
+        assertTrue(stock(hot) >= 0);
+        // A failed checkout rolls back its cold reservation along with the hot one
+        assertEquals(COLD_STOCK, sold(cold) + stock(cold));
+        assertEquals(placed.get(), sold(cold));
+        assertEquals(2 * placed.get(), count("SELECT COUNT(*) FROM stock_reservations WHERE status = 'COMMITTED'"));
+        assertEquals(0, count("SELECT COUNT(*) FROM stock_reservations WHERE status <> 'COMMITTED'"));
+    }
+
+    @Test
+    void staleStockEditIsRejectedWholesale() {
+        Long spare = productId("Spare");
+        Product seen = productRepository.findWithCategoryById(spare).orElseThrow();
+        jdbcTemplate.update("UPDATE products SET stock_quantity = stock_quantity - 3 WHERE id = ?", spare);
+
+        Product stale = edit(seen, 50);
+        stale.setName("Renamed");
+        assertThrows(OptimisticLockingFailureException.class,
+                () -> productService.updateProduct(spare, stale, seen.getStockQuantity()));
+        assertEquals(7, stock(spare));
+        assertEquals("Spare", jdbcTemplate.queryForObject("SELECT name FROM products WHERE id = ?", String.class, spare));
+
+        // Editing other fields only leaves stock alone, whatever was sold meanwhile
+        Product renamed = edit(seen, 7);
+        renamed.setName("Renamed");
+        assertEquals(7, productService.updateProduct(spare, renamed, 7).getStockQuantity());
+        assertEquals(50, productService.updateProduct(spare, edit(seen, 50), 7).getStockQuantity());
+    }
+
+    @Test
+    void finishedReservationsArePrunedAfterRetention() {
+        Long spare = productId("Spare");
+        jdbcTemplate.update("INSERT INTO stock_reservations (id, product_id, user_id, quantity, status, expires_at, created_at) "
+                + "SELECT nextval('stock_reservations_seq'), ?, 1, 1, s, now() - interval '40 days', now() - interval '40 days' "
+                + "FROM unnest(ARRAY['COMMITTED', 'RELEASED', 'HELD']) s, generate_series(1, 6000)", spare);
+        jdbcTemplate.update("INSERT INTO stock_reservations (id, product_id, user_id, quantity, status, expires_at, created_at) "
+                + "VALUES (nextval('stock_reservations_seq'), ?, 1, 1, 'COMMITTED', now(), now())", spare);
+        int before = count("SELECT COUNT(*) FROM stock_reservations");
+
+        assertEquals(12000, stockReservationService.pruneFinished());
+        assertEquals(before - 12000, count("SELECT COUNT(*) FROM stock_reservations"));
+        // Holds are returned by the expiry sweep, never deleted with their stock still out
+        assertEquals(6000, count("SELECT COUNT(*) FROM stock_reservations WHERE product_id = " + spare
+                + " AND status = 'HELD'"));
+    }
+
+    private Product edit(Product seen, int stockQuantity) {
+        Product details = new Product();
+        details.setName(seen.getName());
+        details.setDescription(seen.getDescription());
+        details.setPrice(seen.getPrice());
+        details.setImageUrl(seen.getImageUrl());
+        details.setCategory(seen.getCategory());
+        details.setStockQuantity(stockQuantity);
+        return details;
+    }
+
+    private Long productId(String name) {
+        return jdbcTemplate.queryForObject("SELECT id FROM products WHERE name = ?", Long.class, name);
+    }
+
+    private int stock(Long product) {
+        return jdbcTemplate.queryForObject("SELECT stock_quantity FROM products WHERE id = ?", Integer.class, product);
+    }
+
+    private int sold(Long product) {
+        return jdbcTemplate.queryForObject("SELECT COALESCE(SUM(quantity), 0) FROM order_items WHERE product_id = ?",
+                Integer.class, product);
+    }
+
+    private int count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Integer.class);
+    }
+}
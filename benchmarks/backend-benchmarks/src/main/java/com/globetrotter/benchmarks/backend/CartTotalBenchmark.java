@@ -0,0 +1,48 @@
+package com.globetrotter.benchmarks.backend;
+
+import com.globetrotter.globetrotterbackend.model.Cart;
+import com.globetrotter.globetrotterbackend.model.CartItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CartTotalBenchmark {
+
+    @Param({"5", "50", "500"})
+    private int items;
+
+    private Cart cart;
+
+    @Setup
+    public void setUp() {
+        cart = new Cart();
+        for (int i = 0; i < items; i++) {
+            CartItem item = new CartItem();
+            item.setCart(cart);
+            item.setPrice(10.0 + i);
+            item.setQuantity(1 + (i % 3));
+            cart.getCartItems().add(item);
+        }
+    }
+
+    @Benchmark
+    public Double getTotal() {
+        return cart.getTotal();
+    }
+}
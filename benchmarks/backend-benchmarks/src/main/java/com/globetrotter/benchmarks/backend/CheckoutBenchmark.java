@@ -0,0 +1,141 @@
+package com.globetrotter.benchmarks.backend;
+
+import com.globetrotter.globetrotterbackend.model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * End-to-end request latency against {@link SeededBackend}. Each benchmark method
+ * runs in its own fork, so every method starts from a freshly seeded database.
+ * <p>
+ * Sample time mode gives the latency distribution, so p99 is in the report next to
+ * the average. Checkout runs for several cart sizes; before measuring, the JDBC
+ * statements one checkout issues are counted through Hibernate statistics and
+ * printed, to show whether they grow with the number of cart lines.
+ */
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+@Threads(4)
+public class CheckoutBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Backend {
+
+        SeededBackend backend;
+        final AtomicInteger nextUser = new AtomicInteger();
+
+        @Setup(Level.Trial)
+        public void start() throws Exception {
+            backend = new SeededBackend("--spring.jpa.properties.hibernate.generate_statistics=true");
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() throws Exception {
+            backend.close();
+        }
+    }
+
+    // One user per benchmark thread, so carts are not shared between threads
+    @State(Scope.Thread)
+    public static class Shopper {
+
+        User user;
+
+        @Setup(Level.Trial)
+        public void pick(Backend state) {
+            user = state.backend.users.get(state.nextUser.getAndIncrement() % SeededBackend.USERS);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Checkout {
+
+        // Distinct products in the cart at checkout
+        @Param({"1", "3", "10", "30"})
+        int cartSize;
+
+        // Runs before any benchmark thread starts, so nothing else touches the counter
+        @Setup(Level.Trial)
+        public void countStatements(Backend state) throws Exception {
+            // The last seeded user; shoppers take users from the front of the list
+            User user = state.backend.users.get(SeededBackend.USERS - 1);
+            long fill = 0;
+            long checkout = 0;
+            // Later rounds show the steady state, after Hibernate and the caches have warmed up
+            for (int round = 0; round < 5; round++) {
+                long before = state.backend.statementCount();
+                fillCart(state, user, cartSize);
+                long filled = state.backend.statementCount();
+                placeOrder(state, user);
+                fill = filled - before;
+                checkout = state.backend.statementCount() - filled;
+            }
+            System.out.printf("%ncart of %d: %d statements to fill, %d to check out%n", cartSize, fill, checkout);
+        }
+    }
+
+    @Benchmark
+    public String addToCart(Backend state, Shopper shopper) throws Exception {
+        return state.backend.post("/api/cart/add", cartItem(state), shopper.user);
+    }
+
+    @Benchmark
+    public String createOrder(Backend state, Shopper shopper, Checkout checkout) throws Exception {
+        fillCart(state, shopper.user, checkout.cartSize);
+        return placeOrder(state, shopper.user);
+    }
+
+    @Benchmark
+    public String listCategory(Backend state) throws Exception {
+        long categoryId = state.backend.categoryIds.get(ThreadLocalRandom.current().nextInt(SeededBackend.CATEGORIES));
+        return state.backend.get("/api/products/category/" + categoryId);
+    }
+
+    @Benchmark
+    public String listPage(Backend state) throws Exception {
+        return state.backend.get("/api/products?limit=20");
+    }
+
+    private static String cartItem(Backend state) {
+        long productId = state.backend.productIds.get(ThreadLocalRandom.current().nextInt(state.backend.productIds.size()));
+        return cartItem(productId);
+    }
+
+    private static String cartItem(long productId) {
+        return "{\"productId\":" + productId + ",\"quantity\":1}";
+    }
+
+    // Consecutive products from a random start, so the cart has exactly size lines
+    private static void fillCart(Backend state, User user, int size) throws Exception {
+        List<Long> productIds = state.backend.productIds;
+        int start = ThreadLocalRandom.current().nextInt(productIds.size());
+        for (int i = 0; i < size; i++) {
+            state.backend.post("/api/cart/add", cartItem(productIds.get((start + i) % productIds.size())), user);
+        }
+    }
+
+    private static String placeOrder(Backend state, User user) throws Exception {
+        return state.backend.post("/api/orders",
+                "{\"shippingAddress\":\"1 Harbour Street\",\"paymentMethod\":\"CARD\"}", user);
+    }
+}
@@ -0,0 +1,75 @@
+package com.globetrotter.benchmarks.backend;
+
+import com.globetrotter.globetrotterbackend.security.GatewayAuthenticationFilter;
+import com.globetrotter.globetrotterbackend.security.GatewaySignature;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of trusting the gateway headers: signature check, role parsing and
+ * principal construction. Requests carry X-User-Id, so the principal cache is never hit.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GatewayAuthenticationFilterBenchmark {
+
+    @Param({"ROLE_CUSTOMER", "ROLE_CUSTOMER, ROLE_ADMIN, ROLE_SUPPORT"})
+    private String roles;
+
+    private GatewaySignature signature;
+    private GatewayAuthenticationFilter filter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private FilterChain chain;
+
+    @Setup
+    public void setUp() {
+        signature = new GatewaySignature("benchmark-identity-secret");
+        filter = new GatewayAuthenticationFilter();
+        ReflectionTestUtils.setField(filter, "gatewaySignature", signature);
+        response = new MockHttpServletResponse();
+        chain = (req, res) -> { };
+    }
+
+    // Signed again each iteration, so the whole run stays inside the signature's window
+    @Setup(Level.Iteration)
+    public void sign() {
+        long issuedAt = System.currentTimeMillis() / 1000;
+        request = new MockHttpServletRequest("GET", "/api/cart");
+        request.addHeader("X-Username", "alice");
+        request.addHeader("X-User-Id", "42");
+        request.addHeader("X-User-Roles", roles);
+        request.addHeader(GatewaySignature.ISSUED_AT_HEADER, String.valueOf(issuedAt));
+        request.addHeader(GatewaySignature.HEADER, signature.sign("alice", "42", roles, issuedAt));
+    }
+
+    @Benchmark
+    public Authentication doFilter() throws Exception {
+        filter.doFilter(request, response, chain);
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+}
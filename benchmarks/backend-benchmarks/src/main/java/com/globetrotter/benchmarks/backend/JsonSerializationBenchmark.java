@@ -0,0 +1,105 @@
+package com.globetrotter.benchmarks.backend;
+
+import com.globetrotter.globetrotterbackend.dto.OrderResponse;
+import com.globetrotter.globetrotterbackend.model.Category;
+import com.globetrotter.globetrotterbackend.model.Order;
+import com.globetrotter.globetrotterbackend.model.OrderItem;
+import com.globetrotter.globetrotterbackend.model.Product;
+import com.globetrotter.globetrotterbackend.model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Response serialization with the Jackson 3 mapper Spring MVC uses: a catalog page
+ * of products, and an order both as the entity graph and as the response DTO.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    private static final int PAGE_SIZE = 50;
+    private static final int ORDER_ITEMS = 10;
+
+    private JsonMapper mapper;
+    private List<Product> products;
+    private Order order;
+
+    @Setup
+    public void setUp() {
+        mapper = JsonMapper.builder().build();
+
+        Category category = new Category();
+        category.setId(1L);
+        category.setName("Travel Gear");
+        category.setDescription("Bags, adapters and everything in between");
+
+        products = new ArrayList<>();
+        for (long i = 1; i <= PAGE_SIZE; i++) {
+            Product product = new Product();
+            product.setId(i);
+            product.setName("Product " + i);
+            product.setDescription("A sturdy, lightweight item for frequent travellers, model " + i);
+            product.setPrice(19.99 + i);
+            product.setStockQuantity(100);
+            product.setImageUrl("https://example.com/images/" + i + ".jpg");
+            product.setRating(4.5);
+            product.setReviewsCount(12);
+            product.setCategory(category);
+            product.setCreatedAt(LocalDateTime.now());
+            product.setUpdatedAt(LocalDateTime.now());
+            products.add(product);
+        }
+
+        order = new Order();
+        order.setId(1L);
+        order.setUser(User.builder().id(1L).username("alice").email("alice@example.com").build());
+        order.setOrderDate(LocalDateTime.now());
+        order.setShippingAddress("1 Harbour Street, Sydney");
+        order.setPaymentMethod("CARD");
+        double total = 0;
+        for (int i = 0; i < ORDER_ITEMS; i++) {
+            OrderItem item = new OrderItem();
+            item.setId((long) i);
+            item.setOrder(order);
+            item.setProduct(products.get(i));
+            item.setQuantity(2);
+            item.setPrice(products.get(i).getPrice());
+            order.getOrderItems().add(item);
+            total += item.getPrice() * item.getQuantity();
+        }
+        order.setTotalAmount(total);
+    }
+
+    @Benchmark
+    public byte[] productPage() {
+        return mapper.writeValueAsBytes(products);
+    }
+
+    @Benchmark
+    public byte[] orderEntity() {
+        return mapper.writeValueAsBytes(order);
+    }
+
+    @Benchmark
+    public byte[] orderResponse() {
+        return mapper.writeValueAsBytes(OrderResponse.from(order));
+    }
+}
@@ -0,0 +1,293 @@
+package com.globetrotter.benchmarks.backend;
+
+import com.globetrotter.globetrotterbackend.config.OrderPartitionManager;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Order lookups on the unpartitioned orders table (with the archive job's partial
+ * index) against the partitioned layout, over the same synthetic history: five years
+ * of orders, 50 per customer, everything older than 90 days archived. The partitioned
+ * copy is built by {@link OrderPartitionManager}'s legacy migration, as on a real
+ * database.
+ * <p>
+ * JMH forks once per benchmark method, so the database is kept in
+ * target/order-partitions/rows-N and built only by the first fork. The default of
+ * 50M rows needs about 30 GB of disk and a long first setup; pass
+ * {@code -p rows=5000000} for a quicker run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class OrderPartitionBenchmark {
+
+    private static final int ORDERS_PER_USER = 50;
+    private static final int HISTORY_DAYS = 5 * 365;
+
+    private static final String RECENT_FOR_USER = "SELECT id, order_date, status, total_amount FROM orders "
+            + "WHERE user_id = ? AND order_date >= ? ORDER BY order_date DESC";
+    private static final String HISTORY_FOR_USER = "SELECT id, order_date, status, total_amount FROM orders "
+            + "WHERE user_id = ? ORDER BY order_date DESC";
+    private static final String ACTIVE_DASHBOARD = "SELECT id, user_id, order_date, status, total_amount FROM orders "
+            + "WHERE archived = false ORDER BY order_date DESC LIMIT 50";
+    private static final String MONTH_TOTALS = "SELECT count(*), sum(total_amount) FROM orders "
+            + "WHERE order_date >= ? AND order_date < ?";
+
+    @Param({"50000000"})
+    long rows;
+
+    private EmbeddedPostgres postgres;
+    private Layout flat;
+    private Layout partitioned;
+    private long users;
+    private Timestamp recentSince;
+    private Timestamp lastMonthStart;
+    private Timestamp lastMonthEnd;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        Path dataDirectory = Path.of("target", "order-partitions", "rows-" + rows).toAbsolutePath();
+        Files.createDirectories(dataDirectory);
+        postgres = EmbeddedPostgres.builder()
+                .setDataDirectory(dataDirectory)
+                .setCleanDataDirectory(false)
+                .setServerConfig("shared_buffers", "512MB")
+                .setServerConfig("maintenance_work_mem", "512MB")
+                .setServerConfig("max_wal_size", "8GB")
+                .setServerConfig("synchronous_commit", "off")
+                .start();
+        users = Math.max(1, rows / ORDERS_PER_USER);
+        String url = postgres.getJdbcUrl("postgres", "postgres");
+
+        if (!isLoaded(url)) {
+            load(url);
+        }
+
+        flat = new Layout(url + "&currentSchema=flat,public");
+        partitioned = new Layout(url + "&currentSchema=part,public");
+
+        LocalDateTime now = LocalDateTime.now();
+        recentSince = Timestamp.valueOf(now.minusDays(30));
+        LocalDate thisMonth = now.toLocalDate().withDayOfMonth(1);
+        lastMonthStart = Timestamp.valueOf(thisMonth.minusMonths(1).atStartOfDay());
+        lastMonthEnd = Timestamp.valueOf(thisMonth.atStartOfDay());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        flat.close();
+        partitioned.close();
+        postgres.close();
+    }
+
+    private static boolean isLoaded(String url) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(url);
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT to_regclass('public.dataset_loaded') IS NOT NULL")) {
+            return resultSet.next() && resultSet.getBoolean(1);
+        }
+    }
+
+    private void load(String url) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(url);
+             Statement statement = connection.createStatement()) {
+            // Leftovers of a load that was interrupted
+            statement.execute("DROP SCHEMA IF EXISTS flat, part CASCADE");
+            statement.execute("DROP TABLE IF EXISTS users, products CASCADE");
+            statement.execute("CREATE TABLE users (id bigint PRIMARY KEY)");
+            statement.execute("CREATE TABLE products (id bigint PRIMARY KEY)");
+            statement.execute("INSERT INTO users SELECT generate_series(1, " + users + ")");
+            statement.execute("CREATE SCHEMA flat");
+            statement.execute("CREATE SCHEMA part");
+            statement.execute("SET search_path = flat, public");
+            createLegacySchema(statement);
+            loadOrders(statement);
+            // The schema ddl-auto created before partitioning, plus db/orders-archive.sql
+            statement.execute("ALTER TABLE orders ADD PRIMARY KEY (id)");
+            statement.execute("CREATE INDEX idx_orders_user_order_date ON orders (user_id, order_date DESC)");
+            statement.execute("CREATE INDEX idx_orders_active_order_date ON orders (order_date DESC) WHERE archived = false");
+
+            statement.execute("SET search_path = part, public");
+            createLegacySchema(statement);
+            statement.execute("INSERT INTO orders SELECT * FROM flat.orders");
+        }
+
+        migrate(url + "&currentSchema=part,public");
+
+        try (Connection connection = DriverManager.getConnection(url);
+             Statement statement = connection.createStatement()) {
+            statement.execute("VACUUM ANALYZE");
+            statement.execute("CREATE TABLE public.dataset_loaded ()");
+        }
+    }
+
+    private static void createLegacySchema(Statement statement) throws SQLException {
+        statement.execute("CREATE TABLE orders (id bigint GENERATED BY DEFAULT AS IDENTITY, "
+                + "user_id bigint NOT NULL REFERENCES users (id), order_date timestamp(6) NOT NULL, "
+                + "total_amount float(53) NOT NULL, status varchar(255) NOT NULL, "
+                + "shipping_address varchar(500) NOT NULL, payment_method varchar(255), "
+                + "created_at timestamp(6), updated_at timestamp(6), archived boolean NOT NULL)");
+        statement.execute("CREATE TABLE order_items (id bigint PRIMARY KEY, order_id bigint NOT NULL, "
+                + "product_id bigint NOT NULL REFERENCES products (id), quantity integer NOT NULL, "
+                + "price float(53) NOT NULL)");
+    }
+
+    // Ids rise with order_date, as they do in production; customers are spread evenly over time
+    private void loadOrders(Statement statement) throws SQLException {
+        statement.execute("INSERT INTO orders (id, user_id, order_date, total_amount, status, shipping_address, "
+                + "payment_method, created_at, updated_at, archived) "
+                + "SELECT g, 1 + (g * 7919) % " + users + ", t.order_date, 10 + g % 490, "
+                + "(ARRAY['PENDING','CONFIRMED','PROCESSING','SHIPPED','DELIVERED','CANCELLED'])[1 + g % 6], "
+                + "'Street ' || g % 1000, 'CARD', t.order_date, t.order_date, "
+                + "t.order_date < localtimestamp - interval '90 days' "
+                + "FROM generate_series(1::bigint, " + rows + ") g "
+                + "CROSS JOIN LATERAL (SELECT localtimestamp - ((" + rows + " - g)::float8 / " + rows + ") "
+                + "* interval '" + HISTORY_DAYS + " days' AS order_date) t");
+        statement.execute("ALTER TABLE orders ALTER COLUMN id RESTART WITH " + (rows + 1));
+    }
+
+    private static void migrate(String url) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(url);
+        OrderPartitionManager manager = new OrderPartitionManager();
+        ReflectionTestUtils.setField(manager, "jdbcTemplate", new JdbcTemplate(dataSource));
+        ReflectionTestUtils.setField(manager, "dataSource", dataSource);
+        ReflectionTestUtils.setField(manager, "transactionTemplate",
+                new TransactionTemplate(new DataSourceTransactionManager(dataSource)));
+        ReflectionTestUtils.setField(manager, "enabled", true);
+        ReflectionTestUtils.setField(manager, "monthsAhead", 1);
+        ReflectionTestUtils.setField(manager, "migrateLegacy", true);
+        manager.initialize();
+    }
+
+    private long randomUser() {
+        return 1 + ThreadLocalRandom.current().nextLong(users);
+    }
+
+    @Benchmark
+    public void flatRecentForUser(Blackhole blackhole) throws SQLException {
+        flat.recentForUser(randomUser(), recentSince, blackhole);
+    }
+
+    @Benchmark
+    public void partitionedRecentForUser(Blackhole blackhole) throws SQLException {
+        partitioned.recentForUser(randomUser(), recentSince, blackhole);
+    }
+
+    // No date bound, so the partitioned layout has to probe every partition
+    @Benchmark
+    public void flatHistoryForUser(Blackhole blackhole) throws SQLException {
+        flat.historyForUser(randomUser(), blackhole);
+    }
+
+    @Benchmark
+    public void partitionedHistoryForUser(Blackhole blackhole) throws SQLException {
+        partitioned.historyForUser(randomUser(), blackhole);
+    }
+
+    @Benchmark
+    public void flatActiveDashboard(Blackhole blackhole) throws SQLException {
+        flat.activeDashboard(blackhole);
+    }
+
+    @Benchmark
+    public void partitionedActiveDashboard(Blackhole blackhole) throws SQLException {
+        partitioned.activeDashboard(blackhole);
+    }
+
+    @Benchmark
+    public void flatLastMonthTotals(Blackhole blackhole) throws SQLException {
+        flat.monthTotals(lastMonthStart, lastMonthEnd, blackhole);
+    }
+
+    @Benchmark
+    public void partitionedLastMonthTotals(Blackhole blackhole) throws SQLException {
+        partitioned.monthTotals(lastMonthStart, lastMonthEnd, blackhole);
+    }
+
+    // One connection per layout with its statements prepared once, as a pooled connection would have them
+    private static final class Layout implements AutoCloseable {
+
+        private final Connection connection;
+        private final PreparedStatement recentForUser;
+        private final PreparedStatement historyForUser;
+        private final PreparedStatement activeDashboard;
+        private final PreparedStatement monthTotals;
+
+        Layout(String url) throws SQLException {
+            connection = DriverManager.getConnection(url);
+            recentForUser = connection.prepareStatement(RECENT_FOR_USER);
+            historyForUser = connection.prepareStatement(HISTORY_FOR_USER);
+            activeDashboard = connection.prepareStatement(ACTIVE_DASHBOARD);
+            monthTotals = connection.prepareStatement(MONTH_TOTALS);
+        }
+
+        void recentForUser(long userId, Timestamp since, Blackhole blackhole) throws SQLException {
+            recentForUser.setLong(1, userId);
+            recentForUser.setTimestamp(2, since);
+            consume(recentForUser, blackhole);
+        }
+
+        void historyForUser(long userId, Blackhole blackhole) throws SQLException {
+            historyForUser.setLong(1, userId);
+            consume(historyForUser, blackhole);
+        }
+
+        void activeDashboard(Blackhole blackhole) throws SQLException {
+            consume(activeDashboard, blackhole);
+        }
+
+        void monthTotals(Timestamp from, Timestamp to, Blackhole blackhole) throws SQLException {
+            monthTotals.setTimestamp(1, from);
+            monthTotals.setTimestamp(2, to);
+            consume(monthTotals, blackhole);
+        }
+
+        private static void consume(PreparedStatement statement, Blackhole blackhole) throws SQLException {
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    blackhole.consume(resultSet.getLong(1));
+                }
+            }
+        }
+
+        @Override
+        public void close() throws SQLException {
+            connection.close();
+        }
+    }
+}
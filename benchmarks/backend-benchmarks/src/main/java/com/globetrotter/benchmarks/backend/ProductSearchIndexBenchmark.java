@@ -0,0 +1,117 @@
+package com.globetrotter.benchmarks.backend;
+
+import com.globetrotter.globetrotterbackend.model.Category;
+import com.globetrotter.globetrotterbackend.model.Product;
+import com.globetrotter.globetrotterbackend.search.ProductSearchIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What one keystroke in the storefront search box costs the in-memory index. The catalog
+ * is generated: names of three words from 2,000, descriptions of eight words from 8,000,
+ * and 20 categories, so common words and short prefixes match many products as they would
+ * in a real catalog. {@code typed} is how much of a name word the shopper has typed so far;
+ * {@code word+} adds a second, complete word.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class ProductSearchIndexBenchmark {
+
+    private static final String SYLLABLES = "ba be bi bo bu da de di do du ka ke ki ko ku la le li lo lu ma me mi mo mu "
+            + "na ne ni no nu ra re ri ro ru sa se si so su ta te ti to tu va ve vi vo vu za ze zi zo zu";
+
+    @Param({"500000"})
+    private int products;
+
+    @Param({"1", "2", "3", "4", "word", "word+"})
+    private String typed;
+
+    private ProductSearchIndex index;
+    private String query;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        String[] syllables = SYLLABLES.split(" ");
+        List<String> nameWords = words(random, syllables, 2000);
+        List<String> descriptionWords = words(random, syllables, 8000);
+        List<Category> categories = new ArrayList<>();
+        for (long c = 1; c <= 20; c++) {
+            Category category = new Category();
+            category.setId(c);
+            category.setName(nameWords.get(random.nextInt(nameWords.size())));
+            categories.add(category);
+        }
+
+        index = new ProductSearchIndex();
+        ReflectionTestUtils.setField(index, "enabled", true);
+        for (long id = 1; id <= products; id++) {
+            Product product = new Product();
+            product.setId(id);
+            product.setName(pick(random, nameWords, 3));
+            product.setDescription(pick(random, descriptionWords, 8));
+            product.setCategory(categories.get(random.nextInt(categories.size())));
+            index.index(product);
+        }
+
+        // A word from the middle of the frequency range, so it neither misses nor matches everything
+        String word = nameWords.get(nameWords.size() / 2);
+        String other = nameWords.get(nameWords.size() / 3);
+        query = switch (typed) {
+            case "word" -> word;
+            case "word+" -> other + " " + word;
+            default -> word.substring(0, Integer.parseInt(typed));
+        };
+    }
+
+    @Benchmark
+    public List<Long> firstPage() {
+        return index.search(query, 0, 20);
+    }
+
+    @Benchmark
+    public List<Long> fifthPage() {
+        return index.search(query, 80, 20);
+    }
+
+    private static List<String> words(Random random, String[] syllables, int count) {
+        List<String> words = new ArrayList<>();
+        while (words.size() < count) {
+            StringBuilder word = new StringBuilder();
+            for (int s = 2 + random.nextInt(3); s > 0; s--) {
+                word.append(syllables[random.nextInt(syllables.length)]);
+            }
+            if (!words.contains(word.toString())) {
+                words.add(word.toString());
+            }
+        }
+        return words;
+    }
+
+    private static String pick(Random random, List<String> words, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            text.append(i == 0 ? "" : " ").append(words.get(random.nextInt(words.size())));
+        }
+        return text.toString();
+    }
+}
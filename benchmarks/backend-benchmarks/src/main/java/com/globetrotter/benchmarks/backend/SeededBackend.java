@@ -0,0 +1,145 @@
+package com.globetrotter.benchmarks.backend;
+
+import com.globetrotter.globetrotterbackend.GlobetrotterBackendApplication;
+import com.globetrotter.globetrotterbackend.model.Category;
+import com.globetrotter.globetrotterbackend.model.Product;
+import com.globetrotter.globetrotterbackend.model.User;
+import com.globetrotter.globetrotterbackend.repository.CategoryRepository;
+import com.globetrotter.globetrotterbackend.repository.ProductRepository;
+import com.globetrotter.globetrotterbackend.repository.UserRepository;
+import com.globetrotter.globetrotterbackend.security.GatewaySignature;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * The backend running against an embedded PostgreSQL with a seeded catalog and
+ * users. Requests go over HTTP with the gateway's identity headers, so they take
+ * the same path as production traffic: security filters, controllers, JPA and
+ * serialization.
+ */
+final class SeededBackend implements AutoCloseable {
+
+    static final int CATEGORIES = 10;
+    static final int PRODUCTS_PER_CATEGORY = 200;
+    static final int USERS = 64;
+
+    // Large enough that checkout benchmarks never run a product out of stock
+    private static final int STOCK = 1_000_000_000;
+
+    private final EmbeddedPostgres postgres;
+    private final ConfigurableApplicationContext context;
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final String baseUrl;
+    private final GatewaySignature signature;
+
+    final List<Long> categoryIds = new ArrayList<>();
+    final List<Long> productIds = new ArrayList<>();
+    final List<User> users = new ArrayList<>();
+
+    // Extra args are Spring properties in --name=value form and override the defaults below
+    SeededBackend(String... extraArgs) throws IOException {
+        postgres = EmbeddedPostgres.builder().start();
+        String[] args = Stream.concat(Stream.of(
+                "--server.port=0",
+                "--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+                "--spring.datasource.username=postgres",
+                "--spring.datasource.password=postgres",
+                "--spring.jpa.hibernate.ddl-auto=create",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN"), Stream.of(extraArgs)).toArray(String[]::new);
+        context = SpringApplication.run(GlobetrotterBackendApplication.class, args);
+        baseUrl = "http://127.0.0.1:" + context.getEnvironment().getProperty("local.server.port");
+        signature = context.getBean(GatewaySignature.class);
+        seed();
+    }
+
+    private void seed() {
+        CategoryRepository categoryRepository = context.getBean(CategoryRepository.class);
+        ProductRepository productRepository = context.getBean(ProductRepository.class);
+        UserRepository userRepository = context.getBean(UserRepository.class);
+
+        for (int c = 0; c < CATEGORIES; c++) {
+            Category category = new Category();
+            category.setName("Category " + c);
+            category.setDescription("Seeded category " + c);
+            category = categoryRepository.save(category);
+            categoryIds.add(category.getId());
+
+            List<Product> batch = new ArrayList<>();
+            for (int p = 0; p < PRODUCTS_PER_CATEGORY; p++) {
+                Product product = new Product();
+                product.setName("Product " + c + "-" + p);
+                product.setDescription("Seeded product " + p + " in category " + c);
+                product.setPrice(5.0 + (p % 100));
+                product.setStockQuantity(STOCK);
+                product.setCategory(category);
+                batch.add(product);
+            }
+            productRepository.saveAll(batch).forEach(product -> productIds.add(product.getId()));
+        }
+
+        for (int u = 0; u < USERS; u++) {
+            // The gateway path never checks the password, so no bcrypt hash is needed
+            users.add(userRepository.save(User.builder()
+                    .username("bench" + u)
+                    .email("bench" + u + "@example.com")
+                    .password("unused")
+                    .build()));
+        }
+    }
+
+    // JDBC statements Hibernate has prepared so far; needs hibernate.generate_statistics=true
+    long statementCount() {
+        Statistics statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+        if (!statistics.isStatisticsEnabled()) {
+            throw new IllegalStateException("Start the backend with --spring.jpa.properties.hibernate.generate_statistics=true");
+        }
+        return statistics.getPrepareStatementCount();
+    }
+
+    String get(String path) throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + path)).GET(), null);
+    }
+
+    String post(String path, String json, User user) throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json)), user);
+    }
+
+    private String send(HttpRequest.Builder builder, User user) throws IOException, InterruptedException {
+        if (user != null) {
+            String userId = String.valueOf(user.getId());
+            long issuedAt = System.currentTimeMillis() / 1000;
+            builder.header("X-Username", user.getUsername())
+                    .header("X-User-Id", userId)
+                    .header("X-User-Roles", "ROLE_CUSTOMER")
+                    .header(GatewaySignature.ISSUED_AT_HEADER, String.valueOf(issuedAt))
+                    .header(GatewaySignature.HEADER, signature.sign(user.getUsername(), userId, "ROLE_CUSTOMER", issuedAt));
+        }
+        HttpResponse<String> response = client.send(builder.build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() >= 400) {
+            throw new IllegalStateException(response.statusCode() + " from " + response.uri() + ": " + response.body());
+        }
+        return response.body();
+    }
+
+    @Override
+    public void close() throws IOException {
+        context.close();
+        postgres.close();
+    }
+}
@@ -0,0 +1,106 @@
+package com.globetrotter.benchmarks.gateway;
+
+import com.globetrotter.globetrottergateway.cache.ResponseCache;
+import com.globetrotter.globetrottergateway.compression.CompressedBodyCache;
+import com.globetrotter.globetrottergateway.compression.CompressionProperties;
+import com.globetrotter.globetrottergateway.compression.GzipEncoder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CPU time to gzip a catalog page at different deflate levels, whole and in the 8 KB
+ * pieces a streamed backend response arrives in, against a hit in the precompressed
+ * cache. The bytes each level saves are printed once per trial, next to the timings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompressionBenchmark {
+
+    private static final int PIECE_SIZE = 8192;
+
+    @Param({"1", "6", "9"})
+    public int level;
+
+    // Products on the page: a category listing and the full catalog
+    @Param({"50", "500"})
+    public int products;
+
+    private byte[] body;
+    private String etag;
+    private CompressedBodyCache cache;
+
+    @Setup
+    public void setUp() {
+        body = catalog(products);
+        etag = ResponseCache.etag(body);
+
+        CompressionProperties properties = new CompressionProperties();
+        properties.setLevel(level);
+        cache = new CompressedBodyCache(properties, new SimpleMeterRegistry());
+        byte[] gzipped = cache.gzip(etag, body);
+
+        System.out.printf("%nlevel %d, %d products: %d -> %d bytes, %.1f%% saved%n", level, products,
+                body.length, gzipped.length, 100.0 * (body.length - gzipped.length) / body.length);
+    }
+
+    @Benchmark
+    public byte[] whole() {
+        return GzipEncoder.gzip(body, level);
+    }
+
+    @Benchmark
+    public void streamed(Blackhole blackhole) {
+        GzipEncoder encoder = new GzipEncoder(level);
+        try {
+            for (int from = 0; from < body.length; from += PIECE_SIZE) {
+                blackhole.consume(encoder.encode(Arrays.copyOfRange(body, from, Math.min(from + PIECE_SIZE, body.length))));
+            }
+            blackhole.consume(encoder.finish());
+        } finally {
+            encoder.close();
+        }
+    }
+
+    @Benchmark
+    public byte[] precompressed() {
+        return cache.gzip(etag, body);
+    }
+
+    private static byte[] catalog(int products) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 1; i <= products; i++) {
+            if (i > 1) {
+                json.append(',');
+            }
+            json.append("{\"id\":").append(i)
+                    .append(",\"name\":\"Product ").append(i)
+                    .append("\",\"description\":\"A sturdy, lightweight item for frequent travellers, model ").append(i)
+                    .append("\",\"price\":").append(19.99 + i)
+                    .append(",\"stockQuantity\":").append(100 + i % 17)
+                    .append(",\"imageUrl\":\"https://example.com/images/").append(i)
+                    .append(".jpg\",\"rating\":").append(3.5 + (i % 3) * 0.5)
+                    .append(",\"reviewsCount\":").append(i * 7 % 130)
+                    .append(",\"category\":{\"id\":").append(1 + i % 6).append(",\"name\":\"Travel Gear\"}}");
+        }
+        return json.append(']').toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,101 @@
+package com.globetrotter.benchmarks.gateway;
+
+import com.globetrotter.globetrottergateway.util.JwtClaims;
+import com.globetrotter.globetrottergateway.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token handling per protected request: the cached single parse against a fresh
+ * signature check, and the old three-parse path the filter used to take.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtUtilBenchmark {
+
+    private static final String SECRET = "mySecretKeyForGlobetrotterEcommerceApplicationVeryLongAndSecure2024";
+    private static final int DISTINCT_TOKENS = 1024;
+
+    private JwtUtil cachedUtil;
+    private JwtUtil uncachedUtil;
+    private String token;
+    private String[] tokens;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        cachedUtil = newJwtUtil(10_000);
+        // A one-entry cache rotated over many tokens always misses, i.e. verifies every time
+        uncachedUtil = newJwtUtil(1);
+
+        SecretKey key = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+        tokens = new String[DISTINCT_TOKENS];
+        for (int i = 0; i < DISTINCT_TOKENS; i++) {
+            tokens[i] = Jwts.builder()
+                    .subject("user" + i)
+                    .claim("roles", List.of("CUSTOMER"))
+                    .claim("userId", (long) i)
+                    .issuedAt(new Date())
+                    .expiration(new Date(System.currentTimeMillis() + Duration.ofHours(1).toMillis()))
+                    .signWith(key)
+                    .compact();
+        }
+        token = tokens[0];
+    }
+
+    @Benchmark
+    public JwtClaims parseClaimsCached() {
+        return cachedUtil.parseClaims(token);
+    }
+
+    @Benchmark
+    public JwtClaims parseClaimsVerified() {
+        next = (next + 1) & (DISTINCT_TOKENS - 1);
+        return uncachedUtil.parseClaims(tokens[next]);
+    }
+
+    // What the filter did before claims were cached: three parsers, three key derivations
+    @Benchmark
+    public void legacyThreeParses(Blackhole blackhole) {
+        for (int i = 0; i < 3; i++) {
+            SecretKey key = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+            Claims claims = Jwts.parser().verifyWith(key).build().parseSignedClaims(token).getPayload();
+            blackhole.consume(claims);
+        }
+    }
+
+    private static JwtUtil newJwtUtil(long cacheMaxSize) {
+        JwtUtil util = new JwtUtil();
+        ReflectionTestUtils.setField(util, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(util, "cacheMaxSize", cacheMaxSize);
+        ReflectionTestUtils.setField(util, "cacheMaxTtl", Duration.ofHours(1));
+        ReflectionTestUtils.setField(util, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.invokeMethod(util, "init");
+        return util;
+    }
+}
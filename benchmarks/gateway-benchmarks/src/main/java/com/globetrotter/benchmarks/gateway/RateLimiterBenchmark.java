@@ -0,0 +1,86 @@
+package com.globetrotter.benchmarks.gateway;
+
+import com.globetrotter.globetrottergateway.filter.RateLimitFilter;
+import com.globetrotter.globetrottergateway.ratelimit.RateLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limiter throughput with eight threads hammering one hot key, spreading over many
+ * keys (the rotating-IP case), and through the full filter with a mock exchange.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class RateLimiterBenchmark {
+
+    private static final Duration MINUTE = Duration.ofMinutes(1);
+
+    private RateLimiter limiter;
+    private GatewayFilter filter;
+
+    @Setup
+    public void setUp() {
+        limiter = new RateLimiter(100_000, Duration.ofMinutes(2));
+
+        RateLimitFilter factory = new RateLimitFilter();
+        ReflectionTestUtils.setField(factory, "rateLimiter", limiter);
+        ReflectionTestUtils.setField(factory, "meterRegistry", new SimpleMeterRegistry());
+        RateLimitFilter.Config config = new RateLimitFilter.Config();
+        config.setRequestsPerMinute(Integer.MAX_VALUE);
+        filter = factory.apply(config);
+    }
+
+    @Benchmark
+    public RateLimiter.Decision sharedKey() {
+        return limiter.tryAcquire("shared", Integer.MAX_VALUE, MINUTE);
+    }
+
+    @Benchmark
+    public RateLimiter.Decision rotatingKeys() {
+        int ip = ThreadLocalRandom.current().nextInt(1_000_000);
+        return limiter.tryAcquire("ip:" + ip, 100, MINUTE);
+    }
+
+    // Building a mock exchange costs far more than the filter, so each thread reuses one
+    @State(Scope.Thread)
+    public static class Exchange {
+
+        MockServerWebExchange exchange;
+
+        @Setup
+        public void setUp() {
+            exchange = MockServerWebExchange.from(
+                    MockServerHttpRequest.get("/api/products").header("X-Forwarded-For", "10.0.0.1"));
+        }
+    }
+
+    @Benchmark
+    public Void filter(Exchange state) {
+        state.exchange.getResponse().getHeaders().clear();
+        return filter.filter(state.exchange, e -> Mono.empty()).block();
+    }
+}
@@ -0,0 +1,98 @@
+package com.globetrotter.benchmarks.gateway;
+
+import com.globetrotter.globetrottergateway.upstream.UpstreamClients;
+import com.globetrotter.globetrottergateway.upstream.UpstreamProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.config.HttpClientSslConfigurer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.server.HttpServer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to push a burst of 64 concurrent requests through one client to a local stub
+ * backend that answers after 5 ms: Reactor Netty's default client, the tuned HTTP/1.1
+ * profile, and an h2c profile multiplexing over a handful of connections.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UpstreamPoolBenchmark {
+
+    private static final int BURST = 64;
+
+    @Param({"stock", "tuned", "h2c"})
+    public String profile;
+
+    private DisposableServer backend;
+    private UpstreamClients clients;
+    private HttpClient client;
+    private String uri;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        backend = HttpServer.create()
+                .port(0)
+                .protocol(HttpProtocol.HTTP11, HttpProtocol.H2C)
+                .handle((request, response) -> response.sendString(
+                        Mono.just("[{\"id\":1,\"name\":\"Lisbon\"}]").delayElement(Duration.ofMillis(5))))
+                .bindNow();
+        uri = "http://127.0.0.1:" + backend.port() + "/api/categories";
+
+        if (profile.equals("stock")) {
+            client = HttpClient.create();
+            return;
+        }
+        UpstreamProperties.Profile settings = new UpstreamProperties.Profile();
+        if (profile.equals("h2c")) {
+            settings.setH2c(true);
+            settings.setMaxConnections(4);
+        }
+        UpstreamProperties properties = new UpstreamProperties();
+        properties.getProfiles().put(profile, settings);
+        HttpClientProperties httpClientProperties = new HttpClientProperties();
+        ServerProperties serverProperties = new ServerProperties();
+        clients = new UpstreamClients(properties, httpClientProperties, serverProperties,
+                new HttpClientSslConfigurer(httpClientProperties.getSsl(), serverProperties), List.of());
+        client = clients.get(profile);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (clients != null) {
+            clients.destroy();
+        }
+        backend.disposeNow();
+    }
+
+    @Benchmark
+    public List<String> burst() {
+        return Flux.range(0, BURST)
+                .flatMap(i -> client.get().uri(uri).responseContent().aggregate().asString(), BURST)
+                .collectList()
+                .block(Duration.ofSeconds(10));
+    }
+}
@@ -101,16 +101,26 @@ function AdminDashboard() {
     }
   };
 
-  const handleEditClick = (product) => {
-    setEditingProduct(product.id);
+  const handleEditClick = async (product) => {
+    // The listing may be cached; the edit compares against the stock read here
+    let current;
+    try {
+      current = await productAPI.getForEdit(product.id);
+    } catch (error) {
+      console.error('Load product error:', error);
+      toast.error('Failed to load product');
+      return;
+    }
+    setEditingProduct(current.id);
     setEditProduct({
-      id: product.id,
-      name: product.name,
-      description: product.description,
-      price: product.price,
-      stockQuantity: product.stockQuantity,
-      categoryId: product.category?.id || '',
-      imageUrl: product.imageUrl
+      id: current.id,
+      name: current.name,
+      description: current.description,
+      price: current.price,
+      stockQuantity: current.stockQuantity,
+      expectedStockQuantity: current.stockQuantity,
+      categoryId: current.category?.id || '',
+      imageUrl: current.imageUrl
     });
     setShowAddProduct(false);
   };
@@ -123,6 +133,7 @@ function AdminDashboard() {
         description: editProduct.description,
         price: parseFloat(editProduct.price),
         stockQuantity: parseInt(editProduct.stockQuantity),
+        expectedStockQuantity: editProduct.expectedStockQuantity,
         categoryId: parseInt(editProduct.categoryId),
         imageUrl: editProduct.imageUrl
       };
@@ -133,7 +144,18 @@ function AdminDashboard() {
       fetchData();
     } catch (error) {
       console.error('Update product error:', error);
-      toast.error('Failed to update product');
+      if (error.response?.status === 409) {
+        try {
+          const current = await productAPI.getForEdit(editProduct.id);
+          setEditProduct({ ...editProduct, stockQuantity: current.stockQuantity, expectedStockQuantity: current.stockQuantity });
+          toast.error(`Stock changed since you started editing; it is now ${current.stockQuantity}. Check it and save again.`);
+        } catch (reloadError) {
+          toast.error('Stock changed since you started editing. Reload and try again.');
+        }
+        fetchData();
+      } else {
+        toast.error('Failed to update product');
+      }
     }
   };
 
@@ -40,8 +40,9 @@ function AdminOrders() {
   const handleClearOrders = async () => {
     if (window.confirm('Are you sure you want to delete ALL orders? This action cannot be undone!')) {
       try {
-        await orderAPI.clearAllOrders();
-        toast.success('All orders cleared successfully!');
+        const job = await orderAPI.clearAllOrders();
+        // Archiving runs in the background; the auto-refresh picks up the result
+        toast.success(`Archiving orders in the background (job ${job.id.slice(0, 8)})`);
         fetchAllOrders(); // Refresh the list
       } catch (error) {
         console.error('Failed to clear orders:', error);
@@ -38,6 +38,8 @@ export const productAPI = {
   create: (productData) => api.post('/products', productData).then(res => res.data),
   update: (id, productData) => api.put(`/products/${id}`, productData).then(res => res.data),
   delete: (id) => api.delete(`/products/${id}`).then(res => res.data),
+  // Uncached read for the admin editor, so its stock is current
+  getForEdit: (id) => api.get(`/admin/products/${id}`).then(res => res.data),
   addToCart: (productId, quantity) => 
     api.post('/cart/add', { productId, quantity }).then(res => res.data),
 };
@@ -71,6 +73,7 @@ export const orderAPI = {
   getAllOrdersAdmin: () => api.get('/admin/orders').then(res => res.data),
   updateOrderStatus: (orderId, status) => api.put(`/admin/orders/${orderId}/status?status=${status}`).then(res => res.data),
   clearAllOrders: () => api.delete('/admin/orders/clear').then(res => res.data),  // ← ADD THIS LINE
+  getArchiveJob: (jobId) => api.get(`/admin/orders/archive-jobs/${jobId}`).then(res => res.data),
 };
 
 // Review API
@@ -0,0 +1,23 @@
+package com.globetrotter.globetrottergateway.accesslog;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * One exchange as captured on the event loop. Only raw values are stored here;
+ * timestamp formatting and line assembly happen on the writer thread.
+ */
+@Getter
+@AllArgsConstructor
+public final class AccessLogEntry {
+
+    private final long timestampMillis;
+    private final String method;
+    private final String path;
+    private final String routeId;
+    private final int status;
+    private final long durationMillis;
+    private final String username;
+    private final String clientIp;
+    private final String userAgent;
+}
@@ -0,0 +1,142 @@
+package com.globetrotter.globetrottergateway.accesslog;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hands access log entries from the event loop to a single background thread
+ * that formats them as key=value lines on the {@code gateway.access} logger.
+ * Successful (2xx) exchanges are sampled; everything else is always recorded.
+ */
+@Component
+public class AccessLogWriter {
+
+    private static final Logger accessLog = LoggerFactory.getLogger("gateway.access");
+    private static final Logger log = LoggerFactory.getLogger(AccessLogWriter.class);
+
+    private static final long IDLE_PARK_NANOS = 5_000_000L;
+
+    @Value("${gateway.access-log.buffer-size:8192}")
+    private int bufferSize;
+
+    @Value("${gateway.access-log.success-sample-rate:1.0}")
+    private double successSampleRate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private AccessLogRingBuffer<AccessLogEntry> buffer;
+    private Counter dropped;
+    private Thread writer;
+    private volatile boolean running;
+
+    @PostConstruct
+    void start() {
+        buffer = new AccessLogRingBuffer<>(bufferSize);
+        dropped = meterRegistry.counter("gateway.accesslog.dropped");
+        Gauge.builder("gateway.accesslog.pending", buffer, AccessLogRingBuffer::size)
+                .register(meterRegistry);
+
+        running = true;
+        writer = new Thread(this::drainLoop, "access-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(writer);
+        writer.join(2_000);
+    }
+
+    /**
+     * Called on the event loop; never blocks. Returns false if the entry was
+     * sampled out or dropped because the buffer is full.
+     */
+    public boolean submit(AccessLogEntry entry) {
+        if (isSuccess(entry.getStatus()) && successSampleRate < 1.0
+                && ThreadLocalRandom.current().nextDouble() >= successSampleRate) {
+            return false;
+        }
+        if (!buffer.offer(entry)) {
+            dropped.increment();
+            return false;
+        }
+        return true;
+    }
+
+    private void drainLoop() {
+        StringBuilder line = new StringBuilder(256);
+        while (running || buffer.size() > 0) {
+            AccessLogEntry entry = buffer.poll();
+            if (entry == null) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+            try {
+                line.setLength(0);
+                format(entry, line);
+                accessLog.info(line.toString());
+            } catch (Exception e) {
+                log.warn("Failed to write access log entry: {}", e.getMessage());
+            }
+        }
+    }
+
+    static void format(AccessLogEntry entry, StringBuilder line) {
+        line.append("ts=").append(Instant.ofEpochMilli(entry.getTimestampMillis()))
+                .append(" method=").append(entry.getMethod());
+        appendValue(line, "path", entry.getPath());
+        appendValue(line, "route", entry.getRouteId());
+        line.append(" status=").append(entry.getStatus())
+                .append(" duration_ms=").append(entry.getDurationMillis());
+        appendValue(line, "user", entry.getUsername());
+        appendValue(line, "ip", entry.getClientIp());
+        appendValue(line, "ua", entry.getUserAgent());
+    }
+
+    // Values that could contain spaces or quotes are quoted so each line stays parseable
+    private static void appendValue(StringBuilder line, String key, String value) {
+        line.append(' ').append(key).append('=');
+        if (value == null || value.isEmpty()) {
+            line.append('-');
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ' ' || c == '"' || c == '=' || c < 0x20;
+        }
+        if (!quote) {
+            line.append(value);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                line.append('\\').append(c);
+            } else if (c >= 0x20) {
+                line.append(c);
+            }
+        }
+        line.append('"');
+    }
+
+    private static boolean isSuccess(int status) {
+        return status >= 200 && status < 300;
+    }
+}
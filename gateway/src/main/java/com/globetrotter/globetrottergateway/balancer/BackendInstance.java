@@ -0,0 +1,143 @@
+package com.globetrotter.globetrottergateway.balancer;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Timer;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One backend instance: its health, requests in flight and a peak-sensitive moving
+ * average of its latency.
+ * <p>
+ * The average jumps straight to any sample above it and decays towards lower ones,
+ * so one slow response is felt at once and forgotten over {@code decayTime}. It also
+ * decays while the instance gets no traffic, so a slow instance is tried again later.
+ */
+public class BackendInstance {
+
+    private final URI uri;
+    private final String id;
+    private final double decayNanos;
+    private final long penaltyNanos;
+
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private volatile boolean healthy = true;
+
+    // Guarded by this
+    private double ewmaNanos;
+    private long stampNanos = System.nanoTime();
+    private int passes;
+    private int failures;
+
+    // Registered by BackendRegistry, removed with the instance
+    final List<Meter> meters = new ArrayList<>();
+    Timer succeeded;
+    Timer failed;
+
+    BackendInstance(URI uri, long decayNanos, long penaltyNanos) {
+        this.uri = uri;
+        this.id = uri.getAuthority();
+        this.decayNanos = decayNanos;
+        this.penaltyNanos = penaltyNanos;
+    }
+
+    public URI getUri() {
+        return uri;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public boolean isHealthy() {
+        return healthy;
+    }
+
+    public int getOutstanding() {
+        return outstanding.get();
+    }
+
+    public synchronized double getLatencyNanos() {
+        decay(System.nanoTime(), 0);
+        return ewmaNanos;
+    }
+
+    /**
+     * Expected wait for one more request: the latency average scaled by the requests
+     * already in flight. An instance with no samples yet costs nothing while idle, so
+     * new instances are tried straight away, but is penalised once it is busy.
+     */
+    synchronized double cost() {
+        decay(System.nanoTime(), 0);
+        int inFlight = outstanding.get();
+        if (ewmaNanos == 0 && inFlight > 0) {
+            return penaltyNanos + inFlight;
+        }
+        return ewmaNanos * (inFlight + 1);
+    }
+
+    long begin() {
+        outstanding.incrementAndGet();
+        return System.nanoTime();
+    }
+
+    void end(long startNanos, boolean failure) {
+        long now = System.nanoTime();
+        outstanding.decrementAndGet();
+        long rtt = now - startNanos;
+        synchronized (this) {
+            decay(now, failure ? Math.max(rtt, penaltyNanos) : rtt);
+        }
+        Timer timer = failure ? failed : succeeded;
+        if (timer != null) {
+            timer.record(rtt, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // Request cancelled by the client: free the slot without a latency sample
+    void abandon() {
+        outstanding.decrementAndGet();
+    }
+
+    private void decay(long now, double sampleNanos) {
+        double elapsed = Math.max(now - stampNanos, 0);
+        stampNanos = now;
+        if (sampleNanos > ewmaNanos) {
+            ewmaNanos = sampleNanos;
+        } else {
+            double weight = Math.exp(-elapsed / decayNanos);
+            ewmaNanos = ewmaNanos * weight + sampleNanos * (1 - weight);
+        }
+    }
+
+    /**
+     * Records one health check result and returns true if it flipped the instance's state.
+     */
+    synchronized boolean checked(boolean passed, int healthyThreshold, int unhealthyThreshold) {
+        if (passed) {
+            failures = 0;
+            passes++;
+            if (!healthy && passes >= healthyThreshold) {
+                healthy = true;
+                return true;
+            }
+        } else {
+            passes = 0;
+            failures++;
+            if (healthy && failures >= unhealthyThreshold) {
+                healthy = false;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return uri.toString();
+    }
+}
@@ -0,0 +1,144 @@
+package com.globetrotter.globetrottergateway.balancer;
+
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.NotFoundException;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.addOriginalRequestUrl;
+
+/**
+ * Resolves {@code lb://backend} route URIs to one of the {@link BackendRegistry} instances.
+ * <p>
+ * Picks two instances at random and takes the one with the lower expected wait (latency
+ * average times requests in flight), which avoids herding every request onto whichever
+ * instance looked best a moment ago. Routes with {@code lb-affinity: user} metadata send
+ * each user to the same instance instead, moving only when it becomes unhealthy; the
+ * cart is held in the memory of the instance that serves it.
+ * <p>
+ * Latency is measured until the response headers arrive. 5xx responses and connection
+ * errors count as failures.
+ */
+public class BackendLoadBalancerFilter implements GlobalFilter, Ordered {
+
+    public static final String SCHEME = "lb";
+    public static final String SERVICE = "backend";
+    public static final String AFFINITY_METADATA = "lb-affinity";
+    public static final String USER_AFFINITY = "user";
+
+    private final BackendRegistry registry;
+
+    public BackendLoadBalancerFilter(BackendRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public int getOrder() {
+        // Ahead of the stock filter, which would otherwise reject lb:// without Spring Cloud LoadBalancer
+        return ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER - 1;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        URI url = exchange.getAttribute(GATEWAY_REQUEST_URL_ATTR);
+        if (url == null || !SCHEME.equals(url.getScheme()) || !SERVICE.equals(url.getHost())) {
+            return chain.filter(exchange);
+        }
+
+        BackendInstance instance = choose(exchange, registry.candidates());
+        if (instance == null) {
+            return Mono.error(NotFoundException.create(false, "No backend instances configured"));
+        }
+
+        addOriginalRequestUrl(exchange, url);
+        URI target = UriComponentsBuilder.fromUri(url)
+                .scheme(instance.getUri().getScheme())
+                .host(instance.getUri().getHost())
+                .port(instance.getUri().getPort())
+                .build(true)
+                .toUri();
+        exchange.getAttributes().put(GATEWAY_REQUEST_URL_ATTR, target);
+
+        long start = instance.begin();
+        return chain.filter(exchange).doFinally(signal -> {
+            if (signal == SignalType.CANCEL) {
+                instance.abandon();
+                return;
+            }
+            HttpStatusCode status = exchange.getResponse().getStatusCode();
+            boolean failed = signal == SignalType.ON_ERROR || (status != null && status.is5xxServerError());
+            instance.end(start, failed);
+        });
+    }
+
+    private BackendInstance choose(ServerWebExchange exchange, List<BackendInstance> candidates) {
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        if (route != null && USER_AFFINITY.equals(route.getMetadata().get(AFFINITY_METADATA))) {
+            String user = userOf(exchange.getRequest());
+            if (user != null) {
+                return chooseFor(user, candidates);
+            }
+        }
+        return choose(candidates);
+    }
+
+    // Set by JwtAuthenticationFilter, which runs earlier in the route's chain
+    private static String userOf(ServerHttpRequest request) {
+        String userId = request.getHeaders().getFirst("X-User-Id");
+        return userId != null ? userId : request.getHeaders().getFirst("X-Username");
+    }
+
+    static BackendInstance choose(List<BackendInstance> candidates) {
+        int size = candidates.size();
+        if (size <= 1) {
+            return size == 0 ? null : candidates.get(0);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(size);
+        int second = random.nextInt(size - 1);
+        if (second >= first) {
+            second++;
+        }
+        BackendInstance a = candidates.get(first);
+        BackendInstance b = candidates.get(second);
+        return a.cost() <= b.cost() ? a : b;
+    }
+
+    // Rendezvous hashing: removing an instance only moves the users that were on it
+    static BackendInstance chooseFor(String key, List<BackendInstance> candidates) {
+        BackendInstance best = null;
+        long bestScore = Long.MIN_VALUE;
+        for (BackendInstance candidate : candidates) {
+            long score = mix(key.hashCode() * 31L + candidate.getId().hashCode());
+            if (best == null || score > bestScore) {
+                best = candidate;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+
+    // Finalizer of MurmurHash3, so nearby inputs get unrelated scores
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb93e85e40e3bL;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,40 @@
+package com.globetrotter.globetrottergateway.balancer;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Backend instances behind {@code lb://backend} routes and how they are health checked
+ * and weighed.
+ */
+@Data
+@ConfigurationProperties(prefix = "gateway.backend")
+public class BackendProperties {
+
+    // Used when no instances file is set, or until it can first be read
+    private List<String> instances = new ArrayList<>(List.of("http://localhost:8080"));
+
+    // One base URL per line, # for comments; re-read whenever its modification time changes
+    private String instancesFile;
+
+    private String healthPath = "/actuator/health";
+
+    private Duration healthInterval = Duration.ofSeconds(5);
+
+    private Duration healthTimeout = Duration.ofSeconds(1);
+
+    // Consecutive failed checks before an instance is taken out, and passed checks before it is put back
+    private int unhealthyThreshold = 2;
+
+    private int healthyThreshold = 2;
+
+    // How quickly the latency average forgets a spike
+    private Duration decayTime = Duration.ofSeconds(10);
+
+    // Latency charged for a failed call, so an instance failing fast does not look fast
+    private Duration failurePenalty = Duration.ofSeconds(1);
+}
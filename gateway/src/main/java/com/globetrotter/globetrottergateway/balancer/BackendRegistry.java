@@ -0,0 +1,182 @@
+package com.globetrotter.globetrottergateway.balancer;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.netty.channel.ChannelOption;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The backend instances behind {@code lb://backend} routes, from the configured list or
+ * an instances file, each actively checked against the backend's health endpoint.
+ * <p>
+ * Instances start out healthy so the gateway can route before the first round of checks.
+ * Per instance it publishes {@code gateway.backend.healthy}, {@code gateway.backend.outstanding},
+ * the {@code gateway.backend.latency} average and the {@code gateway.backend.requests} timer
+ * split by outcome, all tagged {@code instance=host:port}.
+ */
+public class BackendRegistry implements InitializingBean, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(BackendRegistry.class);
+
+    private final BackendProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final ConnectionProvider healthConnections = ConnectionProvider.create("backend-health", 16);
+    private final HttpClient healthClient;
+
+    private volatile List<BackendInstance> instances = List.of();
+    private volatile List<BackendInstance> healthy = List.of();
+    private FileTime fileModified;
+    private Disposable checks;
+
+    public BackendRegistry(BackendProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.healthClient = HttpClient.create(healthConnections)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) properties.getHealthTimeout().toMillis())
+                .responseTimeout(properties.getHealthTimeout());
+        update(properties.getInstances());
+        refresh();
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        checks = Flux.interval(properties.getHealthInterval(), properties.getHealthInterval(), Schedulers.boundedElastic())
+                .concatMap(tick -> {
+                    refresh();
+                    return checkHealth();
+                })
+                .subscribe();
+    }
+
+    @Override
+    public void destroy() {
+        if (checks != null) {
+            checks.dispose();
+        }
+        healthConnections.disposeLater().block(properties.getHealthTimeout());
+    }
+
+    public List<BackendInstance> getInstances() {
+        return instances;
+    }
+
+    /**
+     * Instances to balance over: the healthy ones, or all of them if none is, on the
+     * chance that the checks are what is failing.
+     */
+    public List<BackendInstance> candidates() {
+        List<BackendInstance> current = healthy;
+        return current.isEmpty() ? instances : current;
+    }
+
+    // Re-reads the instances file if it changed since the last read
+    synchronized void refresh() {
+        if (properties.getInstancesFile() == null) {
+            return;
+        }
+        Path file = Path.of(properties.getInstancesFile());
+        try {
+            FileTime modified = Files.getLastModifiedTime(file);
+            if (modified.equals(fileModified)) {
+                return;
+            }
+            List<String> urls = Files.readAllLines(file).stream()
+                    .map(String::trim)
+                    .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                    .toList();
+            fileModified = modified;
+            if (urls.isEmpty()) {
+                log.warn("Backend instances file {} lists no instances, keeping {}", file, instances);
+                return;
+            }
+            update(urls);
+        } catch (NoSuchFileException e) {
+            log.warn("Backend instances file {} not found, keeping {}", file, instances);
+        } catch (IOException e) {
+            log.warn("Could not read backend instances file {}: {}", file, e.getMessage());
+        }
+    }
+
+    // Instances already known keep their health and latency; dropped ones take their meters with them
+    private synchronized void update(List<String> urls) {
+        Map<URI, BackendInstance> known = new LinkedHashMap<>();
+        instances.forEach(instance -> known.put(instance.getUri(), instance));
+
+        List<BackendInstance> next = new ArrayList<>();
+        for (String url : urls) {
+            URI uri = URI.create(url.endsWith("/") ? url.substring(0, url.length() - 1) : url);
+            BackendInstance instance = known.remove(uri);
+            if (instance == null && next.stream().noneMatch(i -> i.getUri().equals(uri))) {
+                instance = register(uri);
+            }
+            if (instance != null) {
+                next.add(instance);
+            }
+        }
+        known.values().forEach(instance -> instance.meters.forEach(meterRegistry::remove));
+
+        instances = List.copyOf(next);
+        healthy = instances.stream().filter(BackendInstance::isHealthy).toList();
+        log.info("Backend instances: {}", instances);
+    }
+
+    private BackendInstance register(URI uri) {
+        BackendInstance instance = new BackendInstance(uri, properties.getDecayTime().toNanos(),
+                properties.getFailurePenalty().toNanos());
+        String id = instance.getId();
+        instance.meters.add(Gauge.builder("gateway.backend.healthy", instance, i -> i.isHealthy() ? 1 : 0)
+                .tag("instance", id).register(meterRegistry));
+        instance.meters.add(Gauge.builder("gateway.backend.outstanding", instance, BackendInstance::getOutstanding)
+                .tag("instance", id).register(meterRegistry));
+        instance.meters.add(Gauge.builder("gateway.backend.latency", instance, i -> i.getLatencyNanos() / 1e9)
+                .baseUnit("seconds").tag("instance", id).register(meterRegistry));
+        instance.succeeded = Timer.builder("gateway.backend.requests")
+                .tags("instance", id, "outcome", "success").register(meterRegistry);
+        instance.failed = Timer.builder("gateway.backend.requests")
+                .tags("instance", id, "outcome", "error").register(meterRegistry);
+        instance.meters.add(instance.succeeded);
+        instance.meters.add(instance.failed);
+        return instance;
+    }
+
+    Mono<Void> checkHealth() {
+        return Flux.fromIterable(instances)
+                .flatMap(instance -> probe(instance).map(passed -> {
+                    if (instance.checked(passed, properties.getHealthyThreshold(), properties.getUnhealthyThreshold())) {
+                        log.warn("Backend instance {} is now {}", instance, passed ? "healthy" : "unhealthy");
+                    }
+                    return instance;
+                }))
+                .then(Mono.fromRunnable(() ->
+                        healthy = instances.stream().filter(BackendInstance::isHealthy).toList()));
+    }
+
+    private Mono<Boolean> probe(BackendInstance instance) {
+        return healthClient.get()
+                .uri(instance.getUri() + properties.getHealthPath())
+                .responseSingle((response, body) -> body.then(Mono.just(response.status().code() < 300)))
+                .onErrorReturn(false)
+                .defaultIfEmpty(false);
+    }
+}
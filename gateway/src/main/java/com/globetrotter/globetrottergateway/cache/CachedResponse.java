@@ -0,0 +1,16 @@
+package com.globetrotter.globetrottergateway.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * A 200 response body held by the gateway, with the strong ETag computed over it.
+ */
+@Getter
+@AllArgsConstructor
+public final class CachedResponse {
+
+    private final byte[] body;
+    private final String contentType;
+    private final String etag;
+}
@@ -0,0 +1,166 @@
+package com.globetrotter.globetrottergateway.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Byte-bounded store of public GET responses keyed by path and query.
+ * <p>
+ * Entries are fresh for {@code ttl} and then kept for another {@code stale-ttl}, during
+ * which they are only handed out by {@link #getStale} as a fallback while the backend
+ * is failing.
+ * <p>
+ * Purges bump a generation counter. A response is only stored if no purge ran
+ * while it was being fetched, so a slow GET racing a write cannot put the old
+ * body back after the write purged it.
+ */
+@Component
+public class ResponseCache {
+
+    @Value("${gateway.response-cache.max-bytes:67108864}")
+    private long maxBytes;
+
+    @Value("${gateway.response-cache.max-entry-bytes:1048576}")
+    private int maxEntryBytes;
+
+    @Value("${gateway.response-cache.ttl:30s}")
+    private Duration ttl;
+
+    @Value("${gateway.response-cache.stale-ttl:10m}")
+    private Duration staleTtl;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Cache<String, Stored> responses;
+    private final AtomicLong generation = new AtomicLong();
+
+    private Counter hits;
+    private Counter misses;
+    private Counter notModified;
+    private Counter stale;
+    private Counter bytesSaved;
+
+    @PostConstruct
+    void init() {
+        responses = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String key, Stored value) -> key.length() + value.response().getBody().length)
+                .expireAfterWrite(ttl.plus(staleTtl))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, responses, "gatewayResponses");
+
+        hits = meterRegistry.counter("gateway.response_cache.requests", "result", "hit");
+        misses = meterRegistry.counter("gateway.response_cache.requests", "result", "miss");
+        notModified = meterRegistry.counter("gateway.response_cache.requests", "result", "not_modified");
+        stale = meterRegistry.counter("gateway.response_cache.requests", "result", "stale");
+        bytesSaved = meterRegistry.counter("gateway.response_cache.bytes_saved");
+    }
+
+    public CachedResponse get(String key) {
+        Stored stored = responses.getIfPresent(key);
+        return stored != null && System.nanoTime() - stored.storedAt() < ttl.toNanos() ? stored.response() : null;
+    }
+
+    public CachedResponse getStale(String key) {
+        Stored stored = responses.getIfPresent(key);
+        return stored != null ? stored.response() : null;
+    }
+
+    public long currentGeneration() {
+        return generation.get();
+    }
+
+    public boolean isCacheable(int bodyLength) {
+        return bodyLength <= maxEntryBytes;
+    }
+
+    public void put(String key, CachedResponse response, long fetchedAtGeneration) {
+        if (generation.get() == fetchedAtGeneration) {
+            responses.put(key, new Stored(response, System.nanoTime()));
+        }
+    }
+
+    // Drops every entry under any of the given path prefixes
+    public void purge(List<String> prefixes) {
+        generation.incrementAndGet();
+        responses.asMap().keySet().removeIf(key -> prefixes.stream().anyMatch(key::startsWith));
+    }
+
+    public void recordHit(int bodyLength) {
+        hits.increment();
+        bytesSaved.increment(bodyLength);
+    }
+
+    // A 304 from cache saves both the upstream fetch and the transfer to the client
+    public void recordNotModified(int bodyLength) {
+        notModified.increment();
+        bytesSaved.increment(bodyLength);
+    }
+
+    // A 304 after a miss still saves the transfer to the client
+    public void recordBytesSaved(int bodyLength) {
+        bytesSaved.increment(bodyLength);
+    }
+
+    public void recordMiss() {
+        misses.increment();
+    }
+
+    public void recordStale() {
+        stale.increment();
+    }
+
+    public static String etag(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isEmpty()) {
+            return false;
+        }
+        if (ifNoneMatch.trim().equals("*")) {
+            return true;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            // Weak comparison is what If-None-Match specifies
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static String keyOf(URI uri) {
+        String query = uri.getRawQuery();
+        return query == null || query.isEmpty() ? uri.getRawPath() : uri.getRawPath() + "?" + query;
+    }
+
+    private record Stored(CachedResponse response, long storedAt) {
+    }
+}
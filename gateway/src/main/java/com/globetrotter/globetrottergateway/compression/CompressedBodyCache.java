@@ -0,0 +1,49 @@
+package com.globetrotter.globetrottergateway.compression;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Gzipped bodies of cacheable responses, so a catalog page served from the response
+ * cache many times is compressed once.
+ * <p>
+ * Keyed by the strong ETag {@code ResponseCacheFilter} computes over the uncompressed
+ * body: the same bytes always map to the same entry, whichever path or coalesced
+ * request they were served for, and a changed body gets a new key instead of a stale
+ * hit. Old entries simply age out of the byte budget.
+ */
+public class CompressedBodyCache {
+
+    private final Cache<String, byte[]> bodies;
+    private final int level;
+    private final Counter hits;
+    private final Counter misses;
+
+    public CompressedBodyCache(CompressionProperties properties, MeterRegistry meterRegistry) {
+        this.level = properties.getLevel();
+        this.bodies = Caffeine.newBuilder()
+                .maximumWeight(properties.getCacheMaxBytes())
+                .weigher((String etag, byte[] body) -> etag.length() + body.length)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, bodies, "gatewayCompressedBodies");
+        this.hits = meterRegistry.counter("gateway.compression.precompressed", "result", "hit");
+        this.misses = meterRegistry.counter("gateway.compression.precompressed", "result", "miss");
+    }
+
+    public byte[] gzip(String etag, byte[] body) {
+        byte[] compressed = bodies.getIfPresent(etag);
+        if (compressed != null) {
+            hits.increment();
+            return compressed;
+        }
+        misses.increment();
+        // Concurrent misses may both compress; cheaper than holding others back on a lock
+        compressed = GzipEncoder.gzip(body, level);
+        bodies.put(etag, compressed);
+        return compressed;
+    }
+}
@@ -0,0 +1,221 @@
+package com.globetrotter.globetrottergateway.compression;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Gzips text responses for clients that send {@code Accept-Encoding: gzip}.
+ * <p>
+ * Bodies from the response cache (those with an X-Cache header) are complete in memory
+ * and are compressed once through {@link CompressedBodyCache}. Everything else is
+ * compressed piece by piece as it streams from the backend, without a Content-Length.
+ * Responses known to be under {@code minResponseSize}, already encoded, or marked
+ * {@code no-transform} are left alone.
+ * <p>
+ * Runs outside the response cache and request coalescing, which keep and share the
+ * uncompressed body so it can be encoded for each client separately. For the same
+ * reason Accept-Encoding is not forwarded, so the backend always answers uncompressed.
+ * The ETag of a compressed response is made weak; revalidation compares weakly, so it
+ * still gets a 304.
+ */
+public class CompressionFilter implements GlobalFilter, Ordered {
+
+    private static final String GZIP = "gzip";
+
+    private final CompressionProperties properties;
+    private final CompressedBodyCache compressedBodies;
+    private final List<MediaType> mimeTypes;
+    private final Counter compressed;
+    private final Counter precompressed;
+    private final Counter bytesIn;
+    private final Counter bytesOut;
+
+    public CompressionFilter(CompressionProperties properties, CompressedBodyCache compressedBodies,
+                             MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.compressedBodies = compressedBodies;
+        this.mimeTypes = properties.getMimeTypes().stream().map(MediaType::parseMediaType).toList();
+        this.compressed = meterRegistry.counter("gateway.compression.responses", "mode", "streamed");
+        this.precompressed = meterRegistry.counter("gateway.compression.responses", "mode", "cached");
+        this.bytesIn = meterRegistry.counter("gateway.compression.bytes", "stage", "in");
+        this.bytesOut = meterRegistry.counter("gateway.compression.bytes", "stage", "out");
+    }
+
+    @Override
+    public int getOrder() {
+        // Outside CoalescingFilter and ResponseCacheFilter, which sit just ahead of the write filter
+        return NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 3;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (!request.getHeaders().containsKey(HttpHeaders.ACCEPT_ENCODING)) {
+            return chain.filter(exchange);
+        }
+
+        boolean acceptsGzip = request.getMethod() != HttpMethod.HEAD
+                && acceptsGzip(request.getHeaders().getOrEmpty(HttpHeaders.ACCEPT_ENCODING));
+        ServerHttpRequest forwarded = request.mutate()
+                .headers(headers -> headers.remove(HttpHeaders.ACCEPT_ENCODING))
+                .build();
+        ServerWebExchange mutated = exchange.mutate().request(forwarded).build();
+        if (!acceptsGzip) {
+            return chain.filter(mutated);
+        }
+        return chain.filter(mutated.mutate().response(new CompressingResponse(exchange.getResponse())).build());
+    }
+
+    // gzip or * with a non-zero q-value; an explicit gzip entry wins over *
+    static boolean acceptsGzip(List<String> acceptEncoding) {
+        Boolean wildcard = null;
+        for (String value : acceptEncoding) {
+            for (String entry : value.split(",")) {
+                String[] parts = entry.split(";");
+                String coding = parts[0].trim();
+                boolean accepted = quality(parts) > 0;
+                if (coding.equalsIgnoreCase(GZIP) || coding.equalsIgnoreCase("x-gzip")) {
+                    return accepted;
+                }
+                if (coding.equals("*")) {
+                    wildcard = accepted;
+                }
+            }
+        }
+        return wildcard != null && wildcard;
+    }
+
+    private static double quality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String param = parts[i].trim();
+            if (param.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(param.substring(2));
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    private class CompressingResponse extends ServerHttpResponseDecorator {
+
+        CompressingResponse(ServerHttpResponse delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            if (!isCompressible()) {
+                return super.writeWith(body);
+            }
+            HttpHeaders headers = getHeaders();
+            if (!headers.getVary().contains(HttpHeaders.ACCEPT_ENCODING)) {
+                headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            }
+            long contentLength = headers.getContentLength();
+            if (contentLength >= 0 && contentLength < properties.getMinResponseSize()) {
+                return super.writeWith(body);
+            }
+
+            String etag = headers.getETag();
+            if (etag != null && !etag.startsWith("W/") && headers.containsKey("X-Cache")) {
+                return DataBufferUtils.join(Flux.from(body)).flatMap(joined -> {
+                    byte[] bytes = new byte[joined.readableByteCount()];
+                    joined.read(bytes);
+                    DataBufferUtils.release(joined);
+                    if (bytes.length < properties.getMinResponseSize()) {
+                        return super.writeWith(Mono.just(bufferFactory().wrap(bytes)));
+                    }
+                    byte[] gzipped = compressedBodies.gzip(etag, bytes);
+                    precompressed.increment();
+                    bytesIn.increment(bytes.length);
+                    bytesOut.increment(gzipped.length);
+                    markEncoded(headers, etag);
+                    headers.setContentLength(gzipped.length);
+                    return super.writeWith(Mono.just(bufferFactory().wrap(gzipped)));
+                });
+            }
+
+            compressed.increment();
+            markEncoded(headers, etag);
+            headers.remove(HttpHeaders.CONTENT_LENGTH);
+            GzipEncoder encoder = new GzipEncoder(properties.getLevel());
+            Flux<DataBuffer> gzipped = Flux.from(body)
+                    .map(buffer -> {
+                        byte[] bytes = new byte[buffer.readableByteCount()];
+                        buffer.read(bytes);
+                        DataBufferUtils.release(buffer);
+                        bytesIn.increment(bytes.length);
+                        return encoder.encode(bytes);
+                    })
+                    .concatWith(Mono.fromSupplier(encoder::finish))
+                    .filter(bytes -> bytes.length > 0)
+                    .map(bytes -> {
+                        bytesOut.increment(bytes.length);
+                        return bufferFactory().wrap(bytes);
+                    })
+                    .doFinally(signal -> encoder.close());
+            return super.writeWith(gzipped);
+        }
+
+        // A 304 repeats the ETag the client was sent with the gzipped body
+        @Override
+        public Mono<Void> setComplete() {
+            HttpStatusCode status = getStatusCode();
+            String etag = getHeaders().getETag();
+            if (status != null && status.value() == 304 && etag != null && !etag.startsWith("W/")) {
+                getHeaders().setETag("W/" + etag);
+            }
+            return super.setComplete();
+        }
+
+        private boolean isCompressible() {
+            HttpStatusCode status = getStatusCode();
+            HttpHeaders headers = getHeaders();
+            if ((status != null && (status.value() == 204 || status.value() == 304))
+                    || headers.containsKey(HttpHeaders.CONTENT_ENCODING)) {
+                return false;
+            }
+            String cacheControl = headers.getCacheControl();
+            if (cacheControl != null && cacheControl.contains("no-transform")) {
+                return false;
+            }
+            MediaType contentType;
+            try {
+                contentType = headers.getContentType();
+            } catch (InvalidMediaTypeException e) {
+                return false;
+            }
+            return contentType != null && mimeTypes.stream().anyMatch(type -> type.isCompatibleWith(contentType));
+        }
+
+        private void markEncoded(HttpHeaders headers, String etag) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, GZIP);
+            if (etag != null && !etag.startsWith("W/")) {
+                headers.setETag("W/" + etag);
+            }
+        }
+    }
+}
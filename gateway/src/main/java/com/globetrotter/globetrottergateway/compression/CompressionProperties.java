@@ -0,0 +1,27 @@
+package com.globetrotter.globetrottergateway.compression;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Which responses the gateway gzips and how hard it tries.
+ */
+@Data
+@ConfigurationProperties(prefix = "gateway.compression")
+public class CompressionProperties {
+
+    // Bodies known to be smaller than this are sent as they are; gzip framing alone is ~20 bytes
+    private int minResponseSize = 1024;
+
+    // Deflate level, 1 (fastest) to 9 (smallest)
+    private int level = 6;
+
+    private List<String> mimeTypes = new ArrayList<>(List.of(
+            "application/json", "application/javascript", "application/xml", "text/html", "text/plain", "text/css"));
+
+    // Compressed copies of cacheable responses, keyed by their ETag
+    private long cacheMaxBytes = 16 * 1024 * 1024;
+}
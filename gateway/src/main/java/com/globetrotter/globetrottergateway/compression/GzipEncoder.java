@@ -0,0 +1,80 @@
+package com.globetrotter.globetrottergateway.compression;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Gzip over a body that arrives in pieces. Each {@link #encode} returns whatever
+ * compressed output is ready, often nothing for small pieces, so only the deflate window
+ * is held rather than the whole body. Not thread-safe; one per response.
+ */
+public final class GzipEncoder {
+
+    // Magic, deflate, no flags, no mtime, no extra flags, unknown OS
+    private static final byte[] HEADER = {0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    private final Deflater deflater;
+    private final CRC32 crc = new CRC32();
+    private final byte[] chunk = new byte[8192];
+    private boolean started;
+
+    public GzipEncoder(int level) {
+        deflater = new Deflater(level, true);
+    }
+
+    public static byte[] gzip(byte[] body, int level) {
+        GzipEncoder encoder = new GzipEncoder(level);
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4 + 64);
+            out.writeBytes(encoder.encode(body));
+            out.writeBytes(encoder.finish());
+            return out.toByteArray();
+        } finally {
+            encoder.close();
+        }
+    }
+
+    public byte[] encode(byte[] input) {
+        ByteArrayOutputStream out = start();
+        crc.update(input);
+        deflater.setInput(input);
+        while (!deflater.needsInput()) {
+            out.write(chunk, 0, deflater.deflate(chunk));
+        }
+        return out.toByteArray();
+    }
+
+    // Flushes what is left and appends the trailer
+    public byte[] finish() {
+        ByteArrayOutputStream out = start();
+        deflater.finish();
+        while (!deflater.finished()) {
+            out.write(chunk, 0, deflater.deflate(chunk));
+        }
+        writeIntLE(out, (int) crc.getValue());
+        writeIntLE(out, (int) deflater.getBytesRead());
+        return out.toByteArray();
+    }
+
+    // Frees the native deflate state; safe to call more than once
+    public void close() {
+        deflater.end();
+    }
+
+    private ByteArrayOutputStream start() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (!started) {
+            out.writeBytes(HEADER);
+            started = true;
+        }
+        return out;
+    }
+
+    private static void writeIntLE(ByteArrayOutputStream out, int value) {
+        out.write(value);
+        out.write(value >>> 8);
+        out.write(value >>> 16);
+        out.write(value >>> 24);
+    }
+}
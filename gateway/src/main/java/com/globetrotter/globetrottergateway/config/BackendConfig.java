@@ -0,0 +1,24 @@
+package com.globetrotter.globetrottergateway.config;
+
+import com.globetrotter.globetrottergateway.balancer.BackendLoadBalancerFilter;
+import com.globetrotter.globetrottergateway.balancer.BackendProperties;
+import com.globetrotter.globetrottergateway.balancer.BackendRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(BackendProperties.class)
+public class BackendConfig {
+
+    @Bean
+    public BackendRegistry backendRegistry(BackendProperties properties, MeterRegistry meterRegistry) {
+        return new BackendRegistry(properties, meterRegistry);
+    }
+
+    @Bean
+    public BackendLoadBalancerFilter backendLoadBalancerFilter(BackendRegistry backendRegistry) {
+        return new BackendLoadBalancerFilter(backendRegistry);
+    }
+}
@@ -0,0 +1,25 @@
+package com.globetrotter.globetrottergateway.config;
+
+import com.globetrotter.globetrottergateway.compression.CompressedBodyCache;
+import com.globetrotter.globetrottergateway.compression.CompressionFilter;
+import com.globetrotter.globetrottergateway.compression.CompressionProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(CompressionProperties.class)
+public class CompressionConfig {
+
+    @Bean
+    public CompressedBodyCache compressedBodyCache(CompressionProperties properties, MeterRegistry meterRegistry) {
+        return new CompressedBodyCache(properties, meterRegistry);
+    }
+
+    @Bean
+    public CompressionFilter compressionFilter(CompressionProperties properties, CompressedBodyCache compressedBodyCache,
+                                               MeterRegistry meterRegistry) {
+        return new CompressionFilter(properties, compressedBodyCache, meterRegistry);
+    }
+}
@@ -0,0 +1,25 @@
+package com.globetrotter.globetrottergateway.config;
+
+import com.globetrotter.globetrottergateway.ratelimit.RateLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class RateLimitConfig {
+
+    @Bean
+    public RateLimiter rateLimiter(
+            @Value("${gateway.rate-limit.max-keys:100000}") long maxKeys,
+            @Value("${gateway.rate-limit.idle-ttl:2m}") Duration idleTtl,
+            MeterRegistry meterRegistry) {
+        RateLimiter rateLimiter = new RateLimiter(maxKeys, idleTtl);
+        // Tracked key count and evictions show up as cache.size / cache.evictions{cache=rateLimitBuckets}
+        CaffeineCacheMetrics.monitor(meterRegistry, rateLimiter.getBuckets(), "rateLimitBuckets");
+        return rateLimiter;
+    }
+}
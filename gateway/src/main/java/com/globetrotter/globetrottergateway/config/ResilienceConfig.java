@@ -0,0 +1,18 @@
+package com.globetrotter.globetrottergateway.config;
+
+import com.globetrotter.globetrottergateway.resilience.ResilienceProperties;
+import com.globetrotter.globetrottergateway.resilience.RouteGuards;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(ResilienceProperties.class)
+public class ResilienceConfig {
+
+    @Bean
+    public RouteGuards routeGuards(ResilienceProperties properties, MeterRegistry meterRegistry) {
+        return new RouteGuards(properties, meterRegistry);
+    }
+}
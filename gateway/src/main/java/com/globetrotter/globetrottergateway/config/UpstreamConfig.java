@@ -0,0 +1,45 @@
+package com.globetrotter.globetrottergateway.config;
+
+import com.globetrotter.globetrottergateway.upstream.UpstreamClients;
+import com.globetrotter.globetrottergateway.upstream.UpstreamProperties;
+import com.globetrotter.globetrottergateway.upstream.UpstreamRoutingFilter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.gateway.config.GatewayProperties;
+import org.springframework.cloud.gateway.config.HttpClientCustomizer;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.config.HttpClientSslConfigurer;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.netty.http.client.HttpClient;
+
+import java.util.List;
+
+@Configuration
+@EnableConfigurationProperties(UpstreamProperties.class)
+public class UpstreamConfig {
+
+    @Bean
+    public UpstreamClients upstreamClients(UpstreamProperties properties, HttpClientProperties httpClientProperties,
+                                           ServerProperties serverProperties, HttpClientSslConfigurer sslConfigurer,
+                                           List<HttpClientCustomizer> customizers) {
+        return new UpstreamClients(properties, httpClientProperties, serverProperties, sslConfigurer, customizers);
+    }
+
+    @Bean
+    public UpstreamRoutingFilter upstreamRoutingFilter(HttpClient httpClient,
+                                                       ObjectProvider<List<HttpHeadersFilter>> headersFilters,
+                                                       HttpClientProperties httpClientProperties,
+                                                       UpstreamClients upstreamClients) {
+        return new UpstreamRoutingFilter(httpClient, headersFilters, httpClientProperties, upstreamClients);
+    }
+
+    // Spring Cloud Gateway switches this off together with the stock routing filter
+    @Bean
+    public NettyWriteResponseFilter nettyWriteResponseFilter(GatewayProperties gatewayProperties) {
+        return new NettyWriteResponseFilter(gatewayProperties.getStreamingMediaTypes());
+    }
+}
@@ -3,6 +3,7 @@ package com.globetrotter.globetrottergateway.exception;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.globetrotter.globetrottergateway.dto.ErrorResponse;
+import com.globetrotter.globetrottergateway.upstream.UpstreamClients;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.web.reactive.error.ErrorWebExceptionHandler;
@@ -45,6 +46,11 @@ public class GlobalExceptionHandler implements ErrorWebExceptionHandler {
             status = HttpStatus.BAD_REQUEST;
             message = "Invalid request: " + ex.getMessage();
             error = "Bad Request";
+        } else if (UpstreamClients.isPoolExhausted(ex)) {
+            // The route's upstream pool is saturated
+            status = HttpStatus.SERVICE_UNAVAILABLE;
+            message = "Backend service is busy. Please try again shortly.";
+            error = "Service Unavailable";
         } else if (ex.getCause() instanceof java.net.ConnectException) {
             status = HttpStatus.SERVICE_UNAVAILABLE;
             message = "Backend service is unavailable. Please try again later.";
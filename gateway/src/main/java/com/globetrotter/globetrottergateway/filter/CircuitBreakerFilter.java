@@ -0,0 +1,131 @@
+package com.globetrotter.globetrottergateway.filter;
+
+import com.globetrotter.globetrottergateway.cache.CachedResponse;
+import com.globetrotter.globetrottergateway.cache.ResponseCache;
+import com.globetrotter.globetrottergateway.resilience.RouteGuards;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * Guards a route with its circuit breaker and bulkhead from {@link RouteGuards}. While
+ * the breaker is open, or the route already has its maximum calls in flight, requests
+ * are answered with 503 at once instead of queueing for the backend.
+ * <p>
+ * With {@code staleFallback}, GET routes that also use {@link ResponseCacheFilter}
+ * answer from the cache instead, even with an entry past its ttl, and do the same when
+ * the call fails without a response. Errors the backend answered with (5xx) still reach
+ * the client but count as failures.
+ * <p>
+ * List it after the route's other filters so requests they reject, which never reach the
+ * backend, are not counted as calls. Cache hits never reach it either.
+ */
+@Slf4j
+@Component
+public class CircuitBreakerFilter extends AbstractGatewayFilterFactory<CircuitBreakerFilter.Config> {
+
+    @Autowired
+    private RouteGuards routeGuards;
+
+    @Autowired
+    private ResponseCache responseCache;
+
+    @Autowired
+    private ResponseCacheFilter responseCacheFilter;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    public CircuitBreakerFilter() {
+        super(Config.class);
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return (exchange, chain) -> {
+            String routeId = getRouteId(exchange);
+            CircuitBreaker circuitBreaker = routeGuards.circuitBreaker(routeId);
+            Bulkhead bulkhead = routeGuards.bulkhead(routeId);
+
+            if (!circuitBreaker.tryAcquirePermission()) {
+                return rejected(exchange, config, routeId, "open", routeGuards.openDuration(routeId).toSeconds(),
+                        "Service temporarily unavailable. Please try again shortly.");
+            }
+            if (!bulkhead.tryAcquirePermission()) {
+                circuitBreaker.releasePermission();
+                return rejected(exchange, config, routeId, "bulkhead", 1,
+                        "Service is busy. Please try again shortly.");
+            }
+
+            long start = circuitBreaker.getCurrentTimestamp();
+            return chain.filter(exchange)
+                    .doOnSuccess(done -> circuitBreaker.onResult(circuitBreaker.getCurrentTimestamp() - start,
+                            circuitBreaker.getTimestampUnit(), exchange.getResponse().getStatusCode()))
+                    .doOnError(error -> circuitBreaker.onError(circuitBreaker.getCurrentTimestamp() - start,
+                            circuitBreaker.getTimestampUnit(), error))
+                    .doOnCancel(circuitBreaker::releasePermission)
+                    .doFinally(signal -> bulkhead.onComplete())
+                    .onErrorResume(error -> {
+                        CachedResponse stale = staleFor(exchange, config);
+                        if (stale == null || exchange.getResponse().isCommitted()) {
+                            return Mono.error(error);
+                        }
+                        log.warn("Serving stale response on route {} after upstream error: {}", routeId, error.toString());
+                        return responseCacheFilter.writeStale(exchange, stale);
+                    });
+        };
+    }
+
+    private Mono<Void> rejected(ServerWebExchange exchange, Config config, String routeId, String reason,
+                               long retryAfterSeconds, String message) {
+        meterRegistry.counter("gateway.circuitbreaker.rejected", "route", routeId, "reason", reason).increment();
+
+        CachedResponse stale = staleFor(exchange, config);
+        if (stale != null) {
+            return responseCacheFilter.writeStale(exchange, stale);
+        }
+
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+        response.getHeaders().add("Content-Type", "application/json");
+        response.getHeaders().add("Retry-After", String.valueOf(Math.max(retryAfterSeconds, 1)));
+        String body = String.format("{\"success\": false, \"message\": \"%s\"}", message);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body.getBytes())));
+    }
+
+    private CachedResponse staleFor(ServerWebExchange exchange, Config config) {
+        if (!config.isStaleFallback() || exchange.getRequest().getMethod() != HttpMethod.GET) {
+            return null;
+        }
+        return responseCache.getStale(ResponseCache.keyOf(exchange.getRequest().getURI()));
+    }
+
+    private String getRouteId(ServerWebExchange exchange) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        return route != null ? route.getId() : "unknown";
+    }
+
+    public static class Config {
+        private boolean staleFallback = false;
+
+        public boolean isStaleFallback() {
+            return staleFallback;
+        }
+
+        public void setStaleFallback(boolean staleFallback) {
+            this.staleFallback = staleFallback;
+        }
+    }
+}
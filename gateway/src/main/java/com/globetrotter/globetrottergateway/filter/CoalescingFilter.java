@@ -0,0 +1,290 @@
+package com.globetrotter.globetrottergateway.filter;
+
+import com.globetrotter.globetrottergateway.cache.ResponseCache;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Collapses identical GETs that arrive while one is already in flight: the first request
+ * (the leader) goes through the rest of the chain and every later one with the same path,
+ * query and {@code varyHeaders} waits for its response instead of going upstream.
+ * <p>
+ * Runs ahead of {@link ResponseCacheFilter}, so a cache miss is fetched once however many
+ * clients asked for it, but after authentication and {@link RateLimitFilter}, so every
+ * follower is counted against its own limit before it joins a flight. If-None-Match is
+ * taken off the leader's request and applied to each client's copy of the response, so
+ * one client's 304 is never handed to another. If the leader is cancelled, or its
+ * response is streamed, the followers go upstream themselves.
+ * <p>
+ * At most {@code maxWaiters} requests wait on one leader; the next starts a new one.
+ * {@code gateway.coalescing.requests} counts leaders and followers per route, so the
+ * collapse ratio is followers over all requests.
+ */
+@Component
+public class CoalescingFilter extends AbstractGatewayFilterFactory<CoalescingFilter.Config> {
+
+    // Set for each client by RateLimitFilter, so not passed on from the leader
+    private static final List<String> CLIENT_HEADERS = List.of("X-RateLimit-Limit", "X-RateLimit-Remaining");
+
+    private static final Result ABANDONED = new Result(null, null, null);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, Flight> flights = new ConcurrentHashMap<>();
+
+    public CoalescingFilter() {
+        super(Config.class);
+    }
+
+    @PostConstruct
+    void init() {
+        Gauge.builder("gateway.coalescing.in_flight", flights, Map::size).register(meterRegistry);
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        GatewayFilter filter = (exchange, chain) -> {
+            ServerHttpRequest request = exchange.getRequest();
+            if (request.getMethod() != HttpMethod.GET) {
+                return chain.filter(exchange);
+            }
+
+            String routeId = getRouteId(exchange);
+            String key = keyOf(routeId, request, config.getVaryHeaders());
+            String ifNoneMatch = request.getHeaders().getFirst(HttpHeaders.IF_NONE_MATCH);
+
+            Flight started = new Flight(key);
+            Flight flight = flights.compute(key, (k, current) ->
+                    current != null && current.join(config.getMaxWaiters()) ? current : started);
+
+            if (flight != started) {
+                meterRegistry.counter("gateway.coalescing.requests", "route", routeId, "role", "follower").increment();
+                return flight.result().flatMap(result -> result == ABANDONED
+                        ? chain.filter(exchange)
+                        : write(exchange.getResponse(), result, ifNoneMatch));
+            }
+
+            meterRegistry.counter("gateway.coalescing.requests", "route", routeId, "role", "leader").increment();
+            ServerHttpRequest unconditional = request.mutate()
+                    .headers(headers -> headers.remove(HttpHeaders.IF_NONE_MATCH))
+                    .build();
+            ServerHttpResponse leading = new LeaderResponse(exchange.getResponse(), flight, ifNoneMatch);
+            return chain.filter(exchange.mutate().request(unconditional).response(leading).build())
+                    .doOnError(flight::fail)
+                    .doFinally(signal -> {
+                        // Releases followers if the leader ended without writing a response
+                        flight.publish(ABANDONED);
+                        DistributionSummary.builder("gateway.coalescing.waiters")
+                                .tag("route", routeId)
+                                .register(meterRegistry)
+                                .record(flight.waiters());
+                    });
+        };
+        return new OrderedGatewayFilter(filter, NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 2);
+    }
+
+    private static Mono<Void> write(ServerHttpResponse response, Result result, String ifNoneMatch) {
+        HttpHeaders headers = response.getHeaders();
+        result.headers().forEach((name, values) -> {
+            // CORS and Vary are already set for this client
+            if (!headers.containsKey(name)) {
+                headers.put(name, new ArrayList<>(values));
+            }
+        });
+        if (notModified(result.status(), headers, ifNoneMatch)) {
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            headers.remove(HttpHeaders.CONTENT_LENGTH);
+            return response.setComplete();
+        }
+        response.setStatusCode(result.status());
+        headers.setContentLength(result.body().length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(result.body())));
+    }
+
+    private static boolean notModified(HttpStatusCode status, HttpHeaders headers, String ifNoneMatch) {
+        return status != null && status.value() == HttpStatus.OK.value()
+                && headers.getETag() != null && ResponseCache.matches(ifNoneMatch, headers.getETag());
+    }
+
+    private static String keyOf(String routeId, ServerHttpRequest request, List<String> varyHeaders) {
+        StringBuilder key = new StringBuilder(routeId).append(' ').append(ResponseCache.keyOf(request.getURI()));
+        for (String name : varyHeaders) {
+            key.append('\n').append(name).append(": ").append(request.getHeaders().getOrEmpty(name));
+        }
+        return key.toString();
+    }
+
+    private String getRouteId(ServerWebExchange exchange) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        return route != null ? route.getId() : "unknown";
+    }
+
+    private record Result(HttpStatusCode status, HttpHeaders headers, byte[] body) {
+    }
+
+    private final class Flight {
+
+        private final String key;
+        private final Sinks.One<Result> sink = Sinks.one();
+        // Guarded by this
+        private int waiters;
+        private boolean closed;
+
+        Flight(String key) {
+            this.key = key;
+        }
+
+        synchronized boolean join(int maxWaiters) {
+            if (closed || waiters >= maxWaiters) {
+                return false;
+            }
+            waiters++;
+            return true;
+        }
+
+        // Stops further joins and returns how many are waiting
+        synchronized int close() {
+            if (!closed) {
+                closed = true;
+                flights.remove(key, this);
+            }
+            return waiters;
+        }
+
+        synchronized int waiters() {
+            return waiters;
+        }
+
+        Mono<Result> result() {
+            return sink.asMono();
+        }
+
+        synchronized void publish(Result result) {
+            close();
+            sink.tryEmitValue(result);
+        }
+
+        synchronized void fail(Throwable error) {
+            close();
+            sink.tryEmitError(error);
+        }
+    }
+
+    private static final class LeaderResponse extends ServerHttpResponseDecorator {
+
+        private final Flight flight;
+        private final String ifNoneMatch;
+
+        LeaderResponse(ServerHttpResponse delegate, Flight flight, String ifNoneMatch) {
+            super(delegate);
+            this.flight = flight;
+            this.ifNoneMatch = ifNoneMatch;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            // Nobody joined: pass the body straight through, only answering the leader's own condition
+            if (flight.close() == 0) {
+                flight.publish(ABANDONED);
+                if (notModified(getStatusCode(), getHeaders(), ifNoneMatch)) {
+                    return Flux.from(body).doOnNext(DataBufferUtils::release).then(writeNotModified());
+                }
+                return super.writeWith(body);
+            }
+
+            return DataBufferUtils.join(Flux.from(body))
+                    .map(joined -> {
+                        byte[] bytes = new byte[joined.readableByteCount()];
+                        joined.read(bytes);
+                        DataBufferUtils.release(joined);
+                        return bytes;
+                    })
+                    .defaultIfEmpty(new byte[0])
+                    .flatMap(bytes -> {
+                        HttpHeaders shared = new HttpHeaders();
+                        shared.putAll(getHeaders());
+                        CLIENT_HEADERS.forEach(shared::remove);
+                        shared.remove(HttpHeaders.TRANSFER_ENCODING);
+                        flight.publish(new Result(getStatusCode(), shared, bytes));
+
+                        if (notModified(getStatusCode(), getHeaders(), ifNoneMatch)) {
+                            return writeNotModified();
+                        }
+                        getHeaders().setContentLength(bytes.length);
+                        return getDelegate().writeWith(Mono.just(bufferFactory().wrap(bytes)));
+                    });
+        }
+
+        @Override
+        public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            flight.publish(ABANDONED);
+            return super.writeAndFlushWith(body);
+        }
+
+        @Override
+        public Mono<Void> setComplete() {
+            HttpHeaders shared = new HttpHeaders();
+            shared.putAll(getHeaders());
+            CLIENT_HEADERS.forEach(shared::remove);
+            flight.publish(new Result(getStatusCode(), shared, new byte[0]));
+            return super.setComplete();
+        }
+
+        private Mono<Void> writeNotModified() {
+            setStatusCode(HttpStatus.NOT_MODIFIED);
+            getHeaders().remove(HttpHeaders.CONTENT_LENGTH);
+            return getDelegate().setComplete();
+        }
+    }
+
+    public static class Config {
+        private int maxWaiters = 1000;
+        private List<String> varyHeaders = List.of(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_LANGUAGE);
+
+        public int getMaxWaiters() {
+            return maxWaiters;
+        }
+
+        public void setMaxWaiters(int maxWaiters) {
+            this.maxWaiters = maxWaiters;
+        }
+
+        public List<String> getVaryHeaders() {
+            return varyHeaders;
+        }
+
+        public void setVaryHeaders(List<String> varyHeaders) {
+            this.varyHeaders = varyHeaders;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.globetrotter.globetrottergateway.filter;
+
+import com.globetrotter.globetrottergateway.util.GatewaySignature;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Drops identity headers sent by clients. Only JwtAuthenticationFilter sets them, after
+ * validating the token, so on public routes nothing downstream sees a client's claim
+ * to be someone.
+ */
+@Component
+public class IdentityHeadersFilter implements GlobalFilter, Ordered {
+
+    static final List<String> IDENTITY_HEADERS = List.of("X-Username", "X-User-Id", "X-User-Roles",
+            GatewaySignature.HEADER, GatewaySignature.ISSUED_AT_HEADER);
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        HttpHeaders headers = exchange.getRequest().getHeaders();
+        if (IDENTITY_HEADERS.stream().noneMatch(headers::containsKey)) {
+            return chain.filter(exchange);
+        }
+        ServerHttpRequest stripped = exchange.getRequest().mutate()
+                .headers(mutable -> IDENTITY_HEADERS.forEach(mutable::remove))
+                .build();
+        return chain.filter(exchange.mutate().request(stripped).build());
+    }
+
+    // Right after LoggingFilter, ahead of every route filter
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE + 1;
+    }
+}
@@ -2,11 +2,14 @@ package com.globetrotter.globetrottergateway.filter;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.globetrotter.globetrottergateway.dto.ErrorResponse;
+import com.globetrotter.globetrottergateway.util.GatewaySignature;
+import com.globetrotter.globetrottergateway.util.JwtClaims;
 import com.globetrotter.globetrottergateway.util.JwtUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
 import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -23,16 +26,25 @@ public class JwtAuthenticationFilter extends AbstractGatewayFilterFactory<JwtAut
 
     private static final Logger log = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
 
+    // Exchange attributes are shared with the unmutated exchange seen by global filters
+    public static final String USERNAME_ATTRIBUTE = "globetrotter.username";
+
+    // Ahead of RateLimitFilter, which keys per-user limits on the X-Username set here
+    public static final int ORDER = RateLimitFilter.ORDER - 10;
+
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private GatewaySignature gatewaySignature;
+
     public JwtAuthenticationFilter() {
         super(Config.class);
     }
 
     @Override
     public GatewayFilter apply(Config config) {
-        return (exchange, chain) -> {
+        GatewayFilter filter = (exchange, chain) -> {
             ServerHttpRequest request = exchange.getRequest();
             log.debug("JWT Authentication Filter - Path: {}", request.getPath());
 
@@ -48,25 +60,43 @@ public class JwtAuthenticationFilter extends AbstractGatewayFilterFactory<JwtAut
             }
 
             String token = authHeader.substring(7);
-            if (!jwtUtil.validateToken(token)) {
+            JwtClaims claims = jwtUtil.parseClaims(token);
+            if (claims == null) {
                 log.warn("Invalid JWT token");
                 return onError(exchange, "Invalid or expired token", HttpStatus.UNAUTHORIZED);
             }
 
             try {
-                String username = jwtUtil.getUsernameFromToken(token);
-                List<String> roles = jwtUtil.getRolesFromToken(token);
+                String username = claims.getUsername();
+                List<String> roles = claims.getRoles();
 
                 // Convert roles list to comma-separated string
                 String rolesHeader = roles != null && !roles.isEmpty()
                         ? String.join(",", roles)
                         : "ROLE_CUSTOMER";
 
+                // Tokens issued before the userId claim leave the backend to resolve the id itself
+                String userIdHeader = claims.getUserId() != null ? claims.getUserId().toString() : null;
+
                 ServerHttpRequest modifiedRequest = exchange.getRequest().mutate()
                         .header("X-Username", username)
                         .header("X-User-Roles", rolesHeader)
+                        .headers(headers -> {
+                            if (userIdHeader != null) {
+                                headers.set("X-User-Id", userIdHeader);
+                            } else {
+                                headers.remove("X-User-Id");
+                            }
+                            // The backend trusts the headers above only with a recent signature over them
+                            long issuedAt = System.currentTimeMillis() / 1000;
+                            headers.set(GatewaySignature.ISSUED_AT_HEADER, Long.toString(issuedAt));
+                            headers.set(GatewaySignature.HEADER,
+                                    gatewaySignature.sign(username, userIdHeader, rolesHeader, issuedAt));
+                        })
                         .build();
 
+                exchange.getAttributes().put(USERNAME_ATTRIBUTE, username);
+
                 log.debug("JWT validated for user: {} with roles: {}", username, rolesHeader);
                 return chain.filter(exchange.mutate().request(modifiedRequest).build());
             } catch (Exception e) {
@@ -74,6 +104,7 @@ public class JwtAuthenticationFilter extends AbstractGatewayFilterFactory<JwtAut
                 return onError(exchange, "Invalid token", HttpStatus.UNAUTHORIZED);
             }
         };
+        return new OrderedGatewayFilter(filter, ORDER);
     }
 
     private Mono<Void> onError(ServerWebExchange exchange, String message, HttpStatus httpStatus) {
@@ -1,9 +1,12 @@
 package com.globetrotter.globetrottergateway.filter;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import com.globetrotter.globetrottergateway.accesslog.AccessLogEntry;
+import com.globetrotter.globetrottergateway.accesslog.AccessLogWriter;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
 import org.springframework.core.Ordered;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.server.reactive.ServerHttpRequest;
@@ -12,57 +15,35 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-
 @Component
 public class LoggingFilter implements GlobalFilter, Ordered {
 
-    private static final Logger log = LoggerFactory.getLogger(LoggingFilter.class);
-    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    @Autowired
+    private AccessLogWriter accessLogWriter;
 
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
-        ServerHttpRequest request = exchange.getRequest();
-
-        long startTime = System.currentTimeMillis();
-        String timestamp = LocalDateTime.now().format(DATE_FORMATTER);
-
-        String method = request.getMethod().toString();
-        String path = request.getURI().getPath();
-        String clientIp = getClientIp(exchange);
-        String userAgent = request.getHeaders().getFirst(HttpHeaders.USER_AGENT);
+        long timestamp = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
 
-        // Make username final for use in lambda
-        String usernameHeader = request.getHeaders().getFirst("X-Username");
-        final String username = (usernameHeader != null) ? usernameHeader : "anonymous";
-
-        log.info("🔵 INCOMING REQUEST");
-        log.info("   Time: {}", timestamp);
-        log.info("   Method: {}", method);
-        log.info("   Path: {}", path);
-        log.info("   User: {}", username);
-        log.info("   IP: {}", clientIp);
-        log.info("   User-Agent: {}", userAgent != null ? userAgent : "N/A");
-
-        return chain.filter(exchange).then(Mono.fromRunnable(() -> {
+        // Read after the chain completes so the authenticated user and final status are known
+        return chain.filter(exchange).doFinally(signal -> {
+            ServerHttpRequest request = exchange.getRequest();
             ServerHttpResponse response = exchange.getResponse();
-
-            long duration = System.currentTimeMillis() - startTime;
-
-            int statusCode = response.getStatusCode() != null
-                    ? response.getStatusCode().value()
-                    : 0;
-
-            String statusEmoji = getStatusEmoji(statusCode);
-
-            log.info("🟢 RESPONSE SENT");
-            log.info("   Status: {} {}", statusCode, statusEmoji);
-            log.info("   Duration: {} ms", duration);
-            log.info("   Path: {}", path);
-            log.info("   User: {}", username);
-            log.info("─────────────────────────────────────────────────────");
-        }));
+            Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+
+            accessLogWriter.submit(new AccessLogEntry(
+                    timestamp,
+                    request.getMethod().name(),
+                    request.getURI().getRawPath(),
+                    route != null ? route.getId() : null,
+                    response.getStatusCode() != null ? response.getStatusCode().value() : 0,
+                    (System.nanoTime() - startNanos) / 1_000_000,
+                    exchange.getAttribute(JwtAuthenticationFilter.USERNAME_ATTRIBUTE),
+                    getClientIp(exchange),
+                    request.getHeaders().getFirst(HttpHeaders.USER_AGENT)
+            ));
+        });
     }
 
     private String getClientIp(ServerWebExchange exchange) {
@@ -85,19 +66,6 @@ public class LoggingFilter implements GlobalFilter, Ordered {
         return "unknown";
     }
 
-    private String getStatusEmoji(int statusCode) {
-        if (statusCode >= 200 && statusCode < 300) {
-            return "✅ SUCCESS";
-        } else if (statusCode >= 300 && statusCode < 400) {
-            return "↪️ REDIRECT";
-        } else if (statusCode >= 400 && statusCode < 500) {
-            return "⚠️ CLIENT ERROR";
-        } else if (statusCode >= 500) {
-            return "❌ SERVER ERROR";
-        }
-        return "❓ UNKNOWN";
-    }
-
     @Override
     public int getOrder() {
         return Ordered.HIGHEST_PRECEDENCE;
@@ -1,8 +1,15 @@
 package com.globetrotter.globetrottergateway.filter;
 
+import com.globetrotter.globetrottergateway.ratelimit.RateLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
 import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.stereotype.Component;
@@ -10,17 +17,21 @@ import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
 import java.time.Duration;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
 
 @Slf4j
 @Component
 public class RateLimitFilter extends AbstractGatewayFilterFactory<RateLimitFilter.Config> {
 
-    // Store request counts per IP
-    private final Map<String, AtomicInteger> requestCounts = new ConcurrentHashMap<>();
-    private final Map<String, Long> resetTimes = new ConcurrentHashMap<>();
+    private static final Duration PERIOD = Duration.ofMinutes(1);
+
+    // Outside the response cache and request coalescing, so requests they answer are counted too
+    public static final int ORDER = NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 10;
+
+    @Autowired
+    private RateLimiter rateLimiter;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
 
     public RateLimitFilter() {
         super(Config.class);
@@ -28,40 +39,49 @@ public class RateLimitFilter extends AbstractGatewayFilterFactory<RateLimitFilte
 
     @Override
     public GatewayFilter apply(Config config) {
-        return (exchange, chain) -> {
-            String clientIp = getClientIp(exchange);
-
-            log.debug("Rate limit check for IP: {} - Route: {}", clientIp, exchange.getRequest().getPath());
-
-            // Get or create counter for this IP
-            AtomicInteger counter = requestCounts.computeIfAbsent(clientIp, k -> new AtomicInteger(0));
-            Long resetTime = resetTimes.get(clientIp);
-            long currentTime = System.currentTimeMillis();
-
-            // Reset counter if time window has passed
-            if (resetTime == null || currentTime > resetTime) {
-                counter.set(0);
-                resetTimes.put(clientIp, currentTime + Duration.ofMinutes(1).toMillis());
-            }
-
-            // Increment and check limit
-            int currentCount = counter.incrementAndGet();
+        GatewayFilter filter = (exchange, chain) -> {
+            String routeId = getRouteId(exchange);
+            String clientKey = resolveKey(exchange, config.getKeyBy(), routeId);
             int limit = config.getRequestsPerMinute();
 
-            log.debug("Request count for {}: {}/{}", clientIp, currentCount, limit);
+            // Buckets are per route so each route's limit applies independently
+            RateLimiter.Decision decision = rateLimiter.tryAcquire(routeId + "|" + clientKey, limit, PERIOD);
 
-            if (currentCount > limit) {
-                log.warn("Rate limit exceeded for IP: {} - Count: {}/{}", clientIp, currentCount, limit);
-                return rateLimitExceeded(exchange, limit);
+            log.debug("Rate limit check for {} on route {} - allowed: {}, remaining: {}",
+                    clientKey, routeId, decision.isAllowed(), decision.getRemaining());
+
+            if (!decision.isAllowed()) {
+                log.warn("Rate limit exceeded for {} on route {} - limit: {}/min", clientKey, routeId, limit);
+                meterRegistry.counter("gateway.ratelimit.rejected", "route", routeId).increment();
+                return rateLimitExceeded(exchange, limit, decision.getRetryAfterSeconds());
             }
 
             // Add rate limit headers
             exchange.getResponse().getHeaders().add("X-RateLimit-Limit", String.valueOf(limit));
-            exchange.getResponse().getHeaders().add("X-RateLimit-Remaining",
-                    String.valueOf(Math.max(0, limit - currentCount)));
+            exchange.getResponse().getHeaders().add("X-RateLimit-Remaining", String.valueOf(decision.getRemaining()));
 
             return chain.filter(exchange);
         };
+        return new OrderedGatewayFilter(filter, ORDER);
+    }
+
+    private String resolveKey(ServerWebExchange exchange, KeyBy keyBy, String routeId) {
+        switch (keyBy) {
+            case USER:
+                // Only trustworthy behind JwtAuthenticationFilter, which overwrites X-Username
+                String username = exchange.getRequest().getHeaders().getFirst("X-Username");
+                return username != null && !username.isEmpty() ? "user:" + username : "ip:" + getClientIp(exchange);
+            case ROUTE:
+                return "route:" + routeId;
+            case IP:
+            default:
+                return "ip:" + getClientIp(exchange);
+        }
+    }
+
+    private String getRouteId(ServerWebExchange exchange) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        return route != null ? route.getId() : "unknown";
     }
 
     private String getClientIp(ServerWebExchange exchange) {
@@ -81,24 +101,29 @@ public class RateLimitFilter extends AbstractGatewayFilterFactory<RateLimitFilte
         return ip;
     }
 
-    private Mono<Void> rateLimitExceeded(ServerWebExchange exchange, int limit) {
+    private Mono<Void> rateLimitExceeded(ServerWebExchange exchange, int limit, long retryAfterSeconds) {
         ServerHttpResponse response = exchange.getResponse();
         response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
         response.getHeaders().add("Content-Type", "application/json");
         response.getHeaders().add("X-RateLimit-Limit", String.valueOf(limit));
         response.getHeaders().add("X-RateLimit-Remaining", "0");
-        response.getHeaders().add("Retry-After", "60");
+        response.getHeaders().add("Retry-After", String.valueOf(retryAfterSeconds));
 
         String errorResponse = String.format(
-                "{\"success\": false, \"message\": \"Rate limit exceeded. Maximum %d requests per minute allowed. Try again in 60 seconds.\", \"limit\": %d}",
-                limit, limit
+                "{\"success\": false, \"message\": \"Rate limit exceeded. Maximum %d requests per minute allowed. Try again in %d seconds.\", \"limit\": %d}",
+                limit, retryAfterSeconds, limit
         );
 
         return response.writeWith(Mono.just(response.bufferFactory().wrap(errorResponse.getBytes())));
     }
 
+    public enum KeyBy {
+        IP, USER, ROUTE
+    }
+
     public static class Config {
         private int requestsPerMinute = 100;
+        private KeyBy keyBy = KeyBy.IP;
 
         public int getRequestsPerMinute() {
             return requestsPerMinute;
@@ -107,5 +132,13 @@ public class RateLimitFilter extends AbstractGatewayFilterFactory<RateLimitFilte
         public void setRequestsPerMinute(int requestsPerMinute) {
             this.requestsPerMinute = requestsPerMinute;
         }
+
+        public KeyBy getKeyBy() {
+            return keyBy;
+        }
+
+        public void setKeyBy(KeyBy keyBy) {
+            this.keyBy = keyBy;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,167 @@
+package com.globetrotter.globetrottergateway.filter;
+
+import com.globetrotter.globetrottergateway.cache.CachedResponse;
+import com.globetrotter.globetrottergateway.cache.ResponseCache;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Serves public GET routes from {@link ResponseCache} and answers If-None-Match with
+ * 304. Misses go upstream and the 200 body is captured on the way back.
+ * <p>
+ * The filter has to run before {@link NettyWriteResponseFilter} to see the body, so
+ * cache hits are answered ahead of the route's unordered filters. Authentication and
+ * {@link RateLimitFilter} are ordered before it, so hits still count against the limit.
+ */
+@Component
+public class ResponseCacheFilter extends AbstractGatewayFilterFactory<ResponseCacheFilter.Config> {
+
+    @Autowired
+    private ResponseCache responseCache;
+
+    public ResponseCacheFilter() {
+        super(Config.class);
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        GatewayFilter filter = (exchange, chain) -> {
+            ServerHttpRequest request = exchange.getRequest();
+            if (request.getMethod() != HttpMethod.GET) {
+                return chain.filter(exchange);
+            }
+
+            String key = ResponseCache.keyOf(request.getURI());
+            String ifNoneMatch = request.getHeaders().getFirst(HttpHeaders.IF_NONE_MATCH);
+
+            CachedResponse cached = responseCache.get(key);
+            if (cached != null) {
+                return writeCached(exchange.getResponse(), cached, ifNoneMatch);
+            }
+
+            responseCache.recordMiss();
+            long generation = responseCache.currentGeneration();
+            ServerHttpResponse capturing = new CapturingResponse(exchange.getResponse(), key, ifNoneMatch, generation);
+            return chain.filter(exchange.mutate().response(capturing).build());
+        };
+        return new OrderedGatewayFilter(filter, NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1);
+    }
+
+    private Mono<Void> writeCached(ServerHttpResponse response, CachedResponse cached, String ifNoneMatch) {
+        boolean notModified = ResponseCache.matches(ifNoneMatch, cached.getEtag());
+        if (notModified) {
+            responseCache.recordNotModified(cached.getBody().length);
+        } else {
+            responseCache.recordHit(cached.getBody().length);
+        }
+        return write(response, cached, notModified, "HIT");
+    }
+
+    /**
+     * Answers with an entry that may be past its ttl, for when the backend cannot be used.
+     */
+    public Mono<Void> writeStale(ServerWebExchange exchange, CachedResponse stale) {
+        responseCache.recordStale();
+        String ifNoneMatch = exchange.getRequest().getHeaders().getFirst(HttpHeaders.IF_NONE_MATCH);
+        return write(exchange.getResponse(), stale, ResponseCache.matches(ifNoneMatch, stale.getEtag()), "STALE");
+    }
+
+    private Mono<Void> write(ServerHttpResponse response, CachedResponse cached, boolean notModified, String cacheStatus) {
+        HttpHeaders headers = response.getHeaders();
+        headers.setETag(cached.getEtag());
+        headers.setCacheControl("no-cache");
+        headers.set("X-Cache", cacheStatus);
+
+        if (notModified) {
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            return response.setComplete();
+        }
+
+        response.setStatusCode(HttpStatus.OK);
+        if (cached.getContentType() != null) {
+            headers.set(HttpHeaders.CONTENT_TYPE, cached.getContentType());
+        }
+        headers.setContentLength(cached.getBody().length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(cached.getBody())));
+    }
+
+    private class CapturingResponse extends ServerHttpResponseDecorator {
+
+        private final String key;
+        private final String ifNoneMatch;
+        private final long generation;
+
+        CapturingResponse(ServerHttpResponse delegate, String key, String ifNoneMatch, long generation) {
+            super(delegate);
+            this.key = key;
+            this.ifNoneMatch = ifNoneMatch;
+            this.generation = generation;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            if (!isCacheable()) {
+                return super.writeWith(body);
+            }
+
+            return DataBufferUtils.join(Flux.from(body)).flatMap(joined -> {
+                byte[] bytes = new byte[joined.readableByteCount()];
+                joined.read(bytes);
+                DataBufferUtils.release(joined);
+
+                String etag = ResponseCache.etag(bytes);
+                HttpHeaders headers = getHeaders();
+                headers.setETag(etag);
+                // Backend security headers say no-store on everything; let clients keep and revalidate
+                headers.setCacheControl("no-cache");
+                headers.remove(HttpHeaders.PRAGMA);
+                headers.remove(HttpHeaders.EXPIRES);
+                headers.set("X-Cache", "MISS");
+
+                if (responseCache.isCacheable(bytes.length)) {
+                    responseCache.put(key, new CachedResponse(bytes, headers.getFirst(HttpHeaders.CONTENT_TYPE), etag), generation);
+                }
+
+                if (ResponseCache.matches(ifNoneMatch, etag)) {
+                    responseCache.recordBytesSaved(bytes.length);
+                    setStatusCode(HttpStatus.NOT_MODIFIED);
+                    headers.remove(HttpHeaders.CONTENT_LENGTH);
+                    return getDelegate().setComplete();
+                }
+                return getDelegate().writeWith(Mono.just(bufferFactory().wrap(bytes)));
+            });
+        }
+
+        private boolean isCacheable() {
+            HttpStatusCode status = getStatusCode();
+            // X-Cache is already set when a stale entry is being written back
+            if (status == null || status.value() != HttpStatus.OK.value()
+                    || getHeaders().containsKey(HttpHeaders.SET_COOKIE) || getHeaders().containsKey("X-Cache")) {
+                return false;
+            }
+            // Skip buffering bodies that are known up front to be too large to keep
+            long contentLength = getHeaders().getContentLength();
+            return contentLength < 0 || (contentLength <= Integer.MAX_VALUE && responseCache.isCacheable((int) contentLength));
+        }
+    }
+
+    public static class Config {
+    }
+}
@@ -0,0 +1,63 @@
+package com.globetrotter.globetrottergateway.filter;
+
+import com.globetrotter.globetrottergateway.cache.ResponseCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Purges cached public responses under the configured path prefixes once a
+ * write on the route has succeeded. Reads on the same route leave the cache alone.
+ */
+@Slf4j
+@Component
+public class ResponseCachePurgeFilter extends AbstractGatewayFilterFactory<ResponseCachePurgeFilter.Config> {
+
+    @Autowired
+    private ResponseCache responseCache;
+
+    public ResponseCachePurgeFilter() {
+        super(Config.class);
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        List<String> prefixes = Arrays.stream(config.getPrefixes().split(","))
+                .map(String::trim)
+                .filter(prefix -> !prefix.isEmpty())
+                .toList();
+
+        return (exchange, chain) -> chain.filter(exchange).then(Mono.fromRunnable(() -> {
+            HttpMethod method = exchange.getRequest().getMethod();
+            if (HttpMethod.GET.equals(method) || HttpMethod.HEAD.equals(method)) {
+                return;
+            }
+            HttpStatusCode status = exchange.getResponse().getStatusCode();
+            if (status != null && status.is2xxSuccessful()) {
+                log.debug("Purging cached responses under {} after {} {}",
+                        prefixes, method, exchange.getRequest().getPath());
+                responseCache.purge(prefixes);
+            }
+        }));
+    }
+
+    public static class Config {
+        private String prefixes = "";
+
+        public String getPrefixes() {
+            return prefixes;
+        }
+
+        public void setPrefixes(String prefixes) {
+            this.prefixes = prefixes;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.globetrotter.globetrottergateway.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-key token bucket, implemented as GCRA: each key holds one {@link AtomicLong}
+ * with the theoretical arrival time of its next request, advanced by CAS. A bucket
+ * of {@code limit} permits refilled evenly over {@code period} behaves exactly like
+ * that state, with no separate counter and reset time to race on.
+ * <p>
+ * Keys live in a Caffeine map with a hard size cap and idle eviction. As long as the
+ * idle TTL is at least the period, an evicted key's bucket was already full, so
+ * eviction never hands out extra permits.
+ */
+public class RateLimiter {
+
+    // Sentinel for a bucket nobody has drawn from yet; max() with any clock reading wins
+    private static final long FRESH = Long.MIN_VALUE;
+
+    private final Cache<String, AtomicLong> buckets;
+    private final LongSupplier nanoClock;
+
+    public RateLimiter(long maxKeys, Duration idleTtl) {
+        this(maxKeys, idleTtl, System::nanoTime);
+    }
+
+    public RateLimiter(long maxKeys, Duration idleTtl, LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(idleTtl)
+                .ticker(nanoClock::getAsLong)
+                .recordStats()
+                .build();
+    }
+
+    public Decision tryAcquire(String key, int limit, Duration period) {
+        if (limit <= 0) {
+            return new Decision(false, 0, period.toSeconds());
+        }
+
+        long interval = Math.max(1, period.toNanos() / limit);
+        long burst = interval * limit;
+        AtomicLong state = buckets.get(key, k -> new AtomicLong(FRESH));
+
+        while (true) {
+            long now = nanoClock.getAsLong();
+            long tat = state.get();
+            long next = Math.max(tat, now) + interval;
+            long debt = next - now;
+
+            if (debt > burst) {
+                long waitNanos = debt - burst;
+                return new Decision(false, 0, Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L)));
+            }
+            if (state.compareAndSet(tat, next)) {
+                return new Decision(true, (burst - debt) / interval, 0);
+            }
+        }
+    }
+
+    public long trackedKeys() {
+        return buckets.estimatedSize();
+    }
+
+    public Cache<String, AtomicLong> getBuckets() {
+        return buckets;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static final class Decision {
+
+        private final boolean allowed;
+        private final long remaining;
+        private final long retryAfterSeconds;
+    }
+}
@@ -0,0 +1,82 @@
+package com.globetrotter.globetrottergateway.resilience;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Circuit breaker and bulkhead settings, keyed by route id. Routes without an entry use
+ * {@code defaults}; an entry only changes the fields it sets.
+ */
+@Data
+@ConfigurationProperties(prefix = "gateway.resilience")
+public class ResilienceProperties {
+
+    private Policy defaults = new Policy();
+
+    private Map<String, Overrides> routes = new LinkedHashMap<>();
+
+    public Policy policyFor(String routeId) {
+        Overrides route = routes.get(routeId);
+        return route == null ? defaults : route.applyTo(defaults);
+    }
+
+    @Data
+    public static class Policy {
+
+        // Calls in flight to the route before further calls are turned away
+        private int maxConcurrentCalls = 100;
+
+        // The breaker judges the most recent calls, once at least minimumCalls have been made
+        private int slidingWindowSize = 50;
+
+        private int minimumCalls = 20;
+
+        // Percentage of failed (error or 5xx) calls that opens the breaker
+        private float failureRateThreshold = 50;
+
+        // Percentage of calls slower than slowCallDuration that opens the breaker
+        private float slowCallRateThreshold = 80;
+
+        private Duration slowCallDuration = Duration.ofSeconds(2);
+
+        private Duration openDuration = Duration.ofSeconds(10);
+
+        // Trial calls let through after openDuration to decide whether to close again
+        private int halfOpenCalls = 5;
+    }
+
+    /**
+     * A route's entry: the {@link Policy} fields it sets, the rest left unset to follow the defaults.
+     */
+    @Data
+    public static class Overrides {
+
+        private Integer maxConcurrentCalls;
+        private Integer slidingWindowSize;
+        private Integer minimumCalls;
+        private Float failureRateThreshold;
+        private Float slowCallRateThreshold;
+        private Duration slowCallDuration;
+        private Duration openDuration;
+        private Integer halfOpenCalls;
+
+        Policy applyTo(Policy defaults) {
+            Policy policy = new Policy();
+            policy.setMaxConcurrentCalls(maxConcurrentCalls != null ? maxConcurrentCalls : defaults.getMaxConcurrentCalls());
+            policy.setSlidingWindowSize(slidingWindowSize != null ? slidingWindowSize : defaults.getSlidingWindowSize());
+            policy.setMinimumCalls(minimumCalls != null ? minimumCalls : defaults.getMinimumCalls());
+            policy.setFailureRateThreshold(failureRateThreshold != null
+                    ? failureRateThreshold : defaults.getFailureRateThreshold());
+            policy.setSlowCallRateThreshold(slowCallRateThreshold != null
+                    ? slowCallRateThreshold : defaults.getSlowCallRateThreshold());
+            policy.setSlowCallDuration(slowCallDuration != null ? slowCallDuration : defaults.getSlowCallDuration());
+            policy.setOpenDuration(openDuration != null ? openDuration : defaults.getOpenDuration());
+            policy.setHalfOpenCalls(halfOpenCalls != null ? halfOpenCalls : defaults.getHalfOpenCalls());
+            return policy;
+        }
+    }
+}
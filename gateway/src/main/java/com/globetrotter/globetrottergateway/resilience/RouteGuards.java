@@ -0,0 +1,85 @@
+package com.globetrotter.globetrottergateway.resilience;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatusCode;
+
+import java.time.Duration;
+
+/**
+ * One circuit breaker and one bulkhead per route id, created on first use.
+ * <p>
+ * Besides the Resilience4j meters ({@code resilience4j.circuitbreaker.*} and
+ * {@code resilience4j.bulkhead.*}, tagged {@code name=<route id>}), every state change
+ * counts towards {@code gateway.circuitbreaker.transitions} with the route and both states.
+ */
+public class RouteGuards {
+
+    private static final Logger log = LoggerFactory.getLogger(RouteGuards.class);
+
+    private final ResilienceProperties properties;
+    private final CircuitBreakerRegistry circuitBreakers = CircuitBreakerRegistry.ofDefaults();
+    private final BulkheadRegistry bulkheads = BulkheadRegistry.ofDefaults();
+
+    public RouteGuards(ResilienceProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(circuitBreakers).bindTo(meterRegistry);
+        TaggedBulkheadMetrics.ofBulkheadRegistry(bulkheads).bindTo(meterRegistry);
+
+        circuitBreakers.getEventPublisher().onEntryAdded(added -> {
+            CircuitBreaker circuitBreaker = added.getAddedEntry();
+            circuitBreaker.getEventPublisher().onStateTransition(event -> {
+                CircuitBreaker.StateTransition transition = event.getStateTransition();
+                log.warn("Circuit breaker for route {} went from {} to {}", circuitBreaker.getName(),
+                        transition.getFromState(), transition.getToState());
+                meterRegistry.counter("gateway.circuitbreaker.transitions", "route", circuitBreaker.getName(),
+                        "from", transition.getFromState().name(), "to", transition.getToState().name()).increment();
+            });
+        });
+    }
+
+    public CircuitBreaker circuitBreaker(String routeId) {
+        return circuitBreakers.circuitBreaker(routeId, () -> circuitBreakerConfig(properties.policyFor(routeId)));
+    }
+
+    public Bulkhead bulkhead(String routeId) {
+        return bulkheads.bulkhead(routeId, () -> bulkheadConfig(properties.policyFor(routeId)));
+    }
+
+    public Duration openDuration(String routeId) {
+        return properties.policyFor(routeId).getOpenDuration();
+    }
+
+    private static CircuitBreakerConfig circuitBreakerConfig(ResilienceProperties.Policy policy) {
+        return CircuitBreakerConfig.custom()
+                .slidingWindow(policy.getSlidingWindowSize(), policy.getMinimumCalls(),
+                        CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
+                .failureRateThreshold(policy.getFailureRateThreshold())
+                .slowCallRateThreshold(policy.getSlowCallRateThreshold())
+                .slowCallDurationThreshold(policy.getSlowCallDuration())
+                .waitDurationInOpenState(policy.getOpenDuration())
+                .permittedNumberOfCallsInHalfOpenState(policy.getHalfOpenCalls())
+                // Results are the response status; a 5xx is a failure even though the call completed
+                .recordResult(result -> result instanceof HttpStatusCode status && status.is5xxServerError())
+                .writableStackTraceEnabled(false)
+                .build();
+    }
+
+    private static BulkheadConfig bulkheadConfig(ResilienceProperties.Policy policy) {
+        // Never wait for a permit: acquiring happens on the event loop
+        return BulkheadConfig.custom()
+                .maxConcurrentCalls(policy.getMaxConcurrentCalls())
+                .maxWaitDuration(Duration.ZERO)
+                .writableStackTraceEnabled(false)
+                .build();
+    }
+}
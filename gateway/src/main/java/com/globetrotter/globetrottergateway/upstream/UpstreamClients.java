@@ -0,0 +1,127 @@
+package com.globetrotter.globetrottergateway.upstream;
+
+import io.netty.channel.ChannelOption;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.cloud.gateway.config.HttpClientCustomizer;
+import org.springframework.cloud.gateway.config.HttpClientFactory;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.config.HttpClientSslConfigurer;
+import org.springframework.cloud.gateway.route.Route;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * One {@link HttpClient} per {@link UpstreamProperties} profile, each with its own connection
+ * pool, so a burst on one kind of route cannot take the connections of another. The clients
+ * are otherwise configured like the gateway's own (SSL, proxy, header limits, customizers).
+ * <p>
+ * Pools publish the Reactor Netty metrics under {@code reactor.netty.connection.provider.*},
+ * tagged {@code name=upstream-<profile>}: active, idle, pending and total connections, and
+ * the {@code pending.connections.time} timer of how long acquires waited when none was free.
+ */
+public class UpstreamClients implements DisposableBean {
+
+    public static final String PROFILE_METADATA = "upstream-profile";
+    public static final String POOL_PREFIX = "upstream-";
+
+    private static final Logger log = LoggerFactory.getLogger(UpstreamClients.class);
+
+    // Reactor Netty ships reactor-pool shaded, so its exceptions are matched by name
+    private static final Set<String> POOL_EXHAUSTED = Set.of(
+            "PoolAcquirePendingLimitException", "PoolAcquireTimeoutException");
+
+    private final Map<String, HttpClient> clients = new LinkedHashMap<>();
+    private final Map<String, ConnectionProvider> pools = new LinkedHashMap<>();
+
+    public UpstreamClients(UpstreamProperties properties, HttpClientProperties httpClientProperties,
+                           ServerProperties serverProperties, HttpClientSslConfigurer sslConfigurer,
+                           List<HttpClientCustomizer> customizers) {
+        Map<String, UpstreamProperties.Profile> profiles = new LinkedHashMap<>(properties.getProfiles());
+        profiles.putIfAbsent(UpstreamProperties.DEFAULT_PROFILE, new UpstreamProperties.Profile());
+        profiles.forEach((name, profile) -> {
+            ProfileClientFactory factory = new ProfileClientFactory(name, profile, httpClientProperties,
+                    serverProperties, sslConfigurer, customizers);
+            clients.put(name, factory.build());
+            pools.put(name, factory.pool);
+        });
+    }
+
+    public HttpClient get(String profile) {
+        HttpClient client = clients.get(profile);
+        if (client == null) {
+            throw new IllegalArgumentException("Unknown upstream profile: " + profile);
+        }
+        return client;
+    }
+
+    public HttpClient forRoute(Route route) {
+        Object profile = route.getMetadata().get(PROFILE_METADATA);
+        if (profile == null) {
+            return clients.get(UpstreamProperties.DEFAULT_PROFILE);
+        }
+        HttpClient client = clients.get(profile.toString());
+        if (client == null) {
+            log.warn("Route {} names unknown upstream profile {}, using {}", route.getId(), profile,
+                    UpstreamProperties.DEFAULT_PROFILE);
+            return clients.get(UpstreamProperties.DEFAULT_PROFILE);
+        }
+        return client;
+    }
+
+    // A profile's pool turned the request away: too many already waiting, or the wait ran out
+    public static boolean isPoolExhausted(Throwable ex) {
+        return POOL_EXHAUSTED.contains(ex.getClass().getSimpleName());
+    }
+
+    @Override
+    public void destroy() {
+        pools.values().forEach(pool -> pool.disposeLater().block(Duration.ofSeconds(5)));
+    }
+
+    // Reuses the gateway's client setup and swaps in the profile's pool and protocol settings
+    private static final class ProfileClientFactory extends HttpClientFactory {
+
+        private final String name;
+        private final UpstreamProperties.Profile profile;
+        private ConnectionProvider pool;
+
+        ProfileClientFactory(String name, UpstreamProperties.Profile profile, HttpClientProperties properties,
+                             ServerProperties serverProperties, HttpClientSslConfigurer sslConfigurer,
+                             List<HttpClientCustomizer> customizers) {
+            super(properties, serverProperties, sslConfigurer, customizers);
+            this.name = name;
+            this.profile = profile;
+        }
+
+        HttpClient build() {
+            return createInstance()
+                    .protocol(profile.isH2c() ? HttpProtocol.H2C : HttpProtocol.HTTP11)
+                    .keepAlive(profile.isKeepAlive())
+                    .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) profile.getConnectTimeout().toMillis());
+        }
+
+        @Override
+        protected ConnectionProvider buildConnectionProvider(HttpClientProperties properties) {
+            ConnectionProvider.Builder builder = ConnectionProvider.builder(POOL_PREFIX + name)
+                    .maxConnections(profile.getMaxConnections())
+                    .pendingAcquireMaxCount(profile.getPendingAcquireMaxCount())
+                    .pendingAcquireTimeout(profile.getPendingAcquireTimeout())
+                    .maxIdleTime(profile.getMaxIdleTime())
+                    .maxLifeTime(profile.getMaxLifeTime())
+                    .evictInBackground(profile.getEvictInBackground())
+                    .metrics(true);
+            pool = (profile.isLifo() ? builder.lifo() : builder.fifo()).build();
+            return pool;
+        }
+    }
+}
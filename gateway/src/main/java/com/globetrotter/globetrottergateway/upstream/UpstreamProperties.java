@@ -0,0 +1,50 @@
+package com.globetrotter.globetrottergateway.upstream;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Named HTTP client profiles for calls to the backend. A route picks one with its
+ * {@code upstream-profile} metadata; routes without it use {@value #DEFAULT_PROFILE}.
+ */
+@Data
+@ConfigurationProperties(prefix = "gateway.upstream")
+public class UpstreamProperties {
+
+    public static final String DEFAULT_PROFILE = "default";
+
+    private Map<String, Profile> profiles = new LinkedHashMap<>();
+
+    @Data
+    public static class Profile {
+
+        // Connections per backend address
+        private int maxConnections = 200;
+
+        // Requests allowed to wait for a connection; beyond that they fail at once
+        private int pendingAcquireMaxCount = 400;
+
+        private Duration pendingAcquireTimeout = Duration.ofSeconds(2);
+
+        // Below the backend's keep-alive timeout, so the gateway closes idle connections before the backend does
+        private Duration maxIdleTime = Duration.ofSeconds(15);
+
+        private Duration maxLifeTime = Duration.ofMinutes(5);
+
+        private Duration evictInBackground = Duration.ofSeconds(30);
+
+        private Duration connectTimeout = Duration.ofSeconds(2);
+
+        private boolean keepAlive = true;
+
+        // HTTP/2 over cleartext with prior knowledge; the backend must accept it
+        private boolean h2c = false;
+
+        // Reuse the most recently released connection so the surplus goes idle and is evicted
+        private boolean lifo = true;
+    }
+}
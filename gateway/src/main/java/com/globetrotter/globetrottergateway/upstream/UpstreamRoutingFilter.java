@@ -0,0 +1,41 @@
+package com.globetrotter.globetrottergateway.upstream;
+
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.filter.NettyRoutingFilter;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.netty.http.client.HttpClient;
+
+import java.util.List;
+
+import static org.springframework.cloud.gateway.support.RouteMetadataUtils.CONNECT_TIMEOUT_ATTR;
+
+/**
+ * The gateway's routing filter, sending each route through the client of its upstream
+ * profile. Replaces the stock {@link NettyRoutingFilter}, which is disabled in
+ * application.yml so requests are not forwarded twice.
+ */
+public class UpstreamRoutingFilter extends NettyRoutingFilter {
+
+    private final UpstreamClients clients;
+
+    public UpstreamRoutingFilter(HttpClient httpClient, ObjectProvider<List<HttpHeadersFilter>> headersFilters,
+                                 HttpClientProperties properties, UpstreamClients clients) {
+        super(httpClient, headersFilters, properties);
+        this.clients = clients;
+    }
+
+    @Override
+    protected HttpClient getHttpClient(Route route, ServerWebExchange exchange) {
+        HttpClient client = clients.forRoute(route);
+        // The per-route connect-timeout metadata still wins over the profile
+        Object connectTimeout = route.getMetadata().get(CONNECT_TIMEOUT_ATTR);
+        if (connectTimeout != null) {
+            client = client.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, Integer.parseInt(connectTimeout.toString()));
+        }
+        return client;
+    }
+}
@@ -0,0 +1,54 @@
+package com.globetrotter.globetrottergateway.util;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Base64;
+
+/**
+ * Signs the identity headers sent to the backend, and the time they were sent, with a
+ * secret only the gateway and the backend hold. The backend ignores identity headers
+ * without a valid, recent signature, so they cannot be forged by calling it directly
+ * or replayed later.
+ */
+@Component
+public class GatewaySignature {
+
+    public static final String HEADER = "X-Gateway-Signature";
+
+    public static final String ISSUED_AT_HEADER = "X-Gateway-Signed-At";
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    // Keyed once and cloned per call, since Mac instances are not thread-safe
+    private final Mac prototype;
+
+    public GatewaySignature(@Value("${gateway.identity.secret}") String secret) {
+        try {
+            prototype = Mac.getInstance(ALGORITHM);
+            prototype.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 is not available", e);
+        }
+    }
+
+    // Must match the backend's GatewaySignature: header values joined by newlines, a missing one as empty
+    public String sign(String username, String userId, String roles, long issuedAt) {
+        String payload = username + "\n" + (userId != null ? userId : "") + "\n" + (roles != null ? roles : "")
+                + "\n" + issuedAt;
+        byte[] digest = mac().doFinal(payload.getBytes(StandardCharsets.UTF_8));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+    }
+
+    private Mac mac() {
+        try {
+            return (Mac) prototype.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException("HMAC-SHA256 provider does not support cloning", e);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.globetrotter.globetrottergateway.util;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * The parts of a verified token the gateway forwards downstream. Instances are
+ * shared through the claims cache, so they are immutable.
+ */
+@Getter
+@AllArgsConstructor
+public final class JwtClaims {
+
+    private final Long userId;
+    private final String username;
+    private final List<String> roles;
+    private final Instant expiresAt;
+
+    public boolean isExpired(Instant now) {
+        return expiresAt != null && !expiresAt.isAfter(now);
+    }
+}
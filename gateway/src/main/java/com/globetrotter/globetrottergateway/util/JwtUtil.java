@@ -1,15 +1,27 @@
 package com.globetrotter.globetrottergateway.util;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
 import java.util.Date;
 import java.util.List;
 
@@ -18,70 +30,140 @@ public class JwtUtil {
 
     private static final Logger log = LoggerFactory.getLogger(JwtUtil.class);
 
+    private static final List<String> DEFAULT_ROLES = List.of("ROLE_CUSTOMER");
+
     @Value("${jwt.secret}")
     private String jwtSecret;
 
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = jwtSecret.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+    @Value("${jwt.cache.max-size:10000}")
+    private long cacheMaxSize;
+
+    // Entries expire with their token, but never later than this (also the TTL for tokens without exp)
+    @Value("${jwt.cache.max-ttl:1h}")
+    private Duration cacheMaxTtl;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private JwtParser parser;
+
+    // Verified claims keyed by SHA-256 of the raw token, each entry expiring with its token
+    private Cache<String, JwtClaims> claimsCache;
+
+    @PostConstruct
+    void init() {
+        parser = Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8)))
+                .build();
+
+        claimsCache = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfter(new ExpireWithToken(cacheMaxTtl))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, claimsCache, "jwtClaims");
     }
 
-    public boolean validateToken(String token) {
+    /**
+     * Verifies the token and returns its claims, or null when the token is malformed,
+     * badly signed or expired. Repeat calls for the same token are served from cache
+     * until the token's expiry, so the signature is checked once per token.
+     */
+    public JwtClaims parseClaims(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+
+        String key = hash(token);
+        JwtClaims cached = claimsCache.getIfPresent(key);
+        if (cached != null) {
+            if (!cached.isExpired(Instant.now())) {
+                return cached;
+            }
+            claimsCache.invalidate(key);
+        }
+
         try {
-            Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token);
-            return true;
+            Claims claims = parser.parseSignedClaims(token).getPayload();
+            JwtClaims parsed = toJwtClaims(claims);
+            claimsCache.put(key, parsed);
+            return parsed;
         } catch (Exception e) {
             log.error("JWT validation failed: {}", e.getMessage());
-            return false;
+            return null;
         }
     }
 
+    public boolean validateToken(String token) {
+        return parseClaims(token) != null;
+    }
+
     public String getUsernameFromToken(String token) {
-        try {
-            Claims claims = Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
-            return claims.getSubject();
-        } catch (Exception e) {
-            log.error("Error extracting username from token: {}", e.getMessage());
-            return null;
-        }
+        JwtClaims claims = parseClaims(token);
+        return claims != null ? claims.getUsername() : null;
     }
 
     public List<String> getRolesFromToken(String token) {
-        try {
-            Claims claims = Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
+        JwtClaims claims = parseClaims(token);
+        return claims != null ? claims.getRoles() : DEFAULT_ROLES;
+    }
 
-            // Roles are stored as a list in the JWT
-            @SuppressWarnings("unchecked")
-            List<String> roles = (List<String>) claims.get("roles");
+    public boolean isTokenExpired(String token) {
+        return parseClaims(token) == null;
+    }
 
-            return roles != null ? roles : List.of("ROLE_CUSTOMER");
-        } catch (Exception e) {
-            log.error("Error extracting roles from token: {}", e.getMessage());
-            return List.of("ROLE_CUSTOMER");
-        }
+    private JwtClaims toJwtClaims(Claims claims) {
+        // Roles are stored as a list in the JWT
+        @SuppressWarnings("unchecked")
+        List<String> roles = (List<String>) claims.get("roles");
+
+        Date expiration = claims.getExpiration();
+        return new JwtClaims(
+                claims.get("userId", Long.class),
+                claims.getSubject(),
+                roles != null && !roles.isEmpty() ? List.copyOf(roles) : DEFAULT_ROLES,
+                expiration != null ? expiration.toInstant() : null
+        );
     }
 
-    public boolean isTokenExpired(String token) {
+    private static String hash(String token) {
         try {
-            Claims claims = Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
-            return claims.getExpiration().before(new Date());
-        } catch (Exception e) {
-            return true;
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static final class ExpireWithToken implements Expiry<String, JwtClaims> {
+
+        private final Duration maxTtl;
+
+        ExpireWithToken(Duration maxTtl) {
+            this.maxTtl = maxTtl;
+        }
+
+        @Override
+        public long expireAfterCreate(String key, JwtClaims value, long currentTime) {
+            if (value.getExpiresAt() == null) {
+                return maxTtl.toNanos();
+            }
+            Duration untilExpiry = Duration.between(Instant.now(), value.getExpiresAt());
+            if (untilExpiry.isNegative()) {
+                return 0;
+            }
+            return untilExpiry.compareTo(maxTtl) < 0 ? untilExpiry.toNanos() : maxTtl.toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, JwtClaims value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, JwtClaims value, long currentTime, long currentDuration) {
+            return currentDuration;
         }
     }
-}
\ No newline at end of file
+}
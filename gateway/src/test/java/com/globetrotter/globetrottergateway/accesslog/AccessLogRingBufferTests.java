@@ -0,0 +1,206 @@
+package com.globetrotter.globetrottergateway.accesslog;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AccessLogRingBufferTests {
+
+    private static final int PRODUCERS = 8;
+    private static final int PER_PRODUCER = 50_000;
+
+    @Test
+    void capacityRoundsUpToAPowerOfTwo() {
+        assertEquals(4, new AccessLogRingBuffer<>(1).capacity());
+        assertEquals(4, new AccessLogRingBuffer<>(4).capacity());
+        assertEquals(8, new AccessLogRingBuffer<>(5).capacity());
+        assertEquals(8, new AccessLogRingBuffer<>(8).capacity());
+        assertEquals(16, new AccessLogRingBuffer<>(9).capacity());
+        assertEquals(8192, new AccessLogRingBuffer<>(8192).capacity());
+    }
+
+    @Test
+    void itemsComeOutInOrderAcrossManyWraps() {
+        AccessLogRingBuffer<Integer> buffer = new AccessLogRingBuffer<>(4);
+        int next = 0;
+        int expected = 0;
+        // Uneven batches so the head and tail cross the end of the ring at different slots
+        for (int round = 0; round < 100; round++) {
+            for (int i = 0; i < 1 + round % 4; i++) {
+                assertTrue(buffer.offer(next++));
+            }
+            assertEquals(1 + round % 4, buffer.size());
+            for (Integer item = buffer.poll(); item != null; item = buffer.poll()) {
+                assertEquals(expected++, item);
+            }
+        }
+        assertEquals(next, expected);
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    void aFullRingRejectsUntilSomethingIsTaken() {
+        AccessLogRingBuffer<Integer> buffer = new AccessLogRingBuffer<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer(i));
+        }
+        assertFalse(buffer.offer(4));
+        assertEquals(4, buffer.size());
+
+        assertEquals(0, buffer.poll());
+        assertTrue(buffer.offer(5));
+        assertFalse(buffer.offer(6));
+        assertEquals(List.of(1, 2, 3, 5), drain(buffer));
+        assertNull(buffer.poll());
+    }
+
+    @Test
+    void theWriterCountsDropsButNotSampledOutEntries() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        AccessLogWriter writer = new AccessLogWriter();
+        ReflectionTestUtils.setField(writer, "successSampleRate", 0.0);
+        ReflectionTestUtils.setField(writer, "buffer", new AccessLogRingBuffer<AccessLogEntry>(4));
+        ReflectionTestUtils.setField(writer, "dropped", registry.counter("gateway.accesslog.dropped"));
+
+        assertFalse(writer.submit(entry(200)));
+        for (int i = 0; i < 4; i++) {
+            assertTrue(writer.submit(entry(500)));
+        }
+        assertFalse(writer.submit(entry(502)));
+        assertFalse(writer.submit(entry(404)));
+        assertFalse(writer.submit(entry(204)));
+
+        assertEquals(2, registry.counter("gateway.accesslog.dropped").count());
+    }
+
+    // Producers retry when full, so everything they offer must reach the consumer exactly once and in order
+    @Test
+    void concurrentProducersLoseAndDuplicateNothing() throws Exception {
+        AccessLogRingBuffer<Long> buffer = new AccessLogRingBuffer<>(64);
+        ExecutorService executor = Executors.newFixedThreadPool(PRODUCERS + 1);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> producers = new ArrayList<>();
+            for (int p = 0; p < PRODUCERS; p++) {
+                long producer = p;
+                producers.add(executor.submit(() -> {
+                    start.await();
+                    for (long i = 0; i < PER_PRODUCER; i++) {
+                        while (!buffer.offer(producer * PER_PRODUCER + i)) {
+                            Thread.yield();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            Future<long[]> consumer = executor.submit(() -> {
+                long[] nextPerProducer = new long[PRODUCERS];
+                long received = 0;
+                while (received < (long) PRODUCERS * PER_PRODUCER) {
+                    Long item = buffer.poll();
+                    if (item == null) {
+                        Thread.yield();
+                        continue;
+                    }
+                    int producer = (int) (item / PER_PRODUCER);
+                    // Anything but the next value means a record was lost, repeated or reordered
+                    assertEquals(nextPerProducer[producer], item % PER_PRODUCER, "producer " + producer);
+                    nextPerProducer[producer]++;
+                    received++;
+                }
+                return nextPerProducer;
+            });
+
+            start.countDown();
+            // The consumer first: if it fails, producers waiting on a full ring never finish
+            for (long count : consumer.get(60, TimeUnit.SECONDS)) {
+                assertEquals(PER_PRODUCER, count);
+            }
+            for (Future<?> producer : producers) {
+                producer.get(60, TimeUnit.SECONDS);
+            }
+            assertNull(buffer.poll());
+            assertEquals(0, buffer.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // Producers give up when full; the consumer must see exactly what was accepted, and offered = accepted + dropped
+    @Test
+    void concurrentDropsAreAccountedFor() throws Exception {
+        AccessLogRingBuffer<Long> buffer = new AccessLogRingBuffer<>(16);
+        AtomicBoolean producing = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newFixedThreadPool(PRODUCERS + 1);
+        try {
+            List<Future<boolean[]>> producers = new ArrayList<>();
+            for (int p = 0; p < PRODUCERS; p++) {
+                long producer = p;
+                producers.add(executor.submit(() -> {
+                    boolean[] accepted = new boolean[PER_PRODUCER];
+                    for (int i = 0; i < PER_PRODUCER; i++) {
+                        accepted[i] = buffer.offer(producer * PER_PRODUCER + i);
+                    }
+                    return accepted;
+                }));
+            }
+            Future<boolean[]> consumer = executor.submit(() -> {
+                boolean[] seen = new boolean[PRODUCERS * PER_PRODUCER];
+                while (producing.get() || buffer.size() > 0) {
+                    Long item = buffer.poll();
+                    if (item == null) {
+                        Thread.yield();
+                        continue;
+                    }
+                    assertFalse(seen[item.intValue()], "duplicate " + item);
+                    seen[item.intValue()] = true;
+                }
+                return seen;
+            });
+
+            List<boolean[]> accepted = new ArrayList<>();
+            for (Future<boolean[]> producer : producers) {
+                accepted.add(producer.get(60, TimeUnit.SECONDS));
+            }
+            producing.set(false);
+            boolean[] seen = consumer.get(60, TimeUnit.SECONDS);
+
+            long dropped = 0;
+            for (int p = 0; p < PRODUCERS; p++) {
+                for (int i = 0; i < PER_PRODUCER; i++) {
+                    assertEquals(accepted.get(p)[i], seen[p * PER_PRODUCER + i], "producer " + p + " item " + i);
+                    dropped += accepted.get(p)[i] ? 0 : 1;
+                }
+            }
+            assertTrue(dropped > 0, "a ring of 16 should have filled up");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static List<Integer> drain(AccessLogRingBuffer<Integer> buffer) {
+        List<Integer> items = new ArrayList<>();
+        for (Integer item = buffer.poll(); item != null; item = buffer.poll()) {
+            items.add(item);
+        }
+        return items;
+    }
+
+    private static AccessLogEntry entry(int status) {
+        return new AccessLogEntry(0L, "GET", "/api/products", "product-service", status, 1L, null, "127.0.0.1", null);
+    }
+}
@@ -0,0 +1,268 @@
+package com.globetrotter.globetrottergateway.balancer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.server.HttpServer;
+
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * Balancing across local stub backends that answer after different delays.
+ */
+class BackendLoadBalancerTests {
+
+    private final List<Stub> stubs = new ArrayList<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final HttpClient client = HttpClient.create();
+    private BackendRegistry registry;
+    private BackendLoadBalancerFilter filter;
+
+    @AfterEach
+    void stop() {
+        if (registry != null) {
+            registry.destroy();
+        }
+        stubs.forEach(stub -> stub.server.disposeNow());
+    }
+
+    @Test
+    void fasterInstancesTakeMoreOfTheLoad() {
+        Stub fast = stub(5);
+        Stub medium = stub(25);
+        Stub slow = stub(100);
+        start(properties(fast, medium, slow));
+
+        Flux.range(0, 300)
+                .flatMap(i -> send(route(Map.of()), null), 6)
+                .blockLast(Duration.ofSeconds(30));
+
+        assertEquals(300, fast.requests.get() + medium.requests.get() + slow.requests.get());
+        assertTrue(fast.requests.get() > 150, "fast got " + fast.requests.get());
+        assertTrue(medium.requests.get() > slow.requests.get(),
+                "medium got " + medium.requests.get() + ", slow got " + slow.requests.get());
+
+        BackendInstance fastInstance = instanceOf(fast);
+        assertEquals(fast.requests.get(), meterRegistry.get("gateway.backend.requests")
+                .tags("instance", fastInstance.getId(), "outcome", "success").timer().count());
+        assertEquals(0.0, meterRegistry.get("gateway.backend.outstanding")
+                .tag("instance", fastInstance.getId()).gauge().value());
+        assertTrue(meterRegistry.get("gateway.backend.latency").tag("instance", instanceOf(slow).getId())
+                .gauge().value() > meterRegistry.get("gateway.backend.latency")
+                .tag("instance", fastInstance.getId()).gauge().value());
+    }
+
+    @Test
+    void unhealthyInstancesAreTakenOutAndPutBack() {
+        Stub first = stub(5);
+        Stub second = stub(5);
+        start(properties(first, second));
+
+        second.healthy.set(false);
+        registry.checkHealth().block();
+        assertTrue(instanceOf(second).isHealthy(), "one failed check is not enough");
+        registry.checkHealth().block();
+        assertFalse(instanceOf(second).isHealthy());
+
+        Flux.range(0, 40).flatMap(i -> send(route(Map.of()), null), 4).blockLast(Duration.ofSeconds(10));
+        assertEquals(0, second.requests.get());
+        assertEquals(0.0, meterRegistry.get("gateway.backend.healthy")
+                .tag("instance", instanceOf(second).getId()).gauge().value());
+
+        second.healthy.set(true);
+        registry.checkHealth().block();
+        registry.checkHealth().block();
+        assertTrue(instanceOf(second).isHealthy());
+        assertEquals(2, registry.candidates().size());
+    }
+
+    @Test
+    void failuresArePenalisedEvenWhenFast() {
+        Stub healthy = stub(20);
+        Stub failing = stub(0);
+        failing.status = HttpStatus.INTERNAL_SERVER_ERROR;
+        start(properties(healthy, failing));
+
+        Flux.range(0, 100).flatMap(i -> send(route(Map.of()), null), 4).blockLast(Duration.ofSeconds(10));
+
+        assertTrue(failing.requests.get() < 10, "failing got " + failing.requests.get());
+        assertEquals(failing.requests.get(), meterRegistry.get("gateway.backend.requests")
+                .tags("instance", instanceOf(failing).getId(), "outcome", "error").timer().count());
+    }
+
+    @Test
+    void usersStickToOneInstanceUntilItGoesDown() {
+        Stub a = stub(5);
+        Stub b = stub(5);
+        Stub c = stub(5);
+        start(properties(a, b, c));
+        Route sticky = route(Map.of(BackendLoadBalancerFilter.AFFINITY_METADATA, BackendLoadBalancerFilter.USER_AFFINITY));
+
+        Map<String, URI> placement = new HashMap<>();
+        for (int user = 0; user < 30; user++) {
+            String id = String.valueOf(user);
+            URI first = send(sticky, id).block();
+            for (int i = 0; i < 3; i++) {
+                assertEquals(first, send(sticky, id).block());
+            }
+            placement.put(id, first);
+        }
+        assertEquals(3, placement.values().stream().map(URI::getPort).distinct().count());
+
+        b.healthy.set(false);
+        registry.checkHealth().block();
+        registry.checkHealth().block();
+
+        int bPort = b.server.port();
+        placement.forEach((user, before) -> {
+            URI after = send(sticky, user).block();
+            if (before.getPort() == bPort) {
+                assertNotEquals(bPort, after.getPort());
+            } else {
+                assertEquals(before, after);
+            }
+        });
+    }
+
+    @Test
+    void instancesFileIsReloadedWhenItChanges(@TempDir Path dir) throws Exception {
+        Stub a = stub(5);
+        Stub b = stub(5);
+        Stub c = stub(5);
+        Path file = dir.resolve("backends.txt");
+        Files.writeString(file, "# local\n" + a.url() + "\n" + b.url() + "\n");
+        BackendProperties properties = properties(a);
+        properties.setInstancesFile(file.toString());
+        start(properties);
+
+        assertEquals(List.of(a.url(), b.url()), urls());
+        BackendInstance kept = instanceOf(a);
+        String dropped = instanceOf(b).getId();
+
+        Files.writeString(file, a.url() + "\n" + c.url() + "\n");
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().plusSeconds(5)));
+        registry.refresh();
+
+        assertEquals(List.of(a.url(), c.url()), urls());
+        assertSame(kept, instanceOf(a));
+        assertTrue(meterRegistry.find("gateway.backend.healthy").tag("instance", dropped).meters().isEmpty());
+    }
+
+    private void start(BackendProperties properties) {
+        registry = new BackendRegistry(properties, meterRegistry);
+        filter = new BackendLoadBalancerFilter(registry);
+    }
+
+    private BackendProperties properties(Stub... backends) {
+        BackendProperties properties = new BackendProperties();
+        properties.setInstances(new ArrayList<>(Arrays.stream(backends).map(Stub::url).toList()));
+        properties.setDecayTime(Duration.ofSeconds(2));
+        properties.setFailurePenalty(Duration.ofMillis(500));
+        return properties;
+    }
+
+    private List<String> urls() {
+        return registry.getInstances().stream().map(instance -> instance.getUri().toString()).toList();
+    }
+
+    private BackendInstance instanceOf(Stub stub) {
+        return registry.getInstances().stream()
+                .filter(instance -> instance.getUri().getPort() == stub.server.port())
+                .findFirst()
+                .orElseThrow();
+    }
+
+    // Runs one request through the filter, with a chain that forwards it like the routing filter would
+    private Mono<URI> send(Route route, String userId) {
+        MockServerHttpRequest.BaseBuilder<?> request = MockServerHttpRequest.get("/api/products");
+        if (userId != null) {
+            request.header("X-User-Id", userId);
+        }
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        exchange.getAttributes().put(GATEWAY_ROUTE_ATTR, route);
+        exchange.getAttributes().put(GATEWAY_REQUEST_URL_ATTR, URI.create("lb://backend/api/products"));
+
+        GatewayFilterChain chain = routed -> {
+            URI target = routed.getAttribute(GATEWAY_REQUEST_URL_ATTR);
+            return client.get().uri(target)
+                    .responseSingle((response, body) -> body.then(Mono.fromRunnable(() ->
+                            routed.getResponse().setStatusCode(HttpStatusCode.valueOf(response.status().code())))))
+                    .then();
+        };
+        return filter.filter(exchange, chain)
+                .then(Mono.fromSupplier(() -> (URI) exchange.getAttribute(GATEWAY_REQUEST_URL_ATTR)));
+    }
+
+    private static Route route(Map<String, Object> metadata) {
+        return Route.async()
+                .id("test")
+                .uri("lb://backend")
+                .predicate(exchange -> true)
+                .metadata(metadata)
+                .build();
+    }
+
+    private Stub stub(long delayMillis) {
+        Stub stub = new Stub(delayMillis);
+        stubs.add(stub);
+        return stub;
+    }
+
+    private static class Stub {
+
+        final AtomicInteger requests = new AtomicInteger();
+        final AtomicBoolean healthy = new AtomicBoolean(true);
+        volatile HttpStatus status = HttpStatus.OK;
+        final DisposableServer server;
+
+        Stub(long delayMillis) {
+            server = HttpServer.create()
+                    .port(0)
+                    .route(routes -> routes
+                            .get("/actuator/health", (request, response) -> healthy.get()
+                                    ? response.sendString(Mono.just("{\"status\":\"UP\"}"))
+                                    : response.status(503).sendString(Mono.just("{\"status\":\"DOWN\"}")))
+                            .get("/api/products", (request, response) -> {
+                                requests.incrementAndGet();
+                                return response.status(status.value())
+                                        .sendString(Mono.just("[]").delayElement(Duration.ofMillis(delayMillis)));
+                            }))
+                    .bindNow();
+        }
+
+        String url() {
+            return "http://127.0.0.1:" + server.port();
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.globetrotter.globetrottergateway.compression;
+
+import com.globetrotter.globetrottergateway.cache.ResponseCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Flux;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompressionFilterTests {
+
+    private static final byte[] CATALOG = catalog(200);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicReference<HttpHeaders> forwarded = new AtomicReference<>();
+    private CompressionFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        CompressionProperties properties = new CompressionProperties();
+        filter = new CompressionFilter(properties, new CompressedBodyCache(properties, meterRegistry), meterRegistry);
+    }
+
+    @Test
+    void negotiatesGzipFromAcceptEncoding() {
+        assertTrue(CompressionFilter.acceptsGzip(List.of("gzip, deflate, br")));
+        assertTrue(CompressionFilter.acceptsGzip(List.of("br;q=1.0, GZIP;q=0.5")));
+        assertTrue(CompressionFilter.acceptsGzip(List.of("*;q=0.1")));
+        assertFalse(CompressionFilter.acceptsGzip(List.of("gzip;q=0")));
+        assertFalse(CompressionFilter.acceptsGzip(List.of("gzip;q=0, *")));
+        assertFalse(CompressionFilter.acceptsGzip(List.of("br, identity")));
+    }
+
+    @Test
+    void streamsUpstreamBodiesThroughGzip() {
+        MockServerWebExchange exchange = exchange("gzip, br");
+
+        // The body arrives in 4 KB pieces, as it would from the backend
+        filter.filter(exchange, upstream(null, HttpStatus.OK, 4096)).block();
+
+        ServerHttpResponse response = exchange.getResponse();
+        assertEquals("gzip", response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(-1, response.getHeaders().getContentLength());
+        assertEquals(List.of(HttpHeaders.ACCEPT_ENCODING), response.getHeaders().getVary());
+        byte[] gzipped = body(exchange);
+        assertTrue(gzipped.length < CATALOG.length / 4, "gzipped to " + gzipped.length);
+        assertArrayEquals(CATALOG, gunzip(gzipped));
+        assertNull(forwarded.get().getFirst(HttpHeaders.ACCEPT_ENCODING));
+
+        assertEquals(CATALOG.length, meterRegistry.get("gateway.compression.bytes").tag("stage", "in").counter().count());
+        assertEquals(gzipped.length, meterRegistry.get("gateway.compression.bytes").tag("stage", "out").counter().count());
+    }
+
+    @Test
+    void cachedBodiesAreCompressedOnce() {
+        String etag = ResponseCache.etag(CATALOG);
+
+        for (int i = 0; i < 3; i++) {
+            MockServerWebExchange exchange = exchange("gzip");
+            filter.filter(exchange, upstream(etag, HttpStatus.OK, CATALOG.length)).block();
+
+            HttpHeaders headers = exchange.getResponse().getHeaders();
+            assertEquals("gzip", headers.getFirst(HttpHeaders.CONTENT_ENCODING));
+            assertEquals("W/" + etag, headers.getETag());
+            byte[] gzipped = body(exchange);
+            assertEquals(gzipped.length, headers.getContentLength());
+            assertArrayEquals(CATALOG, gunzip(gzipped));
+        }
+
+        assertEquals(1.0, meterRegistry.get("gateway.compression.precompressed").tag("result", "miss").counter().count());
+        assertEquals(2.0, meterRegistry.get("gateway.compression.precompressed").tag("result", "hit").counter().count());
+        assertEquals(3.0, meterRegistry.get("gateway.compression.responses").tag("mode", "cached").counter().count());
+
+        MockServerWebExchange revalidated = exchange("gzip");
+        filter.filter(revalidated, exchange -> {
+            exchange.getResponse().setStatusCode(HttpStatus.NOT_MODIFIED);
+            exchange.getResponse().getHeaders().setETag(etag);
+            return exchange.getResponse().setComplete();
+        }).block();
+        assertEquals("W/" + etag, revalidated.getResponse().getHeaders().getETag());
+    }
+
+    @Test
+    void leavesSmallUnsupportedAndUnacceptedResponsesAlone() {
+        MockServerWebExchange small = exchange("gzip");
+        filter.filter(small, chain -> {
+            ServerHttpResponse response = chain.getResponse();
+            response.setStatusCode(HttpStatus.OK);
+            response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+            response.getHeaders().setContentLength(2);
+            return response.writeWith(Flux.just(response.bufferFactory().wrap("[]".getBytes(StandardCharsets.UTF_8))));
+        }).block();
+        assertNull(small.getResponse().getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("[]", small.getResponse().getBodyAsString().block());
+
+        MockServerWebExchange image = exchange("gzip");
+        filter.filter(image, chain -> {
+            ServerHttpResponse response = chain.getResponse();
+            response.getHeaders().setContentType(MediaType.IMAGE_PNG);
+            return response.writeWith(Flux.just(response.bufferFactory().wrap(CATALOG)));
+        }).block();
+        assertNull(image.getResponse().getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+
+        MockServerWebExchange identity = exchange("identity");
+        filter.filter(identity, upstream(null, HttpStatus.OK, 4096)).block();
+        assertNull(identity.getResponse().getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertArrayEquals(CATALOG, body(identity));
+    }
+
+    // Writes the catalog in pieces of the given size, with the headers ResponseCacheFilter adds when etag is set
+    private GatewayFilterChain upstream(String etag, HttpStatus status, int pieceSize) {
+        return exchange -> {
+            forwarded.set(exchange.getRequest().getHeaders());
+            ServerHttpResponse response = exchange.getResponse();
+            response.setStatusCode(status);
+            response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+            if (etag != null) {
+                response.getHeaders().setETag(etag);
+                response.getHeaders().set("X-Cache", "HIT");
+                response.getHeaders().setContentLength(CATALOG.length);
+            }
+            Flux<DataBuffer> body = Flux.range(0, (CATALOG.length + pieceSize - 1) / pieceSize)
+                    .map(i -> {
+                        int from = i * pieceSize;
+                        int length = Math.min(pieceSize, CATALOG.length - from);
+                        DataBuffer buffer = response.bufferFactory().allocateBuffer(length);
+                        buffer.write(CATALOG, from, length);
+                        return buffer;
+                    });
+            return response.writeWith(body);
+        };
+    }
+
+    private static MockServerWebExchange exchange(String acceptEncoding) {
+        return MockServerWebExchange.from(MockServerHttpRequest.get("/api/products")
+                .header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding));
+    }
+
+    private static byte[] body(MockServerWebExchange exchange) {
+        DataBuffer joined = DataBufferUtils.join(exchange.getResponse().getBody()).block();
+        byte[] bytes = new byte[joined.readableByteCount()];
+        joined.read(bytes);
+        DataBufferUtils.release(joined);
+        return bytes;
+    }
+
+    private static byte[] gunzip(byte[] gzipped) {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] catalog(int products) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 1; i <= products; i++) {
+            if (i > 1) {
+                json.append(',');
+            }
+            json.append("{\"id\":").append(i)
+                    .append(",\"name\":\"Product ").append(i)
+                    .append("\",\"description\":\"A sturdy, lightweight item for frequent travellers, model ").append(i)
+                    .append("\",\"price\":").append(19.99 + i)
+                    .append(",\"stockQuantity\":100,\"imageUrl\":\"https://example.com/images/").append(i)
+                    .append(".jpg\",\"rating\":4.5,\"reviewsCount\":12,\"category\":{\"id\":1,\"name\":\"Travel Gear\"}}");
+        }
+        return json.append(']').toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
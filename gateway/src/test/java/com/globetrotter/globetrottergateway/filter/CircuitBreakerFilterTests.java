@@ -0,0 +1,207 @@
+package com.globetrotter.globetrottergateway.filter;
+
+import com.globetrotter.globetrottergateway.cache.CachedResponse;
+import com.globetrotter.globetrottergateway.cache.ResponseCache;
+import com.globetrotter.globetrottergateway.resilience.ResilienceProperties;
+import com.globetrotter.globetrottergateway.resilience.RouteGuards;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.Disposable;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Mono;
+
+import java.net.ConnectException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+class CircuitBreakerFilterTests {
+
+    private static final String ROUTE = "product-service-public";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ResilienceProperties properties = new ResilienceProperties();
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+    private RouteGuards routeGuards;
+    private ResponseCache responseCache;
+    private CircuitBreakerFilter factory;
+
+    @BeforeEach
+    void setUp() {
+        ResilienceProperties.Policy policy = properties.getDefaults();
+        policy.setSlidingWindowSize(10);
+        policy.setMinimumCalls(4);
+        policy.setMaxConcurrentCalls(2);
+        policy.setSlowCallDuration(Duration.ofMillis(50));
+        policy.setOpenDuration(Duration.ofSeconds(30));
+        routeGuards = new RouteGuards(properties, meterRegistry);
+
+        responseCache = new ResponseCache();
+        ReflectionTestUtils.setField(responseCache, "maxBytes", 1_000_000L);
+        ReflectionTestUtils.setField(responseCache, "maxEntryBytes", 100_000);
+        ReflectionTestUtils.setField(responseCache, "ttl", Duration.ZERO);
+        ReflectionTestUtils.setField(responseCache, "staleTtl", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(responseCache, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.invokeMethod(responseCache, "init");
+
+        ResponseCacheFilter responseCacheFilter = new ResponseCacheFilter();
+        ReflectionTestUtils.setField(responseCacheFilter, "responseCache", responseCache);
+
+        factory = new CircuitBreakerFilter();
+        ReflectionTestUtils.setField(factory, "routeGuards", routeGuards);
+        ReflectionTestUtils.setField(factory, "responseCache", responseCache);
+        ReflectionTestUtils.setField(factory, "responseCacheFilter", responseCacheFilter);
+        ReflectionTestUtils.setField(factory, "meterRegistry", meterRegistry);
+    }
+
+    @Test
+    void opensAfterFailuresAndFailsFast() {
+        GatewayFilter filter = filter(false);
+        GatewayFilterChain failing = upstream(Mono.error(new ConnectException("Connection refused")));
+
+        for (int i = 0; i < 4; i++) {
+            RuntimeException thrown = assertThrows(RuntimeException.class, () -> filter.filter(exchange(), failing).block());
+            assertInstanceOf(ConnectException.class, Exceptions.unwrap(thrown));
+        }
+        assertEquals(CircuitBreaker.State.OPEN, routeGuards.circuitBreaker(ROUTE).getState());
+
+        MockServerWebExchange rejected = exchange();
+        filter.filter(rejected, failing).block();
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, rejected.getResponse().getStatusCode());
+        assertEquals("30", rejected.getResponse().getHeaders().getFirst("Retry-After"));
+        assertEquals(4, upstreamCalls.get());
+
+        assertEquals(1.0, meterRegistry.get("gateway.circuitbreaker.transitions")
+                .tags("route", ROUTE, "from", "CLOSED", "to", "OPEN").counter().count());
+        assertEquals(1.0, meterRegistry.get("gateway.circuitbreaker.rejected")
+                .tags("route", ROUTE, "reason", "open").counter().count());
+        assertEquals(1.0, meterRegistry.get("resilience4j.circuitbreaker.state")
+                .tags("name", ROUTE, "state", "open").gauge().value());
+    }
+
+    @Test
+    void serverErrorsAndSlowCallsCountAsFailures() {
+        GatewayFilter filter = filter(false);
+
+        for (int i = 0; i < 4; i++) {
+            filter.filter(exchange(), exchange -> {
+                exchange.getResponse().setStatusCode(HttpStatus.INTERNAL_SERVER_ERROR);
+                return Mono.empty();
+            }).block();
+        }
+        assertEquals(CircuitBreaker.State.OPEN, routeGuards.circuitBreaker(ROUTE).getState());
+
+        GatewayFilter orders = factory.apply(new CircuitBreakerFilter.Config());
+        for (int i = 0; i < 4; i++) {
+            orders.filter(exchange("order-service"), upstream(Mono.delay(Duration.ofMillis(80)).then())).block();
+        }
+        assertEquals(CircuitBreaker.State.OPEN, routeGuards.circuitBreaker("order-service").getState());
+    }
+
+    @Test
+    void bulkheadTurnsAwayCallsBeyondTheLimit() {
+        GatewayFilter filter = filter(false);
+        GatewayFilterChain hanging = upstream(Mono.never());
+
+        Disposable first = filter.filter(exchange(), hanging).subscribe();
+        Disposable second = filter.filter(exchange(), hanging).subscribe();
+
+        MockServerWebExchange third = exchange();
+        filter.filter(third, hanging).block();
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, third.getResponse().getStatusCode());
+        assertEquals(1.0, meterRegistry.get("gateway.circuitbreaker.rejected")
+                .tags("route", ROUTE, "reason", "bulkhead").counter().count());
+
+        // A cancelled call frees its permit and is not held against the breaker
+        first.dispose();
+        MockServerWebExchange fourth = exchange();
+        filter.filter(fourth, upstream(Mono.fromRunnable(() -> fourth.getResponse().setStatusCode(HttpStatus.OK)))).block();
+        assertEquals(HttpStatus.OK, fourth.getResponse().getStatusCode());
+        assertEquals(0, routeGuards.circuitBreaker(ROUTE).getMetrics().getNumberOfFailedCalls());
+        second.dispose();
+    }
+
+    @Test
+    void publicGetsFallBackToStaleEntries() {
+        byte[] body = "[{\"id\":1}]".getBytes(StandardCharsets.UTF_8);
+        responseCache.put("/api/products", new CachedResponse(body, "application/json", ResponseCache.etag(body)),
+                responseCache.currentGeneration());
+        assertNull(responseCache.get("/api/products"));
+
+        GatewayFilter filter = filter(true);
+        GatewayFilterChain failing = upstream(Mono.error(new ConnectException("Connection refused")));
+
+        // Upstream error while still closed
+        MockServerWebExchange errored = exchange();
+        filter.filter(errored, failing).block();
+        assertEquals(HttpStatus.OK, errored.getResponse().getStatusCode());
+        assertEquals("STALE", errored.getResponse().getHeaders().getFirst("X-Cache"));
+        assertEquals("[{\"id\":1}]", errored.getResponse().getBodyAsString().block());
+
+        for (int i = 0; i < 3; i++) {
+            filter.filter(exchange(), failing).block();
+        }
+        assertEquals(CircuitBreaker.State.OPEN, routeGuards.circuitBreaker(ROUTE).getState());
+
+        // Open: answered without calling upstream
+        int calls = upstreamCalls.get();
+        MockServerWebExchange open = exchange();
+        filter.filter(open, failing).block();
+        assertEquals(HttpStatus.OK, open.getResponse().getStatusCode());
+        assertEquals("STALE", open.getResponse().getHeaders().getFirst("X-Cache"));
+        assertEquals(calls, upstreamCalls.get());
+
+        // Nothing cached for this path
+        MockServerWebExchange uncached = exchange(ROUTE, "/api/products/7");
+        filter.filter(uncached, failing).block();
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, uncached.getResponse().getStatusCode());
+
+        assertEquals(5.0, meterRegistry.get("gateway.response_cache.requests").tag("result", "stale").counter().count());
+    }
+
+    private GatewayFilter filter(boolean staleFallback) {
+        CircuitBreakerFilter.Config config = new CircuitBreakerFilter.Config();
+        config.setStaleFallback(staleFallback);
+        return factory.apply(config);
+    }
+
+    private GatewayFilterChain upstream(Mono<?> call) {
+        return exchange -> Mono.defer(() -> {
+            upstreamCalls.incrementAndGet();
+            return call.then();
+        });
+    }
+
+    private static MockServerWebExchange exchange() {
+        return exchange(ROUTE);
+    }
+
+    private static MockServerWebExchange exchange(String routeId) {
+        return exchange(routeId, "/api/products");
+    }
+
+    private static MockServerWebExchange exchange(String routeId, String path) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get(path));
+        exchange.getAttributes().put(GATEWAY_ROUTE_ATTR, Route.async()
+                .id(routeId)
+                .uri("lb://backend")
+                .predicate(e -> true)
+                .build());
+        return exchange;
+    }
+}
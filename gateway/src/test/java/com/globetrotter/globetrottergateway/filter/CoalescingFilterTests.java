@@ -0,0 +1,183 @@
+package com.globetrotter.globetrottergateway.filter;
+
+import com.globetrotter.globetrottergateway.cache.ResponseCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+class CoalescingFilterTests {
+
+    private static final String ROUTE = "product-service-public";
+    private static final String BODY = "[{\"id\":1,\"name\":\"Lisbon\"}]";
+    private static final String ETAG = ResponseCache.etag(BODY.getBytes(StandardCharsets.UTF_8));
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+    private final Sinks.Empty<Void> release = Sinks.empty();
+    private CoalescingFilter factory;
+
+    @BeforeEach
+    void setUp() {
+        factory = new CoalescingFilter();
+        ReflectionTestUtils.setField(factory, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.invokeMethod(factory, "init");
+    }
+
+    @Test
+    void identicalRequestsShareOneUpstreamCall() {
+        GatewayFilter filter = filter(1000);
+        List<MockServerWebExchange> exchanges = IntStream.range(0, 50).mapToObj(i -> exchange("/api/products")).toList();
+
+        runTogether(filter, exchanges);
+
+        assertEquals(1, upstreamCalls.get());
+        for (MockServerWebExchange exchange : exchanges) {
+            assertEquals(HttpStatus.OK, exchange.getResponse().getStatusCode());
+            assertEquals(BODY, exchange.getResponse().getBodyAsString().block());
+            assertEquals(ETAG, exchange.getResponse().getHeaders().getETag());
+        }
+        assertNull(exchanges.get(1).getResponse().getHeaders().getFirst("X-RateLimit-Remaining"));
+        assertEquals(1.0, requests("leader"));
+        assertEquals(49.0, requests("follower"));
+        assertEquals(49.0, meterRegistry.get("gateway.coalescing.waiters").summary().max());
+        assertEquals(0.0, meterRegistry.get("gateway.coalescing.in_flight").gauge().value());
+    }
+
+    @Test
+    void differentQueriesAndLanguagesAreNotShared() {
+        GatewayFilter filter = filter(1000);
+        MockServerWebExchange english = exchange("/api/products?page=1");
+        MockServerWebExchange secondPage = exchange("/api/products?page=2");
+        MockServerWebExchange portuguese = MockServerWebExchange.from(MockServerHttpRequest.get("/api/products?page=1")
+                .header(HttpHeaders.ACCEPT_LANGUAGE, "pt-PT"));
+        portuguese.getAttributes().put(GATEWAY_ROUTE_ATTR, english.getRequiredAttribute(GATEWAY_ROUTE_ATTR));
+
+        runTogether(filter, List.of(english, secondPage, portuguese, exchange("/api/products?page=1")));
+
+        assertEquals(3, upstreamCalls.get());
+    }
+
+    @Test
+    void waitersBeyondTheLimitStartANewCall() {
+        GatewayFilter filter = filter(3);
+
+        runTogether(filter, IntStream.range(0, 10).mapToObj(i -> exchange("/api/products")).toList());
+
+        // A leader and three followers per call
+        assertEquals(3, upstreamCalls.get());
+        assertEquals(7.0, requests("follower"));
+    }
+
+    @Test
+    void conditionalRequestsAreAnsweredPerClient() {
+        GatewayFilter filter = filter(1000);
+        MockServerWebExchange revalidating = MockServerWebExchange.from(MockServerHttpRequest.get("/api/products")
+                .header(HttpHeaders.IF_NONE_MATCH, ETAG));
+        revalidating.getAttributes().put(GATEWAY_ROUTE_ATTR, route());
+        MockServerWebExchange fresh = exchange("/api/products");
+        MockServerWebExchange followerRevalidating = MockServerWebExchange.from(MockServerHttpRequest.get("/api/products")
+                .header(HttpHeaders.IF_NONE_MATCH, ETAG));
+        followerRevalidating.getAttributes().put(GATEWAY_ROUTE_ATTR, route());
+
+        runTogether(filter, List.of(revalidating, fresh, followerRevalidating));
+
+        assertEquals(1, upstreamCalls.get());
+        assertEquals(HttpStatus.NOT_MODIFIED, revalidating.getResponse().getStatusCode());
+        assertEquals(HttpStatus.OK, fresh.getResponse().getStatusCode());
+        assertEquals(BODY, fresh.getResponse().getBodyAsString().block());
+        assertEquals(HttpStatus.NOT_MODIFIED, followerRevalidating.getResponse().getStatusCode());
+    }
+
+    @Test
+    void followersGoUpstreamThemselvesWhenTheLeaderIsCancelled() {
+        GatewayFilter filter = filter(1000);
+        MockServerWebExchange leader = exchange("/api/products");
+        MockServerWebExchange follower = exchange("/api/products");
+
+        Disposable leading = filter.filter(leader, upstream()).subscribe();
+        Mono<Void> following = filter.filter(follower, upstream()).cache();
+        following.subscribe();
+        leading.dispose();
+
+        release.tryEmitEmpty();
+        following.block(Duration.ofSeconds(5));
+        assertEquals(2, upstreamCalls.get());
+
+        assertEquals(HttpStatus.OK, follower.getResponse().getStatusCode());
+        assertEquals(BODY, follower.getResponse().getBodyAsString().block());
+        assertEquals(0.0, meterRegistry.get("gateway.coalescing.in_flight").gauge().value());
+    }
+
+    // Every request is waiting on the chain before the upstream answers
+    private void runTogether(GatewayFilter filter, List<MockServerWebExchange> exchanges) {
+        Mono<Void> all = Flux.fromIterable(exchanges)
+                .flatMap(exchange -> filter.filter(exchange, upstream()))
+                .then()
+                .cache();
+        all.subscribe();
+        release.tryEmitEmpty();
+        all.block(Duration.ofSeconds(5));
+    }
+
+    private GatewayFilter filter(int maxWaiters) {
+        CoalescingFilter.Config config = new CoalescingFilter.Config();
+        config.setMaxWaiters(maxWaiters);
+        return factory.apply(config);
+    }
+
+    // Answers once release fires, as a backend would, with headers the rate limiter and cache set per client
+    private GatewayFilterChain upstream() {
+        return exchange -> Mono.defer(() -> {
+            upstreamCalls.incrementAndGet();
+            return release.asMono().then(Mono.defer(() -> {
+                ServerHttpResponse response = exchange.getResponse();
+                response.setStatusCode(HttpStatus.OK);
+                response.getHeaders().setETag(ETAG);
+                response.getHeaders().add("X-RateLimit-Remaining", "99");
+                return response.writeWith(Mono.just(response.bufferFactory()
+                        .wrap(BODY.getBytes(StandardCharsets.UTF_8))));
+            }));
+        });
+    }
+
+    private double requests(String role) {
+        return meterRegistry.get("gateway.coalescing.requests").tags("route", ROUTE, "role", role).counter().count();
+    }
+
+    private static MockServerWebExchange exchange(String path) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get(path));
+        exchange.getAttributes().put(GATEWAY_ROUTE_ATTR, route());
+        return exchange;
+    }
+
+    private static Route route() {
+        return Route.async()
+                .id(ROUTE)
+                .uri("lb://backend")
+                .predicate(exchange -> true)
+                .build();
+    }
+}
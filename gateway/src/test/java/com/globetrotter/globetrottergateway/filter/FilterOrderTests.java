@@ -0,0 +1,54 @@
+package com.globetrotter.globetrottergateway.filter;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotationAwareOrderComparator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The gateway sorts a route's filters by order before running them. Whatever order the
+ * route lists them in, nothing may answer a request before it is authenticated and
+ * counted against the rate limit.
+ */
+class FilterOrderTests {
+
+    @Test
+    void cacheHitsAreRateLimited() {
+        GatewayFilter cache = new ResponseCacheFilter().apply(new ResponseCacheFilter.Config());
+        GatewayFilter rateLimit = new RateLimitFilter().apply(new RateLimitFilter.Config());
+        GatewayFilter jwt = new JwtAuthenticationFilter().apply(new JwtAuthenticationFilter.Config());
+
+        // Listed the way the public routes list them, cache first
+        List<GatewayFilter> sorted = sort(cache, rateLimit, jwt);
+
+        assertEquals(List.of(jwt, rateLimit, cache), sorted);
+        assertTrue(order(cache) < NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER,
+                "the cache must still see the response body");
+    }
+
+    @Test
+    void coalescedFollowersAreRateLimited() {
+        GatewayFilter coalescing = new CoalescingFilter().apply(new CoalescingFilter.Config());
+        GatewayFilter cache = new ResponseCacheFilter().apply(new ResponseCacheFilter.Config());
+        GatewayFilter rateLimit = new RateLimitFilter().apply(new RateLimitFilter.Config());
+
+        assertEquals(List.of(rateLimit, coalescing, cache), sort(coalescing, cache, rateLimit));
+    }
+
+    static List<GatewayFilter> sort(GatewayFilter... filters) {
+        List<GatewayFilter> sorted = new ArrayList<>(List.of(filters));
+        AnnotationAwareOrderComparator.sort(sorted);
+        return sorted;
+    }
+
+    static int order(GatewayFilter filter) {
+        return ((Ordered) filter).getOrder();
+    }
+}
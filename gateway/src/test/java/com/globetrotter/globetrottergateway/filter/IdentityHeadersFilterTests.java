@@ -0,0 +1,38 @@
+package com.globetrotter.globetrottergateway.filter;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class IdentityHeadersFilterTests {
+
+    private final IdentityHeadersFilter filter = new IdentityHeadersFilter();
+
+    @Test
+    void clientIdentityHeadersNeverReachTheBackend() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/auth/me")
+                .header("X-Username", "admin")
+                .header("X-User-Id", "1")
+                .header("X-User-Roles", "ROLE_ADMIN")
+                .header("X-Gateway-Signature", "forged")
+                .header("X-Gateway-Signed-At", "1700000000")
+                .header(HttpHeaders.ACCEPT, "application/json"));
+        AtomicReference<HttpHeaders> forwarded = new AtomicReference<>();
+
+        filter.filter(exchange, chained -> {
+            forwarded.set(chained.getRequest().getHeaders());
+            return chained.getResponse().setComplete();
+        }).block();
+
+        for (String header : IdentityHeadersFilter.IDENTITY_HEADERS) {
+            assertNull(forwarded.get().getFirst(header), header);
+        }
+        assertEquals("application/json", forwarded.get().getFirst(HttpHeaders.ACCEPT));
+    }
+}
@@ -0,0 +1,101 @@
+package com.globetrotter.globetrottergateway.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RateLimiterTests {
+
+    private static final Duration MINUTE = Duration.ofMinutes(1);
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    void allowsBurstUpToLimitThenRejects() {
+        RateLimiter limiter = new RateLimiter(1000, Duration.ofMinutes(2), clock::get);
+
+        for (int i = 0; i < 10; i++) {
+            RateLimiter.Decision decision = limiter.tryAcquire("k", 10, MINUTE);
+            assertTrue(decision.isAllowed());
+            assertEquals(9 - i, decision.getRemaining());
+        }
+
+        RateLimiter.Decision rejected = limiter.tryAcquire("k", 10, MINUTE);
+        assertFalse(rejected.isAllowed());
+        assertEquals(6, rejected.getRetryAfterSeconds());
+    }
+
+    @Test
+    void refillsEvenlyOverThePeriod() {
+        RateLimiter limiter = new RateLimiter(1000, Duration.ofMinutes(2), clock::get);
+        for (int i = 0; i < 60; i++) {
+            limiter.tryAcquire("k", 60, MINUTE);
+        }
+        assertFalse(limiter.tryAcquire("k", 60, MINUTE).isAllowed());
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertTrue(limiter.tryAcquire("k", 60, MINUTE).isAllowed());
+        assertFalse(limiter.tryAcquire("k", 60, MINUTE).isAllowed());
+    }
+
+    @Test
+    void keysAreIndependentAndBounded() {
+        RateLimiter limiter = new RateLimiter(100, Duration.ofMinutes(2), clock::get);
+
+        assertTrue(limiter.tryAcquire("a", 1, MINUTE).isAllowed());
+        assertTrue(limiter.tryAcquire("b", 1, MINUTE).isAllowed());
+        assertFalse(limiter.tryAcquire("a", 1, MINUTE).isAllowed());
+
+        for (int i = 0; i < 10_000; i++) {
+            limiter.tryAcquire("ip-" + i, 5, MINUTE);
+        }
+        limiter.getBuckets().cleanUp();
+        assertTrue(limiter.trackedKeys() <= 100);
+    }
+
+    @Test
+    void concurrentCallersNeverExceedTheLimit() throws Exception {
+        RateLimiter limiter = new RateLimiter(1000, Duration.ofMinutes(2), clock::get);
+        int threads = 16;
+        int attemptsPerThread = 5_000;
+        int limit = 1_000;
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            results.add(pool.submit(() -> {
+                start.await();
+                int allowed = 0;
+                for (int i = 0; i < attemptsPerThread; i++) {
+                    if (limiter.tryAcquire("shared", limit, MINUTE).isAllowed()) {
+                        allowed++;
+                    }
+                }
+                return allowed;
+            }));
+        }
+
+        start.countDown();
+        int totalAllowed = 0;
+        for (Future<Integer> result : results) {
+            totalAllowed += result.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        // The clock is frozen, so exactly one full bucket may be handed out
+        assertEquals(limit, totalAllowed);
+    }
+}
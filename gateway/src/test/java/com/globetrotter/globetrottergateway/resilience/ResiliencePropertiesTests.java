@@ -0,0 +1,64 @@
+package com.globetrotter.globetrottergateway.resilience;
+
+import com.globetrotter.globetrottergateway.upstream.UpstreamClients;
+import com.globetrotter.globetrottergateway.upstream.UpstreamProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResiliencePropertiesTests {
+
+    @Test
+    void routeEntriesOnlyChangeTheFieldsTheySet() {
+        ResilienceProperties properties = new ResilienceProperties();
+        properties.getDefaults().setMaxConcurrentCalls(20);
+        properties.getDefaults().setSlowCallDuration(Duration.ofSeconds(2));
+        ResilienceProperties.Overrides checkout = new ResilienceProperties.Overrides();
+        checkout.setMaxConcurrentCalls(25);
+        properties.getRoutes().put("cart-service", checkout);
+
+        ResilienceProperties.Policy cart = properties.policyFor("cart-service");
+        assertEquals(25, cart.getMaxConcurrentCalls());
+        assertEquals(Duration.ofSeconds(2), cart.getSlowCallDuration());
+        assertEquals(properties.getDefaults().getHalfOpenCalls(), cart.getHalfOpenCalls());
+        assertSame(properties.getDefaults(), properties.policyFor("auth-service"));
+    }
+
+    // Otherwise calls the bulkheads admit wait on the pool, where one route can starve another
+    @Test
+    void bulkheadsFitTheirUpstreamPool() throws IOException {
+        Binder binder = new Binder(ConfigurationPropertySources.from(
+                new YamlPropertySourceLoader().load("application", new ClassPathResource("application.yml"))));
+        ResilienceProperties resilience = binder.bind("gateway.resilience", ResilienceProperties.class).get();
+        UpstreamProperties upstream = binder.bind("gateway.upstream", UpstreamProperties.class).get();
+        List<RouteDefinition> routes = binder.bind("spring.cloud.gateway.routes",
+                Bindable.listOf(RouteDefinition.class)).get();
+        assertFalse(routes.isEmpty());
+
+        Map<String, Integer> admitted = new HashMap<>();
+        for (RouteDefinition route : routes) {
+            Object profile = route.getMetadata().getOrDefault(UpstreamClients.PROFILE_METADATA,
+                    UpstreamProperties.DEFAULT_PROFILE);
+            admitted.merge(profile.toString(), resilience.policyFor(route.getId()).getMaxConcurrentCalls(), Integer::sum);
+        }
+        admitted.forEach((profile, calls) -> {
+            int connections = upstream.getProfiles().get(profile).getMaxConnections();
+            assertTrue(calls <= connections, profile + " admits " + calls + " calls for " + connections + " connections");
+        });
+    }
+}
@@ -0,0 +1,166 @@
+package com.globetrotter.globetrottergateway.upstream;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.config.HttpClientSslConfigurer;
+import org.springframework.cloud.gateway.route.Route;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.server.HttpServer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Profiles against a stub backend that answers after a fixed delay and counts the
+ * connections it accepts.
+ */
+class UpstreamClientsTests {
+
+    private static final Duration DELAY = Duration.ofMillis(300);
+
+    private final AtomicInteger connections = new AtomicInteger();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private DisposableServer backend;
+    private UpstreamClients clients;
+
+    @BeforeEach
+    void startBackend() {
+        Metrics.addRegistry(meterRegistry);
+        backend = HttpServer.create()
+                .port(0)
+                .protocol(HttpProtocol.HTTP11, HttpProtocol.H2C)
+                .doOnChannelInit((observer, channel, address) -> connections.incrementAndGet())
+                .handle((request, response) -> response.sendString(Mono.just("ok").delayElement(DELAY)))
+                .bindNow();
+    }
+
+    @AfterEach
+    void stopBackend() {
+        if (clients != null) {
+            clients.destroy();
+        }
+        backend.disposeNow();
+        Metrics.removeRegistry(meterRegistry);
+    }
+
+    @Test
+    void burstBeyondThePoolAndItsQueueFailsFast() {
+        UpstreamProperties.Profile profile = new UpstreamProperties.Profile();
+        profile.setMaxConnections(2);
+        profile.setPendingAcquireMaxCount(2);
+        HttpClient client = clients(Map.of("small", profile)).get("small");
+
+        long started = System.nanoTime();
+        List<Object> results = Flux.range(0, 10)
+                .flatMap(i -> get(client).cast(Object.class).onErrorResume(Mono::just), 10)
+                .collectList()
+                .block(Duration.ofSeconds(10));
+
+        assertEquals(4, results.stream().filter("ok"::equals).count());
+        assertEquals(6, results.stream()
+                .filter(result -> result instanceof Throwable ex && UpstreamClients.isPoolExhausted(ex)).count());
+        // Two rounds of the two connections, not one round per request
+        assertTrue(System.nanoTime() - started < 3 * DELAY.toNanos());
+        assertEquals(2, connections.get());
+        // Only the two requests that queued for a connection waited
+        Timer waited = meterRegistry.get("reactor.netty.connection.provider.pending.connections.time")
+                .tag("name", UpstreamClients.POOL_PREFIX + "small").tag("status", "SUCCESS").timer();
+        assertEquals(2, waited.count());
+        assertTrue(waited.totalTime(TimeUnit.MILLISECONDS) >= 2 * DELAY.toMillis() * 0.9);
+    }
+
+    @Test
+    void connectionsAreReusedAndPoolMetricsPublished() throws InterruptedException {
+        HttpClient client = clients(Map.of()).get(UpstreamProperties.DEFAULT_PROFILE);
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals("ok", get(client).block(Duration.ofSeconds(5)));
+            // The connection goes back to the pool just after the body completes
+            Thread.sleep(50);
+        }
+
+        assertEquals(1, connections.get());
+        String pool = UpstreamClients.POOL_PREFIX + UpstreamProperties.DEFAULT_PROFILE;
+        assertEquals(1.0, meterRegistry.get("reactor.netty.connection.provider.idle.connections")
+                .tag("name", pool).gauge().value());
+        assertEquals(0.0, meterRegistry.get("reactor.netty.connection.provider.active.connections")
+                .tag("name", pool).gauge().value());
+        assertEquals(0.0, meterRegistry.get("reactor.netty.connection.provider.pending.connections")
+                .tag("name", pool).gauge().value());
+    }
+
+    @Test
+    void h2cProfileMultiplexesRequestsOverOneConnection() {
+        UpstreamProperties.Profile profile = new UpstreamProperties.Profile();
+        profile.setH2c(true);
+        profile.setMaxConnections(1);
+        HttpClient client = clients(Map.of("h2c", profile)).get("h2c");
+
+        List<String> results = Flux.range(0, 10)
+                .flatMap(i -> get(client), 10)
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        assertEquals(10, results.size());
+        assertEquals(1, connections.get());
+    }
+
+    @Test
+    void routesUseTheProfileNamedInTheirMetadata() {
+        clients = clients(Map.of("checkout", new UpstreamProperties.Profile()));
+
+        HttpClient checkout = clients.forRoute(route(Map.of(UpstreamClients.PROFILE_METADATA, "checkout")));
+        HttpClient plain = clients.forRoute(route(Map.of()));
+        HttpClient unknown = clients.forRoute(route(Map.of(UpstreamClients.PROFILE_METADATA, "missing")));
+
+        assertSame(clients.get("checkout"), checkout);
+        assertSame(clients.get(UpstreamProperties.DEFAULT_PROFILE), plain);
+        assertSame(plain, unknown);
+        assertNotSame(checkout, plain);
+    }
+
+    private UpstreamClients clients(Map<String, UpstreamProperties.Profile> profiles) {
+        UpstreamProperties properties = new UpstreamProperties();
+        properties.getProfiles().putAll(profiles);
+        HttpClientProperties httpClientProperties = new HttpClientProperties();
+        ServerProperties serverProperties = new ServerProperties();
+        clients = new UpstreamClients(properties, httpClientProperties, serverProperties,
+                new HttpClientSslConfigurer(httpClientProperties.getSsl(), serverProperties), List.of());
+        return clients;
+    }
+
+    private Mono<String> get(HttpClient client) {
+        return client.get()
+                .uri("http://127.0.0.1:" + backend.port() + "/")
+                .responseContent()
+                .aggregate()
+                .asString();
+    }
+
+    private static Route route(Map<String, Object> metadata) {
+        return Route.async()
+                .id("test")
+                .uri("http://localhost")
+                .predicate(exchange -> true)
+                .metadata(metadata)
+                .build();
+    }
+}